@@ -1,5 +1,6 @@
 package com.lemillion.city_data_overload_server.agent;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -16,6 +17,11 @@ import java.util.Map;
 @NoArgsConstructor
 @AllArgsConstructor
 public class AgentRequest {
+
+    // Values for priority; lower is more urgent, unset is treated as interactive
+    public static final int PRIORITY_EMERGENCY = 0;
+    public static final int PRIORITY_INTERACTIVE = 1;
+    public static final int PRIORITY_BACKGROUND = 2;
     
     private String requestId;
     private String requestType;
@@ -49,4 +55,8 @@ public class AgentRequest {
     private Map<String, Object> metadata;
     private Integer priority;
     private Long timeoutMs;
+    
+    // Set from timeoutMs when the request is routed; pass it on to sub-requests
+    @JsonIgnore
+    private Deadline deadline;
 } 
\ No newline at end of file
@@ -71,4 +71,11 @@ public class AgentResponse {
             .timestamp(LocalDateTime.now())
             .build();
     }
+    
+    /**
+     * Creates the response for a request whose deadline passed before it was answered
+     */
+    public static AgentResponse deadlineExceeded(String requestId, String agentId) {
+        return error(requestId, agentId, "Request deadline exceeded", "DEADLINE_EXCEEDED");
+    }
 } 
\ No newline at end of file
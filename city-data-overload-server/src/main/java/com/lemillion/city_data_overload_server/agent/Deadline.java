@@ -0,0 +1,76 @@
+package com.lemillion.city_data_overload_server.agent;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point in time by which a request must be answered. Set once when a request
+ * enters the agent graph and inherited by its sub-requests, so every agent and
+ * Vertex AI call works against the same remaining budget.
+ */
+public final class Deadline {
+
+    /**
+     * No deadline; used for background work such as scheduled fetches
+     */
+    public static final Deadline NONE = new Deadline(0);
+
+    private final long expiresAtNanos;
+
+    private Deadline(long expiresAtNanos) {
+        this.expiresAtNanos = expiresAtNanos;
+    }
+
+    public static Deadline after(Duration timeout) {
+        return new Deadline(System.nanoTime() + timeout.toNanos());
+    }
+
+    /**
+     * Deadline of a request; requests without one are unbounded
+     */
+    public static Deadline of(AgentRequest request) {
+        return request == null || request.getDeadline() == null ? NONE : request.getDeadline();
+    }
+
+    public boolean isBounded() {
+        return this != NONE;
+    }
+
+    public boolean isExpired() {
+        return isBounded() && remainingNanos() <= 0;
+    }
+
+    /**
+     * Time left, zero once expired; callers should check isBounded first
+     */
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0, remainingNanos()));
+    }
+
+    /**
+     * The same point in time moved by the given amount
+     */
+    public Deadline plus(Duration amount) {
+        return isBounded() ? new Deadline(expiresAtNanos + amount.toNanos()) : NONE;
+    }
+
+    /**
+     * Fail the future with DeadlineExceededException if it is still running at
+     * the deadline. The future itself is completed, so work queued behind it
+     * (such as a Vertex AI executor task) is skipped rather than started;
+     * only pass futures this caller owns, never one shared with other callers.
+     */
+    public <T> CompletableFuture<T> bound(CompletableFuture<T> future) {
+        if (!isBounded() || future.isDone()) {
+            return future;
+        }
+        CompletableFuture.delayedExecutor(Math.max(0, remainingNanos()), TimeUnit.NANOSECONDS)
+            .execute(() -> future.completeExceptionally(new DeadlineExceededException()));
+        return future;
+    }
+
+    private long remainingNanos() {
+        return expiresAtNanos - System.nanoTime();
+    }
+}
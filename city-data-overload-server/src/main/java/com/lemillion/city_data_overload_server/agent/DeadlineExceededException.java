@@ -0,0 +1,12 @@
+package com.lemillion.city_data_overload_server.agent;
+
+/**
+ * Thrown when a request's deadline passes before the work finished.
+ * Not a dependency failure, so circuit breakers and retries ignore it.
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    public DeadlineExceededException() {
+        super("Request deadline exceeded");
+    }
+}
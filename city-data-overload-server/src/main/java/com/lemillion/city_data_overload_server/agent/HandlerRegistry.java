@@ -1,5 +1,6 @@
 package com.lemillion.city_data_overload_server.agent;
 
+import com.lemillion.city_data_overload_server.config.DeadlineConfig;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
@@ -21,6 +22,9 @@ public class HandlerRegistry {
     @Autowired
     private ApplicationContext applicationContext;
     
+    @Autowired
+    private DeadlineConfig deadlineConfig;
+    
     private final Map<String, List<FlutterPageHandler>> handlers = new HashMap<>();
     private final Map<String, FlutterPageHandler> primaryHandlers = new HashMap<>();
     
@@ -83,13 +87,23 @@ public class HandlerRegistry {
     }
     
     /**
-     * Route request to appropriate handler based on page type
+     * Route request to appropriate handler based on page type.
+     * Starts the request's deadline if it has none; the handler's response
+     * fails with DeadlineExceededException if it is not ready shortly after.
      */
     public CompletableFuture<AgentResponse> routeRequest(AgentRequest request) {
         String pageType = determinePageType(request);
         
+        if (request.getDeadline() == null) {
+            request.setDeadline(deadlineConfig.deadlineFor(pageType, request.getTimeoutMs()));
+        }
+        
         log.debug("Routing request {} to page type: {}", request.getRequestId(), pageType);
         
+        return request.getDeadline().plus(deadlineConfig.getGrace()).bound(dispatch(request, pageType));
+    }
+    
+    private CompletableFuture<AgentResponse> dispatch(AgentRequest request, String pageType) {
         // Get handlers for this page type
         List<FlutterPageHandler> pageHandlers = handlers.get(pageType);
         
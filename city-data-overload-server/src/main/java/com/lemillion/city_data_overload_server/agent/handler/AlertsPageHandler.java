@@ -3,6 +3,7 @@ package com.lemillion.city_data_overload_server.agent.handler;
 import com.lemillion.city_data_overload_server.agent.*;
 import com.lemillion.city_data_overload_server.agent.impl.PredictiveAgent;
 import com.lemillion.city_data_overload_server.agent.impl.AlertAgent;
+import com.lemillion.city_data_overload_server.service.VertexAiPriority;
 import com.lemillion.city_data_overload_server.service.VertexAiService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -129,6 +130,7 @@ public class AlertsPageHandler implements FlutterPageHandler {
             .radiusKm(originalRequest.getRadiusKm() != null ? originalRequest.getRadiusKm() : 5.0)
             .maxResults(originalRequest.getMaxResults() != null ? originalRequest.getMaxResults() : 10)
             .parameters(originalRequest.getParameters())
+            .deadline(originalRequest.getDeadline())
             .build();
     }
     
@@ -148,6 +150,7 @@ public class AlertsPageHandler implements FlutterPageHandler {
             .radiusKm(originalRequest.getRadiusKm() != null ? originalRequest.getRadiusKm() : 5.0)
             .maxResults(originalRequest.getMaxResults() != null ? originalRequest.getMaxResults() : 3)
             .parameters(parameters)
+            .deadline(originalRequest.getDeadline())
             .build();
     }
 
@@ -162,7 +165,8 @@ public class AlertsPageHandler implements FlutterPageHandler {
         String enhancedPrompt = buildContextualPrompt(userQuery, request, alerts);
         
         // Pass empty events list but provide alerts context in prompt
-        return vertexAiService.synthesizeEvents(List.of(), enhancedPrompt)
+        return vertexAiService.synthesizeEvents(List.of(), enhancedPrompt, VertexAiPriority.of(request),
+                Deadline.of(request))
             .exceptionally(throwable -> {
                 log.warn("AI chat response failed, using fallback", throwable);
                 return "I'm monitoring conditions in your area. Everything looks normal right now.";
@@ -4,6 +4,8 @@ import com.lemillion.city_data_overload_server.agent.*;
 import com.lemillion.city_data_overload_server.agent.impl.EventsAgent;
 import com.lemillion.city_data_overload_server.agent.impl.AlertAgent;
 import com.lemillion.city_data_overload_server.model.CityEvent;
+import com.lemillion.city_data_overload_server.service.CachedEventService;
+import com.lemillion.city_data_overload_server.service.VertexAiPriority;
 import com.lemillion.city_data_overload_server.service.VertexAiService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -11,6 +13,9 @@ import lombok.extern.slf4j.Slf4j;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 /**
  * Handler for Flutter CHAT page requests
@@ -24,6 +29,8 @@ public class ChatPageHandler implements FlutterPageHandler {
     private final VertexAiService vertexAiService;
     private final EventsAgent eventsAgent;
     private final AlertAgent alertAgent;
+    private final CachedEventService cachedEventService;
+    private final PageDataFanOut pageDataFanOut;
 
     @Override
     public String getPageType() {
@@ -48,25 +55,24 @@ public class ChatPageHandler implements FlutterPageHandler {
     public CompletableFuture<AgentResponse> handle(AgentRequest request) {
         log.info("Processing CHAT page request: {}", request.getQuery());
         
-        // Get both events and alerts for complete context
-        CompletableFuture<List<CityEvent>> eventsFuture = getAllEventsForChat(request);
-        CompletableFuture<List<Map<String, Object>>> alertsFuture = getRecentAlerts(request);
+        // Fan out for context with a budget per branch; a slow source degrades to cached data
+        CompletableFuture<List<CityEvent>> eventsFuture = pageDataFanOut.branch("chat-events", request,
+            () -> getAllEventsForChat(request), () -> getCachedEventsForChat(request), List.of());
+        CompletableFuture<List<Map<String, Object>>> alertsFuture = pageDataFanOut.branch("chat-alerts", request,
+            () -> getRecentAlerts(request), null, List.of());
         
-        return CompletableFuture.allOf(eventsFuture, alertsFuture)
-            .thenCompose(ignored -> {
-                List<CityEvent> events = eventsFuture.join();
-                List<Map<String, Object>> alerts = alertsFuture.join();
+        // Answer as soon as the events are in; alerts still running get a short wait, then their last good result
+        return eventsFuture.thenCompose(events ->
+                pageDataFanOut.forPrompt(alertsFuture, "chat-alerts", request, List.<Map<String, Object>>of())
+                    .thenCompose(alerts -> generateChatResponse(request.getQuery(), request, events, alerts)))
+            .thenApply(chatResponse -> {
+                Map<String, Object> chatData = Map.of(
+                    "page", "chat",
+                    "conversation_context", buildConversationContext(request),
+                    "suggested_questions", generateSuggestedQuestions(request)
+                );
                 
-                return generateChatResponse(request.getQuery(), request, events, alerts)
-                    .thenApply(chatResponse -> {
-                        Map<String, Object> chatData = Map.of(
-                            "page", "chat",
-                            "conversation_context", buildConversationContext(request),
-                            "suggested_questions", generateSuggestedQuestions(request)
-                        );
-                        
-                        return createSuccessResponse(request, chatData, chatResponse);
-                    });
+                return createSuccessResponse(request, chatData, chatResponse);
             });
     }
 
@@ -75,30 +81,95 @@ public class ChatPageHandler implements FlutterPageHandler {
         return "Handles pure conversational chat interface with contextual suggestions";
     }
 
+    /**
+     * Streamed variant of handle. Sends the events and alerts the answer is
+     * based on as one context frame, then the model's answer chunk by chunk.
+     * Completes with the full answer once the last chunk was sent.
+     */
+    public CompletableFuture<String> stream(AgentRequest request, Consumer<Map<String, Object>> onContext,
+                                            Consumer<String> onChunk) {
+        log.info("Processing streamed CHAT page request: {}", request.getQuery());
+        
+        CompletableFuture<List<CityEvent>> eventsFuture = pageDataFanOut.branch("chat-events", request,
+            () -> getAllEventsForChat(request), () -> getCachedEventsForChat(request), List.of());
+        CompletableFuture<List<Map<String, Object>>> alertsFuture = pageDataFanOut.branch("chat-alerts", request,
+            () -> getRecentAlerts(request), null, List.of());
+        
+        return eventsFuture.thenCompose(events ->
+            pageDataFanOut.forPrompt(alertsFuture, "chat-alerts", request, List.<Map<String, Object>>of())
+                .thenCompose(alerts -> {
+                    onContext.accept(Map.of(
+                        "page", "chat",
+                        "events", events,
+                        "alerts", alerts,
+                        "conversation_context", buildConversationContext(request),
+                        "suggested_questions", generateSuggestedQuestions(request)
+                    ));
+                    
+                    String cannedResponse = cannedResponse(request.getQuery(), events, alerts);
+                    if (cannedResponse != null) {
+                        onChunk.accept(cannedResponse);
+                        return CompletableFuture.completedFuture(cannedResponse);
+                    }
+                    
+                    AtomicBoolean streamed = new AtomicBoolean();
+                    return vertexAiService.streamChatResponse(buildContextualPrompt(request.getQuery(), request, events, alerts),
+                            VertexAiPriority.of(request), Deadline.of(request), chunk -> {
+                                streamed.set(true);
+                                onChunk.accept(chunk);
+                            })
+                        .exceptionally(throwable -> {
+                            if (streamed.get()) {
+                                // Part of the answer is already out; a fallback would not make sense after it
+                                throw throwable instanceof CompletionException completion ? completion
+                                    : new CompletionException(throwable);
+                            }
+                            log.warn("AI chat stream failed, using fallback", throwable);
+                            String fallback = fallbackResponse(request.getQuery());
+                            onChunk.accept(fallback);
+                            return fallback;
+                        });
+                }));
+    }
+
     private CompletableFuture<String> generateChatResponse(String userQuery, AgentRequest request, 
                                                           List<CityEvent> events, List<Map<String, Object>> alerts) {
+        String cannedResponse = cannedResponse(userQuery, events, alerts);
+        if (cannedResponse != null) {
+            return CompletableFuture.completedFuture(cannedResponse);
+        }
+        
+        String enhancedPrompt = buildContextualPrompt(userQuery, request, events, alerts);
+        
+        return vertexAiService.synthesizeEvents(events, enhancedPrompt, VertexAiPriority.of(request),
+                Deadline.of(request))
+            .exceptionally(throwable -> {
+                log.warn("AI chat response failed, using fallback", throwable);
+                return fallbackResponse(userQuery);
+            });
+    }
+
+    /**
+     * Fixed answer when there is no question or no real data to answer from, otherwise null
+     */
+    private String cannedResponse(String userQuery, List<CityEvent> events, List<Map<String, Object>> alerts) {
         if (userQuery == null || userQuery.trim().isEmpty()) {
             if (events.isEmpty() && alerts.isEmpty()) {
-                return CompletableFuture.completedFuture("Hello! I'm your city assistant. No current events or alerts to report in your area. How can I help you today?");
+                return "Hello! I'm your city assistant. No current events or alerts to report in your area. How can I help you today?";
             }
-            return CompletableFuture.completedFuture("Hello! I'm your city assistant. Ask me anything about current events, alerts, or reporting issues in your area.");
+            return "Hello! I'm your city assistant. Ask me anything about current events, alerts, or reporting issues in your area.";
         }
         
         // If no real data, provide factual response instead of fictional content
         if (events.isEmpty() && alerts.isEmpty()) {
-            return CompletableFuture.completedFuture(
-                "I checked for current events and alerts in your area, but there are no significant issues to report right now. " +
-                "Everything seems quiet! Is there something specific you'd like to know about or report?"
-            );
+            return "I checked for current events and alerts in your area, but there are no significant issues to report right now. " +
+                "Everything seems quiet! Is there something specific you'd like to know about or report?";
         }
-        
-        String enhancedPrompt = buildContextualPrompt(userQuery, request, events, alerts);
-        
-        return vertexAiService.synthesizeEvents(events, enhancedPrompt)
-            .exceptionally(throwable -> {
-                log.warn("AI chat response failed, using fallback", throwable);
-                return "I understand you're asking about: \"" + userQuery + "\". Let me help you with that based on the available information in your area.";
-            });
+        return null;
+    }
+
+    private String fallbackResponse(String userQuery) {
+        return "I understand you're asking about: \"" + userQuery + "\". Let me help you with that based on the available information in your area.";
     }
 
     private String buildContextualPrompt(String userQuery, AgentRequest request, 
@@ -166,16 +237,33 @@ public class ChatPageHandler implements FlutterPageHandler {
             .maxResults(request.getMaxResults() != null ? request.getMaxResults() : 15)
             .startTime(LocalDateTime.now().minusDays(7))
             .parameters(Map.of("includeAllSeverities", true)) // Special flag for chat
+            .deadline(request.getDeadline())
             .build();
         
         return eventsAgent.processRequest(eventsRequest)
-            .thenApply(response -> response.getEvents() != null ? 
-                (List<CityEvent>) response.getEvents() : List.<CityEvent>of())
-            .exceptionally(throwable -> {
-                log.warn("Failed to get events for chat context", throwable);
-                return List.<CityEvent>of();
+            .thenApply(response -> {
+                if (!response.isSuccess()) {
+                    throw new IllegalStateException("Events agent failed: " + response.getMessage());
+                }
+                return response.getEvents() != null ? (List<CityEvent>) response.getEvents() : List.<CityEvent>of();
             });
     }
+
+    /**
+     * Cached read raced against the events agent when it is slow.
+     * Entries are evicted as matching events are stored, so this is as fresh as the agent.
+     */
+    private CompletableFuture<List<CityEvent>> getCachedEventsForChat(AgentRequest request) {
+        int limit = request.getMaxResults() != null ? request.getMaxResults() : 15;
+        if (request.getLatitude() != null && request.getLongitude() != null) {
+            double radiusKm = request.getRadiusKm() != null ? request.getRadiusKm() : 15.0;
+            return cachedEventService.getEventsByLocation(request.getLatitude(), request.getLongitude(), radiusKm, limit);
+        }
+        if (request.getArea() != null) {
+            return cachedEventService.getRecentEventsByArea(request.getArea(), limit);
+        }
+        return cachedEventService.getTrendingEvents(limit);
+    }
     
     private CompletableFuture<List<Map<String, Object>>> getRecentAlerts(AgentRequest request) {
         AgentRequest alertsRequest = AgentRequest.builder()
@@ -186,14 +274,15 @@ public class ChatPageHandler implements FlutterPageHandler {
             .area(request.getArea())
             .radiusKm(request.getRadiusKm() != null ? request.getRadiusKm() : 15.0)
             .maxResults(5)
+            .deadline(request.getDeadline())
             .build();
         
         return alertAgent.processRequest(alertsRequest)
-            .thenApply(response -> response.getAlerts() != null ? 
-                response.getAlerts() : List.<Map<String, Object>>of())
-            .exceptionally(throwable -> {
-                log.warn("Failed to get alerts for chat context", throwable);
-                return List.<Map<String, Object>>of();
+            .thenApply(response -> {
+                if (!response.isSuccess()) {
+                    throw new IllegalStateException("Alert agent failed: " + response.getMessage());
+                }
+                return response.getAlerts() != null ? response.getAlerts() : List.<Map<String, Object>>of();
             });
     }
 
@@ -3,6 +3,7 @@ package com.lemillion.city_data_overload_server.agent.handler;
 import com.lemillion.city_data_overload_server.agent.*;
 import com.lemillion.city_data_overload_server.agent.impl.EventsAgent;
 import com.lemillion.city_data_overload_server.model.CityEvent;
+import com.lemillion.city_data_overload_server.service.VertexAiPriority;
 import com.lemillion.city_data_overload_server.service.VertexAiService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -97,6 +98,7 @@ public class EventsPageHandler implements FlutterPageHandler {
             .endTime(originalRequest.getEndTime())
             .maxResults(originalRequest.getMaxResults() != null ? originalRequest.getMaxResults() : 20)
             .parameters(originalRequest.getParameters())
+            .deadline(originalRequest.getDeadline())
             .build();
     }
 
@@ -110,7 +112,8 @@ public class EventsPageHandler implements FlutterPageHandler {
         
         String enhancedPrompt = buildContextualPrompt(userQuery, request);
         
-        return vertexAiService.synthesizeEvents(events, enhancedPrompt)
+        return vertexAiService.synthesizeEvents(events, enhancedPrompt, VertexAiPriority.of(request),
+                Deadline.of(request))
             .exceptionally(throwable -> {
                 log.warn("AI chat response failed, using fallback", throwable);
                 return "Here are the latest events in your area. What specific information are you looking for?";
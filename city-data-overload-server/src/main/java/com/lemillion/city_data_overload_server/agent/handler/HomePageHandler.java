@@ -3,6 +3,8 @@ package com.lemillion.city_data_overload_server.agent.handler;
 import com.lemillion.city_data_overload_server.agent.*;
 import com.lemillion.city_data_overload_server.agent.impl.*;
 import com.lemillion.city_data_overload_server.model.CityEvent;
+import com.lemillion.city_data_overload_server.service.CachedEventService;
+import com.lemillion.city_data_overload_server.service.VertexAiPriority;
 import com.lemillion.city_data_overload_server.service.VertexAiService;
 import com.lemillion.city_data_overload_server.service.IntelligentSeverityService;
 import lombok.RequiredArgsConstructor;
@@ -27,6 +29,8 @@ public class HomePageHandler implements FlutterPageHandler {
     private final AnalyzerAgent analyzerAgent;
     private final VertexAiService vertexAiService;
     private final IntelligentSeverityService intelligentSeverityService;
+    private final CachedEventService cachedEventService;
+    private final PageDataFanOut pageDataFanOut;
 
     @Override
     public String getPageType() {
@@ -54,18 +58,19 @@ public class HomePageHandler implements FlutterPageHandler {
             return handleReportSubmission(request);
         }
         
-        // Get summary data from multiple sources
-        CompletableFuture<List<CityEvent>> recentEventsFuture = getRecentEvents(request, 5);
-        CompletableFuture<List<Map<String, Object>>> alertsFuture = getRecentAlerts(request, 3);
+        // Fan out with a budget per branch; a slow source degrades to cached data
+        CompletableFuture<List<CityEvent>> recentEventsFuture = pageDataFanOut.branch("home-events", request,
+            () -> getRecentEvents(request, 5), () -> getCachedEvents(request, 5), List.of());
+        CompletableFuture<List<Map<String, Object>>> alertsFuture = pageDataFanOut.branch("home-alerts", request,
+            () -> getRecentAlerts(request, 3), null, List.of());
         
-        return CompletableFuture.allOf(recentEventsFuture, alertsFuture)
-            .thenCompose(ignored -> {
+        // Start the model call as soon as the events are in rather than after the slowest branch
+        CompletableFuture<String> chatFuture = recentEventsFuture.thenCompose(events ->
+            pageDataFanOut.forPrompt(alertsFuture, "home-alerts", request, List.<Map<String, Object>>of())
+                .thenCompose(promptAlerts -> generateChatResponse(request.getQuery(), request, events, promptAlerts)));
+        
+        return chatFuture.thenCombine(alertsFuture, (chatResponse, alerts) -> {
                 List<CityEvent> events = recentEventsFuture.join();
-                List<Map<String, Object>> alerts = alertsFuture.join();
-                
-                // Generate chat response based on actual events and alerts
-                return generateChatResponse(request.getQuery(), request, events, alerts)
-                    .thenApply(chatResponse -> {
                 
                 Map<String, Object> homeData = Map.of(
                     "page", "home",
@@ -80,7 +85,6 @@ public class HomePageHandler implements FlutterPageHandler {
                 );
                 
                 return createSuccessResponse(request, homeData, chatResponse);
-                    });
             });
     }
 
@@ -98,17 +102,33 @@ public class HomePageHandler implements FlutterPageHandler {
             .area(request.getArea())
             .maxResults(limit)
             .startTime(LocalDateTime.now().minusDays(7))
+            .deadline(request.getDeadline())
             .build();
         
         return eventsAgent.processRequest(eventsRequest)
-            .thenApply(response -> response.getEvents() != null ? 
-                (List<CityEvent>) response.getEvents() : List.<CityEvent>of())
-            .exceptionally(throwable -> {
-                log.warn("Failed to get recent events", throwable);
-                return List.<CityEvent>of();
+            .thenApply(response -> {
+                if (!response.isSuccess()) {
+                    throw new IllegalStateException("Events agent failed: " + response.getMessage());
+                }
+                return response.getEvents() != null ? (List<CityEvent>) response.getEvents() : List.<CityEvent>of();
             });
     }
 
+    /**
+     * Cached read raced against the events agent when it is slow.
+     * Storing an event evicts the entries it affects, so a hedge win is not staler than the agent.
+     */
+    private CompletableFuture<List<CityEvent>> getCachedEvents(AgentRequest request, int limit) {
+        if (request.getLatitude() != null && request.getLongitude() != null) {
+            double radiusKm = request.getRadiusKm() != null ? request.getRadiusKm() : 5.0;
+            return cachedEventService.getEventsByLocation(request.getLatitude(), request.getLongitude(), radiusKm, limit);
+        }
+        if (request.getArea() != null) {
+            return cachedEventService.getRecentEventsByArea(request.getArea(), limit);
+        }
+        return cachedEventService.getTrendingEvents(limit);
+    }
+
     private CompletableFuture<List<Map<String, Object>>> getRecentAlerts(AgentRequest request, int limit) {
         AgentRequest alertsRequest = AgentRequest.builder()
             .requestId(request.getRequestId() + "_recent_alerts")
@@ -117,14 +137,15 @@ public class HomePageHandler implements FlutterPageHandler {
             .longitude(request.getLongitude())
             .area(request.getArea())
             .maxResults(limit)
+            .deadline(request.getDeadline())
             .build();
         
         return alertAgent.processRequest(alertsRequest)
-            .thenApply(response -> response.getAlerts() != null ? 
-                response.getAlerts() : List.<Map<String, Object>>of())
-            .exceptionally(throwable -> {
-                log.warn("Failed to get recent alerts", throwable);
-                return List.<Map<String, Object>>of();
+            .thenApply(response -> {
+                if (!response.isSuccess()) {
+                    throw new IllegalStateException("Alert agent failed: " + response.getMessage());
+                }
+                return response.getAlerts() != null ? response.getAlerts() : List.<Map<String, Object>>of();
             });
     }
 
@@ -147,7 +168,8 @@ public class HomePageHandler implements FlutterPageHandler {
         
         String enhancedPrompt = buildContextualPrompt(userQuery, request);
         
-        return vertexAiService.synthesizeEvents(events, enhancedPrompt)
+        return vertexAiService.synthesizeEvents(events, enhancedPrompt, VertexAiPriority.of(request),
+                Deadline.of(request))
             .exceptionally(throwable -> {
                 log.warn("AI chat response failed, using fallback", throwable);
                 return "I understand you're asking about: \"" + userQuery + "\". Let me help you with that based on the available information in your area.";
@@ -214,6 +236,7 @@ public class HomePageHandler implements FlutterPageHandler {
                 "media_analysis", true,
                 "user_submission", true
             ))
+            .deadline(request.getDeadline())
             .build();
         
         return analyzerAgent.processRequest(analyzerRequest)
@@ -0,0 +1,195 @@
+package com.lemillion.city_data_overload_server.agent.handler;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lemillion.city_data_overload_server.agent.AgentRequest;
+import com.lemillion.city_data_overload_server.agent.Deadline;
+import com.lemillion.city_data_overload_server.config.FanOutConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Fan-out of the data branches behind a page response. Each branch gets its
+ * own budget: a slow primary read is hedged with a cached read, and a branch
+ * that still has nothing at its budget answers with its last good result
+ * for the same location, so one slow source never holds up the whole page.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PageDataFanOut {
+
+    private final FanOutConfig config;
+    private final MeterRegistry meterRegistry;
+
+    private Cache<String, Object> lastGood;
+
+    @PostConstruct
+    public void initialize() {
+        lastGood = Caffeine.newBuilder()
+            .maximumSize(config.getLastGoodMaximumSize())
+            .expireAfterWrite(config.getLastGoodTtl())
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, lastGood, "agents.fanout.last-good");
+    }
+
+    /**
+     * Run one branch. Completes with the first successful result of the primary
+     * read or the hedge, which is started once the primary has run for the
+     * hedge delay or has failed. At the branch budget, or the request deadline
+     * if sooner, it completes with the last good result instead, or the empty
+     * value. Never completes exceptionally.
+     *
+     * @param hedge cached read to race against the primary, or null for none
+     */
+    public <T> CompletableFuture<T> branch(String branch, AgentRequest request,
+                                           Supplier<CompletableFuture<T>> primary,
+                                           Supplier<CompletableFuture<T>> hedge, T empty) {
+        Branch<T> state = new Branch<>(branch, branch + ":" + locationKey(request), hedge, empty);
+
+        attempt(state, "primary", primary);
+        if (hedge != null) {
+            CompletableFuture.delayedExecutor(config.getHedgeDelay().toNanos(), TimeUnit.NANOSECONDS)
+                .execute(() -> startHedge(state));
+        }
+        CompletableFuture.delayedExecutor(budget(branch, Deadline.of(request)).toNanos(), TimeUnit.NANOSECONDS)
+            .execute(() -> fallBack(state, "budget"));
+        return state.result;
+    }
+
+    /**
+     * The branch's result if it arrives within the context wait, otherwise its
+     * last good result. Lets the model call start on the context at hand
+     * instead of waiting out a slow branch.
+     */
+    public <T> CompletableFuture<T> forPrompt(CompletableFuture<T> branchResult, String branch,
+                                              AgentRequest request, T empty) {
+        if (branchResult.isDone()) {
+            return branchResult;
+        }
+        String key = branch + ":" + locationKey(request);
+        CompletableFuture<T> promptValue = new CompletableFuture<>();
+        branchResult.thenAccept(promptValue::complete);
+        CompletableFuture.delayedExecutor(config.getContextWait().toNanos(), TimeUnit.NANOSECONDS)
+            .execute(() -> {
+                if (promptValue.complete(cachedOrEmpty(key, empty))) {
+                    log.debug("Branch {} not ready for the prompt, using its last good result", branch);
+                }
+            });
+        return promptValue;
+    }
+
+    private <T> void attempt(Branch<T> state, String source, Supplier<CompletableFuture<T>> read) {
+        state.started.incrementAndGet();
+        CompletableFuture<T> future;
+        try {
+            future = read.get();
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+
+        future.whenComplete((value, error) -> {
+            if (error == null && value != null) {
+                if ("primary".equals(source)) {
+                    // Kept even when late, so the next request has something to fall back to
+                    lastGood.put(state.cacheKey, value);
+                }
+                if (state.result.complete(value)) {
+                    count(state.branch, source);
+                }
+                return;
+            }
+
+            log.debug("Branch {} {} read failed: {}", state.branch, source,
+                error != null ? error.getMessage() : "no result");
+            if (state.failed.incrementAndGet() == state.started.get() && !startHedge(state)) {
+                fallBack(state, "failed");
+            }
+        });
+    }
+
+    /**
+     * Start the hedge unless there is none, it already ran or the branch is done
+     */
+    private <T> boolean startHedge(Branch<T> state) {
+        if (state.hedge == null || state.result.isDone() || !state.hedgeStarted.compareAndSet(false, true)) {
+            return false;
+        }
+        attempt(state, "hedge", state.hedge);
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void fallBack(Branch<T> state, String reason) {
+        if (state.result.isDone()) {
+            return;
+        }
+        Object cached = lastGood.getIfPresent(state.cacheKey);
+        if (state.result.complete(cached != null ? (T) cached : state.empty)) {
+            count(state.branch, cached != null ? "cached" : "empty");
+            log.info("Branch {} degraded to {} data ({})", state.branch, cached != null ? "cached" : "empty", reason);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T cachedOrEmpty(String key, T empty) {
+        Object cached = lastGood.getIfPresent(key);
+        return cached != null ? (T) cached : empty;
+    }
+
+    private Duration budget(String branch, Deadline deadline) {
+        Duration budget = config.budgetFor(branch);
+        if (deadline.isBounded() && deadline.remaining().compareTo(budget) < 0) {
+            return deadline.remaining();
+        }
+        return budget;
+    }
+
+    private void count(String branch, String source) {
+        meterRegistry.counter("agents.fanout.branch.results", "branch", branch, "source", source).increment();
+    }
+
+    /**
+     * Area when given, otherwise the location rounded to about a kilometre
+     */
+    private static String locationKey(AgentRequest request) {
+        if (request.getArea() != null) {
+            return request.getArea().toLowerCase(Locale.ROOT);
+        }
+        if (request.getLatitude() != null && request.getLongitude() != null) {
+            return String.format(Locale.ROOT, "%.2f,%.2f", request.getLatitude(), request.getLongitude());
+        }
+        return "city";
+    }
+
+    private static final class Branch<T> {
+        private final String branch;
+        private final String cacheKey;
+        private final Supplier<CompletableFuture<T>> hedge;
+        private final T empty;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final AtomicInteger started = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicBoolean hedgeStarted = new AtomicBoolean();
+
+        private Branch(String branch, String cacheKey, Supplier<CompletableFuture<T>> hedge, T empty) {
+            this.branch = branch;
+            this.cacheKey = cacheKey;
+            this.hedge = hedge;
+            this.empty = empty;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.lemillion.city_data_overload_server.agent.*;
 import com.lemillion.city_data_overload_server.agent.impl.AnalyzerAgent;
 import com.lemillion.city_data_overload_server.agent.impl.CoordinatorAgent;
 import com.lemillion.city_data_overload_server.model.CityEvent;
+import com.lemillion.city_data_overload_server.service.VertexAiPriority;
 import com.lemillion.city_data_overload_server.service.VertexAiService;
 import com.lemillion.city_data_overload_server.service.IntelligentSeverityService;
 import lombok.RequiredArgsConstructor;
@@ -107,6 +108,7 @@ public class ReportingPageHandler implements FlutterPageHandler {
                 "media_analysis", true,
                 "user_submission", true
             ))
+            .deadline(request.getDeadline())
             .build();
         
         return analyzerAgent.processRequest(analyzerRequest)
@@ -160,7 +162,8 @@ public class ReportingPageHandler implements FlutterPageHandler {
     private CompletableFuture<String> generateChatResponse(String userQuery, AgentRequest request) {
         String enhancedPrompt = buildContextualPrompt(userQuery, request);
         
-        return vertexAiService.synthesizeEvents(List.of(), enhancedPrompt)
+        return vertexAiService.synthesizeEvents(List.of(), enhancedPrompt, VertexAiPriority.of(request),
+                Deadline.of(request))
             .exceptionally(throwable -> {
                 log.warn("AI chat response failed, using fallback", throwable);
                 return "I'm here to help you report issues in your community. What would you like to report?";
@@ -3,10 +3,16 @@ package com.lemillion.city_data_overload_server.agent.impl;
 import com.lemillion.city_data_overload_server.agent.Agent;
 import com.lemillion.city_data_overload_server.agent.AgentRequest;
 import com.lemillion.city_data_overload_server.agent.AgentResponse;
+import com.lemillion.city_data_overload_server.agent.Deadline;
 import com.lemillion.city_data_overload_server.model.CityEvent;
+import com.lemillion.city_data_overload_server.service.EventEmbeddingService;
+import com.lemillion.city_data_overload_server.service.VertexAiPriority;
 import com.lemillion.city_data_overload_server.service.VertexAiService;
+import com.lemillion.city_data_overload_server.util.CosineLshIndex;
+import com.lemillion.city_data_overload_server.util.TextVectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
@@ -15,8 +21,8 @@ import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
- * Aggregator Agent - Uses Vertex AI to deduplicate and aggregate similar events
- * from multiple sources into unique event clusters.
+ * Aggregator Agent - Deduplicates similar events from multiple sources by
+ * clustering their embeddings, then uses Vertex AI to synthesize each cluster.
  */
 @Component
 @RequiredArgsConstructor
@@ -24,11 +30,22 @@ import java.util.stream.Collectors;
 public class AggregatorAgent implements Agent {
 
     private final VertexAiService vertexAiService;
+    private final EventEmbeddingService eventEmbeddingService;
     
-    private static final double SIMILARITY_THRESHOLD = 0.75;
     private static final int MAX_EVENTS_PER_CLUSTER = 10;
     private static final int MAX_PROCESSING_BATCH_SIZE = 50;
 
+    // 16 bands of 6 bits find ~99% of pairs above 0.8 cosine as candidates
+    private static final int LSH_BANDS = 16;
+    private static final int LSH_BITS_PER_BAND = 6;
+    private static final long LSH_SEED = 42L;
+
+    /**
+     * Minimum cosine similarity between event vectors to aggregate them
+     */
+    @Value("${ai-processing.similarity-threshold:0.8}")
+    private double similarityThreshold;
+
     @Override
     public String getAgentId() {
         return "aggregator-agent";
@@ -67,6 +84,11 @@ public class AggregatorAgent implements Agent {
         log.info("AggregatorAgent processing request: {} with {} events", 
                 request.getRequestId(), getEventCount(request));
 
+        if (Deadline.of(request).isExpired()) {
+            return CompletableFuture.completedFuture(
+                AgentResponse.deadlineExceeded(request.getRequestId(), getAgentId()));
+        }
+
         try {
             List<CityEvent> events = extractEventsFromRequest(request);
             
@@ -74,7 +96,7 @@ public class AggregatorAgent implements Agent {
                 return CompletableFuture.completedFuture(createEmptyResponse(request));
             }
 
-            return aggregateEvents(events)
+            return Deadline.of(request).bound(aggregateEvents(events, VertexAiPriority.of(request)))
                 .thenApply(aggregatedEvents -> createSuccessResponse(request, aggregatedEvents))
                 .exceptionally(throwable -> {
                     log.error("Error in AggregatorAgent processing", throwable);
@@ -90,30 +112,39 @@ public class AggregatorAgent implements Agent {
     /**
      * Main aggregation logic - groups similar events and creates unified representations
      */
-    private CompletableFuture<List<CityEvent>> aggregateEvents(List<CityEvent> events) {
+    private CompletableFuture<List<CityEvent>> aggregateEvents(List<CityEvent> events, VertexAiPriority priority) {
         log.info("Starting event aggregation for {} events", events.size());
 
         // Step 1: Pre-filter and group by basic similarity
         Map<String, List<CityEvent>> basicGroups = groupEventsByBasicSimilarity(events);
         log.debug("Created {} basic groups from {} events", basicGroups.size(), events.size());
 
-        // Step 2: AI-powered detailed aggregation for each group
-        List<CompletableFuture<List<CityEvent>>> aggregationFutures = basicGroups.values().stream()
-            .filter(group -> !group.isEmpty())
-            .map(this::aggregateEventGroup)
-            .collect(Collectors.toList());
+        // Step 2: one vector per event, computed in a single pass for all groups
+        return eventEmbeddingService.embed(events)
+            .thenCompose(vectors -> {
+                Map<CityEvent, float[]> eventVectors = new IdentityHashMap<>();
+                for (int i = 0; i < events.size(); i++) {
+                    eventVectors.put(events.get(i), vectors.get(i));
+                }
 
-        return CompletableFuture.allOf(aggregationFutures.toArray(new CompletableFuture[0]))
-            .thenApply(ignored -> {
-                List<CityEvent> aggregatedEvents = aggregationFutures.stream()
-                    .map(CompletableFuture::join)
-                    .flatMap(List::stream)
+                // Step 3: cluster by cosine similarity within each group, then synthesize
+                List<CompletableFuture<List<CityEvent>>> aggregationFutures = basicGroups.values().stream()
+                    .filter(group -> !group.isEmpty())
+                    .map(group -> aggregateEventGroup(group, eventVectors, priority))
                     .collect(Collectors.toList());
 
-                log.info("Aggregation completed: {} events reduced to {} unique events", 
-                        events.size(), aggregatedEvents.size());
+                return CompletableFuture.allOf(aggregationFutures.toArray(new CompletableFuture[0]))
+                    .thenApply(ignored -> {
+                        List<CityEvent> aggregatedEvents = aggregationFutures.stream()
+                            .map(CompletableFuture::join)
+                            .flatMap(List::stream)
+                            .collect(Collectors.toList());
 
-                return aggregatedEvents;
+                        log.info("Aggregation completed: {} events reduced to {} unique events", 
+                                events.size(), aggregatedEvents.size());
+
+                        return aggregatedEvents;
+                    });
             });
     }
 
@@ -161,221 +192,69 @@ public class AggregatorAgent implements Agent {
     }
 
     /**
-     * Use AI to aggregate a group of potentially similar events
+     * Aggregate a group of potentially similar events
      */
-    private CompletableFuture<List<CityEvent>> aggregateEventGroup(List<CityEvent> eventGroup) {
+    private CompletableFuture<List<CityEvent>> aggregateEventGroup(List<CityEvent> eventGroup,
+                                                                   Map<CityEvent, float[]> eventVectors,
+                                                                   VertexAiPriority priority) {
         if (eventGroup.size() == 1) {
             return CompletableFuture.completedFuture(eventGroup);
         }
 
-        log.debug("AI aggregating group of {} events", eventGroup.size());
+        log.debug("Aggregating group of {} events", eventGroup.size());
 
-        return findSimilarEventClusters(eventGroup)
-            .thenCompose(this::createAggregatedEventsFromClusters);
+        return createAggregatedEventsFromClusters(findSimilarEventClusters(eventGroup, eventVectors), priority);
     }
 
     /**
-     * Use Vertex AI to identify clusters of similar events within a group
+     * Cluster events by cosine similarity of their vectors.
+     * Each event joins the most similar cluster whose representative is above
+     * the threshold; only representatives that share an LSH band with the
+     * event are compared, so the group is clustered in roughly linear time.
      */
-    private CompletableFuture<List<List<CityEvent>>> findSimilarEventClusters(List<CityEvent> events) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                // Create similarity matrix using AI-powered content analysis
-                Map<String, List<CityEvent>> clusters = new HashMap<>();
-                List<CityEvent> processed = new ArrayList<>();
-
-                for (CityEvent currentEvent : events) {
-                    boolean addedToCluster = false;
-
-                    // Check against existing clusters using AI-powered similarity
-                    for (Map.Entry<String, List<CityEvent>> clusterEntry : clusters.entrySet()) {
-                        List<CityEvent> cluster = clusterEntry.getValue();
-                        
-                        // Use representative event from cluster for comparison
-                        CityEvent representative = cluster.get(0);
-                        
-                        // Use AI-powered similarity detection
-                        if (areEventsSimilarWithAI(currentEvent, representative).join()) {
-                            cluster.add(currentEvent);
-                            addedToCluster = true;
-                            break;
-                        }
-                    }
-
-                    // Create new cluster if no similar cluster found
-                    if (!addedToCluster) {
-                        String clusterId = "cluster_" + clusters.size();
-                        clusters.put(clusterId, new ArrayList<>(List.of(currentEvent)));
-                    }
-                }
-
-                log.debug("AI-powered clustering: Created {} clusters from {} events", clusters.size(), events.size());
-                return new ArrayList<>(clusters.values());
+    private List<List<CityEvent>> findSimilarEventClusters(List<CityEvent> events,
+                                                           Map<CityEvent, float[]> eventVectors) {
+        List<List<CityEvent>> clusters = new ArrayList<>();
+        CosineLshIndex<Integer> representatives = new CosineLshIndex<>(
+            eventVectors.get(events.get(0)).length, LSH_BANDS, LSH_BITS_PER_BAND, LSH_SEED);
 
-            } catch (Exception e) {
-                log.error("Error in AI-powered event clustering", e);
-                // Fallback: each event is its own cluster
-                return events.stream()
-                    .map(List::of)
-                    .collect(Collectors.toList());
-            }
-        });
-    }
-
-    /**
-     * Use Vertex AI to check if two events are similar
-     */
-    private CompletableFuture<Boolean> areEventsSimilarWithAI(CityEvent event1, CityEvent event2) {
-        // Fast pre-checks before AI analysis
-        if (!event1.getCategory().equals(event2.getCategory())) {
-            return CompletableFuture.completedFuture(false);
-        }
-
-        if (!areLocationsProximate(event1.getLocation(), event2.getLocation())) {
-            return CompletableFuture.completedFuture(false);
-        }
-
-        if (!areTimestampsProximate(event1.getTimestamp(), event2.getTimestamp())) {
-            return CompletableFuture.completedFuture(false);
-        }
-
-        // Use Vertex AI for content similarity analysis
-        String combinedText1 = buildEventContext(event1);
-        String combinedText2 = buildEventContext(event2);
-        
-        String context = String.format(
-            "Determine if these two city events are similar enough to be aggregated:\n\nEvent 1: %s\n\nEvent 2: %s",
-            combinedText1, combinedText2
-        );
-
-        return vertexAiService.categorizeEvent(context, "SIMILARITY_CHECK")
-            .thenApply(result -> {
-                // Extract similarity score from AI response
-                double confidence = (Double) result.getOrDefault("confidence", 0.0);
-                return confidence >= SIMILARITY_THRESHOLD;
-            })
-            .exceptionally(throwable -> {
-                log.warn("AI similarity check failed, using fallback", throwable);
-                return areContentsimilar(event1, event2); // Fallback to basic similarity
-            });
-    }
-
-    /**
-     * Build context string for an event
-     */
-    private String buildEventContext(CityEvent event) {
-        StringBuilder context = new StringBuilder();
-        if (event.getTitle() != null) context.append(event.getTitle()).append(" ");
-        if (event.getDescription() != null) context.append(event.getDescription()).append(" ");
-        if (event.getLocation() != null && event.getLocation().getArea() != null) {
-            context.append("in ").append(event.getLocation().getArea()).append(" ");
-        }
-        return context.toString().trim();
-    }
-
-    /**
-     * Check if two events are similar using AI-based analysis
-     */
-    private boolean areEventsSimilar(CityEvent event1, CityEvent event2) {
-        try {
-            // Fast pre-checks
-            if (!event1.getCategory().equals(event2.getCategory())) {
-                return false;
-            }
-
-            // Location proximity check
-            if (!areLocationsProximate(event1.getLocation(), event2.getLocation())) {
-                return false;
+        for (CityEvent event : events) {
+            float[] vector = eventVectors.get(event);
+            int bestCluster = -1;
+            double bestSimilarity = similarityThreshold;
+
+            for (int clusterIndex : representatives.candidates(vector)) {
+                List<CityEvent> cluster = clusters.get(clusterIndex);
+                if (cluster.size() >= MAX_EVENTS_PER_CLUSTER) {
+                    continue;
+                }
+                double similarity = TextVectors.cosine(vector, eventVectors.get(cluster.get(0)));
+                if (similarity >= bestSimilarity) {
+                    bestCluster = clusterIndex;
+                    bestSimilarity = similarity;
+                }
             }
 
-            // Time proximity check (within 4 hours)
-            if (!areTimestampsProximate(event1.getTimestamp(), event2.getTimestamp())) {
-                return false;
+            if (bestCluster >= 0) {
+                clusters.get(bestCluster).add(event);
+            } else {
+                clusters.add(new ArrayList<>(List.of(event)));
+                representatives.add(vector, clusters.size() - 1);
             }
-
-            // Content similarity using simple text matching (could be enhanced with AI)
-            return areContentsimilar(event1, event2);
-
-        } catch (Exception e) {
-            log.warn("Error comparing events similarity", e);
-            return false;
-        }
-    }
-
-    /**
-     * Check if locations are proximate (within same area or nearby coordinates)
-     */
-    private boolean areLocationsProximate(CityEvent.LocationData loc1, CityEvent.LocationData loc2) {
-        if (loc1 == null || loc2 == null) {
-            return true; // Consider similar if location unknown
         }
 
-        // Same area
-        if (loc1.getArea() != null && loc2.getArea() != null) {
-            return loc1.getArea().equalsIgnoreCase(loc2.getArea());
-        }
-
-        // Geographic proximity (within 2 km)
-        if (loc1.getLatitude() != null && loc1.getLongitude() != null &&
-            loc2.getLatitude() != null && loc2.getLongitude() != null) {
-            
-            double distance = calculateDistance(
-                loc1.getLatitude(), loc1.getLongitude(),
-                loc2.getLatitude(), loc2.getLongitude()
-            );
-            return distance <= 2.0; // 2 km radius
-        }
-
-        return true; // Default to similar if can't determine
-    }
-
-    /**
-     * Check if timestamps are proximate (within 4 hours)
-     */
-    private boolean areTimestampsProximate(LocalDateTime time1, LocalDateTime time2) {
-        if (time1 == null || time2 == null) {
-            return true; // Consider similar if time unknown
-        }
-
-        long hoursDiff = Math.abs(java.time.Duration.between(time1, time2).toHours());
-        return hoursDiff <= 4;
-    }
-
-    /**
-     * Check content similarity using keyword and title matching
-     */
-    private boolean areContentsimilar(CityEvent event1, CityEvent event2) {
-        // Title similarity
-        double titleSimilarity = calculateTextSimilarity(
-            event1.getTitle(), event2.getTitle()
-        );
-
-        // Description similarity
-        double descSimilarity = calculateTextSimilarity(
-            event1.getDescription(), event2.getDescription()
-        );
-
-        // Keyword overlap
-        double keywordSimilarity = calculateKeywordSimilarity(
-            event1.getKeywords(), event2.getKeywords()
-        );
-
-        // Combined similarity score
-        double overallSimilarity = (titleSimilarity * 0.4) + 
-                                 (descSimilarity * 0.4) + 
-                                 (keywordSimilarity * 0.2);
-
-        return overallSimilarity >= SIMILARITY_THRESHOLD;
+        log.debug("Embedding clustering: Created {} clusters from {} events", clusters.size(), events.size());
+        return clusters;
     }
 
     /**
      * Create aggregated events from clusters using AI synthesis
      */
     private CompletableFuture<List<CityEvent>> createAggregatedEventsFromClusters(
-            List<List<CityEvent>> clusters) {
+            List<List<CityEvent>> clusters, VertexAiPriority priority) {
         
         List<CompletableFuture<CityEvent>> aggregationFutures = clusters.stream()
-            .map(this::synthesizeEventsInCluster)
+            .map(cluster -> synthesizeEventsInCluster(cluster, priority))
             .collect(Collectors.toList());
 
         return CompletableFuture.allOf(aggregationFutures.toArray(new CompletableFuture[0]))
@@ -387,7 +266,7 @@ public class AggregatorAgent implements Agent {
     /**
      * Synthesize multiple events in a cluster into a single representative event using Vertex AI
      */
-    private CompletableFuture<CityEvent> synthesizeEventsInCluster(List<CityEvent> cluster) {
+    private CompletableFuture<CityEvent> synthesizeEventsInCluster(List<CityEvent> cluster, VertexAiPriority priority) {
         if (cluster.size() == 1) {
             return CompletableFuture.completedFuture(cluster.get(0));
         }
@@ -401,7 +280,7 @@ public class AggregatorAgent implements Agent {
             cluster.get(0).getCategory()
         );
 
-        return vertexAiService.synthesizeEvents(cluster, context)
+        return vertexAiService.synthesizeEvents(cluster, context, priority)
             .thenApply(synthesizedContent -> createAggregatedEventWithAI(cluster, synthesizedContent))
             .exceptionally(throwable -> {
                 log.warn("AI synthesis failed, using manual aggregation", throwable);
@@ -550,7 +429,7 @@ public class AggregatorAgent implements Agent {
         metadata.put("aggregation_timestamp", LocalDateTime.now());
         metadata.put("aggregation_method", "vertex_ai_synthesis");
         metadata.put("ai_synthesis_length", aiSynthesis.length());
-        metadata.put("similarity_threshold", SIMILARITY_THRESHOLD);
+        metadata.put("similarity_threshold", similarityThreshold);
         metadata.put("processing_agent", "AggregatorAgent");
         return metadata;
     }
@@ -580,47 +459,6 @@ public class AggregatorAgent implements Agent {
             cluster.size());
     }
 
-    private double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
-        final int R = 6371; // Radius of the earth in km
-        double latDistance = Math.toRadians(lat2 - lat1);
-        double lonDistance = Math.toRadians(lon2 - lon1);
-        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
-                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
-                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        return R * c;
-    }
-
-    private double calculateTextSimilarity(String text1, String text2) {
-        if (text1 == null || text2 == null) return 0.0;
-        
-        Set<String> words1 = Set.of(text1.toLowerCase().split("\\W+"));
-        Set<String> words2 = Set.of(text2.toLowerCase().split("\\W+"));
-        
-        Set<String> intersection = new HashSet<>(words1);
-        intersection.retainAll(words2);
-        
-        Set<String> union = new HashSet<>(words1);
-        union.addAll(words2);
-        
-        return union.isEmpty() ? 0.0 : (double) intersection.size() / union.size();
-    }
-
-    private double calculateKeywordSimilarity(List<String> keywords1, List<String> keywords2) {
-        if (keywords1 == null || keywords2 == null) return 0.0;
-        
-        Set<String> set1 = new HashSet<>(keywords1);
-        Set<String> set2 = new HashSet<>(keywords2);
-        
-        Set<String> intersection = new HashSet<>(set1);
-        intersection.retainAll(set2);
-        
-        Set<String> union = new HashSet<>(set1);
-        union.addAll(set2);
-        
-        return union.isEmpty() ? 0.0 : (double) intersection.size() / union.size();
-    }
-
     private AgentResponse createEmptyResponse(AgentRequest request) {
         return AgentResponse.builder()
             .requestId(request.getRequestId())
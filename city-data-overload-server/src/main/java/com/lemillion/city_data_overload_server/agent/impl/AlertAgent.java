@@ -3,9 +3,11 @@ package com.lemillion.city_data_overload_server.agent.impl;
 import com.lemillion.city_data_overload_server.agent.Agent;
 import com.lemillion.city_data_overload_server.agent.AgentRequest;
 import com.lemillion.city_data_overload_server.agent.AgentResponse;
+import com.lemillion.city_data_overload_server.agent.Deadline;
 import com.lemillion.city_data_overload_server.model.CityEvent;
 import com.lemillion.city_data_overload_server.service.BigQueryService;
 import com.lemillion.city_data_overload_server.service.FirestoreService;
+import com.lemillion.city_data_overload_server.service.VertexAiPriority;
 import com.lemillion.city_data_overload_server.service.VertexAiService; // Add VertexAI integration
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -42,6 +44,8 @@ public class AlertAgent implements Agent {
         CityEvent.EventCategory.CIVIC_ISSUE, 4
     );
 
+    private static final int PATTERN_WINDOW_HOURS = 24;
+
     private static final List<String> CRITICAL_KEYWORDS = Arrays.asList(
         "fire", "accident", "flood", "emergency", "evacuation", "blocked",
         "breakdown", "power cut", "water shortage", "gas leak", "collapse"
@@ -69,8 +73,13 @@ public class AlertAgent implements Agent {
         log.info("Alert agent processing request: {} of type: {}", 
                 request.getRequestId(), request.getRequestType());
         
+        if (Deadline.of(request).isExpired()) {
+            return CompletableFuture.completedFuture(
+                AgentResponse.deadlineExceeded(request.getRequestId(), getAgentId()));
+        }
+
         try {
-            return checkForAlerts(request)
+            return Deadline.of(request).bound(checkForAlerts(request))
                 .thenApply(alerts -> {
                     AgentResponse response = AgentResponse.success(
                         request.getRequestId(),
@@ -195,43 +204,26 @@ public class AlertAgent implements Agent {
     }
 
     /**
-     * Check for pattern-based alerts (multiple events in same area/category)
+     * Check for pattern-based alerts (multiple events in same area/category).
+     * Counts and thresholds are evaluated in a single BigQuery job.
      */
     private CompletableFuture<List<Map<String, Object>>> checkPatternBasedAlerts(AgentRequest request) {
         return CompletableFuture.supplyAsync(() -> {
             try {
                 List<Map<String, Object>> patternAlerts = new ArrayList<>();
                 
-                // Check each alert category for unusual patterns
-                for (Map.Entry<CityEvent.EventCategory, Integer> entry : ALERT_THRESHOLDS.entrySet()) {
-                    CityEvent.EventCategory category = entry.getKey();
-                    int threshold = entry.getValue();
-                    
-                    // Get recent events for this category
-                    List<CityEvent> recentEvents = bigQueryService.queryEventsByCategoryAndSeverity(
-                        category, 
-                        CityEvent.EventSeverity.MODERATE,
-                        LocalDateTime.now().minusDays(1),
-                        20
-                    );
-                    
-                    // Group by area and check thresholds
-                    Map<String, List<CityEvent>> eventsByArea = recentEvents.stream()
-                        .filter(event -> event.getLocation() != null && 
-                                        event.getLocation().getArea() != null)
-                        .collect(Collectors.groupingBy(
-                            event -> event.getLocation().getArea()
-                        ));
+                List<Map<String, Object>> categoryAreaCounts = bigQueryService.queryCategoryAreaCountsAboveThreshold(
+                    ALERT_THRESHOLDS,
+                    LocalDateTime.now().minusHours(PATTERN_WINDOW_HOURS)
+                );
+                
+                for (Map<String, Object> counts : categoryAreaCounts) {
+                    CityEvent.EventCategory category = CityEvent.EventCategory.valueOf((String) counts.get("category"));
+                    @SuppressWarnings("unchecked")
+                    List<String> relatedEventIds = (List<String>) counts.get("recentEventIds");
                     
-                    for (Map.Entry<String, List<CityEvent>> areaEvents : eventsByArea.entrySet()) {
-                        String area = areaEvents.getKey();
-                        List<CityEvent> events = areaEvents.getValue();
-                        
-                        if (events.size() >= threshold) {
-                            Map<String, Object> alert = createPatternAlert(category, area, events);
-                            patternAlerts.add(alert);
-                        }
-                    }
+                    patternAlerts.add(createPatternAlert(
+                        category, (String) counts.get("area"), (Long) counts.get("eventCount"), relatedEventIds));
                 }
                 
                 log.debug("Generated {} pattern-based alerts", patternAlerts.size());
@@ -324,7 +316,7 @@ public class AlertAgent implements Agent {
      * Create a pattern-based alert
      */
     private Map<String, Object> createPatternAlert(
-            CityEvent.EventCategory category, String area, List<CityEvent> events) {
+            CityEvent.EventCategory category, String area, long eventCount, List<String> relatedEventIds) {
         
         Map<String, Object> alert = new HashMap<>();
         alert.put("id", UUID.randomUUID().toString());
@@ -334,14 +326,11 @@ public class AlertAgent implements Agent {
         alert.put("severity", "HIGH");
         alert.put("title", String.format("Multiple %s events in %s", category.name(), area));
         alert.put("message", String.format(
-            "%d %s events reported in %s within the last 2 hours. Possible pattern detected.",
-            events.size(), category.name(), area
+            "%d %s events reported in %s within the last %d hours. Possible pattern detected.",
+            eventCount, category.name(), area, PATTERN_WINDOW_HOURS
         ));
-        alert.put("event_count", events.size());
-        alert.put("related_events", events.stream()
-            .limit(5)
-            .map(CityEvent::getId)
-            .collect(Collectors.toList()));
+        alert.put("event_count", eventCount);
+        alert.put("related_events", relatedEventIds);
         alert.put("created_at", LocalDateTime.now());
         alert.put("expires_at", LocalDateTime.now().plusHours(6));
         alert.put("priority", "HIGH");
@@ -496,7 +485,8 @@ public class AlertAgent implements Agent {
         // Create context for AI analysis
         String alertContext = buildAlertAnalysisContext(recentEvents, request);
         
-        return vertexAiService.categorizeEvent(alertContext, "ALERT_GENERATION")
+        return vertexAiService.categorizeEvent(alertContext, "ALERT_GENERATION", VertexAiPriority.of(request),
+                Deadline.of(request))
             .thenApply(aiResult -> {
                 List<Map<String, Object>> aiAlerts = extractAlertsFromAIResult(aiResult, request);
                 
@@ -692,7 +682,8 @@ public class AlertAgent implements Agent {
             request.getArea() != null ? request.getArea() : "Bengaluru"
         );
         
-        return vertexAiService.categorizeEvent(generalContext, "GENERAL_ALERTS")
+        return vertexAiService.categorizeEvent(generalContext, "GENERAL_ALERTS", VertexAiPriority.of(request),
+                Deadline.of(request))
             .thenApply(aiResult -> {
                 List<Map<String, Object>> generalAlerts = new ArrayList<>();
                 
@@ -3,12 +3,15 @@ package com.lemillion.city_data_overload_server.agent.impl;
 import com.lemillion.city_data_overload_server.agent.Agent;
 import com.lemillion.city_data_overload_server.agent.AgentRequest;
 import com.lemillion.city_data_overload_server.agent.AgentResponse;
+import com.lemillion.city_data_overload_server.agent.Deadline;
 import com.lemillion.city_data_overload_server.model.CityEvent;
+import com.lemillion.city_data_overload_server.service.VertexAiPriority;
 import com.lemillion.city_data_overload_server.service.VertexAiService;
-import com.lemillion.city_data_overload_server.service.FirestoreService;
-import com.lemillion.city_data_overload_server.service.BigQueryService;
+import com.lemillion.city_data_overload_server.service.CachedEventService;
+import com.lemillion.city_data_overload_server.service.BigQueryBatchWriter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
@@ -27,12 +30,18 @@ import java.util.stream.Collectors;
 public class AnalyzerAgent implements Agent {
 
     private final VertexAiService vertexAiService;
-    private final FirestoreService firestoreService;
-    private final BigQueryService bigQueryService;
+    private final CachedEventService cachedEventService;
+    private final BigQueryBatchWriter bigQueryBatchWriter;
 
     private static final double MIN_CONFIDENCE_THRESHOLD = 0.3;
     private static final int MAX_PARALLEL_ANALYSIS = 10;
 
+    @Value("${ai-processing.enrichment.batched:true}")
+    private boolean batchedEnrichment;
+
+    @Value("${ai-processing.enrichment.batch-size:10}")
+    private int enrichmentBatchSize;
+
     @Override
     public String getAgentId() {
         return "analyzer-agent";
@@ -71,6 +80,11 @@ public class AnalyzerAgent implements Agent {
         log.info("AnalyzerAgent processing request: {} with {} events", 
                 request.getRequestId(), getEventCount(request));
 
+        if (Deadline.of(request).isExpired()) {
+            return CompletableFuture.completedFuture(
+                AgentResponse.deadlineExceeded(request.getRequestId(), getAgentId()));
+        }
+
         try {
             List<CityEvent> events = extractEventsFromRequest(request);
             
@@ -78,7 +92,7 @@ public class AnalyzerAgent implements Agent {
                 return CompletableFuture.completedFuture(createEmptyResponse(request));
             }
 
-            return analyzeAndStoreEvents(events, request)
+            return Deadline.of(request).bound(analyzeAndStoreEvents(events, request))
                 .thenApply(results -> createSuccessResponse(request, results))
                 .exceptionally(throwable -> {
                     log.error("Error in AnalyzerAgent processing", throwable);
@@ -100,7 +114,8 @@ public class AnalyzerAgent implements Agent {
         log.info("Starting comprehensive analysis for {} events", events.size());
 
         // Process events in batches to avoid overwhelming the system
-        List<List<CityEvent>> batches = createBatches(events, MAX_PARALLEL_ANALYSIS);
+        int batchSize = batchedEnrichment ? enrichmentBatchSize : MAX_PARALLEL_ANALYSIS;
+        List<List<CityEvent>> batches = createBatches(events, batchSize);
         
         List<CompletableFuture<List<Map<String, Object>>>> batchFutures = batches.stream()
             .map(batch -> processBatch(batch, request))
@@ -119,9 +134,36 @@ public class AnalyzerAgent implements Agent {
     private CompletableFuture<List<Map<String, Object>>> processBatch(
             List<CityEvent> batch, AgentRequest request) {
         
-        List<CompletableFuture<Map<String, Object>>> eventFutures = batch.stream()
-            .map(event -> analyzeAndStoreEvent(event, request))
-            .collect(Collectors.toList());
+        if (!batchedEnrichment) {
+            return collectResults(batch.stream()
+                .map(event -> analyzeAndStoreEvent(event, enhanceEventWithAI(event, request)))
+                .collect(Collectors.toList()));
+        }
+
+        // One structured prompt for the whole batch; events it could not
+        // enrich fall back to the per-event analysis pipeline
+        return vertexAiService.enrichEventsBatch(batch, VertexAiPriority.of(request))
+            .exceptionally(throwable -> {
+                log.warn("Batched enrichment failed for {} events, falling back to per-event analysis",
+                    batch.size(), throwable);
+                return Map.of();
+            })
+            .thenCompose(enrichments -> {
+                List<CompletableFuture<Map<String, Object>>> eventFutures = new ArrayList<>();
+                for (int i = 0; i < batch.size(); i++) {
+                    CityEvent event = batch.get(i);
+                    Map<String, Object> enrichment = enrichments.get(i);
+                    CompletableFuture<CityEvent> enhanced = enrichment != null
+                        ? applyBatchEnrichment(event, enrichment, request)
+                        : enhanceEventWithAI(event, request);
+                    eventFutures.add(analyzeAndStoreEvent(event, enhanced));
+                }
+                return collectResults(eventFutures);
+            });
+    }
+
+    private CompletableFuture<List<Map<String, Object>>> collectResults(
+            List<CompletableFuture<Map<String, Object>>> eventFutures) {
 
         return CompletableFuture.allOf(eventFutures.toArray(new CompletableFuture[0]))
             .thenApply(ignored -> eventFutures.stream()
@@ -133,11 +175,11 @@ public class AnalyzerAgent implements Agent {
      * Comprehensive analysis and storage for a single event
      */
     private CompletableFuture<Map<String, Object>> analyzeAndStoreEvent(
-            CityEvent event, AgentRequest request) {
+            CityEvent event, CompletableFuture<CityEvent> enhancement) {
         
         log.debug("Analyzing event: {}", event.getId());
 
-        return enhanceEventWithAI(event, request)
+        return enhancement
             .thenCompose(enhancedEvent -> {
                 return storeEventInBothSystems(enhancedEvent)
                     .thenApply(storageResults -> createEventResult(event, enhancedEvent, storageResults));
@@ -153,27 +195,28 @@ public class AnalyzerAgent implements Agent {
      */
     private CompletableFuture<CityEvent> enhanceEventWithAI(CityEvent event, AgentRequest request) {
         log.debug("AI enhancing event: {}", event.getId());
+        VertexAiPriority priority = VertexAiPriority.of(request);
 
         List<CompletableFuture<Map<String, Object>>> analysisPromises = new ArrayList<>();
 
         // 1. Content analysis for missing fields using Vertex AI
         if (needsContentAnalysis(event)) {
-            analysisPromises.add(analyzeEventContentWithAI(event));
+            analysisPromises.add(analyzeEventContentWithAI(event, priority));
         }
 
         // 2. Sentiment analysis using Vertex AI
         if (needsSentimentAnalysis(event)) {
-            analysisPromises.add(analyzeSentimentWithAI(event));
+            analysisPromises.add(analyzeSentimentWithAI(event, priority));
         }
 
         // 3. Location analysis and enhancement
         if (needsLocationAnalysis(event)) {
-            analysisPromises.add(analyzeLocationWithAI(event));
+            analysisPromises.add(analyzeLocationWithAI(event, priority));
         }
 
         // 4. Severity and priority analysis using AI
         if (needsSeverityAnalysis(event)) {
-            analysisPromises.add(analyzeSeverityWithAI(event));
+            analysisPromises.add(analyzeSeverityWithAI(event, priority));
         }
 
         // 5. Media analysis (for user-submitted content)
@@ -182,7 +225,7 @@ public class AnalyzerAgent implements Agent {
         }
 
         // 6. Additional AI insights
-        analysisPromises.add(generateAdditionalInsights(event));
+        analysisPromises.add(generateAdditionalInsights(event, priority));
 
         if (analysisPromises.isEmpty()) {
             return CompletableFuture.completedFuture(event);
@@ -198,14 +241,81 @@ public class AnalyzerAgent implements Agent {
             });
     }
 
+    /**
+     * Apply one entry of a batched enrichment, producing the same analyses the
+     * per-event pipeline would for the fields this event is missing
+     */
+    private CompletableFuture<CityEvent> applyBatchEnrichment(CityEvent event, Map<String, Object> enrichment,
+                                                              AgentRequest request) {
+        List<Map<String, Object>> analyses = new ArrayList<>();
+
+        if (needsContentAnalysis(event)) {
+            Map<String, Object> content = new HashMap<>();
+            content.put("analysis_type", "content");
+            content.put("category", enrichment.get("category"));
+            content.put("title", enrichment.get("title"));
+            content.put("summary", enrichment.get("summary"));
+            content.put("keywords", enrichment.get("keywords"));
+            content.put("confidence", enrichment.get("confidence"));
+            content.put("ai_powered", true);
+            analyses.add(content);
+        }
+
+        if (needsSentimentAnalysis(event)) {
+            analyses.add(Map.of(
+                "analysis_type", "sentiment",
+                "sentiment", enrichment.get("sentiment"),
+                "ai_powered", true
+            ));
+        }
+
+        if (needsLocationAnalysis(event)) {
+            boolean hasLocation = event.getLocation() != null;
+            analyses.add(Map.of(
+                "analysis_type", "location",
+                "enhanced_location", hasLocation
+                    ? enhanceLocationWithAI(event.getLocation(), enrichment)
+                    : createDefaultLocation(),
+                "ai_powered", hasLocation
+            ));
+        }
+
+        if (needsSeverityAnalysis(event)) {
+            analyses.add(Map.of(
+                "analysis_type", "severity",
+                "severity", parseAISeverity((String) enrichment.get("severity")),
+                "confidence", enrichment.get("confidence"),
+                "ai_powered", true
+            ));
+        }
+
+        analyses.add(Map.of(
+            "analysis_type", "additional_insights",
+            "ai_keywords", enrichment.get("keywords"),
+            "ai_summary", enrichment.get("summary"),
+            "ai_confidence", enrichment.get("confidence"),
+            "ai_powered", true
+        ));
+
+        if (!hasMultimediaContent(event, request)) {
+            return CompletableFuture.completedFuture(mergeAIAnalysesIntoEvent(event, analyses));
+        }
+
+        return analyzeMultimediaWithAI(event, request)
+            .thenApply(multimedia -> {
+                analyses.add(multimedia);
+                return mergeAIAnalysesIntoEvent(event, analyses);
+            });
+    }
+
     /**
      * Analyze event content using Vertex AI categorization
      */
-    private CompletableFuture<Map<String, Object>> analyzeEventContentWithAI(CityEvent event) {
+    private CompletableFuture<Map<String, Object>> analyzeEventContentWithAI(CityEvent event, VertexAiPriority priority) {
         String content = buildAnalysisContent(event);
         String source = event.getSource() != null ? event.getSource().name() : "UNKNOWN";
         
-        return vertexAiService.categorizeEvent(content, source)
+        return vertexAiService.categorizeEvent(content, source, priority)
             .thenApply(aiResult -> {
                 Map<String, Object> analysis = new HashMap<>(aiResult);
                 analysis.put("analysis_type", "content");
@@ -221,10 +331,10 @@ public class AnalyzerAgent implements Agent {
     /**
      * Analyze sentiment using Vertex AI
      */
-    private CompletableFuture<Map<String, Object>> analyzeSentimentWithAI(CityEvent event) {
+    private CompletableFuture<Map<String, Object>> analyzeSentimentWithAI(CityEvent event, VertexAiPriority priority) {
         String text = buildSentimentText(event);
         
-        return vertexAiService.analyzeSentiment(text)
+        return vertexAiService.analyzeSentiment(text, priority)
             .thenApply(sentimentData -> Map.of(
                 "analysis_type", "sentiment",
                 "sentiment", sentimentData,
@@ -243,7 +353,7 @@ public class AnalyzerAgent implements Agent {
     /**
      * Analyze location with AI enhancement
      */
-    private CompletableFuture<Map<String, Object>> analyzeLocationWithAI(CityEvent event) {
+    private CompletableFuture<Map<String, Object>> analyzeLocationWithAI(CityEvent event, VertexAiPriority priority) {
         return CompletableFuture.supplyAsync(() -> {
             Map<String, Object> locationAnalysis = new HashMap<>();
             locationAnalysis.put("analysis_type", "location");
@@ -256,7 +366,7 @@ public class AnalyzerAgent implements Agent {
                     String locationContext = buildLocationContext(event);
                     
                     // Use AI to extract additional location information
-                    return vertexAiService.categorizeEvent(locationContext, "LOCATION_ENHANCEMENT")
+                    return vertexAiService.categorizeEvent(locationContext, "LOCATION_ENHANCEMENT", priority)
                         .thenApply(aiResult -> {
                             CityEvent.LocationData enhancedLocation = enhanceLocationWithAI(currentLocation, aiResult);
                             Map<String, Object> result = new HashMap<>();
@@ -290,10 +400,10 @@ public class AnalyzerAgent implements Agent {
     /**
      * Analyze severity using AI
      */
-    private CompletableFuture<Map<String, Object>> analyzeSeverityWithAI(CityEvent event) {
+    private CompletableFuture<Map<String, Object>> analyzeSeverityWithAI(CityEvent event, VertexAiPriority priority) {
         String severityContext = buildSeverityContext(event);
         
-        return vertexAiService.categorizeEvent(severityContext, "SEVERITY_ANALYSIS")
+        return vertexAiService.categorizeEvent(severityContext, "SEVERITY_ANALYSIS", priority)
             .thenApply(aiResult -> {
                 Map<String, Object> severityAnalysis = new HashMap<>();
                 severityAnalysis.put("analysis_type", "severity");
@@ -330,7 +440,7 @@ public class AnalyzerAgent implements Agent {
         // Analyze images using Vertex AI
         if (request.getImageUrl() != null) {
             String imageContext = buildImageAnalysisContext(event);
-            mediaAnalyses.add(vertexAiService.analyzeImage(request.getImageUrl(), imageContext)
+            mediaAnalyses.add(vertexAiService.analyzeImage(request.getImageUrl(), imageContext, VertexAiPriority.of(request))
                 .thenApply(aiResult -> {
                     Map<String, Object> result = new HashMap<>(aiResult);
                     result.put("media_type", "image");
@@ -371,7 +481,8 @@ public class AnalyzerAgent implements Agent {
     /**
      * Generate additional AI insights about the event
      */
-    private CompletableFuture<Map<String, Object>> generateAdditionalInsights(CityEvent event) {
+    private CompletableFuture<Map<String, Object>> generateAdditionalInsights(CityEvent event,
+                                                                         VertexAiPriority priority) {
         String insightContext = String.format(
             "Generate additional insights for this city event: %s in %s, category: %s",
             event.getTitle(),
@@ -379,7 +490,7 @@ public class AnalyzerAgent implements Agent {
             event.getCategory()
         );
 
-        return vertexAiService.categorizeEvent(insightContext, "INSIGHTS_GENERATION")
+        return vertexAiService.categorizeEvent(insightContext, "INSIGHTS_GENERATION", priority)
             .thenApply(aiResult -> {
                 Map<String, Object> insights = new HashMap<>();
                 insights.put("analysis_type", "additional_insights");
@@ -493,17 +604,11 @@ public class AnalyzerAgent implements Agent {
      * Store event in both Firestore and BigQuery
      */
     private CompletableFuture<Map<String, Object>> storeEventInBothSystems(CityEvent event) {
-        CompletableFuture<String> firestoreFuture = firestoreService.storeCityEvent(event);
-        CompletableFuture<Void> bigQueryFuture = CompletableFuture.runAsync(() -> {
-            try {
-                bigQueryService.storeCityEvent(event);
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
-        });
+        CompletableFuture<String> firestoreFuture = cachedEventService.storeCityEvent(event);
+        CompletableFuture<Void> bigQueryFuture = bigQueryBatchWriter.submit(event);
 
         return CompletableFuture.allOf(firestoreFuture, bigQueryFuture)
-            .thenApply(ignored -> {
+            .handle((ignored, throwable) -> {
                 Map<String, Object> storageResults = new HashMap<>();
                 
                 try {
@@ -3,6 +3,7 @@ package com.lemillion.city_data_overload_server.agent.impl;
 import com.lemillion.city_data_overload_server.agent.Agent;
 import com.lemillion.city_data_overload_server.agent.AgentRequest;
 import com.lemillion.city_data_overload_server.agent.AgentResponse;
+import com.lemillion.city_data_overload_server.agent.DeadlineExceededException;
 import com.lemillion.city_data_overload_server.agent.HandlerRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -11,6 +12,7 @@ import org.springframework.stereotype.Component;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Enhanced Coordinator Agent - Single entry point for Flutter application
@@ -91,6 +93,15 @@ public class CoordinatorAgent implements Agent {
                     return response;
                 })
                 .exceptionally(throwable -> {
+                    Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                        ? throwable.getCause() : throwable;
+                    if (cause instanceof DeadlineExceededException) {
+                        log.warn("Flutter request {} missed its deadline after {}ms",
+                                request.getRequestId(), System.currentTimeMillis() - startTime);
+                        AgentResponse response = AgentResponse.deadlineExceeded(request.getRequestId(), getAgentId());
+                        response.setProcessingTimeMs(System.currentTimeMillis() - startTime);
+                        return response;
+                    }
                     log.error("Flutter coordinator error for request: {}", 
                             request.getRequestId(), throwable);
                     return createErrorResponse(request, throwable);
@@ -3,9 +3,11 @@ package com.lemillion.city_data_overload_server.agent.impl;
 import com.lemillion.city_data_overload_server.agent.Agent;
 import com.lemillion.city_data_overload_server.agent.AgentRequest;
 import com.lemillion.city_data_overload_server.agent.AgentResponse;
+import com.lemillion.city_data_overload_server.agent.Deadline;
 import com.lemillion.city_data_overload_server.model.CityEvent;
 import com.lemillion.city_data_overload_server.service.BigQueryService;
 import com.lemillion.city_data_overload_server.service.FirestoreService;
+import com.lemillion.city_data_overload_server.service.VertexAiPriority;
 import com.lemillion.city_data_overload_server.service.VertexAiService; // Add VertexAI integration
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -61,8 +63,13 @@ public class EventsAgent implements Agent {
                 request.getRequestId(), request.getRequestType(), 
                 request.getLatitude(), request.getLongitude(), request.getArea());
         
+        if (Deadline.of(request).isExpired()) {
+            return CompletableFuture.completedFuture(
+                AgentResponse.deadlineExceeded(request.getRequestId(), getAgentId()));
+        }
+
         try {
-            return fetchEventsWithFallback(request)
+            return Deadline.of(request).bound(fetchEventsWithFallback(request))
                 .thenApply(events -> {
                     // Check if we should include all severities (for chat context)
                     boolean includeAllSeverities = request.getParameters() != null && 
@@ -206,7 +213,8 @@ public class EventsAgent implements Agent {
         // Build context for AI analysis
         String enhancementContext = buildEventEnhancementContext(event, request);
         
-        return vertexAiService.categorizeEvent(enhancementContext, "EVENT_ENHANCEMENT")
+        return vertexAiService.categorizeEvent(enhancementContext, "EVENT_ENHANCEMENT",
+            VertexAiPriority.of(request), Deadline.of(request))
             .thenApply(aiResult -> {
                 return applyAIEnhancementsToEvent(event, aiResult, request);
             })
@@ -368,7 +376,7 @@ public class EventsAgent implements Agent {
             
             // Use AI to generate event suggestions
             CompletableFuture<Map<String, Object>> aiFallback = vertexAiService.categorizeEvent(
-                fallbackContext, "EVENT_SUGGESTIONS");
+                fallbackContext, "EVENT_SUGGESTIONS", VertexAiPriority.of(request), Deadline.of(request));
             
             Map<String, Object> aiResult = aiFallback.join();
             
@@ -3,7 +3,9 @@ package com.lemillion.city_data_overload_server.agent.impl;
 import com.lemillion.city_data_overload_server.agent.Agent;
 import com.lemillion.city_data_overload_server.agent.AgentRequest;
 import com.lemillion.city_data_overload_server.agent.AgentResponse;
+import com.lemillion.city_data_overload_server.agent.Deadline;
 import com.lemillion.city_data_overload_server.model.CityEvent;
+import com.lemillion.city_data_overload_server.service.VertexAiPriority;
 import com.lemillion.city_data_overload_server.service.VertexAiService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -46,8 +48,13 @@ public class FusionAgent implements Agent {
         log.info("Fusion agent processing request: {} of type: {}", 
                 request.getRequestId(), request.getRequestType());
         
+        if (Deadline.of(request).isExpired()) {
+            return CompletableFuture.completedFuture(
+                AgentResponse.deadlineExceeded(request.getRequestId(), getAgentId()));
+        }
+
         try {
-            return fuseData(request)
+            return Deadline.of(request).bound(fuseData(request))
                 .thenApply(fusedContent -> {
                     AgentResponse response = AgentResponse.success(
                         request.getRequestId(),
@@ -96,7 +103,7 @@ public class FusionAgent implements Agent {
         try {
             // Test AI service with a simple synthesis task
             List<CityEvent> testEvents = createTestEvents();
-            vertexAiService.synthesizeEvents(testEvents, "Health check test").get(
+            vertexAiService.synthesizeEvents(testEvents, "Health check test", VertexAiPriority.BACKGROUND).get(
                 java.util.concurrent.TimeUnit.SECONDS.toMillis(5), 
                 java.util.concurrent.TimeUnit.MILLISECONDS
             );
@@ -272,7 +279,7 @@ public class FusionAgent implements Agent {
         
         // Multiple events, use AI synthesis
         String context = buildSynthesisContext(groupKey, request);
-        return vertexAiService.synthesizeEvents(events, context)
+        return vertexAiService.synthesizeEvents(events, context, VertexAiPriority.of(request))
             .exceptionally(throwable -> {
                 log.warn("AI synthesis failed for group {}, using fallback", groupKey, throwable);
                 return fallbackSynthesis(events, groupKey);
@@ -3,10 +3,13 @@ package com.lemillion.city_data_overload_server.agent.impl;
 import com.lemillion.city_data_overload_server.agent.Agent;
 import com.lemillion.city_data_overload_server.agent.AgentRequest;
 import com.lemillion.city_data_overload_server.agent.AgentResponse;
+import com.lemillion.city_data_overload_server.agent.Deadline;
+import com.lemillion.city_data_overload_server.model.AreaSentimentAggregate;
 import com.lemillion.city_data_overload_server.model.CityEvent;
 import com.lemillion.city_data_overload_server.service.BigQueryService;
 import com.lemillion.city_data_overload_server.service.FirestoreService;
 import com.lemillion.city_data_overload_server.service.VertexAiService;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -14,6 +17,8 @@ import org.springframework.stereotype.Component;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 /**
@@ -36,6 +41,16 @@ public class MoodMapAgent implements Agent {
         "Jayanagar", "Malleshwaram", "Rajinagar", "Yelahanka"
     );
 
+    private static final int MOOD_WINDOW_DAYS = 7;
+    private static final int BIGQUERY_THREADS = 4;
+
+    // BigQuery reads block, so they get their own threads instead of the common ForkJoin pool
+    private final ExecutorService bigQueryExecutor = Executors.newFixedThreadPool(BIGQUERY_THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "mood-map-bigquery");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     @Override
     public String getAgentId() {
         return "mood-map-agent";
@@ -58,8 +73,13 @@ public class MoodMapAgent implements Agent {
         log.info("Mood map agent processing request: {} of type: {}", 
                 request.getRequestId(), request.getRequestType());
         
+        if (Deadline.of(request).isExpired()) {
+            return CompletableFuture.completedFuture(
+                AgentResponse.deadlineExceeded(request.getRequestId(), getAgentId()));
+        }
+
         try {
-            return generateMoodMap(request)
+            return Deadline.of(request).bound(generateMoodMap(request))
                 .thenApply(moodData -> {
                     AgentResponse response = AgentResponse.success(
                         request.getRequestId(),
@@ -118,6 +138,11 @@ public class MoodMapAgent implements Agent {
         }
     }
 
+    @PreDestroy
+    public void stop() {
+        bigQueryExecutor.shutdownNow();
+    }
+
     /**
      * Generate comprehensive mood map for the city or specific area
      */
@@ -173,42 +198,40 @@ public class MoodMapAgent implements Agent {
     }
 
     /**
-     * Generate city-wide mood map
+     * Generate city-wide mood map from a single grouped BigQuery query
+     * instead of per-area, per-category event scans
      */
     private CompletableFuture<Map<String, Object>> generateCityWideMoodMap() {
         log.info("Generating city-wide mood map");
         
-        List<CompletableFuture<Map<String, Object>>> areaAnalyses = BENGALURU_AREAS.stream()
-            .map(this::generateAreaMood)
-            .collect(Collectors.toList());
-        
-        return CompletableFuture.allOf(areaAnalyses.toArray(new CompletableFuture[0]))
-            .thenCompose(ignored -> {
-                Map<String, List<CityEvent.SentimentData>> areaSentiments = new HashMap<>();
+        return CompletableFuture.supplyAsync(() -> bigQueryService.queryAreaSentimentAggregates(
+                BENGALURU_AREAS, LocalDateTime.now().minusDays(MOOD_WINDOW_DAYS)), bigQueryExecutor)
+            .exceptionally(throwable -> {
+                log.warn("Failed to query area sentiment aggregates, using default mood data", throwable);
+                return new ArrayList<>();
+            })
+            .thenCompose(aggregates -> {
+                Map<String, List<AreaSentimentAggregate>> aggregatesByArea = aggregates.stream()
+                    .filter(aggregate -> aggregate.getArea() != null)
+                    .collect(Collectors.groupingBy(AreaSentimentAggregate::getArea));
+                
+                Map<String, AreaSentimentAggregate> areaTotals = new HashMap<>();
                 Map<String, Object> areaResults = new HashMap<>();
                 
-                // Collect results from all areas
-                for (int i = 0; i < BENGALURU_AREAS.size(); i++) {
-                    String area = BENGALURU_AREAS.get(i);
-                    try {
-                        Map<String, Object> areaResult = areaAnalyses.get(i).join();
-                        areaResults.put(area, areaResult);
-                        
-                        // Extract sentiment data for overall analysis
-                        if (areaResult.containsKey("sentiments")) {
-                            @SuppressWarnings("unchecked")
-                            List<CityEvent.SentimentData> sentiments = 
-                                (List<CityEvent.SentimentData>) areaResult.get("sentiments");
-                            areaSentiments.put(area, sentiments);
-                        }
-                    } catch (Exception e) {
-                        log.warn("Failed to get mood data for area: {}", area, e);
+                for (String area : BENGALURU_AREAS) {
+                    List<AreaSentimentAggregate> areaRows = aggregatesByArea.getOrDefault(area, List.of());
+                    Optional<AreaSentimentAggregate> total = areaRows.stream().reduce(AreaSentimentAggregate::merge);
+                    
+                    if (total.isPresent() && total.get().getSentimentEventCount() > 0) {
+                        areaTotals.put(area, total.get());
+                        areaResults.put(area, analyzeSentimentAggregates(area, total.get(), areaRows));
+                    } else {
                         areaResults.put(area, createDefaultMoodData(area));
                     }
                 }
                 
                 // Generate overall city analysis using AI
-                return vertexAiService.generateMoodMapAnalysis(areaSentiments)
+                return vertexAiService.generateMoodMapAnalysisFromAggregates(areaTotals)
                     .thenApply(aiAnalysis -> {
                         Map<String, Object> cityMoodMap = new HashMap<>();
                         cityMoodMap.put("type", "city_wide");
@@ -245,7 +268,7 @@ public class MoodMapAgent implements Agent {
                         List<CityEvent> categoryEvents = bigQueryService.queryEventsByCategoryAndSeverity(
                             category, 
                             CityEvent.EventSeverity.MODERATE,
-                            LocalDateTime.now().minusDays(7),
+                            LocalDateTime.now().minusDays(MOOD_WINDOW_DAYS),
                             25
                         );
                         
@@ -267,7 +290,7 @@ public class MoodMapAgent implements Agent {
                 log.error("Error querying BigQuery for area mood: {}", area, e);
                 return new ArrayList<>();
             }
-        });
+        }, bigQueryExecutor);
     }
 
     /**
@@ -366,6 +389,46 @@ public class MoodMapAgent implements Agent {
         return analysis;
     }
 
+    /**
+     * Build area mood data from aggregated sentiment rows
+     */
+    private Map<String, Object> analyzeSentimentAggregates(
+            String area, AreaSentimentAggregate total, List<AreaSentimentAggregate> categoryRows) {
+        
+        Map<CityEvent.SentimentType, Long> sentimentCounts = new EnumMap<>(CityEvent.SentimentType.class);
+        sentimentCounts.put(CityEvent.SentimentType.POSITIVE, total.getPositiveCount());
+        sentimentCounts.put(CityEvent.SentimentType.NEGATIVE, total.getNegativeCount());
+        sentimentCounts.put(CityEvent.SentimentType.NEUTRAL, total.getNeutralCount());
+        sentimentCounts.put(CityEvent.SentimentType.MIXED, total.getMixedCount());
+        
+        double avgScore = total.getAverageSentimentScore();
+        CityEvent.SentimentType overallMood = determineOverallMood(avgScore, sentimentCounts);
+        
+        Map<String, Object> categoryBreakdown = new HashMap<>();
+        for (AreaSentimentAggregate row : categoryRows) {
+            if (row.getCategory() != null) {
+                categoryBreakdown.put(row.getCategory().name(), Map.of(
+                    "events", row.getEventCount(),
+                    "mood_score", row.getAverageSentimentScore()
+                ));
+            }
+        }
+        
+        Map<String, Object> analysis = new HashMap<>();
+        analysis.put("area", area);
+        analysis.put("total_events", total.getEventCount());
+        analysis.put("analyzed_events", total.getSentimentEventCount());
+        analysis.put("overall_mood", overallMood.name());
+        analysis.put("mood_score", avgScore);
+        analysis.put("confidence", total.getAverageConfidence());
+        analysis.put("sentiment_distribution", sentimentCounts);
+        analysis.put("category_breakdown", categoryBreakdown);
+        analysis.put("mood_description", generateMoodDescription(overallMood, avgScore, area));
+        analysis.put("recommendations", generateMoodRecommendations(overallMood, avgScore));
+        
+        return analysis;
+    }
+
     /**
      * Generate overall summary for city-wide mood map
      */
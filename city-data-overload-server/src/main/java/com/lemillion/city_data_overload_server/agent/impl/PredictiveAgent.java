@@ -3,6 +3,7 @@ package com.lemillion.city_data_overload_server.agent.impl;
 import com.lemillion.city_data_overload_server.agent.Agent;
 import com.lemillion.city_data_overload_server.agent.AgentRequest;
 import com.lemillion.city_data_overload_server.agent.AgentResponse;
+import com.lemillion.city_data_overload_server.agent.Deadline;
 import com.lemillion.city_data_overload_server.model.CityEvent;
 import com.lemillion.city_data_overload_server.service.BigQueryService;
 import com.lemillion.city_data_overload_server.service.VertexAiService;
@@ -52,8 +53,13 @@ public class PredictiveAgent implements Agent {
         log.info("Predictive agent processing request: {} of type: {}", 
                 request.getRequestId(), request.getRequestType());
         
+        if (Deadline.of(request).isExpired()) {
+            return CompletableFuture.completedFuture(
+                AgentResponse.deadlineExceeded(request.getRequestId(), getAgentId()));
+        }
+
         try {
-            return generatePredictions(request)
+            return Deadline.of(request).bound(generatePredictions(request))
                 .thenApply(predictions -> {
                     log.debug("PredictiveAgent generated {} predictions for request {}", 
                         predictions.size(), request.getRequestId());
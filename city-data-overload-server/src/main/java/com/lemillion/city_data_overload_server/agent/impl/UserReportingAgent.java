@@ -3,9 +3,11 @@ package com.lemillion.city_data_overload_server.agent.impl;
 import com.lemillion.city_data_overload_server.agent.Agent;
 import com.lemillion.city_data_overload_server.agent.AgentRequest;
 import com.lemillion.city_data_overload_server.agent.AgentResponse;
+import com.lemillion.city_data_overload_server.agent.Deadline;
 import com.lemillion.city_data_overload_server.model.CityEvent;
-import com.lemillion.city_data_overload_server.service.BigQueryService;
-import com.lemillion.city_data_overload_server.service.FirestoreService;
+import com.lemillion.city_data_overload_server.service.BigQueryBatchWriter;
+import com.lemillion.city_data_overload_server.service.CachedEventService;
+import com.lemillion.city_data_overload_server.service.VertexAiPriority;
 import com.lemillion.city_data_overload_server.service.VertexAiService;
 import com.lemillion.city_data_overload_server.service.CloudStorageService;
 import com.lemillion.city_data_overload_server.service.UserReportService;
@@ -29,8 +31,8 @@ import java.util.stream.Collectors;
 public class UserReportingAgent implements Agent {
 
     private final VertexAiService vertexAiService;
-    private final FirestoreService firestoreService;
-    private final BigQueryService bigQueryService;
+    private final CachedEventService cachedEventService;
+    private final BigQueryBatchWriter bigQueryBatchWriter;
     private final CloudStorageService cloudStorageService;
     private final UserReportService userReportService;
 
@@ -56,8 +58,13 @@ public class UserReportingAgent implements Agent {
         log.info("User reporting agent processing request: {} of type: {}", 
                 request.getRequestId(), request.getRequestType());
         
+        if (Deadline.of(request).isExpired()) {
+            return CompletableFuture.completedFuture(
+                AgentResponse.deadlineExceeded(request.getRequestId(), getAgentId()));
+        }
+
         try {
-            return processUserReport(request)
+            return Deadline.of(request).bound(processUserReport(request))
                 .thenApply(processedEvent -> {
                     AgentResponse response = AgentResponse.success(
                         request.getRequestId(),
@@ -110,9 +117,9 @@ public class UserReportingAgent implements Agent {
     @Override
     public HealthStatus getHealthStatus() {
         try {
-            // Test with a simple text analysis (with shorter timeout)
+            // Test with a simple text analysis (with shorter timeout); uncached, or the fixed text is always a hit
             String testText = "Test user report for health check";
-            vertexAiService.categorizeEvent(testText, "USER_REPORT").get(
+            vertexAiService.categorizeEventUncached(testText, "USER_REPORT", VertexAiPriority.BACKGROUND).get(
                 1, java.util.concurrent.TimeUnit.SECONDS
             );
             return HealthStatus.HEALTHY;
@@ -474,16 +481,14 @@ public class UserReportingAgent implements Agent {
         log.info("Storing complete report: {} for user: {}", event.getId(), userId);
         
         // Store in Firestore with TTL
-        CompletableFuture<String> firestoreFuture = firestoreService.storeCityEvent(event);
+        CompletableFuture<String> firestoreFuture = cachedEventService.storeCityEvent(event);
         
         // Store in BigQuery (for analytics)
-        CompletableFuture<Void> bigQueryFuture = CompletableFuture.runAsync(() -> {
-            try {
-                bigQueryService.storeCityEvent(event);
-            } catch (Exception e) {
-                log.warn("Failed to store event in BigQuery: {}", event.getId(), e);
-            }
-        });
+        CompletableFuture<Void> bigQueryFuture = bigQueryBatchWriter.submit(event)
+            .exceptionally(throwable -> {
+                log.warn("Failed to store event in BigQuery: {}", event.getId(), throwable);
+                return null;
+            });
         
         // Store user report tracking
         List<String> mediaUrls = event.getMediaAttachments() != null 
@@ -664,16 +669,14 @@ public class UserReportingAgent implements Agent {
         log.info("Storing processed user report event: {}", event.getId());
         
         // Store in Firestore first (for real-time access)
-        CompletableFuture<String> firestoreFuture = firestoreService.storeCityEvent(event);
+        CompletableFuture<String> firestoreFuture = cachedEventService.storeCityEvent(event);
         
         // Store in BigQuery (for analytics)
-        CompletableFuture<Void> bigQueryFuture = CompletableFuture.runAsync(() -> {
-            try {
-                bigQueryService.storeCityEvent(event);
-            } catch (Exception e) {
-                log.warn("Failed to store event in BigQuery: {}", event.getId(), e);
-            }
-        });
+        CompletableFuture<Void> bigQueryFuture = bigQueryBatchWriter.submit(event)
+            .exceptionally(throwable -> {
+                log.warn("Failed to store event in BigQuery: {}", event.getId(), throwable);
+                return null;
+            });
         
         return CompletableFuture.allOf(firestoreFuture, bigQueryFuture)
             .thenApply(ignored -> {
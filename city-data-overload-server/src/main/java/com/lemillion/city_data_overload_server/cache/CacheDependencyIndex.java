@@ -0,0 +1,182 @@
+package com.lemillion.city_data_overload_server.cache;
+
+import com.lemillion.city_data_overload_server.model.CityEvent;
+import com.lemillion.city_data_overload_server.util.GeoHash;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Dependency index for cached event queries.
+ * Every cached entry is registered under the tags (geohash cells, areas,
+ * category/severity pairs) it was computed from; a new event then evicts
+ * only the entries sharing one of its tags instead of flushing whole caches.
+ * The index lives in Redis so writes on one replica reach entries cached by another.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CacheDependencyIndex {
+
+    private static final String ENTRY_SEPARATOR = "|";
+
+    private final StringRedisTemplate redisTemplate;
+    private final CacheManager cacheManager;
+
+    @Value("${cache.dependencies.key-prefix:cache:deps:}")
+    private String keyPrefix;
+
+    /**
+     * Must outlive the longest TTL of any indexed cache
+     */
+    @Value("${cache.dependencies.ttl:1h}")
+    private Duration ttl;
+
+    /**
+     * Record that a cache entry depends on the given tags
+     */
+    public void register(String cacheName, String key, Collection<String> tags) {
+        String entry = cacheName + ENTRY_SEPARATOR + key;
+        try {
+            for (String tag : tags) {
+                String indexKey = keyPrefix + tag;
+                redisTemplate.opsForSet().add(indexKey, entry);
+                redisTemplate.expire(indexKey, ttl);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to register cache dependencies for {}: {}", entry, e.getMessage());
+        }
+    }
+
+    /**
+     * Whether the entry is still registered under all of its tags. Invalidation
+     * deletes the tag sets it evicts from, so false means an invalidation ran
+     * after the entry was registered. Assumes true if the index is unreachable,
+     * since invalidation then clears whole caches instead.
+     */
+    public boolean isRegistered(String cacheName, String key, Collection<String> tags) {
+        String entry = cacheName + ENTRY_SEPARATOR + key;
+        try {
+            List<Object> members = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (String tag : tags) {
+                    connection.setCommands().sIsMember(
+                        (keyPrefix + tag).getBytes(StandardCharsets.UTF_8),
+                        entry.getBytes(StandardCharsets.UTF_8));
+                }
+                return null;
+            });
+            return members.stream().allMatch(Boolean.TRUE::equals);
+        } catch (Exception e) {
+            log.warn("Failed to check cache dependencies for {}: {}", entry, e.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * Evict every cache entry registered under one of the event's tags.
+     * Falls back to clearing the given caches if the index is unreachable,
+     * so a failed lookup can never leave stale entries behind.
+     */
+    public void invalidate(CityEvent event, Collection<String> fallbackCaches) {
+        List<String> indexKeys = tagsFor(event).stream().map(tag -> keyPrefix + tag).toList();
+        if (indexKeys.isEmpty()) {
+            return;
+        }
+
+        Set<String> entries;
+        try {
+            entries = redisTemplate.opsForSet().union(indexKeys);
+            redisTemplate.delete(indexKeys);
+        } catch (Exception e) {
+            log.warn("Cache dependency index unavailable, clearing caches {}: {}", fallbackCaches, e.getMessage());
+            fallbackCaches.forEach(this::clearCache);
+            return;
+        }
+
+        if (entries == null || entries.isEmpty()) {
+            return;
+        }
+
+        for (String entry : entries) {
+            int separator = entry.indexOf(ENTRY_SEPARATOR);
+            if (separator < 0) {
+                continue;
+            }
+            Cache cache = cacheManager.getCache(entry.substring(0, separator));
+            if (cache != null) {
+                cache.evict(entry.substring(separator + 1));
+            }
+        }
+        log.debug("Evicted {} cache entries affected by event {}", entries.size(), event.getId());
+    }
+
+    /**
+     * Tags for a query over a circle: the geohash cells covering it
+     */
+    public static Set<String> locationTags(double latitude, double longitude, double radiusKm) {
+        Set<String> tags = new LinkedHashSet<>();
+        for (String prefix : GeoHash.coveringPrefixes(latitude, longitude, radiusKm)) {
+            tags.add(geoTag(prefix));
+        }
+        return tags;
+    }
+
+    public static String areaTag(String area) {
+        return "area:" + area;
+    }
+
+    public static String categoryTag(CityEvent.EventCategory category, CityEvent.EventSeverity severity) {
+        return "category:" + category + ":" + severity;
+    }
+
+    /**
+     * Tags an event can affect. Location queries are registered under cells of
+     * varying precision, so the event matches every prefix of its own geohash.
+     */
+    static List<String> tagsFor(CityEvent event) {
+        List<String> tags = new ArrayList<>();
+
+        CityEvent.LocationData location = event.getLocation();
+        if (location != null) {
+            if (location.getLatitude() != null && location.getLongitude() != null) {
+                String geohash = GeoHash.encode(location.getLatitude(), location.getLongitude(),
+                    GeoHash.STORAGE_PRECISION);
+                for (int length = 1; length <= geohash.length(); length++) {
+                    tags.add(geoTag(geohash.substring(0, length)));
+                }
+            }
+            if (location.getArea() != null) {
+                tags.add(areaTag(location.getArea()));
+            }
+        }
+
+        if (event.getCategory() != null && event.getSeverity() != null) {
+            tags.add(categoryTag(event.getCategory(), event.getSeverity()));
+        }
+        return tags;
+    }
+
+    private static String geoTag(String prefix) {
+        return "geo:" + prefix;
+    }
+
+    private void clearCache(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+}
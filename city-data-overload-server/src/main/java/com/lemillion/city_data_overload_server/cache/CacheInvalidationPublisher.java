@@ -0,0 +1,17 @@
+package com.lemillion.city_data_overload_server.cache;
+
+/**
+ * Broadcasts L1 cache invalidations to the other application replicas
+ */
+public interface CacheInvalidationPublisher {
+
+    /**
+     * Tell other replicas to drop a single entry from their L1
+     */
+    void publishEvict(String cacheName, String key);
+
+    /**
+     * Tell other replicas to drop every entry of a cache from their L1
+     */
+    void publishClear(String cacheName);
+}
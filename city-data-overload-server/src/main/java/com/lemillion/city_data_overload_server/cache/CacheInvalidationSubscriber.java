@@ -0,0 +1,56 @@
+package com.lemillion.city_data_overload_server.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Subscribes the two-tier cache manager to the L1 invalidation channel.
+ * Subscription happens in the background and is retried until Redis is
+ * reachable, so the application can start while Redis is down.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CacheInvalidationSubscriber {
+
+    private static final Duration RETRY_INTERVAL = Duration.ofSeconds(30);
+
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private final TwoTierCacheManager cacheManager;
+    private final TaskScheduler taskScheduler;
+
+    @Value("${cache.l1.invalidation-topic:cache:l1-invalidation}")
+    private String invalidationTopic;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void subscribe() {
+        taskScheduler.schedule(this::trySubscribe, Instant.now());
+    }
+
+    private void trySubscribe() {
+        ChannelTopic topic = new ChannelTopic(invalidationTopic);
+        try {
+            redisMessageListenerContainer.addMessageListener(cacheManager, topic);
+            log.info("Subscribed to L1 cache invalidation channel: {}", invalidationTopic);
+        } catch (Exception e) {
+            log.warn("Could not subscribe to L1 cache invalidation channel, retrying in {}: {}",
+                    RETRY_INTERVAL, e.getMessage());
+            try {
+                redisMessageListenerContainer.removeMessageListener(cacheManager, topic);
+            } catch (Exception ignored) {
+                // Not subscribed yet; nothing to undo
+            }
+            taskScheduler.schedule(this::trySubscribe, Instant.now().plus(RETRY_INTERVAL));
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.lemillion.city_data_overload_server.cache;
+
+/**
+ * Quantized location query shared by every caller inside the same tile.
+ * The tile query is centred on the cell and widened by the cell's half
+ * diagonal so it covers the requested circle of any caller in the cell.
+ */
+public record LocationTile(
+    String geohash,
+    double centerLatitude,
+    double centerLongitude,
+    double radiusClassKm,
+    int maxResultsClass,
+    double queryRadiusKm
+) {
+
+    /**
+     * Cache key for the tile-level result
+     */
+    public String cacheKey() {
+        return "tile:" + geohash + ":r" + radiusClassKm + ":n" + maxResultsClass;
+    }
+
+    /**
+     * Events to fetch for the tile. The widened circle is larger than any
+     * caller's, so the limit grows with the area ratio to leave each caller
+     * about maxResultsClass events once narrowed to its own circle.
+     */
+    public int fetchLimit() {
+        double areaRatio = Math.pow(queryRadiusKm / radiusClassKm, 2);
+        return (int) Math.ceil(maxResultsClass * areaRatio);
+    }
+}
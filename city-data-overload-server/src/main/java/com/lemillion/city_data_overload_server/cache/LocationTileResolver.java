@@ -0,0 +1,57 @@
+package com.lemillion.city_data_overload_server.cache;
+
+import com.lemillion.city_data_overload_server.util.GeoHash;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Snaps location queries to geohash tiles and buckets radius and result
+ * count into a few classes, so nearby callers share one cache entry.
+ */
+@Component
+public class LocationTileResolver {
+
+    @Value("${cache.location-tiles.precision:6}")
+    private int precision;
+
+    @Value("${cache.location-tiles.radius-classes-km:0.5,1,2,5,10,25,50}")
+    private List<Double> radiusClassesKm;
+
+    @Value("${cache.location-tiles.max-results-classes:20,50,100,200,500}")
+    private List<Integer> maxResultsClasses;
+
+    /**
+     * Resolve the tile serving a caller's location query
+     */
+    public LocationTile resolve(double latitude, double longitude, double radiusKm, int maxResults) {
+        String geohash = GeoHash.encode(latitude, longitude, precision);
+        double[] center = GeoHash.decodeCenter(geohash);
+        double radiusClass = bucketRadius(radiusKm);
+        double queryRadius = radiusClass + GeoHash.cellHalfDiagonalKm(center[0], precision);
+
+        return new LocationTile(geohash, center[0], center[1], radiusClass,
+            bucketMaxResults(maxResults), queryRadius);
+    }
+
+    private double bucketRadius(double radiusKm) {
+        for (double radiusClass : radiusClassesKm) {
+            if (radiusKm <= radiusClass) {
+                return radiusClass;
+            }
+        }
+        double largest = radiusClassesKm.get(radiusClassesKm.size() - 1);
+        return Math.ceil(radiusKm / largest) * largest;
+    }
+
+    private int bucketMaxResults(int maxResults) {
+        for (int maxResultsClass : maxResultsClasses) {
+            if (maxResults <= maxResultsClass) {
+                return maxResultsClass;
+            }
+        }
+        int largest = maxResultsClasses.get(maxResultsClasses.size() - 1);
+        return (int) Math.ceil((double) maxResults / largest) * largest;
+    }
+}
@@ -0,0 +1,132 @@
+package com.lemillion.city_data_overload_server.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight layer for backend reads.
+ * The first caller for a key runs the load; identical callers arriving while it
+ * is in flight attach to the same future instead of issuing a duplicate request.
+ * Completed results are not retained; caching stays with the cache layer.
+ */
+@Component
+@Slf4j
+public class RequestCoalescer {
+
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Cache<String, LongAdder> joinCounts;
+    private final MeterRegistry meterRegistry;
+
+    public RequestCoalescer(MeterRegistry meterRegistry,
+                            @Value("${coalescing.tracked-keys:10000}") long trackedKeys,
+                            @Value("${coalescing.key-stats-ttl:1h}") Duration keyStatsTtl) {
+        this.meterRegistry = meterRegistry;
+        this.joinCounts = Caffeine.newBuilder()
+            .maximumSize(trackedKeys)
+            .expireAfterAccess(keyStatsTtl)
+            .build();
+        Gauge.builder("coalescing.in_flight", inFlight, Map::size)
+            .description("Backend loads currently in flight")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Run an asynchronous load, or join the identical one already in flight
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> execute(String namespace, String key, Supplier<CompletableFuture<T>> loader) {
+        String flightKey = namespace + ":" + key;
+        CompletableFuture<Object> promise = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(flightKey, promise);
+
+        if (existing != null) {
+            recordJoin(namespace, flightKey);
+            // Hand out a copy so one caller cancelling cannot affect the others
+            return (CompletableFuture<T>) existing.copy();
+        }
+
+        counter(namespace, "leader").increment();
+        try {
+            loader.get().whenComplete((value, error) -> {
+                inFlight.remove(flightKey, promise);
+                if (error != null) {
+                    promise.completeExceptionally(error);
+                } else {
+                    promise.complete(value);
+                }
+            });
+        } catch (Exception e) {
+            inFlight.remove(flightKey, promise);
+            promise.completeExceptionally(e);
+        }
+        return (CompletableFuture<T>) promise.copy();
+    }
+
+    /**
+     * Run a blocking load on the calling thread, or wait for the identical
+     * one already in flight on another thread
+     */
+    public <T> T executeBlocking(String namespace, String key, Supplier<T> loader) {
+        try {
+            return this.<T>execute(namespace, key, () -> {
+                try {
+                    return CompletableFuture.completedFuture(loader.get());
+                } catch (Exception e) {
+                    return CompletableFuture.failedFuture(e);
+                }
+            }).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Number of loads currently in flight
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * Keys with the most callers served by joining an in-flight load
+     */
+    public Map<String, Long> getTopJoinedKeys(int limit) {
+        Map<String, Long> top = new LinkedHashMap<>();
+        joinCounts.asMap().entrySet().stream()
+            .sorted(Comparator.comparingLong((Map.Entry<String, LongAdder> entry) -> entry.getValue().sum())
+                .reversed())
+            .limit(limit)
+            .forEach(entry -> top.put(entry.getKey(), entry.getValue().sum()));
+        return top;
+    }
+
+    private void recordJoin(String namespace, String flightKey) {
+        counter(namespace, "joined").increment();
+        joinCounts.get(flightKey, ignored -> new LongAdder()).increment();
+        log.debug("Coalesced request onto in-flight load: {}", flightKey);
+    }
+
+    private Counter counter(String namespace, String role) {
+        return meterRegistry.counter("coalescing.requests", "namespace", namespace, "role", role);
+    }
+}
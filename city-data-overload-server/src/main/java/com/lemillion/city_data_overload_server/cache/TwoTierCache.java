@@ -0,0 +1,208 @@
+package com.lemillion.city_data_overload_server.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Cache with an in-process L1 in front of a shared Redis L2.
+ * Reads are served from L1 when possible and populate it on an L2 hit;
+ * writes go to both tiers and are broadcast so other replicas drop their L1 copy.
+ */
+public class TwoTierCache implements Cache {
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> l1;
+    private final Cache l2;
+    private final CacheInvalidationPublisher invalidationPublisher;
+
+    public TwoTierCache(String name,
+                        com.github.benmanes.caffeine.cache.Cache<String, Object> l1,
+                        Cache l2,
+                        CacheInvalidationPublisher invalidationPublisher) {
+        this.name = name;
+        this.l1 = l1;
+        this.l2 = l2;
+        this.invalidationPublisher = invalidationPublisher;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return this;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String l1Key = toL1Key(key);
+        Object local = l1.getIfPresent(l1Key);
+        if (local != null) {
+            return new SimpleValueWrapper(local);
+        }
+
+        ValueWrapper remote = l2.get(key);
+        if (remote != null && remote.get() != null) {
+            l1.put(l1Key, remote.get());
+        }
+        return remote;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                "Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String l1Key = toL1Key(key);
+        Object local = l1.getIfPresent(l1Key);
+        if (local != null) {
+            return (T) local;
+        }
+
+        T value = l2.get(key, valueLoader);
+        if (value != null) {
+            l1.put(l1Key, value);
+        }
+        return value;
+    }
+
+    @Override
+    public CompletableFuture<?> retrieve(Object key) {
+        String l1Key = toL1Key(key);
+        Object local = l1.getIfPresent(l1Key);
+        if (local != null) {
+            return CompletableFuture.completedFuture(local);
+        }
+
+        CompletableFuture<?> remote = l2.retrieve(key);
+        if (remote == null) {
+            return null;
+        }
+        return remote.thenApply(result -> {
+            Object value = result instanceof ValueWrapper wrapper ? wrapper.get() : result;
+            if (value != null) {
+                l1.put(l1Key, value);
+            }
+            return result;
+        });
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+        String l1Key = toL1Key(key);
+        Object local = l1.getIfPresent(l1Key);
+        if (local != null) {
+            return CompletableFuture.completedFuture((T) local);
+        }
+
+        return l2.retrieve(key, valueLoader).thenApply(value -> {
+            if (value != null) {
+                l1.put(l1Key, value);
+            }
+            return value;
+        });
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        l2.put(key, value);
+        String l1Key = toL1Key(key);
+        if (value != null) {
+            l1.put(l1Key, value);
+        } else {
+            l1.invalidate(l1Key);
+        }
+        invalidationPublisher.publishEvict(name, l1Key);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = l2.putIfAbsent(key, value);
+        if (existing == null) {
+            String l1Key = toL1Key(key);
+            if (value != null) {
+                l1.put(l1Key, value);
+            }
+            invalidationPublisher.publishEvict(name, l1Key);
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        l2.evict(key);
+        String l1Key = toL1Key(key);
+        evictLocal(l1Key);
+        invalidationPublisher.publishEvict(name, l1Key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean present = l2.evictIfPresent(key);
+        String l1Key = toL1Key(key);
+        evictLocal(l1Key);
+        invalidationPublisher.publishEvict(name, l1Key);
+        return present;
+    }
+
+    @Override
+    public void clear() {
+        l2.clear();
+        clearLocal();
+        invalidationPublisher.publishClear(name);
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean present = l2.invalidate();
+        clearLocal();
+        invalidationPublisher.publishClear(name);
+        return present;
+    }
+
+    /**
+     * Drop a single entry from L1 only (remote invalidation)
+     */
+    public void evictLocal(String l1Key) {
+        l1.invalidate(l1Key);
+    }
+
+    /**
+     * Drop every L1 entry only (remote invalidation)
+     */
+    public void clearLocal() {
+        l1.invalidateAll();
+    }
+
+    /**
+     * Approximate number of entries currently held in L1
+     */
+    public long getLocalSize() {
+        return l1.estimatedSize();
+    }
+
+    /**
+     * Redis stores keys as strings, so L1 uses the same representation;
+     * this also lets invalidation messages address entries across replicas.
+     */
+    private String toL1Key(Object key) {
+        return String.valueOf(key);
+    }
+}
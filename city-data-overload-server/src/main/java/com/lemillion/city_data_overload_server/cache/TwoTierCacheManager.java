@@ -0,0 +1,151 @@
+package com.lemillion.city_data_overload_server.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Cache manager combining a bounded Caffeine L1 per cache with the Redis L2.
+ * Both tiers share the per-cache TTLs; L1 entries are additionally capped by a
+ * max TTL and invalidated across replicas through Redis pub/sub.
+ */
+@Slf4j
+public class TwoTierCacheManager implements CacheManager, CacheInvalidationPublisher, MessageListener {
+
+    private static final String EVICT = "E";
+    private static final String CLEAR = "C";
+    private static final String SEPARATOR = "|";
+
+    private final RedisCacheManager redisCacheManager;
+    private final StringRedisTemplate redisTemplate;
+    private final String invalidationTopic;
+    private final Map<String, Duration> cacheTtls;
+    private final Duration defaultTtl;
+    private final long l1MaximumWeight;
+    private final Duration l1MaxTtl;
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final ConcurrentMap<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+
+    public TwoTierCacheManager(RedisCacheManager redisCacheManager,
+                               StringRedisTemplate redisTemplate,
+                               String invalidationTopic,
+                               Map<String, Duration> cacheTtls,
+                               Duration defaultTtl,
+                               long l1MaximumWeight,
+                               Duration l1MaxTtl) {
+        this.redisCacheManager = redisCacheManager;
+        this.redisTemplate = redisTemplate;
+        this.invalidationTopic = invalidationTopic;
+        this.cacheTtls = Map.copyOf(cacheTtls);
+        this.defaultTtl = defaultTtl;
+        this.l1MaximumWeight = l1MaximumWeight;
+        this.l1MaxTtl = l1MaxTtl;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        TwoTierCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+
+        Cache l2 = redisCacheManager.getCache(name);
+        if (l2 == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, cacheName -> createCache(cacheName, l2));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        Set<String> names = new LinkedHashSet<>(redisCacheManager.getCacheNames());
+        names.addAll(caches.keySet());
+        return names;
+    }
+
+    @Override
+    public void publishEvict(String cacheName, String key) {
+        publish(String.join(SEPARATOR, EVICT, instanceId, cacheName, key));
+    }
+
+    @Override
+    public void publishClear(String cacheName) {
+        publish(String.join(SEPARATOR, CLEAR, instanceId, cacheName));
+    }
+
+    /**
+     * Apply an invalidation published by another replica to the local L1
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String[] parts = body.split("\\" + SEPARATOR, 4);
+        if (parts.length < 3 || instanceId.equals(parts[1])) {
+            return;
+        }
+
+        TwoTierCache cache = caches.get(parts[2]);
+        if (cache == null) {
+            return;
+        }
+
+        if (CLEAR.equals(parts[0])) {
+            cache.clearLocal();
+        } else if (EVICT.equals(parts[0]) && parts.length == 4) {
+            cache.evictLocal(parts[3]);
+        }
+        log.debug("Applied remote L1 invalidation: {}", body);
+    }
+
+    private TwoTierCache createCache(String name, Cache l2) {
+        Duration ttl = cacheTtls.getOrDefault(name, defaultTtl);
+        Duration l1Ttl = ttl.compareTo(l1MaxTtl) < 0 ? ttl : l1MaxTtl;
+
+        com.github.benmanes.caffeine.cache.Cache<String, Object> l1 = Caffeine.newBuilder()
+            .maximumWeight(l1MaximumWeight)
+            .weigher(TwoTierCacheManager::weigh)
+            .expireAfterWrite(l1Ttl)
+            .build();
+
+        log.info("Created two-tier cache '{}' (L1 ttl: {}, L2 ttl: {})", name, l1Ttl, ttl);
+        return new TwoTierCache(name, l1, l2, this);
+    }
+
+    private void publish(String message) {
+        try {
+            redisTemplate.convertAndSend(invalidationTopic, message);
+        } catch (Exception e) {
+            log.warn("Failed to publish cache invalidation '{}': {}", message, e.getMessage());
+        }
+    }
+
+    /**
+     * Weigh entries by element count so a few large event lists cannot
+     * crowd out many small entries unnoticed.
+     */
+    private static int weigh(String key, Object value) {
+        if (value instanceof Collection<?> collection) {
+            return collection.size() + 1;
+        }
+        if (value instanceof Map<?, ?> map) {
+            return map.size() + 1;
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,33 @@
+package com.lemillion.city_data_overload_server.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bengaluru areas known to the service and where they are
+ */
+@Configuration
+@ConfigurationProperties(prefix = "bengaluru")
+@Data
+public class BengaluruConfig {
+
+    private List<AreaConfig> areas = new ArrayList<>();
+
+    @Data
+    public static class AreaConfig {
+        private String name;
+
+        // Centre of the area
+        private Coordinates coordinates = new Coordinates();
+    }
+
+    @Data
+    public static class Coordinates {
+        private double lat;
+        private double lng;
+    }
+}
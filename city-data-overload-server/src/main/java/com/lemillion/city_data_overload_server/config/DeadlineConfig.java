@@ -0,0 +1,49 @@
+package com.lemillion.city_data_overload_server.config;
+
+import com.lemillion.city_data_overload_server.agent.Deadline;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuration for request deadlines in the agent graph
+ */
+@Configuration
+@ConfigurationProperties(prefix = "agents.deadlines")
+@Data
+public class DeadlineConfig {
+
+    private Duration defaultTimeout = Duration.ofSeconds(15);
+
+    // Cap on a client-supplied timeoutMs
+    private Duration maxTimeout = Duration.ofSeconds(60);
+
+    // Time past the deadline a handler gets to assemble partial results before the request fails
+    private Duration grace = Duration.ofMillis(500);
+
+    // Timeout per page type, e.g. HOME: 8s
+    private Map<String, Duration> pageTimeouts = new HashMap<>();
+
+    /**
+     * Timeout for a request: the client's timeoutMs when given, capped at
+     * maxTimeout, otherwise the page type's timeout
+     */
+    public Duration timeoutFor(String pageType, Long requestedTimeoutMs) {
+        if (requestedTimeoutMs != null && requestedTimeoutMs > 0) {
+            Duration requested = Duration.ofMillis(requestedTimeoutMs);
+            return requested.compareTo(maxTimeout) > 0 ? maxTimeout : requested;
+        }
+        return pageTimeouts.getOrDefault(pageType, defaultTimeout);
+    }
+
+    /**
+     * Deadline starting now for a request of the given page type
+     */
+    public Deadline deadlineFor(String pageType, Long requestedTimeoutMs) {
+        return Deadline.after(timeoutFor(pageType, requestedTimeoutMs));
+    }
+}
@@ -0,0 +1,64 @@
+package com.lemillion.city_data_overload_server.config;
+
+import com.lemillion.city_data_overload_server.stream.OverflowPolicy;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuration for Server-Sent Events fan-out
+ */
+@Configuration
+@ConfigurationProperties(prefix = "event-stream")
+@Data
+public class EventStreamConfig {
+
+    // Frames waiting to be written, per subscriber
+    private int queueCapacity = 256;
+
+    // Threads writing queued frames to subscribers
+    private int writerThreads = 4;
+
+    // Broadcasts waiting to be fanned out to subscriber queues
+    private int dispatchQueueCapacity = 10000;
+
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_OLDEST;
+
+    // Policy per stream type, e.g. alerts: disconnect
+    private Map<String, OverflowPolicy> overflowPolicies = new HashMap<>();
+
+    // Side of the grid cells subscribers with a location filter are indexed by
+    private double cellSizeDegrees = 0.05;
+
+    private double defaultRadiusKm = 3;
+
+    // Caps how many cells one subscriber can be indexed under
+    private double maxRadiusKm = 25;
+
+    // Encoded frames kept per stream for clients resuming with Last-Event-ID
+    private DataSize replayBufferSize = DataSize.ofMegabytes(2);
+
+    // Cluster-wide broadcast through Redis
+    private BusConfig bus = new BusConfig();
+
+    public OverflowPolicy overflowPolicyFor(String streamType) {
+        return overflowPolicies.getOrDefault(streamType, overflowPolicy);
+    }
+
+    @Data
+    public static class BusConfig {
+        private boolean enabled = true;
+        private String topic = "sse:frames";
+
+        // Redis counter frame IDs are taken from, so every replica sees the same IDs
+        private String idKey = "sse:last-frame-id";
+
+        private int batchSize = 100;
+        private Duration flushInterval = Duration.ofMillis(50);
+    }
+}
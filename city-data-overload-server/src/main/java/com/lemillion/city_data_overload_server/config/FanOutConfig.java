@@ -0,0 +1,37 @@
+package com.lemillion.city_data_overload_server.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuration for the page handlers' data fan-out
+ */
+@Configuration
+@ConfigurationProperties(prefix = "agents.fan-out")
+@Data
+public class FanOutConfig {
+
+    private Duration defaultBudget = Duration.ofSeconds(2);
+
+    // Budget per branch, e.g. home-alerts: 1200ms
+    private Map<String, Duration> budgets = new HashMap<>();
+
+    // How long a primary read may run before the cached read is started alongside it
+    private Duration hedgeDelay = Duration.ofMillis(300);
+
+    // How long the model call waits for slower branches once the events are in
+    private Duration contextWait = Duration.ofMillis(250);
+
+    // Last good result per branch and location, served when a branch misses its budget
+    private Duration lastGoodTtl = Duration.ofMinutes(30);
+    private long lastGoodMaximumSize = 5000;
+
+    public Duration budgetFor(String branch) {
+        return budgets.getOrDefault(branch, defaultBudget);
+    }
+}
@@ -5,17 +5,19 @@ import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.lemillion.city_data_overload_server.cache.TwoTierCacheManager;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.CacheManager;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.CachingConfigurerSupport;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.interceptor.KeyGenerator;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
@@ -23,39 +25,28 @@ import org.springframework.data.redis.serializer.StringRedisSerializer;
 import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executors;
 
 /**
  * Redis configuration for caching frequently accessed city data.
- * Provides caching for events, predictions, sentiment analysis, and user sessions.
+ * Provides caching for events, predictions, sentiment analysis, and user sessions,
+ * served from an in-process L1 backed by Redis as the shared L2.
  */
 @Configuration
 @EnableCaching
 @Slf4j
 public class RedisConfiguration extends CachingConfigurerSupport {
 
-    /**
-     * Custom key generator for cache keys with location and time context
-     */
-    @Bean("locationBasedKeyGenerator")
-    @Override
-    public KeyGenerator keyGenerator() {
-        return (target, method, params) -> {
-            StringBuilder keyBuilder = new StringBuilder();
-            keyBuilder.append(target.getClass().getSimpleName())
-                     .append(":")
-                     .append(method.getName());
-            
-            for (Object param : params) {
-                if (param != null) {
-                    keyBuilder.append(":").append(param.toString());
-                }
-            }
-            
-            String key = keyBuilder.toString();
-            log.debug("Generated cache key: {}", key);
-            return key;
-        };
-    }
+    private static final Duration DEFAULT_CACHE_TTL = Duration.ofMinutes(30);
+
+    @Value("${cache.l1.maximum-weight:50000}")
+    private long l1MaximumWeight;
+
+    @Value("${cache.l1.max-ttl:5m}")
+    private Duration l1MaxTtl;
+
+    @Value("${cache.l1.invalidation-topic:cache:l1-invalidation}")
+    private String invalidationTopic;
 
     /**
      * Redis template configuration with JSON serialization
@@ -86,45 +77,80 @@ public class RedisConfiguration extends CachingConfigurerSupport {
     }
 
     /**
-     * Cache manager with different TTL configurations for different data types
+     * Two-tier cache manager: in-process Caffeine L1 in front of Redis L2,
+     * with different TTL configurations for different data types
      */
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public TwoTierCacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                            StringRedisTemplate stringRedisTemplate) {
         RedisCacheConfiguration defaultCacheConfig = RedisCacheConfiguration.defaultCacheConfig()
-            .entryTtl(Duration.ofMinutes(30))
+            .entryTtl(DEFAULT_CACHE_TTL)
             .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
             .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(createJsonSerializer()));
 
+        Map<String, Duration> cacheTtls = cacheTtls();
         Map<String, RedisCacheConfiguration> cacheConfigurations = new HashMap<>();
+        cacheTtls.forEach((name, ttl) -> cacheConfigurations.put(name, defaultCacheConfig.entryTtl(ttl)));
+
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
+            .cacheDefaults(defaultCacheConfig)
+            .withInitialCacheConfigurations(cacheConfigurations)
+            .build();
+        redisCacheManager.afterPropertiesSet();
+
+        return new TwoTierCacheManager(redisCacheManager, stringRedisTemplate, invalidationTopic,
+            cacheTtls, DEFAULT_CACHE_TTL, l1MaximumWeight, l1MaxTtl);
+    }
+
+    /**
+     * Listener container for Redis pub/sub channels. Starts without topics so
+     * startup does not depend on Redis; see CacheInvalidationSubscriber.
+     * Messages are handled one at a time in the order Redis delivered them,
+     * since the SSE bus drops a batch whose IDs are behind one it already sent.
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.setTaskExecutor(Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "redis-listener");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        return container;
+    }
+
+    /**
+     * Per-cache TTLs, shared by the L1 and L2 tiers
+     */
+    private Map<String, Duration> cacheTtls() {
+        Map<String, Duration> cacheTtls = new HashMap<>();
         
         // Events cache - 15 minutes TTL
-        cacheConfigurations.put("events", defaultCacheConfig.entryTtl(Duration.ofMinutes(15)));
+        cacheTtls.put("events", Duration.ofMinutes(15));
         
         // Location-based events - 10 minutes TTL
-        cacheConfigurations.put("locationEvents", defaultCacheConfig.entryTtl(Duration.ofMinutes(10)));
+        cacheTtls.put("locationEvents", Duration.ofMinutes(10));
         
         // Predictions cache - 1 hour TTL
-        cacheConfigurations.put("predictions", defaultCacheConfig.entryTtl(Duration.ofHours(1)));
+        cacheTtls.put("predictions", Duration.ofHours(1));
         
         // Mood map data - 30 minutes TTL
-        cacheConfigurations.put("moodMap", defaultCacheConfig.entryTtl(Duration.ofMinutes(30)));
+        cacheTtls.put("moodMap", Duration.ofMinutes(30));
         
         // User sessions - 24 hours TTL
-        cacheConfigurations.put("userSessions", defaultCacheConfig.entryTtl(Duration.ofHours(24)));
+        cacheTtls.put("userSessions", Duration.ofHours(24));
         
         // Agent responses - 5 minutes TTL
-        cacheConfigurations.put("agentResponses", defaultCacheConfig.entryTtl(Duration.ofMinutes(5)));
+        cacheTtls.put("agentResponses", Duration.ofMinutes(5));
         
         // Trending data - 20 minutes TTL
-        cacheConfigurations.put("trending", defaultCacheConfig.entryTtl(Duration.ofMinutes(20)));
+        cacheTtls.put("trending", Duration.ofMinutes(20));
         
         // Area statistics - 45 minutes TTL
-        cacheConfigurations.put("areaStats", defaultCacheConfig.entryTtl(Duration.ofMinutes(45)));
+        cacheTtls.put("areaStats", Duration.ofMinutes(45));
 
-        return RedisCacheManager.builder(connectionFactory)
-            .cacheDefaults(defaultCacheConfig)
-            .withInitialCacheConfigurations(cacheConfigurations)
-            .build();
+        return cacheTtls;
     }
 
     /**
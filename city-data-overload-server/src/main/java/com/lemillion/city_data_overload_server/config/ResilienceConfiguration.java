@@ -1,21 +1,31 @@
 package com.lemillion.city_data_overload_server.config;
 
+import com.lemillion.city_data_overload_server.agent.DeadlineExceededException;
+import com.lemillion.city_data_overload_server.service.ChatStreamClosedException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import io.github.resilience4j.retry.Retry;
 import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
 import io.github.resilience4j.timelimiter.TimeLimiter;
 import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.client.HttpClientErrorException;
 
 import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeoutException;
 
 /**
  * Resilience4j configuration for circuit breakers, retries, and timeouts.
  * Provides fault tolerance for external API calls and internal service communication.
+ * Instances are created through the auto-configured registries, which publish
+ * their state, call counts and timings as resilience4j.* actuator metrics.
  */
 @Configuration
 @Slf4j
@@ -25,7 +35,7 @@ public class ResilienceConfiguration {
      * Circuit breaker for Vertex AI service calls
      */
     @Bean("vertexAiCircuitBreaker")
-    public CircuitBreaker vertexAiCircuitBreaker() {
+    public CircuitBreaker vertexAiCircuitBreaker(CircuitBreakerRegistry registry) {
         CircuitBreakerConfig config = CircuitBreakerConfig.custom()
             .failureRateThreshold(50) // Open if >50% of calls fail
             .waitDurationInOpenState(Duration.ofSeconds(30)) // Wait 30s before half-open
@@ -33,10 +43,13 @@ public class ResilienceConfiguration {
             .slidingWindowSize(10) // Consider last 10 calls
             .permittedNumberOfCallsInHalfOpenState(3) // Allow 3 test calls in half-open
             .recordExceptions(Exception.class) // Record all exceptions as failures
-            .ignoreExceptions(IllegalArgumentException.class) // Don't count invalid input as failure
+            .ignoreExceptions(IllegalArgumentException.class, // Don't count invalid input as failure
+                RejectedExecutionException.class, // Or calls shed by our own admission queue
+                DeadlineExceededException.class, // Or calls abandoned because the caller gave up
+                ChatStreamClosedException.class) // Or streams stopped because the client left
             .build();
         
-        CircuitBreaker circuitBreaker = CircuitBreaker.of("vertexAi", config);
+        CircuitBreaker circuitBreaker = registry.circuitBreaker("vertexAi", config);
         
         circuitBreaker.getEventPublisher()
             .onStateTransition(event -> 
@@ -51,7 +64,7 @@ public class ResilienceConfiguration {
      * Circuit breaker for BigQuery service calls
      */
     @Bean("bigQueryCircuitBreaker")
-    public CircuitBreaker bigQueryCircuitBreaker() {
+    public CircuitBreaker bigQueryCircuitBreaker(CircuitBreakerRegistry registry) {
         CircuitBreakerConfig config = CircuitBreakerConfig.custom()
             .failureRateThreshold(60) // More lenient for database
             .waitDurationInOpenState(Duration.ofSeconds(45))
@@ -61,7 +74,7 @@ public class ResilienceConfiguration {
             .recordExceptions(Exception.class)
             .build();
         
-        CircuitBreaker circuitBreaker = CircuitBreaker.of("bigQuery", config);
+        CircuitBreaker circuitBreaker = registry.circuitBreaker("bigQuery", config);
         
         circuitBreaker.getEventPublisher()
             .onStateTransition(event -> 
@@ -76,7 +89,7 @@ public class ResilienceConfiguration {
      * Circuit breaker for Firestore service calls
      */
     @Bean("firestoreCircuitBreaker")
-    public CircuitBreaker firestoreCircuitBreaker() {
+    public CircuitBreaker firestoreCircuitBreaker(CircuitBreakerRegistry registry) {
         CircuitBreakerConfig config = CircuitBreakerConfig.custom()
             .failureRateThreshold(70) // Very lenient for real-time DB
             .waitDurationInOpenState(Duration.ofSeconds(20))
@@ -86,7 +99,7 @@ public class ResilienceConfiguration {
             .recordExceptions(Exception.class)
             .build();
         
-        CircuitBreaker circuitBreaker = CircuitBreaker.of("firestore", config);
+        CircuitBreaker circuitBreaker = registry.circuitBreaker("firestore", config);
         
         circuitBreaker.getEventPublisher()
             .onStateTransition(event -> 
@@ -101,7 +114,7 @@ public class ResilienceConfiguration {
      * Circuit breaker for external API calls (Twitter, Data.gov.in, etc.)
      */
     @Bean("externalApiCircuitBreaker")
-    public CircuitBreaker externalApiCircuitBreaker() {
+    public CircuitBreaker externalApiCircuitBreaker(CircuitBreakerRegistry registry) {
         CircuitBreakerConfig config = CircuitBreakerConfig.custom()
             .failureRateThreshold(40) // Strict for external APIs
             .waitDurationInOpenState(Duration.ofMinutes(2)) // Wait longer for external APIs
@@ -112,7 +125,7 @@ public class ResilienceConfiguration {
             .ignoreExceptions(IllegalArgumentException.class)
             .build();
         
-        CircuitBreaker circuitBreaker = CircuitBreaker.of("externalApi", config);
+        CircuitBreaker circuitBreaker = registry.circuitBreaker("externalApi", config);
         
         circuitBreaker.getEventPublisher()
             .onStateTransition(event -> 
@@ -127,15 +140,18 @@ public class ResilienceConfiguration {
      * Retry configuration for Vertex AI calls
      */
     @Bean("vertexAiRetry")
-    public Retry vertexAiRetry() {
+    public Retry vertexAiRetry(RetryRegistry registry) {
         RetryConfig config = RetryConfig.custom()
             .maxAttempts(3)
             .waitDuration(Duration.ofSeconds(2))
             .retryExceptions(Exception.class)
-            .ignoreExceptions(IllegalArgumentException.class)
+            // An open breaker, a shed call or a timed-out call should fail fast, not wait again
+            .ignoreExceptions(IllegalArgumentException.class, CallNotPermittedException.class,
+                RejectedExecutionException.class, TimeoutException.class, DeadlineExceededException.class,
+                ChatStreamClosedException.class)
             .build();
         
-        Retry retry = Retry.of("vertexAi", config);
+        Retry retry = registry.retry("vertexAi", config);
         
         retry.getEventPublisher()
             .onRetry(event -> 
@@ -149,14 +165,15 @@ public class ResilienceConfiguration {
      * Retry configuration for database operations
      */
     @Bean("databaseRetry")
-    public Retry databaseRetry() {
+    public Retry databaseRetry(RetryRegistry registry) {
         RetryConfig config = RetryConfig.custom()
-            .maxAttempts(4) // More attempts for database
+            .maxAttempts(2) // One retry; a query can take its full job timeout per attempt
             .waitDuration(Duration.ofMillis(500))
             .retryExceptions(Exception.class)
+            .ignoreExceptions(CallNotPermittedException.class)
             .build();
         
-        Retry retry = Retry.of("database", config);
+        Retry retry = registry.retry("database", config);
         
         retry.getEventPublisher()
             .onRetry(event -> 
@@ -170,15 +187,17 @@ public class ResilienceConfiguration {
      * Retry configuration for external API calls
      */
     @Bean("externalApiRetry")
-    public Retry externalApiRetry() {
+    public Retry externalApiRetry(RetryRegistry registry) {
         RetryConfig config = RetryConfig.custom()
             .maxAttempts(5) // More attempts for potentially flaky external APIs
             .waitDuration(Duration.ofSeconds(1))
             .retryExceptions(Exception.class, TimeoutException.class)
-            .ignoreExceptions(IllegalArgumentException.class)
+            // Client errors (bad key, bad query) won't succeed on a second try
+            .ignoreExceptions(IllegalArgumentException.class, CallNotPermittedException.class,
+                HttpClientErrorException.class)
             .build();
         
-        Retry retry = Retry.of("externalApi", config);
+        Retry retry = registry.retry("externalApi", config);
         
         retry.getEventPublisher()
             .onRetry(event -> 
@@ -192,38 +211,51 @@ public class ResilienceConfiguration {
      * Time limiter for long-running operations
      */
     @Bean("defaultTimeLimiter")
-    public TimeLimiter defaultTimeLimiter() {
+    public TimeLimiter defaultTimeLimiter(TimeLimiterRegistry registry) {
         TimeLimiterConfig config = TimeLimiterConfig.custom()
             .timeoutDuration(Duration.ofSeconds(30))
             .cancelRunningFuture(true)
             .build();
         
-        return TimeLimiter.of("default", config);
+        return registry.timeLimiter("default", config);
     }
 
     /**
      * Time limiter for AI operations (longer timeout)
      */
     @Bean("aiTimeLimiter")
-    public TimeLimiter aiTimeLimiter() {
+    public TimeLimiter aiTimeLimiter(TimeLimiterRegistry registry) {
         TimeLimiterConfig config = TimeLimiterConfig.custom()
             .timeoutDuration(Duration.ofMinutes(2)) // AI operations can take longer
             .cancelRunningFuture(true)
             .build();
         
-        return TimeLimiter.of("ai", config);
+        return registry.timeLimiter("ai", config);
+    }
+
+    /**
+     * Time limiter for AI calls someone is waiting on; background work keeps the longer limit
+     */
+    @Bean("interactiveAiTimeLimiter")
+    public TimeLimiter interactiveAiTimeLimiter(TimeLimiterRegistry registry) {
+        TimeLimiterConfig config = TimeLimiterConfig.custom()
+            .timeoutDuration(Duration.ofSeconds(8))
+            .cancelRunningFuture(true)
+            .build();
+        
+        return registry.timeLimiter("interactiveAi", config);
     }
 
     /**
      * Time limiter for external API calls
      */
     @Bean("externalApiTimeLimiter")
-    public TimeLimiter externalApiTimeLimiter() {
+    public TimeLimiter externalApiTimeLimiter(TimeLimiterRegistry registry) {
         TimeLimiterConfig config = TimeLimiterConfig.custom()
             .timeoutDuration(Duration.ofSeconds(15)) // Shorter timeout for external APIs
             .cancelRunningFuture(true)
             .build();
         
-        return TimeLimiter.of("externalApi", config);
+        return registry.timeLimiter("externalApi", config);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.lemillion.city_data_overload_server.config;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Scheduler for async retry back-off and time limiter timeouts. Not exposed
+ * as a ScheduledExecutorService bean on purpose, since one would replace
+ * Spring's auto-configured task scheduler.
+ */
+@Component
+public class ResilienceScheduler {
+
+    private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "resilience-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ScheduledExecutorService getExecutor() {
+        return executor;
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+}
@@ -2,6 +2,7 @@ package com.lemillion.city_data_overload_server.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 /**
@@ -10,8 +11,15 @@ import org.springframework.web.client.RestTemplate;
 @Configuration
 public class RestTemplateConfig {
 
+    /**
+     * Bounded by the SerpApi timeout, so a hung connection fails instead of
+     * holding a fetcher thread indefinitely
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(SerpApiConfig serpApiConfig) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(serpApiConfig.getTimeoutMs());
+        requestFactory.setReadTimeout(serpApiConfig.getTimeoutMs());
+        return new RestTemplate(requestFactory);
     }
-} 
\ No newline at end of file
+}
@@ -4,6 +4,8 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 /**
  * Configuration class for SerpApi settings
  */
@@ -26,6 +28,9 @@ public class SerpApiConfig {
     // Scheduler configurations  
     private SchedulerConfig scheduler = new SchedulerConfig();
     
+    // Near-duplicate filtering before AI processing
+    private DedupConfig dedup = new DedupConfig();
+    
     @Data
     public static class GoogleConfig {
         private String domain = "google.co.in";
@@ -59,6 +64,17 @@ public class SerpApiConfig {
         }
     }
     
+    @Data
+    public static class DedupConfig {
+        private boolean enabled = true;
+        private double jaccardThreshold = 0.6;   // Estimated title+snippet similarity that counts as a duplicate
+        private int numHashes = 128;             // MinHash signature length
+        private int bands = 32;                  // LSH bands; numHashes must be divisible by this
+        private int shingleLength = 5;           // Character shingle length
+        private Duration signatureTtl = Duration.ofHours(48); // How long seen articles are remembered
+        private String keyPrefix = "serpapi:dedup:";
+    }
+    
     public String getApiKey() {
         if (apiKey == null || apiKey.trim().isEmpty()) {
             throw new IllegalStateException("SerpApi API key is not configured. Please set serpapi.api-key in application.yml");
@@ -0,0 +1,33 @@
+package com.lemillion.city_data_overload_server.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuration for the Vertex AI response cache
+ */
+@Configuration
+@ConfigurationProperties(prefix = "gcp.vertex-ai.response-cache")
+@Data
+public class VertexAiCacheConfig {
+
+    private boolean enabled = true;
+    private long maximumSize = 10000;
+    private Duration defaultTtl = Duration.ofHours(6);
+
+    // TTL per prompt type, e.g. categorize: 24h
+    private Map<String, Duration> ttls = new HashMap<>();
+
+    // Shared Redis tier so replicas reuse each other's responses
+    private boolean redisEnabled = false;
+    private String redisKeyPrefix = "vertexai:responses:";
+
+    public Duration ttlFor(String promptType) {
+        return ttls.getOrDefault(promptType, defaultTtl);
+    }
+}
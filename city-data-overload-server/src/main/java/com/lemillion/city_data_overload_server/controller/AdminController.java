@@ -1,5 +1,6 @@
 package com.lemillion.city_data_overload_server.controller;
 
+import com.lemillion.city_data_overload_server.cache.RequestCoalescer;
 import com.lemillion.city_data_overload_server.model.CityEvent;
 import com.lemillion.city_data_overload_server.service.*;
 import com.lemillion.city_data_overload_server.agent.impl.*;
@@ -33,6 +34,7 @@ public class AdminController {
     private final FirestoreService firestoreService;
     private final UserReportService userReportService;
     private final CloudStorageService cloudStorageService;
+    private final RequestCoalescer requestCoalescer;
     
     // Agents
     private final CoordinatorAgent coordinatorAgent;
@@ -352,6 +354,20 @@ public class AdminController {
         }
     }
 
+    /**
+     * Get request coalescing statistics, showing which keys are hot enough to share loads
+     */
+    @GetMapping("/api/system/coalescing")
+    @Operation(summary = "Request coalescing", description = "In-flight loads and the keys most often joined")
+    public ResponseEntity<Map<String, Object>> getCoalescingStats(
+            @RequestParam(defaultValue = "20") @Parameter(description = "Number of top keys") int limit) {
+        return ResponseEntity.ok(Map.of(
+            "inFlight", requestCoalescer.getInFlightCount(),
+            "topJoinedKeys", requestCoalescer.getTopJoinedKeys(limit),
+            "timestamp", LocalDateTime.now()
+        ));
+    }
+
     /**
      * Clean up expired data
      */
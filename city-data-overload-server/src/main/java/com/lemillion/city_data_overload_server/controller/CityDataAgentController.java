@@ -3,6 +3,7 @@ package com.lemillion.city_data_overload_server.controller;
 import com.lemillion.city_data_overload_server.agent.AgentRequest;
 import com.lemillion.city_data_overload_server.agent.AgentResponse;
 import com.lemillion.city_data_overload_server.agent.impl.*;
+import com.lemillion.city_data_overload_server.config.DeadlineConfig;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -38,6 +39,7 @@ public class CityDataAgentController {
     private final FusionAgent fusionAgent;
     private final UserReportingAgent userReportingAgent;
     private final AlertAgent alertAgent;
+    private final DeadlineConfig deadlineConfig;
 
     /**
      * Coordinator endpoint - Main orchestration point for complex queries
@@ -467,6 +469,11 @@ public class CityDataAgentController {
             builder.context((String) requestData.get("context"));
         }
         
+        // Agents called directly are bounded too; routed requests keep this deadline
+        Long timeoutMs = requestData.get("timeoutMs") instanceof Number number ? number.longValue() : null;
+        builder.timeoutMs(timeoutMs);
+        builder.deadline(deadlineConfig.deadlineFor(null, timeoutMs));
+        
         return builder.build();
     }
 } 
\ No newline at end of file
@@ -3,12 +3,15 @@ package com.lemillion.city_data_overload_server.controller;
 import com.lemillion.city_data_overload_server.agent.AgentRequest;
 import com.lemillion.city_data_overload_server.agent.AgentResponse;
 import com.lemillion.city_data_overload_server.agent.impl.CoordinatorAgent;
+import com.lemillion.city_data_overload_server.service.ChatStreamService;
 import com.lemillion.city_data_overload_server.service.VertexAiService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import jakarta.servlet.http.HttpServletRequest;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -34,6 +37,7 @@ public class FlutterApiController {
 
     private final CoordinatorAgent coordinatorAgent;
     private final VertexAiService vertexAiService;
+    private final ChatStreamService chatStreamService;
 
     /**
      * Main chat endpoint - handles all text-based interactions
@@ -48,26 +52,7 @@ public class FlutterApiController {
         
         log.info("Flutter chat request: '{}' for page: {}", request.getQuery(), request.getPage());
         
-        AgentRequest agentRequest = AgentRequest.builder()
-            .requestId("flutter_" + System.currentTimeMillis())
-            .requestType(determineRequestType(request.getPage()))
-            .userId(request.getUserId())
-            .timestamp(LocalDateTime.now())
-            .query(request.getQuery())
-            .latitude(request.getLatitude())
-            .longitude(request.getLongitude())
-            .area(request.getArea())
-            .radiusKm(request.getRadiusKm())
-            .category(request.getCategory())
-            .severity(request.getSeverity())
-            .maxResults(request.getMaxResults())
-            .parameters(Map.of(
-                "page", request.getPage() != null ? request.getPage() : "home",
-                "session_id", request.getSessionId() != null ? request.getSessionId() : "default"
-            ))
-            .build();
-
-        return coordinatorAgent.processRequest(agentRequest)
+        return coordinatorAgent.processRequest(buildChatAgentRequest(request))
             .thenApply(this::formatFlutterResponse)
             .exceptionally(throwable -> {
                 log.error("Flutter chat request failed", throwable);
@@ -76,6 +61,17 @@ public class FlutterApiController {
             });
     }
 
+    /**
+     * Streaming chat endpoint - same request as /chat, answered as Server-Sent Events
+     * so the first words show up while the rest is still being generated.
+     * Sends a "context" frame with events and alerts, "token" frames, then "done" or "error".
+     */
+    @PostMapping(value = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChat(@RequestBody ChatRequest request) {
+        log.info("Flutter streaming chat request: '{}'", request.getQuery());
+        return chatStreamService.streamChat(buildChatAgentRequest(request));
+    }
+
     /**
      * Events page endpoint - specifically for events listing
      * Flutter static prompt: "Show me events in my area"
@@ -331,6 +327,30 @@ public class FlutterApiController {
 
     // Helper Methods
 
+    /**
+     * Agent request for a chat message
+     */
+    private AgentRequest buildChatAgentRequest(ChatRequest request) {
+        return AgentRequest.builder()
+            .requestId("flutter_" + System.currentTimeMillis())
+            .requestType(determineRequestType(request.getPage()))
+            .userId(request.getUserId())
+            .timestamp(LocalDateTime.now())
+            .query(request.getQuery())
+            .latitude(request.getLatitude())
+            .longitude(request.getLongitude())
+            .area(request.getArea())
+            .radiusKm(request.getRadiusKm())
+            .category(request.getCategory())
+            .severity(request.getSeverity())
+            .maxResults(request.getMaxResults())
+            .parameters(Map.of(
+                "page", request.getPage() != null ? request.getPage() : "home",
+                "session_id", request.getSessionId() != null ? request.getSessionId() : "default"
+            ))
+            .build();
+    }
+
     /**
      * Determine request type based on page
      */
@@ -3,8 +3,11 @@ package com.lemillion.city_data_overload_server.controller;
 import com.lemillion.city_data_overload_server.agent.AgentRequest;
 import com.lemillion.city_data_overload_server.agent.AgentResponse;
 import com.lemillion.city_data_overload_server.agent.impl.*;
+import com.lemillion.city_data_overload_server.config.DeadlineConfig;
 import com.lemillion.city_data_overload_server.model.CityEvent;
+import com.lemillion.city_data_overload_server.service.ChatStreamService;
 import com.lemillion.city_data_overload_server.service.EventStreamService;
+import com.lemillion.city_data_overload_server.stream.SubscriptionFilter;
 import com.lemillion.city_data_overload_server.service.BigQueryService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -46,6 +49,8 @@ public class PublicApiController {
     private final EventStreamService eventStreamService;
     private final com.lemillion.city_data_overload_server.service.UserReportService userReportService;
     private final BigQueryService bigQueryService;
+    private final DeadlineConfig deadlineConfig;
+    private final ChatStreamService chatStreamService;
 
     // ============ 1. MAP & CHAT PAGE ENDPOINTS ============
 
@@ -281,6 +286,33 @@ public class PublicApiController {
             });
     }
 
+    /**
+     * Flutter Map + Chat: Streamed variant of intelligent chat. The events and alerts
+     * for map markers arrive first as a "context" frame, the answer follows as "token"
+     * frames while it is generated, and the stream ends with "done" or "error".
+     */
+    @PostMapping(value = "/chat/intelligent/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Streaming intelligent chat", 
+               description = "Server-sent events: map context first, then the AI response token by token")
+    public SseEmitter streamIntelligentChat(@RequestBody Map<String, Object> request) {
+        String query = (String) request.get("query");
+        
+        AgentRequest agentRequest = AgentRequest.builder()
+            .requestId(UUID.randomUUID().toString())
+            .requestType("INTELLIGENT_CHAT")
+            .query(query)
+            .userId((String) request.getOrDefault("userId", "anonymous"))
+            .latitude(request.get("latitude") instanceof Number latitude ? latitude.doubleValue() : null)
+            .longitude(request.get("longitude") instanceof Number longitude ? longitude.doubleValue() : null)
+            .area((String) request.getOrDefault("area", null))
+            .timeoutMs(request.get("timeoutMs") instanceof Number timeoutMs ? timeoutMs.longValue() : null)
+            .timestamp(LocalDateTime.now())
+            .build();
+        
+        log.info("Flutter Intelligent Chat API: Streaming response for query='{}'", query);
+        return chatStreamService.streamChat(agentRequest);
+    }
+
     // ============ 2. EVENTS PAGE ENDPOINTS ============
 
     /**
@@ -310,6 +342,7 @@ public class PublicApiController {
             .maxResults(maxResults)
             .context("Get latest events and news for " + (area != null ? area : city))
             .timestamp(LocalDateTime.now())
+            .deadline(deadlineConfig.deadlineFor(null, null))
             .build();
         
         return fusionAgent.processRequest(agentRequest)
@@ -359,6 +392,7 @@ public class PublicApiController {
             .category(category)
             .context("Generate predictive alerts and insights for " + (area != null ? area : city))
             .timestamp(LocalDateTime.now())
+            .deadline(deadlineConfig.deadlineFor(null, null))
             .build();
                 
         return predictiveAgent.processRequest(agentRequest)
@@ -405,6 +439,7 @@ public class PublicApiController {
             .longitude(lon)
             .context("Generate mood map analysis for " + (area != null ? area : city))
             .timestamp(LocalDateTime.now())
+            .deadline(deadlineConfig.deadlineFor(null, null))
             .build();
         
         return moodMapAgent.processRequest(agentRequest)
@@ -602,13 +637,24 @@ public class PublicApiController {
     // ============ 5. REAL-TIME STREAMS ============
 
     /**
-     * SSE endpoint for real-time city events (all Flutter pages can use this)
+     * SSE endpoint for real-time city events (all Flutter pages can use this).
+     * The optional filters, shared by all streams, keep updates the client would
+     * discard from ever being sent. Reconnecting with Last-Event-ID replays only
+     * the missed updates; a "resync" frame means the client has to refetch.
      */
     @GetMapping(value = "/stream/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     @Operation(summary = "Real-time events stream", description = "Server-sent events for live city updates")
-    public SseEmitter streamEvents() {
-        log.info("Flutter Stream API: New client connected to events stream");
-        return eventStreamService.createEventStream("events");
+    public SseEmitter streamEvents(
+            @RequestParam(required = false) @Parameter(description = "Only updates for this area") String area,
+            @RequestParam(required = false) @Parameter(description = "Latitude of the client") Double latitude,
+            @RequestParam(required = false) @Parameter(description = "Longitude of the client") Double longitude,
+            @RequestParam(required = false) @Parameter(description = "Radius around latitude/longitude in km") Double radiusKm,
+            @RequestParam(required = false) @Parameter(description = "Only this event category") String category,
+            @RequestParam(required = false) @Parameter(description = "Lowest severity to receive") String minSeverity,
+            @RequestHeader(value = "Last-Event-ID", required = false) @Parameter(description = "ID of the last frame received, to resume") String lastEventId) {
+        SubscriptionFilter filter = SubscriptionFilter.of(area, latitude, longitude, radiusKm, category, minSeverity);
+        log.info("Flutter Stream API: New client connected to events stream with filter {}", filter);
+        return eventStreamService.createEventStream("events", filter, lastEventId);
     }
 
     /**
@@ -616,9 +662,17 @@ public class PublicApiController {
      */
     @GetMapping(value = "/stream/alerts", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     @Operation(summary = "Real-time alerts stream", description = "Server-sent events for live alert updates")
-    public SseEmitter streamAlerts() {
-        log.info("Flutter Stream API: New client connected to alerts stream");
-        return eventStreamService.createEventStream("alerts");
+    public SseEmitter streamAlerts(
+            @RequestParam(required = false) @Parameter(description = "Only updates for this area") String area,
+            @RequestParam(required = false) @Parameter(description = "Latitude of the client") Double latitude,
+            @RequestParam(required = false) @Parameter(description = "Longitude of the client") Double longitude,
+            @RequestParam(required = false) @Parameter(description = "Radius around latitude/longitude in km") Double radiusKm,
+            @RequestParam(required = false) @Parameter(description = "Only this event category") String category,
+            @RequestParam(required = false) @Parameter(description = "Lowest severity to receive") String minSeverity,
+            @RequestHeader(value = "Last-Event-ID", required = false) @Parameter(description = "ID of the last frame received, to resume") String lastEventId) {
+        SubscriptionFilter filter = SubscriptionFilter.of(area, latitude, longitude, radiusKm, category, minSeverity);
+        log.info("Flutter Stream API: New client connected to alerts stream with filter {}", filter);
+        return eventStreamService.createEventStream("alerts", filter, lastEventId);
     }
 
     /**
@@ -626,9 +680,17 @@ public class PublicApiController {
      */
     @GetMapping(value = "/stream/mood", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     @Operation(summary = "Real-time mood stream", description = "Server-sent events for live mood map updates")
-    public SseEmitter streamMoodUpdates() {
-        log.info("Flutter Stream API: New client connected to mood stream");
-        return eventStreamService.createEventStream("mood");
+    public SseEmitter streamMoodUpdates(
+            @RequestParam(required = false) @Parameter(description = "Only updates for this area") String area,
+            @RequestParam(required = false) @Parameter(description = "Latitude of the client") Double latitude,
+            @RequestParam(required = false) @Parameter(description = "Longitude of the client") Double longitude,
+            @RequestParam(required = false) @Parameter(description = "Radius around latitude/longitude in km") Double radiusKm,
+            @RequestParam(required = false) @Parameter(description = "Only this event category") String category,
+            @RequestParam(required = false) @Parameter(description = "Lowest severity to receive") String minSeverity,
+            @RequestHeader(value = "Last-Event-ID", required = false) @Parameter(description = "ID of the last frame received, to resume") String lastEventId) {
+        SubscriptionFilter filter = SubscriptionFilter.of(area, latitude, longitude, radiusKm, category, minSeverity);
+        log.info("Flutter Stream API: New client connected to mood stream with filter {}", filter);
+        return eventStreamService.createEventStream("mood", filter, lastEventId);
     }
 
     // ============ 6. UTILITY ENDPOINTS ============
@@ -0,0 +1,54 @@
+package com.lemillion.city_data_overload_server.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Sentiment aggregate for the events of one area, optionally narrowed to a category.
+ * Produced by grouped BigQuery queries so mood maps never load individual events.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class AreaSentimentAggregate {
+
+    private String area;
+    private CityEvent.EventCategory category;
+    private long eventCount;
+    private long sentimentEventCount;
+    private double averageSentimentScore;
+    private double averageConfidence;
+    private long positiveCount;
+    private long negativeCount;
+    private long neutralCount;
+    private long mixedCount;
+
+    /**
+     * Combine two aggregates of the same area, weighting averages by event counts
+     */
+    public AreaSentimentAggregate merge(AreaSentimentAggregate other) {
+        long sentiments = sentimentEventCount + other.sentimentEventCount;
+        long events = eventCount + other.eventCount;
+
+        return AreaSentimentAggregate.builder()
+            .area(area)
+            .category(category == other.category ? category : null)
+            .eventCount(events)
+            .sentimentEventCount(sentiments)
+            .averageSentimentScore(sentiments > 0
+                ? (averageSentimentScore * sentimentEventCount
+                    + other.averageSentimentScore * other.sentimentEventCount) / sentiments
+                : 0.0)
+            .averageConfidence(events > 0
+                ? (averageConfidence * eventCount + other.averageConfidence * other.eventCount) / events
+                : 0.0)
+            .positiveCount(positiveCount + other.positiveCount)
+            .negativeCount(negativeCount + other.negativeCount)
+            .neutralCount(neutralCount + other.neutralCount)
+            .mixedCount(mixedCount + other.mixedCount)
+            .build();
+    }
+}
@@ -0,0 +1,242 @@
+package com.lemillion.city_data_overload_server.service;
+
+import com.google.cloud.bigquery.BigQueryError;
+import com.lemillion.city_data_overload_server.model.CityEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous micro-batching writer for BigQuery event rows.
+ * Buffers events in a bounded queue and flushes them through a single
+ * insertAll call once a batch is full or its oldest row reaches the max age.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BigQueryBatchWriter {
+
+    private final BigQueryService bigQueryService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${bigquery.batch-writer.max-batch-size:500}")
+    private int maxBatchSize;
+
+    @Value("${bigquery.batch-writer.max-batch-age-ms:1000}")
+    private long maxBatchAgeMs;
+
+    @Value("${bigquery.batch-writer.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${bigquery.batch-writer.max-retries:3}")
+    private int maxRetries;
+
+    private BlockingQueue<PendingRow> queue;
+    private Thread flusherThread;
+    private volatile boolean running;
+
+    private Timer flushTimer;
+    private DistributionSummary batchSizeSummary;
+    private Counter rowsWritten;
+    private Counter rowsRetried;
+    private Counter rowsFailed;
+    private Counter rowsRejected;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        Gauge.builder("bigquery.writer.queue.depth", queue, BlockingQueue::size)
+            .description("Rows waiting to be flushed to BigQuery")
+            .register(meterRegistry);
+        flushTimer = Timer.builder("bigquery.writer.flush.latency")
+            .description("Time spent in a single BigQuery insertAll flush")
+            .register(meterRegistry);
+        batchSizeSummary = DistributionSummary.builder("bigquery.writer.batch.size")
+            .description("Rows per BigQuery insertAll flush")
+            .register(meterRegistry);
+        rowsWritten = meterRegistry.counter("bigquery.writer.rows", "outcome", "written");
+        rowsRetried = meterRegistry.counter("bigquery.writer.rows", "outcome", "retried");
+        rowsFailed = meterRegistry.counter("bigquery.writer.rows", "outcome", "failed");
+        rowsRejected = meterRegistry.counter("bigquery.writer.rows", "outcome", "rejected");
+
+        running = true;
+        flusherThread = new Thread(this::runFlushLoop, "bigquery-batch-writer");
+        flusherThread.setDaemon(true);
+        flusherThread.start();
+
+        log.info("BigQuery batch writer started (batch size: {}, max age: {}ms, capacity: {})",
+                maxBatchSize, maxBatchAgeMs, queueCapacity);
+    }
+
+    /**
+     * Queue an event for insertion. The returned future completes once the row
+     * is accepted by BigQuery, or exceptionally if it is rejected or retries run out.
+     */
+    public CompletableFuture<Void> submit(CityEvent event) {
+        PendingRow row = new PendingRow(event, UUID.randomUUID().toString(), new CompletableFuture<>());
+
+        if (!running || !queue.offer(row)) {
+            rowsRejected.increment();
+            log.warn("BigQuery write queue full, rejecting event: {}", event.getId());
+            row.result().completeExceptionally(
+                new RejectedExecutionException("BigQuery write queue is full"));
+        }
+
+        return row.result();
+    }
+
+    /**
+     * Current number of rows waiting to be flushed
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        flusherThread.interrupt();
+        try {
+            flusherThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Flush whatever is still buffered before shutting down
+        List<PendingRow> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        for (int i = 0; i < remaining.size(); i += maxBatchSize) {
+            flush(remaining.subList(i, Math.min(i + maxBatchSize, remaining.size())), false);
+        }
+        log.info("BigQuery batch writer stopped, flushed {} remaining rows", remaining.size());
+    }
+
+    private void runFlushLoop() {
+        while (running) {
+            try {
+                if (bigQueryService.isWritePaused()) {
+                    // Events table is being migrated; rows stay queued until it is done
+                    Thread.sleep(1000);
+                    continue;
+                }
+                PendingRow first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                List<PendingRow> batch = new ArrayList<>(Math.min(maxBatchSize, queue.size() + 1));
+                batch.add(first);
+                long deadline = first.enqueuedAtNanos() + TimeUnit.MILLISECONDS.toNanos(maxBatchAgeMs);
+
+                while (batch.size() < maxBatchSize) {
+                    long remainingNanos = deadline - System.nanoTime();
+                    PendingRow next = remainingNanos > 0
+                        ? queue.poll(remainingNanos, TimeUnit.NANOSECONDS)
+                        : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                flush(batch, true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("Unexpected error in BigQuery batch writer loop", e);
+            }
+        }
+    }
+
+    private void flush(List<PendingRow> batch, boolean allowRetry) {
+        List<CityEvent> events = batch.stream().map(PendingRow::event).toList();
+        List<String> rowIds = batch.stream().map(PendingRow::rowId).toList();
+        batchSizeSummary.record(batch.size());
+
+        Map<Long, List<BigQueryError>> insertErrors;
+        long start = System.nanoTime();
+        try {
+            insertErrors = bigQueryService.storeCityEventsBatch(events, rowIds);
+        } catch (Exception e) {
+            log.warn("BigQuery batch flush of {} rows failed, scheduling retry", batch.size(), e);
+            batch.forEach(row -> retryOrFail(row, e, allowRetry));
+            return;
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            PendingRow row = batch.get(i);
+            List<BigQueryError> errors = insertErrors.get((long) i);
+
+            if (errors == null || errors.isEmpty()) {
+                rowsWritten.increment();
+                row.result().complete(null);
+            } else if (isPermanent(errors)) {
+                rowsFailed.increment();
+                row.result().completeExceptionally(
+                    new RuntimeException("BigQuery rejected event " + row.event().getId() + ": " + errors));
+            } else {
+                retryOrFail(row, new RuntimeException("BigQuery insert error: " + errors), allowRetry);
+            }
+        }
+    }
+
+    private void retryOrFail(PendingRow row, Throwable cause, boolean allowRetry) {
+        if (allowRetry && row.attempt() < maxRetries) {
+            PendingRow retry = row.nextAttempt();
+            if (queue.offer(retry)) {
+                rowsRetried.increment();
+                return;
+            }
+        }
+
+        rowsFailed.increment();
+        log.error("Giving up on BigQuery insert for event {} after {} attempts",
+                row.event().getId(), row.attempt() + 1);
+        row.result().completeExceptionally(cause);
+    }
+
+    /**
+     * Rows with invalid content will fail the same way on every retry
+     */
+    private boolean isPermanent(List<BigQueryError> errors) {
+        return errors.stream().anyMatch(error -> "invalid".equals(error.getReason()));
+    }
+
+    /**
+     * Row waiting in the queue; the insert id is kept across retries so
+     * BigQuery can de-duplicate rows that were accepted but reported as failed.
+     */
+    private record PendingRow(CityEvent event, String rowId, CompletableFuture<Void> result,
+                              int attempt, long enqueuedAtNanos) {
+
+        PendingRow(CityEvent event, String rowId, CompletableFuture<Void> result) {
+            this(event, rowId, result, 0, System.nanoTime());
+        }
+
+        PendingRow nextAttempt() {
+            return new PendingRow(event, rowId, result, attempt + 1, System.nanoTime());
+        }
+    }
+}
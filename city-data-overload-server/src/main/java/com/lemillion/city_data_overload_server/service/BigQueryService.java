@@ -1,18 +1,34 @@
 package com.lemillion.city_data_overload_server.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.cloud.bigquery.*;
+import com.lemillion.city_data_overload_server.cache.RequestCoalescer;
+import com.lemillion.city_data_overload_server.model.AreaSentimentAggregate;
 import com.lemillion.city_data_overload_server.model.CityEvent;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.retry.Retry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * BigQuery service for managing city events data warehouse operations.
@@ -24,19 +40,83 @@ import java.util.UUID;
 public class BigQueryService {
 
     private final BigQuery bigQuery;
+    private final RequestCoalescer requestCoalescer;
+    private final MeterRegistry meterRegistry;
+    private final CircuitBreaker bigQueryCircuitBreaker;
+    private final Retry databaseRetry;
     
     @Value("${gcp.project-id}")
     private String projectId;
     
+    @Value("${bigquery.events-table.migrate-to-partitioned:false}")
+    private boolean migrateEventsTable;
+    
+    /**
+     * How far back queryAllRecentEvents looks, so it only scans recent partitions
+     */
+    @Value("${bigquery.events-table.recent-window:7d}")
+    private Duration recentEventsWindow;
+    
+    // Set while the events table is being migrated; the batch writer holds its rows until cleared
+    private volatile boolean writesPaused;
+    
+    @Value("${bigquery.query-cache.since-bucket:5m}")
+    private Duration sinceBucket;
+    
+    @Value("${bigquery.query-cache.ttl:5m}")
+    private Duration queryCacheTtl;
+    
+    @Value("${bigquery.query-cache.maximum-size:500}")
+    private long queryCacheMaximumSize;
+    
+    /**
+     * How long a result may still be served after its query starts failing
+     */
+    @Value("${bigquery.query-cache.stale-ttl:1h}")
+    private Duration staleResultTtl;
+    
+    @Value("${bigquery.query-timeout:30s}")
+    private Duration queryTimeout;
+    
+    private Cache<String, Object> queryResultCache;
+    private Cache<String, Object> staleResultCache;
+    
     private static final String DATASET_ID = "city_data_overload";
     private static final String EVENTS_TABLE_ID = "city_events";
     private static final String PREDICTIONS_TABLE_ID = "predictions";
     private static final String SENTIMENT_TABLE_ID = "sentiment_analysis";
+    private static final String COALESCING_NAMESPACE = "bigquery";
+    
+    // Events table is partitioned by day and clustered for the common filters
+    private static final String PARTITION_FIELD = "timestamp";
+    private static final List<String> CLUSTERING_FIELDS = List.of("category", "severity", "area");
+    
+    // Columns read by mapRowToCityEvent; queries project only these
+    private static final String EVENT_COLUMNS = String.join(", ",
+        "id", "title", "description", "content", "latitude", "longitude", "address", "area",
+        "pincode", "timestamp", "expires_at", "category", "severity", "source", "sentiment_type",
+        "sentiment_score", "confidence_score", "keywords", "ai_summary", "raw_data", "created_at");
     
     private static final DateTimeFormatter TIMESTAMP_FORMATTER = 
         DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSSSS z");
     private static final DateTimeFormatter SIMPLE_TIMESTAMP_FORMATTER = 
         DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final DateTimeFormatter PARAMETER_TIMESTAMP_FORMATTER = 
+        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSSSS'+00:00'");
+
+    @PostConstruct
+    public void initQueryResultCache() {
+        queryResultCache = Caffeine.newBuilder()
+            .maximumSize(queryCacheMaximumSize)
+            .expireAfterWrite(queryCacheTtl)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, queryResultCache, "bigquery.query-results");
+        staleResultCache = Caffeine.newBuilder()
+            .maximumSize(queryCacheMaximumSize)
+            .expireAfterWrite(staleResultTtl)
+            .build();
+    }
 
     /**
      * Initialize BigQuery dataset and tables if they don't exist
@@ -45,6 +125,9 @@ public class BigQueryService {
         try {
             createDatasetIfNotExists();
             createEventsTableIfNotExists();
+            if (migrateEventsTable) {
+                migrateEventsTableToPartitioned();
+            }
             createPredictionsTableIfNotExists();
             createSentimentTableIfNotExists();
             log.info("BigQuery schema initialization completed successfully");
@@ -67,7 +150,7 @@ public class BigQueryService {
                 .addRow(UUID.randomUUID().toString(), rowContent)
                 .build();
                 
-            InsertAllResponse response = bigQuery.insertAll(insertRequest);
+            InsertAllResponse response = bigQueryCircuitBreaker.executeSupplier(() -> bigQuery.insertAll(insertRequest));
             
             if (response.hasErrors()) {
                 response.getInsertErrors().forEach((key, errors) -> {
@@ -91,26 +174,48 @@ public class BigQueryService {
             return;
         }
         
+        List<String> rowIds = events.stream()
+            .map(event -> UUID.randomUUID().toString())
+            .toList();
+        
+        Map<Long, List<BigQueryError>> insertErrors = storeCityEventsBatch(events, rowIds);
+        if (!insertErrors.isEmpty()) {
+            throw new RuntimeException("Failed to batch insert events into BigQuery");
+        }
+    }
+
+    /**
+     * Store multiple city events in batch using caller-supplied insert ids.
+     * Returns the insert errors keyed by row index, so callers can retry only
+     * the rejected rows; an empty map means every row was accepted.
+     */
+    public Map<Long, List<BigQueryError>> storeCityEventsBatch(List<CityEvent> events, List<String> rowIds) {
+        if (events.isEmpty()) {
+            return Map.of();
+        }
+        
         try {
             TableId tableId = TableId.of(projectId, DATASET_ID, EVENTS_TABLE_ID);
             
             InsertAllRequest.Builder requestBuilder = InsertAllRequest.newBuilder(tableId);
             
-            for (CityEvent event : events) {
-                Map<String, Object> rowContent = convertEventToRowMap(event);
-                requestBuilder.addRow(UUID.randomUUID().toString(), rowContent);
+            for (int i = 0; i < events.size(); i++) {
+                Map<String, Object> rowContent = convertEventToRowMap(events.get(i));
+                requestBuilder.addRow(rowIds.get(i), rowContent);
             }
             
-            InsertAllResponse response = bigQuery.insertAll(requestBuilder.build());
+            InsertAllRequest insertRequest = requestBuilder.build();
+            InsertAllResponse response = bigQueryCircuitBreaker.executeSupplier(() -> bigQuery.insertAll(insertRequest));
             
             if (response.hasErrors()) {
                 response.getInsertErrors().forEach((key, errors) -> {
                     log.error("BigQuery batch insert error for row {}: {}", key, errors);
                 });
-                throw new RuntimeException("Failed to batch insert events into BigQuery");
+                return response.getInsertErrors();
             }
             
             log.info("Successfully stored {} events in BigQuery batch", events.size());
+            return Map.of();
         } catch (Exception e) {
             log.error("Error storing city events batch in BigQuery", e);
             throw new RuntimeException("BigQuery batch storage failed", e);
@@ -126,25 +231,29 @@ public class BigQueryService {
         
         // Use simpler distance calculation for now since BigQuery may not have geographic setup
         String query = """
-            SELECT *
+            SELECT %s
             FROM `%s.%s.%s`
-            WHERE timestamp BETWEEN '%s' AND '%s'
-            AND latitude BETWEEN %f AND %f
-            AND longitude BETWEEN %f AND %f
+            WHERE timestamp BETWEEN @start_time AND @end_time
+            AND latitude BETWEEN @min_lat AND @max_lat
+            AND longitude BETWEEN @min_lon AND @max_lon
             ORDER BY timestamp DESC
-            LIMIT %d
-            """.formatted(
-                projectId, DATASET_ID, EVENTS_TABLE_ID,
-                startTime.format(SIMPLE_TIMESTAMP_FORMATTER),
-                endTime.format(SIMPLE_TIMESTAMP_FORMATTER),
-                latitude - (radiusKm / 111.0), latitude + (radiusKm / 111.0), // Approximate lat range
-                longitude - (radiusKm / (111.0 * Math.cos(Math.toRadians(latitude)))), 
-                longitude + (radiusKm / (111.0 * Math.cos(Math.toRadians(latitude)))), // Approximate lng range
-                maxResults
-            );
+            LIMIT @max_results
+            """.formatted(EVENT_COLUMNS, projectId, DATASET_ID, EVENTS_TABLE_ID);
+        
+        double latDelta = radiusKm / 111.0; // Approximate lat range
+        double lonDelta = radiusKm / (111.0 * Math.cos(Math.toRadians(latitude))); // Approximate lng range
+        
+        Map<String, QueryParameterValue> parameters = new LinkedHashMap<>();
+        parameters.put("start_time", timestampParameter(bucketStart(startTime)));
+        parameters.put("end_time", timestampParameter(bucketEnd(endTime)));
+        parameters.put("min_lat", QueryParameterValue.float64(latitude - latDelta));
+        parameters.put("max_lat", QueryParameterValue.float64(latitude + latDelta));
+        parameters.put("min_lon", QueryParameterValue.float64(longitude - lonDelta));
+        parameters.put("max_lon", QueryParameterValue.float64(longitude + lonDelta));
+        parameters.put("max_results", QueryParameterValue.int64(maxResults));
             
-        log.info("Executing BigQuery location query: {}", query);
-        return executeQueryAndMapToEvents(query);
+        log.debug("Executing BigQuery location query with parameters: {}", parameters);
+        return executeQueryAndMapToEvents(query, parameters);
     }
 
     /**
@@ -154,34 +263,31 @@ public class BigQueryService {
             CityEvent.EventCategory category, CityEvent.EventSeverity severity,
             LocalDateTime since, int maxResults) {
         
-        String categoryFilter = category != null ? 
-            "AND category = '" + category.name() + "'" : "";
-        
         String query = """
-            SELECT *
+            SELECT %s
             FROM `%s.%s.%s`
-            WHERE severity = '%s'
-            %s
-            AND timestamp >= '%s'
+            WHERE severity = @severity
+            AND (@category IS NULL OR category = @category)
+            AND timestamp >= @since
             ORDER BY timestamp DESC
-            LIMIT %d
-            """.formatted(
-                projectId, DATASET_ID, EVENTS_TABLE_ID,
-                severity.name(),
-                categoryFilter,
-                since.format(SIMPLE_TIMESTAMP_FORMATTER),
-                maxResults
-            );
+            LIMIT @max_results
+            """.formatted(EVENT_COLUMNS, projectId, DATASET_ID, EVENTS_TABLE_ID);
+        
+        Map<String, QueryParameterValue> parameters = new LinkedHashMap<>();
+        parameters.put("severity", QueryParameterValue.string(severity.name()));
+        parameters.put("category", QueryParameterValue.string(category != null ? category.name() : null));
+        parameters.put("since", timestampParameter(bucketStart(since)));
+        parameters.put("max_results", QueryParameterValue.int64(maxResults));
             
-        log.info("Executing BigQuery category/severity query: {}", query);
-        return executeQueryAndMapToEvents(query);
+        log.debug("Executing BigQuery category/severity query with parameters: {}", parameters);
+        return executeQueryAndMapToEvents(query, parameters);
     }
 
     /**
      * Get event statistics for analytics
      */
     public Map<String, Object> getEventStatistics(LocalDateTime since) {
-                    String query = """
+        String query = """
             SELECT 
                 category,
                 severity,
@@ -189,34 +295,30 @@ public class BigQueryService {
                 AVG(confidence_score) as avg_confidence,
                 COUNT(DISTINCT area) as areas_affected
             FROM `%s.%s.%s`
-            WHERE timestamp >= '%s'
+            WHERE timestamp >= @since
             GROUP BY category, severity
             ORDER BY count DESC
-            """.formatted(
-                projectId, DATASET_ID, EVENTS_TABLE_ID,
-                since.format(SIMPLE_TIMESTAMP_FORMATTER)
-            );
+            """.formatted(projectId, DATASET_ID, EVENTS_TABLE_ID);
             
         try {
-            QueryJobConfiguration queryConfig = QueryJobConfiguration.newBuilder(query).build();
-            TableResult result = bigQuery.query(queryConfig);
-            
-            List<Map<String, Object>> stats = new ArrayList<>();
-            for (FieldValueList row : result.iterateAll()) {
-                stats.add(Map.of(
-                    "category", row.get("category").getStringValue(),
-                    "severity", row.get("severity").getStringValue(),
-                    "count", row.get("count").getLongValue(),
-                    "avgConfidence", row.get("avg_confidence").getDoubleValue(),
-                    "areasAffected", row.get("areas_affected").getLongValue()
-                ));
-            }
-            
-            return Map.of(
-                "statistics", stats,
-                "totalEvents", stats.stream().mapToLong(s -> (Long) s.get("count")).sum(),
-                "generatedAt", LocalDateTime.now()
-            );
+            return cachedQuery(query, Map.of("since", timestampParameter(bucketStart(since))), result -> {
+                List<Map<String, Object>> stats = new ArrayList<>();
+                for (FieldValueList row : result.iterateAll()) {
+                    stats.add(Map.of(
+                        "category", row.get("category").getStringValue(),
+                        "severity", row.get("severity").getStringValue(),
+                        "count", row.get("count").getLongValue(),
+                        "avgConfidence", row.get("avg_confidence").getDoubleValue(),
+                        "areasAffected", row.get("areas_affected").getLongValue()
+                    ));
+                }
+                
+                return Map.of(
+                    "statistics", List.copyOf(stats),
+                    "totalEvents", stats.stream().mapToLong(s -> (Long) s.get("count")).sum(),
+                    "generatedAt", LocalDateTime.now()
+                );
+            });
             
         } catch (Exception e) {
             log.error("Error executing statistics query", e);
@@ -224,6 +326,139 @@ public class BigQueryService {
         }
     }
 
+    /**
+     * Per-area, per-category sentiment aggregates for the given areas in one grouped query.
+     * Area names are matched case-insensitively and returned as passed in.
+     */
+    public List<AreaSentimentAggregate> queryAreaSentimentAggregates(List<String> areas, LocalDateTime since) {
+        if (areas == null || areas.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        String query = """
+            SELECT 
+                LOWER(area) as area_key,
+                category,
+                COUNT(*) as event_count,
+                COUNTIF(sentiment_type IS NOT NULL) as sentiment_events,
+                AVG(sentiment_score) as avg_sentiment_score,
+                AVG(confidence_score) as avg_confidence,
+                COUNTIF(sentiment_type = 'POSITIVE') as positive_count,
+                COUNTIF(sentiment_type = 'NEGATIVE') as negative_count,
+                COUNTIF(sentiment_type = 'NEUTRAL') as neutral_count,
+                COUNTIF(sentiment_type = 'MIXED') as mixed_count
+            FROM `%s.%s.%s`
+            WHERE timestamp >= @since
+            AND LOWER(area) IN UNNEST(@areas)
+            GROUP BY area_key, category
+            """.formatted(projectId, DATASET_ID, EVENTS_TABLE_ID);
+
+        Map<String, String> areaNames = new TreeMap<>();
+        areas.forEach(area -> areaNames.put(area.toLowerCase(), area));
+
+        Map<String, QueryParameterValue> parameters = new LinkedHashMap<>();
+        parameters.put("since", timestampParameter(bucketStart(since)));
+        parameters.put("areas", QueryParameterValue.array(areaNames.keySet().toArray(new String[0]), String.class));
+
+        try {
+            List<AreaSentimentAggregate> aggregates = cachedQuery(query, parameters, result -> {
+                List<AreaSentimentAggregate> rows = new ArrayList<>();
+                for (FieldValueList row : result.iterateAll()) {
+                    rows.add(AreaSentimentAggregate.builder()
+                        .area(areaNames.get(row.get("area_key").getStringValue()))
+                        .category(parseEnum(getStringValue(row, "category"), CityEvent.EventCategory.class))
+                        .eventCount(row.get("event_count").getLongValue())
+                        .sentimentEventCount(row.get("sentiment_events").getLongValue())
+                        .averageSentimentScore(Objects.requireNonNullElse(getDoubleValue(row, "avg_sentiment_score"), 0.0))
+                        .averageConfidence(Objects.requireNonNullElse(getDoubleValue(row, "avg_confidence"), 0.0))
+                        .positiveCount(row.get("positive_count").getLongValue())
+                        .negativeCount(row.get("negative_count").getLongValue())
+                        .neutralCount(row.get("neutral_count").getLongValue())
+                        .mixedCount(row.get("mixed_count").getLongValue())
+                        .build());
+                }
+                return List.copyOf(rows);
+            });
+
+            log.info("Retrieved {} area sentiment aggregates for {} areas", aggregates.size(), areas.size());
+            return new ArrayList<>(aggregates);
+
+        } catch (Exception e) {
+            log.error("Error executing area sentiment query", e);
+            throw new RuntimeException("Failed to query area sentiment aggregates", e);
+        }
+    }
+
+    /**
+     * Count events per (category, area) since the given time in one query,
+     * returning only the pairs whose count reaches the category's threshold
+     */
+    public List<Map<String, Object>> queryCategoryAreaCountsAboveThreshold(
+            Map<CityEvent.EventCategory, Integer> thresholds, LocalDateTime since) {
+        
+        if (thresholds == null || thresholds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // Sorted so equal threshold maps always produce the same parameters
+        List<CityEvent.EventCategory> categories = thresholds.keySet().stream().sorted().toList();
+        String[] categoryNames = categories.stream().map(Enum::name).toArray(String[]::new);
+        Long[] categoryThresholds = categories.stream().map(c -> thresholds.get(c).longValue()).toArray(Long[]::new);
+
+        String query = """
+            WITH thresholds AS (
+                SELECT category, @thresholds[OFFSET(pos)] as threshold
+                FROM UNNEST(@categories) AS category WITH OFFSET pos
+            )
+            SELECT 
+                e.category,
+                e.area,
+                t.threshold,
+                COUNT(*) as event_count,
+                ARRAY_AGG(e.id IGNORE NULLS ORDER BY e.timestamp DESC LIMIT 5) as recent_event_ids
+            FROM `%s.%s.%s` e
+            JOIN thresholds t ON e.category = t.category
+            WHERE e.timestamp >= @since
+            AND e.area IS NOT NULL
+            GROUP BY e.category, e.area, t.threshold
+            HAVING COUNT(*) >= t.threshold
+            ORDER BY event_count DESC
+            """.formatted(projectId, DATASET_ID, EVENTS_TABLE_ID);
+
+        Map<String, QueryParameterValue> parameters = new LinkedHashMap<>();
+        parameters.put("categories", QueryParameterValue.array(categoryNames, String.class));
+        parameters.put("thresholds", QueryParameterValue.array(categoryThresholds, Long.class));
+        parameters.put("since", timestampParameter(bucketStart(since)));
+
+        try {
+            List<Map<String, Object>> counts = cachedQuery(query, parameters, result -> {
+                List<Map<String, Object>> rows = new ArrayList<>();
+                for (FieldValueList row : result.iterateAll()) {
+                    List<String> recentEventIds = row.get("recent_event_ids").getRepeatedValue().stream()
+                        .filter(value -> !value.isNull())
+                        .map(FieldValue::getStringValue)
+                        .toList();
+
+                    rows.add(Map.of(
+                        "category", row.get("category").getStringValue(),
+                        "area", row.get("area").getStringValue(),
+                        "threshold", row.get("threshold").getLongValue(),
+                        "eventCount", row.get("event_count").getLongValue(),
+                        "recentEventIds", recentEventIds
+                    ));
+                }
+                return List.copyOf(rows);
+            });
+
+            log.info("Found {} category/area pairs above alert thresholds", counts.size());
+            return new ArrayList<>(counts);
+
+        } catch (Exception e) {
+            log.error("Error executing category/area threshold query", e);
+            throw new RuntimeException("Failed to query category/area counts", e);
+        }
+    }
+
     /**
      * Query for predictive analysis patterns
      */
@@ -258,8 +493,8 @@ public class BigQueryService {
                     COUNT(*) as frequency,
                     AVG(confidence_score) as avg_confidence
                 FROM `%s.%s.%s`
-                WHERE category = '%s'
-                AND timestamp >= TIMESTAMP_SUB(CURRENT_TIMESTAMP(), INTERVAL %d DAY)
+                WHERE category = @category
+                AND timestamp >= @since
                 GROUP BY category, time_period, day_type, area, severity
             ),
             area_patterns AS (
@@ -278,27 +513,11 @@ public class BigQueryService {
             UNION ALL
             SELECT * FROM area_patterns WHERE frequency >= 2
             ORDER BY frequency DESC
-            """.formatted(
-                projectId, DATASET_ID, EVENTS_TABLE_ID,
-                category.name(), daysPast
-            );
+            """.formatted(projectId, DATASET_ID, EVENTS_TABLE_ID);
             
         try {
-            QueryJobConfiguration queryConfig = QueryJobConfiguration.newBuilder(query).build();
-            TableResult result = bigQuery.query(queryConfig);
-            
-            List<Map<String, Object>> patterns = new ArrayList<>();
-            for (FieldValueList row : result.iterateAll()) {
-                patterns.add(Map.of(
-                    "category", row.get("category").getStringValue(),
-                    "timePeriod", row.get("time_period").getStringValue(),
-                    "dayType", row.get("day_type").getStringValue(),
-                    "area", row.get("area").getStringValue(),
-                    "severity", row.get("severity").getStringValue(),
-                    "frequency", row.get("frequency").getLongValue(),
-                    "avgConfidence", row.get("avg_confidence").getDoubleValue()
-                ));
-            }
+            List<Map<String, Object>> patterns = new ArrayList<>(
+                cachedQuery(query, patternParameters(category, daysPast), this::mapPatternRows));
             
             log.info("Found {} patterns for category {} over {} days", patterns.size(), category, daysPast);
             
@@ -331,35 +550,19 @@ public class BigQueryService {
                 COUNT(*) as frequency,
                 AVG(confidence_score) as avg_confidence
             FROM `%s.%s.%s`
-            WHERE category = '%s'
-            AND timestamp >= TIMESTAMP_SUB(CURRENT_TIMESTAMP(), INTERVAL %d DAY)
+            WHERE category = @category
+            AND timestamp >= @since
             GROUP BY category, severity
             HAVING COUNT(*) >= 1
             ORDER BY frequency DESC
-            """.formatted(
-                projectId, DATASET_ID, EVENTS_TABLE_ID,
-                category.name(), daysPast
-            );
+            """.formatted(projectId, DATASET_ID, EVENTS_TABLE_ID);
             
         try {
-            QueryJobConfiguration queryConfig = QueryJobConfiguration.newBuilder(query).build();
-            TableResult result = bigQuery.query(queryConfig);
-            
-            List<Map<String, Object>> patterns = new ArrayList<>();
-            for (FieldValueList row : result.iterateAll()) {
-                patterns.add(Map.of(
-                    "category", row.get("category").getStringValue(),
-                    "timePeriod", row.get("time_period").getStringValue(),
-                    "dayType", row.get("day_type").getStringValue(),
-                    "area", row.get("area").getStringValue(),
-                    "severity", row.get("severity").getStringValue(),
-                    "frequency", row.get("frequency").getLongValue(),
-                    "avgConfidence", row.get("avg_confidence").getDoubleValue()
-                ));
-            }
+            List<Map<String, Object>> patterns =
+                cachedQuery(query, patternParameters(category, daysPast), this::mapPatternRows);
             
             log.info("Found {} general patterns for category {}", patterns.size(), category);
-            return patterns;
+            return new ArrayList<>(patterns);
             
         } catch (Exception e) {
             log.warn("Error executing general patterns query for category {}", category, e);
@@ -367,6 +570,33 @@ public class BigQueryService {
         }
     }
 
+    /**
+     * The look-back window is passed as a bucketed timestamp rather than
+     * CURRENT_TIMESTAMP(), which would keep BigQuery from caching the result
+     */
+    private Map<String, QueryParameterValue> patternParameters(CityEvent.EventCategory category, int daysPast) {
+        Map<String, QueryParameterValue> parameters = new LinkedHashMap<>();
+        parameters.put("category", QueryParameterValue.string(category.name()));
+        parameters.put("since", timestampParameter(bucketStart(LocalDateTime.now().minusDays(daysPast))));
+        return parameters;
+    }
+
+    private List<Map<String, Object>> mapPatternRows(TableResult result) {
+        List<Map<String, Object>> patterns = new ArrayList<>();
+        for (FieldValueList row : result.iterateAll()) {
+            patterns.add(Map.of(
+                "category", row.get("category").getStringValue(),
+                "timePeriod", row.get("time_period").getStringValue(),
+                "dayType", row.get("day_type").getStringValue(),
+                "area", row.get("area").getStringValue(),
+                "severity", row.get("severity").getStringValue(),
+                "frequency", row.get("frequency").getLongValue(),
+                "avgConfidence", row.get("avg_confidence").getDoubleValue()
+            ));
+        }
+        return List.copyOf(patterns);
+    }
+
     // Private helper methods
 
     private void createDatasetIfNotExists() {
@@ -416,16 +646,107 @@ public class BigQueryService {
                 Field.of("updated_at", StandardSQLTypeName.TIMESTAMP)
             );
             
-            TableDefinition tableDefinition = StandardTableDefinition.of(schema);
+            TableDefinition tableDefinition = StandardTableDefinition.newBuilder()
+                .setSchema(schema)
+                .setTimePartitioning(TimePartitioning.newBuilder(TimePartitioning.Type.DAY)
+                    .setField(PARTITION_FIELD)
+                    .build())
+                .setClustering(Clustering.newBuilder().setFields(CLUSTERING_FIELDS).build())
+                .build();
             TableInfo tableInfo = TableInfo.newBuilder(tableId, tableDefinition)
                 .setDescription("City events data for Bengaluru")
                 .build();
                 
             bigQuery.create(tableInfo);
-            log.info("Created BigQuery table: {}", EVENTS_TABLE_ID);
+            log.info("Created BigQuery table: {} (partitioned by DATE({}), clustered by {})",
+                EVENTS_TABLE_ID, PARTITION_FIELD, CLUSTERING_FIELDS);
         }
     }
 
+    /**
+     * Migrate an existing unpartitioned events table to the partitioned and
+     * clustered layout. BigQuery cannot add partitioning in place, so the data
+     * is copied into a new table which then takes over the original name; the
+     * old table is kept as a legacy backup.
+     * <p>
+     * A table with a streaming buffer cannot be renamed, so the batch writer is
+     * paused for the duration and the migration is skipped while rows streamed
+     * earlier are still buffered (up to about 90 minutes). Other replicas keep
+     * streaming, so run it with a single replica; the README describes the
+     * manual procedure. A staging table left behind by a failed run is replaced.
+     *
+     * @return true if a migration was performed
+     */
+    public boolean migrateEventsTableToPartitioned() {
+        Table table = bigQuery.getTable(TableId.of(DATASET_ID, EVENTS_TABLE_ID));
+        if (table == null) {
+            return false;
+        }
+        
+        StandardTableDefinition definition = table.getDefinition();
+        if (definition.getTimePartitioning() != null) {
+            if (definition.getClustering() == null) {
+                // Clustering can be added to a partitioned table in place
+                table.toBuilder()
+                    .setDefinition(definition.toBuilder()
+                        .setClustering(Clustering.newBuilder().setFields(CLUSTERING_FIELDS).build())
+                        .build())
+                    .build()
+                    .update();
+                log.info("Added clustering {} to BigQuery table {}", CLUSTERING_FIELDS, EVENTS_TABLE_ID);
+            }
+            return false;
+        }
+        
+        String migratingTableId = EVENTS_TABLE_ID + "_partitioned";
+        String legacyTableId = EVENTS_TABLE_ID + "_legacy_" + LocalDateTime.now().format(
+            DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
+        
+        String script = """
+            CREATE OR REPLACE TABLE `%1$s.%2$s.%3$s`
+            PARTITION BY DATE(%5$s)
+            CLUSTER BY %6$s
+            AS SELECT * FROM `%1$s.%2$s.%4$s`;
+            ALTER TABLE `%1$s.%2$s.%4$s` RENAME TO %7$s;
+            ALTER TABLE `%1$s.%2$s.%3$s` RENAME TO %4$s;
+            """.formatted(
+                projectId, DATASET_ID, migratingTableId, EVENTS_TABLE_ID,
+                PARTITION_FIELD, String.join(", ", CLUSTERING_FIELDS), legacyTableId
+            );
+        
+        writesPaused = true;
+        try {
+            // Re-read once writes are paused, so a flush that was in progress shows up
+            Table current = bigQuery.getTable(TableId.of(DATASET_ID, EVENTS_TABLE_ID));
+            StandardTableDefinition currentDefinition = current.getDefinition();
+            if (currentDefinition.getStreamingBuffer() != null) {
+                log.warn("BigQuery table {} still has a streaming buffer, skipping migration; "
+                    + "retry once no rows have been streamed for a while", EVENTS_TABLE_ID);
+                return false;
+            }
+            
+            log.info("Migrating BigQuery table {} to partitioned layout", EVENTS_TABLE_ID);
+            bigQuery.query(QueryJobConfiguration.newBuilder(script).build());
+            log.info("Migrated BigQuery table {}; previous data kept in {}", EVENTS_TABLE_ID, legacyTableId);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Events table migration interrupted", e);
+        } catch (Exception e) {
+            log.error("Failed to migrate BigQuery table {} to partitioned layout", EVENTS_TABLE_ID, e);
+            throw new RuntimeException("Events table migration failed", e);
+        } finally {
+            writesPaused = false;
+        }
+    }
+
+    /**
+     * Whether event inserts should be held back, while the events table is migrated
+     */
+    public boolean isWritePaused() {
+        return writesPaused;
+    }
+
     private void createPredictionsTableIfNotExists() {
         // Similar implementation for predictions table
         log.info("Predictions table creation - placeholder");
@@ -483,40 +804,45 @@ public class BigQueryService {
      * Get all recent events (simple query for testing)
      */
     public List<CityEvent> queryAllRecentEvents(int maxResults) {
+        // The timestamp filter prunes partitions; without it the whole table is scanned
         String query = """
-            SELECT *
+            SELECT %s
             FROM `%s.%s.%s`
+            WHERE timestamp >= @since
             ORDER BY timestamp DESC
-            LIMIT %d
-            """.formatted(projectId, DATASET_ID, EVENTS_TABLE_ID, maxResults);
+            LIMIT @max_results
+            """.formatted(EVENT_COLUMNS, projectId, DATASET_ID, EVENTS_TABLE_ID);
+        
+        Map<String, QueryParameterValue> parameters = new LinkedHashMap<>();
+        parameters.put("since", timestampParameter(bucketStart(LocalDateTime.now().minus(recentEventsWindow))));
+        parameters.put("max_results", QueryParameterValue.int64(maxResults));
             
-        log.info("Executing BigQuery recent events query: {}", query);
-        return executeQueryAndMapToEvents(query);
+        log.debug("Executing BigQuery recent events query (limit {})", maxResults);
+        return executeQueryAndMapToEvents(query, parameters);
     }
 
-    private List<CityEvent> executeQueryAndMapToEvents(String query) {
+    private List<CityEvent> executeQueryAndMapToEvents(String query, Map<String, QueryParameterValue> parameters) {
         try {
-            log.info("Executing BigQuery query: {}", query);
-            QueryJobConfiguration queryConfig = QueryJobConfiguration.newBuilder(query).build();
-            TableResult result = bigQuery.query(queryConfig);
-            
-            List<CityEvent> events = new ArrayList<>();
-            int rowCount = 0;
-            
-            for (FieldValueList row : result.iterateAll()) {
-                try {
-                    CityEvent event = mapRowToCityEvent(row);
-                    if (event != null) {
-                        events.add(event);
-                        rowCount++;
+            List<CityEvent> events = cachedQuery(query, parameters, result -> {
+                List<CityEvent> rows = new ArrayList<>();
+                int rowCount = 0;
+                
+                for (FieldValueList row : result.iterateAll()) {
+                    try {
+                        CityEvent event = mapRowToCityEvent(row);
+                        if (event != null) {
+                            rows.add(event);
+                            rowCount++;
+                        }
+                    } catch (Exception e) {
+                        log.warn("Failed to map row {} to CityEvent", rowCount, e);
                     }
-                } catch (Exception e) {
-                    log.warn("Failed to map row {} to CityEvent", rowCount, e);
                 }
-            }
+                return List.copyOf(rows);
+            });
             
             log.info("Successfully retrieved {} events from BigQuery", events.size());
-            return events;
+            return new ArrayList<>(events);
             
         } catch (Exception e) {
             log.error("Error executing BigQuery query: {}", query, e);
@@ -525,6 +851,120 @@ public class BigQueryService {
         }
     }
 
+    /**
+     * Run a parameterized query through the in-process result cache.
+     * Entries are keyed by the query template and its (bucketed) parameters;
+     * misses are coalesced so identical concurrent callers share one job.
+     * Failures are never cached; when a query fails or the circuit breaker is
+     * open, the last good result for the same key is served while it lasts.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T cachedQuery(String query, Map<String, QueryParameterValue> parameters,
+                              Function<TableResult, T> mapper) {
+        String key = queryCacheKey(query, parameters, true);
+        Object cached = queryResultCache.getIfPresent(key);
+        if (cached != null) {
+            return (T) cached;
+        }
+        
+        // The time window moves every bucket, so the fallback is kept per query and window length
+        String staleKey = queryCacheKey(query, parameters, false);
+        return requestCoalescer.executeBlocking(COALESCING_NAMESPACE, key, () -> {
+            T value;
+            try {
+                // Mapping pages through the rest of the result, so it runs under the breaker too
+                value = Retry.decorateSupplier(databaseRetry, CircuitBreaker.decorateSupplier(
+                    bigQueryCircuitBreaker, () -> mapper.apply(runQuery(query, parameters)))).get();
+            } catch (RuntimeException e) {
+                Object stale = staleResultCache.getIfPresent(staleKey);
+                if (stale == null) {
+                    throw e;
+                }
+                log.warn("BigQuery query failed, serving last known result: {}", e.getMessage());
+                meterRegistry.counter("bigquery.query-results.stale.served").increment();
+                return (T) stale;
+            }
+            if (value != null) {
+                queryResultCache.put(key, value);
+                staleResultCache.put(staleKey, value);
+            }
+            return value;
+        });
+    }
+
+    private TableResult runQuery(String query, Map<String, QueryParameterValue> parameters) {
+        QueryJobConfiguration queryConfig = QueryJobConfiguration.newBuilder(query)
+            .setNamedParameters(parameters)
+            .setUseQueryCache(true)
+            .setJobTimeoutMs(queryTimeout.toMillis())
+            .build();
+        try {
+            return bigQuery.query(queryConfig);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for BigQuery job", e);
+        }
+    }
+
+    /**
+     * Key for a query and its parameters. Without absolute timestamps, each is
+     * replaced by how long ago it was in whole buckets, so the key names the
+     * length of the window rather than where it currently starts.
+     */
+    private String queryCacheKey(String query, Map<String, QueryParameterValue> parameters, boolean absoluteTimestamps) {
+        StringBuilder key = new StringBuilder(query.strip().replaceAll("\\s+", " "));
+        new TreeMap<>(parameters).forEach((name, value) -> {
+            key.append('|').append(name).append('=');
+            if (!absoluteTimestamps && value.getType() == StandardSQLTypeName.TIMESTAMP) {
+                key.append("now-").append(windowLength(value.getValue()));
+            } else if (value.getArrayValues() != null) {
+                key.append(value.getArrayValues().stream()
+                    .map(QueryParameterValue::getValue)
+                    .collect(Collectors.joining(",", "[", "]")));
+            } else {
+                key.append(value.getValue());
+            }
+        });
+        return key.toString();
+    }
+
+    /**
+     * Time from a timestamp parameter to now, rounded down to whole buckets.
+     * A bucketed window start is less than one bucket older than its look-back,
+     * so a look-back of whole buckets keeps the same length between buckets.
+     */
+    private Duration windowLength(String timestamp) {
+        long bucketSeconds = Math.max(sinceBucket.toSeconds(), 1);
+        LocalDateTime time = LocalDateTime.parse(timestamp, PARAMETER_TIMESTAMP_FORMATTER);
+        long seconds = Duration.between(time, LocalDateTime.now()).toSeconds();
+        return Duration.ofSeconds(Math.floorDiv(seconds, bucketSeconds) * bucketSeconds);
+    }
+
+    /**
+     * Round a window start down to the bucket boundary so calls made within the
+     * same bucket share parameters; the window only ever grows slightly
+     */
+    private LocalDateTime bucketStart(LocalDateTime time) {
+        long bucketSeconds = Math.max(sinceBucket.toSeconds(), 1);
+        long epochSeconds = time.toEpochSecond(ZoneOffset.UTC);
+        return LocalDateTime.ofEpochSecond(epochSeconds - Math.floorMod(epochSeconds, bucketSeconds), 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Round a window end up to the next bucket boundary
+     */
+    private LocalDateTime bucketEnd(LocalDateTime time) {
+        LocalDateTime start = bucketStart(time);
+        return start.equals(time) ? start : start.plusSeconds(Math.max(sinceBucket.toSeconds(), 1));
+    }
+
+    /**
+     * Timestamps are stored as zone-less strings that BigQuery reads as UTC
+     */
+    private QueryParameterValue timestampParameter(LocalDateTime time) {
+        return QueryParameterValue.timestamp(time.format(PARAMETER_TIMESTAMP_FORMATTER));
+    }
+
     private CityEvent mapRowToCityEvent(FieldValueList row) {
         try {
             // Convert BigQuery row back to CityEvent object
@@ -1,18 +1,28 @@
 package com.lemillion.city_data_overload_server.service;
 
+import com.lemillion.city_data_overload_server.cache.CacheDependencyIndex;
+import com.lemillion.city_data_overload_server.cache.LocationTile;
+import com.lemillion.city_data_overload_server.cache.LocationTileResolver;
+import com.lemillion.city_data_overload_server.cache.RequestCoalescer;
 import com.lemillion.city_data_overload_server.model.CityEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * Cached service layer for frequently accessed city event data.
@@ -26,111 +36,159 @@ public class CachedEventService {
     private final FirestoreService firestoreService;
     private final BigQueryService bigQueryService;
     private final RedisTemplate<String, Object> redisTemplate;
+    private final CacheManager cacheManager;
+    private final LocationTileResolver locationTileResolver;
+    private final CacheDependencyIndex cacheDependencyIndex;
+    private final RequestCoalescer requestCoalescer;
+    
+    private static final String LOCATION_EVENTS_CACHE = "locationEvents";
+    private static final String EVENTS_CACHE = "events";
+    private static final String TRENDING_CACHE = "trending";
+    private static final String AREA_STATS_CACHE = "areaStats";
+    private static final List<String> EVENT_CACHES =
+        List.of(LOCATION_EVENTS_CACHE, EVENTS_CACHE, TRENDING_CACHE, AREA_STATS_CACHE);
+    
+    private static final double TRENDING_CENTER_LAT = 12.9716;
+    private static final double TRENDING_CENTER_LON = 77.5946;
+    private static final double TRENDING_RADIUS_KM = 50.0;
 
     /**
-     * Get events by location with caching
+     * Get events by location with caching.
+     * Requests are snapped to a geohash tile and bucketed radius/result classes,
+     * so nearby callers share one cached tile result that is then narrowed to
+     * each caller's own circle and limit. When a full tile cannot fill the
+     * caller's limit, the circle itself is queried and cached under its own key.
      */
-    @Cacheable(value = "locationEvents", keyGenerator = "locationBasedKeyGenerator")
     public CompletableFuture<List<CityEvent>> getEventsByLocation(
             double latitude, double longitude, double radiusKm, int maxResults) {
         
-        log.debug("Cache miss - fetching events by location: lat={}, lon={}, radius={}km", 
-                 latitude, longitude, radiusKm);
+        LocationTile tile = locationTileResolver.resolve(latitude, longitude, radiusKm, maxResults);
+        Set<String> dependencies = CacheDependencyIndex.locationTags(
+            tile.centerLatitude(), tile.centerLongitude(), tile.queryRadiusKm());
         
-        return firestoreService.getEventsByLocation(latitude, longitude, radiusKm, maxResults)
-            .thenApply(events -> {
-                log.debug("Cached {} events for location: lat={}, lon={}", events.size(), latitude, longitude);
-                return events;
-            });
+        CompletableFuture<List<CityEvent>> tileEvents = cached(
+            LOCATION_EVENTS_CACHE, tile.cacheKey(), dependencies, () -> fetchTileEvents(tile));
+        
+        double radiusMeters = radiusKm * 1000;
+        return tileEvents.thenCompose(events -> {
+            List<CityEvent> nearby = events.stream()
+                .filter(event -> {
+                    Double distance = event.getDistanceFrom(latitude, longitude);
+                    return distance != null && distance <= radiusMeters;
+                })
+                .limit(maxResults)
+                .collect(Collectors.toList());
+            
+            // A full tile may have cut off events inside this caller's circle; ask for the circle itself
+            if (nearby.size() < maxResults && events.size() >= tile.fetchLimit()) {
+                log.debug("Tile {} left {} of {} events for the caller's circle, querying it directly",
+                         tile.geohash(), nearby.size(), maxResults);
+                String circleKey = "circle:" + latitude + ":" + longitude + ":r" + radiusKm + ":n" + maxResults;
+                return cached(LOCATION_EVENTS_CACHE, circleKey,
+                    CacheDependencyIndex.locationTags(latitude, longitude, radiusKm),
+                    () -> firestoreService.getEventsByLocation(latitude, longitude, radiusKm, maxResults));
+            }
+            return CompletableFuture.completedFuture(nearby);
+        });
     }
 
     /**
      * Get events by category and severity with caching
      */
-    @Cacheable(value = "events", keyGenerator = "locationBasedKeyGenerator")
     public CompletableFuture<List<CityEvent>> getEventsByCategoryAndSeverity(
             CityEvent.EventCategory category, CityEvent.EventSeverity severity, int maxResults) {
         
-        log.debug("Cache miss - fetching events by category: {} and severity: {}", 
-                 category, severity);
-        
-        return firestoreService.getEventsByCategoryAndSeverity(category, severity, maxResults)
-            .thenApply(events -> {
-                log.debug("Cached {} events for category: {} and severity: {}", 
-                         events.size(), category, severity);
-                return events;
-            });
+        String key = "category:" + category + ":" + severity + ":n" + maxResults;
+        return cached(EVENTS_CACHE, key, Set.of(CacheDependencyIndex.categoryTag(category, severity)), () -> {
+            log.debug("Cache miss - fetching events by category: {} and severity: {}", 
+                     category, severity);
+            
+            return firestoreService.getEventsByCategoryAndSeverity(category, severity, maxResults)
+                .thenApply(events -> {
+                    log.debug("Cached {} events for category: {} and severity: {}", 
+                             events.size(), category, severity);
+                    return events;
+                });
+        });
     }
 
     /**
      * Get recent events by area with caching
      */
-    @Cacheable(value = "locationEvents", keyGenerator = "locationBasedKeyGenerator")
     public CompletableFuture<List<CityEvent>> getRecentEventsByArea(String area, int maxResults) {
-        log.debug("Cache miss - fetching recent events for area: {}", area);
-        
-        return firestoreService.getRecentEventsByArea(area, maxResults)
-            .thenApply(events -> {
-                log.debug("Cached {} recent events for area: {}", events.size(), area);
-                return events;
-            });
+        String key = "area:" + area + ":n" + maxResults;
+        return cached(LOCATION_EVENTS_CACHE, key, Set.of(CacheDependencyIndex.areaTag(area)), () -> {
+            log.debug("Cache miss - fetching recent events for area: {}", area);
+            
+            return firestoreService.getRecentEventsByArea(area, maxResults)
+                .thenApply(events -> {
+                    log.debug("Cached {} recent events for area: {}", events.size(), area);
+                    return events;
+                });
+        });
     }
 
     /**
      * Get trending events with caching
      */
-    @Cacheable(value = "trending", key = "'trending:' + #maxResults")
     public CompletableFuture<List<CityEvent>> getTrendingEvents(int maxResults) {
-        log.debug("Cache miss - fetching trending events");
+        Set<String> dependencies = CacheDependencyIndex.locationTags(
+            TRENDING_CENTER_LAT, TRENDING_CENTER_LON, TRENDING_RADIUS_KM);
         
-        // Implementation for trending events (could be based on engagement, recency, etc.)
-        return firestoreService.getEventsByLocation(12.9716, 77.5946, 50.0, maxResults)
-            .thenApply(events -> {
-                // Sort by most recent and highest engagement
-                events.sort((e1, e2) -> {
-                    LocalDateTime time1 = e1.getTimestamp() != null ? e1.getTimestamp() : LocalDateTime.MIN;
-                    LocalDateTime time2 = e2.getTimestamp() != null ? e2.getTimestamp() : LocalDateTime.MIN;
-                    return time2.compareTo(time1);
+        return cached(TRENDING_CACHE, "trending:" + maxResults, dependencies, () -> {
+            log.debug("Cache miss - fetching trending events");
+            
+            // Implementation for trending events (could be based on engagement, recency, etc.)
+            return firestoreService.getEventsByLocation(
+                    TRENDING_CENTER_LAT, TRENDING_CENTER_LON, TRENDING_RADIUS_KM, maxResults)
+                .thenApply(events -> {
+                    // Sort by most recent and highest engagement
+                    events.sort((e1, e2) -> {
+                        LocalDateTime time1 = e1.getTimestamp() != null ? e1.getTimestamp() : LocalDateTime.MIN;
+                        LocalDateTime time2 = e2.getTimestamp() != null ? e2.getTimestamp() : LocalDateTime.MIN;
+                        return time2.compareTo(time1);
+                    });
+                    
+                    log.debug("Cached {} trending events", events.size());
+                    return events.subList(0, Math.min(maxResults, events.size()));
                 });
-                
-                log.debug("Cached {} trending events", events.size());
-                return events.subList(0, Math.min(maxResults, events.size()));
-            });
+        });
     }
 
     /**
      * Get area statistics with caching
      */
-    @Cacheable(value = "areaStats")
     public CompletableFuture<Map<String, Object>> getAreaStatistics(String area) {
-        log.debug("Cache miss - computing area statistics for: {}", area);
-        
-        return firestoreService.getRecentEventsByArea(area, 100)
-            .thenApply(events -> {
-                Map<String, Object> stats = Map.of(
-                    "area", area,
-                    "totalEvents", events.size(),
-                    "categoryCounts", computeCategoryCounts(events),
-                    "severityCounts", computeSeverityCounts(events),
-                    "lastUpdated", LocalDateTime.now(),
-                    "averageEventsPerDay", computeAverageEventsPerDay(events)
-                );
-                
-                log.debug("Cached statistics for area: {} with {} events", area, events.size());
-                return stats;
-            });
+        return cached(AREA_STATS_CACHE, "area:" + area, Set.of(CacheDependencyIndex.areaTag(area)), () -> {
+            log.debug("Cache miss - computing area statistics for: {}", area);
+            
+            return firestoreService.getRecentEventsByArea(area, 100)
+                .thenApply(events -> {
+                    Map<String, Object> stats = Map.of(
+                        "area", area,
+                        "totalEvents", events.size(),
+                        "categoryCounts", computeCategoryCounts(events),
+                        "severityCounts", computeSeverityCounts(events),
+                        "lastUpdated", LocalDateTime.now(),
+                        "averageEventsPerDay", computeAverageEventsPerDay(events)
+                    );
+                    
+                    log.debug("Cached statistics for area: {} with {} events", area, events.size());
+                    return stats;
+                });
+        });
     }
 
     /**
-     * Store event and evict related caches
+     * Store event and evict only the cached entries it can affect
      */
-    @CacheEvict(value = {"locationEvents", "events", "trending", "areaStats"}, allEntries = true)
     public CompletableFuture<String> storeCityEvent(CityEvent event) {
-        log.debug("Storing event and evicting caches: {}", event.getId());
+        log.debug("Storing event and evicting dependent cache entries: {}", event.getId());
         
         return firestoreService.storeCityEvent(event)
             .thenApply(eventId -> {
-                log.debug("Event stored and caches evicted for: {}", eventId);
+                cacheDependencyIndex.invalidate(event, EVENT_CACHES);
+                log.debug("Event stored and dependent cache entries evicted for: {}", eventId);
                 return eventId;
             });
     }
@@ -197,6 +255,54 @@ public class CachedEventService {
 
     // Helper methods
 
+    /**
+     * Serve a value from the named cache, registering the entry's dependency
+     * tags before loading so a concurrent write can already evict it. A write
+     * landing between registering and storing finds nothing to evict yet, so
+     * the index is checked again once the value is stored. Every caller, and
+     * the cache itself, shares one value, so lists are handed out read-only.
+     */
+    private <T> CompletableFuture<T> cached(String cacheName, String key, Set<String> dependencies,
+                                            Supplier<CompletableFuture<T>> loader) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return requestCoalescer.execute(cacheName, key, loader).thenApply(CachedEventService::readOnly);
+        }
+        
+        // Misses are coalesced so an expiring hot entry triggers a single backend read
+        AtomicBoolean stored = new AtomicBoolean();
+        return cache.retrieve(key, () -> {
+            stored.set(true);
+            return requestCoalescer.execute(cacheName, key, () -> {
+                cacheDependencyIndex.register(cacheName, key, dependencies);
+                return loader.get();
+            });
+        }).thenApply(value -> {
+            if (stored.get() && !cacheDependencyIndex.isRegistered(cacheName, key, dependencies)) {
+                log.debug("Entry {} in {} was invalidated while loading, evicting it", key, cacheName);
+                cache.evict(key);
+            }
+            return readOnly(value);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T readOnly(T value) {
+        return value instanceof List<?> list ? (T) Collections.unmodifiableList(list) : value;
+    }
+
+    private CompletableFuture<List<CityEvent>> fetchTileEvents(LocationTile tile) {
+        log.debug("Cache miss - fetching events for tile: {} (radius class {}km, max {})",
+                 tile.geohash(), tile.radiusClassKm(), tile.maxResultsClass());
+        
+        return firestoreService.getEventsByLocation(
+                tile.centerLatitude(), tile.centerLongitude(), tile.queryRadiusKm(), tile.fetchLimit())
+            .thenApply(events -> {
+                log.debug("Cached {} events for tile: {}", events.size(), tile.geohash());
+                return events;
+            });
+    }
+
     private Map<String, Long> computeCategoryCounts(List<CityEvent> events) {
         return events.stream()
             .filter(e -> e.getCategory() != null)
@@ -0,0 +1,17 @@
+package com.lemillion.city_data_overload_server.service;
+
+/**
+ * Thrown from a chat chunk consumer once the client has gone away, to stop
+ * reading the model stream. Not a dependency failure, so circuit breakers
+ * and retries ignore it.
+ */
+public class ChatStreamClosedException extends RuntimeException {
+
+    public ChatStreamClosedException() {
+        super("Chat stream closed by client");
+    }
+
+    public ChatStreamClosedException(Throwable cause) {
+        super("Chat stream closed by client", cause);
+    }
+}
@@ -0,0 +1,102 @@
+package com.lemillion.city_data_overload_server.service;
+
+import com.lemillion.city_data_overload_server.agent.AgentRequest;
+import com.lemillion.city_data_overload_server.agent.DeadlineExceededException;
+import com.lemillion.city_data_overload_server.agent.handler.ChatPageHandler;
+import com.lemillion.city_data_overload_server.config.DeadlineConfig;
+import com.lemillion.city_data_overload_server.stream.SseFrameEncoder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Streams chat answers to the client as Server-Sent Events.
+ * Frames, in order: one "context" frame with the events and alerts the
+ * answer is based on, "token" frames with the answer text as the model
+ * produces it, then either "done" or "error".
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ChatStreamService {
+
+    private final ChatPageHandler chatPageHandler;
+    private final DeadlineConfig deadlineConfig;
+    private final SseFrameEncoder frameEncoder;
+
+    /**
+     * Start streaming the answer to a chat request; the emitter is returned
+     * before any data has been gathered
+     */
+    public SseEmitter streamChat(AgentRequest request) {
+        long startTime = System.currentTimeMillis();
+        if (request.getDeadline() == null) {
+            request.setDeadline(deadlineConfig.deadlineFor("CHAT", request.getTimeoutMs()));
+        }
+
+        SseEmitter emitter = new SseEmitter(
+            request.getDeadline().remaining().plus(deadlineConfig.getGrace()).toMillis());
+        AtomicBoolean closed = new AtomicBoolean();
+        emitter.onCompletion(() -> closed.set(true));
+        emitter.onTimeout(() -> closed.set(true));
+        emitter.onError(throwable -> closed.set(true));
+
+        chatPageHandler.stream(request,
+                context -> send(emitter, closed, "context", context),
+                chunk -> send(emitter, closed, "token", Map.of("text", chunk)))
+            .whenComplete((answer, throwable) -> {
+                if (closed.get()) {
+                    log.debug("Chat stream {} closed by client before the answer was complete", request.getRequestId());
+                    return;
+                }
+                try {
+                    if (throwable == null) {
+                        send(emitter, closed, "done", Map.of(
+                            "request_id", request.getRequestId(),
+                            "processing_time_ms", System.currentTimeMillis() - startTime,
+                            "timestamp", LocalDateTime.now()
+                        ));
+                    } else {
+                        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                            ? throwable.getCause() : throwable;
+                        log.warn("Chat stream {} failed: {}", request.getRequestId(), cause.getMessage());
+                        send(emitter, closed, "error", Map.of(
+                            "request_id", request.getRequestId(),
+                            "error_code", cause instanceof DeadlineExceededException ? "DEADLINE_EXCEEDED" : "CHAT_STREAM_ERROR",
+                            "message", "I'm sorry, I couldn't finish that answer. Please try again."
+                        ));
+                    }
+                    emitter.complete();
+                } catch (RuntimeException e) {
+                    log.debug("Could not finish chat stream {}: {}", request.getRequestId(), e.getMessage());
+                }
+            });
+
+        log.info("Chat stream {} started for query: {}", request.getRequestId(), request.getQuery());
+        return emitter;
+    }
+
+    /**
+     * Send one frame. Throws once the client is gone, which stops the model
+     * stream at its next chunk instead of generating text nobody will read.
+     */
+    private void send(SseEmitter emitter, AtomicBoolean closed, String name, Object data) {
+        if (closed.get()) {
+            throw new ChatStreamClosedException();
+        }
+        try {
+            emitter.send(frameEncoder.encode(name, data).content());
+        } catch (IOException | IllegalStateException e) {
+            // IllegalStateException: the emitter was completed or timed out under us
+            closed.set(true);
+            throw new ChatStreamClosedException(e);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.lemillion.city_data_overload_server.service;
+
+import com.lemillion.city_data_overload_server.config.SerpApiConfig;
+import com.lemillion.city_data_overload_server.model.CityEvent;
+import com.lemillion.city_data_overload_server.util.MinHash;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Drops near-duplicate articles before they reach aggregation and AI analysis.
+ * Title and snippet are MinHashed; events colliding in an LSH band with an
+ * earlier event of the same batch, or with one seen by a recent run, are
+ * dropped when their estimated Jaccard similarity reaches the threshold.
+ * Recent signatures live in Redis so every replica and scheduler run shares them.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EventDeduplicationService {
+
+    private static final long MINHASH_SEED = 0x5EED_CAFEL;
+
+    private final SerpApiConfig serpApiConfig;
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private SerpApiConfig.DedupConfig config;
+    private MinHash minHash;
+
+    @PostConstruct
+    public void initialize() {
+        config = serpApiConfig.getDedup();
+        if (config.getNumHashes() % config.getBands() != 0) {
+            throw new IllegalStateException("serpapi.dedup.num-hashes must be divisible by serpapi.dedup.bands");
+        }
+        minHash = new MinHash(config.getNumHashes(), config.getShingleLength(), MINHASH_SEED);
+    }
+
+    /**
+     * Events that are not near-duplicates of each other or of recently seen
+     * articles, in their original order. Kept events are remembered for later runs.
+     */
+    public List<CityEvent> removeDuplicates(List<CityEvent> events) {
+        if (!config.isEnabled() || events.isEmpty()) {
+            return events;
+        }
+
+        // Drop duplicates within the batch first; no Redis round trip needed
+        List<CityEvent> candidates = new ArrayList<>();
+        List<int[]> signatures = new ArrayList<>();
+        Map<String, List<int[]>> batchBands = new HashMap<>();
+        for (CityEvent event : events) {
+            String text = dedupText(event);
+            if (text.isEmpty()) {
+                // Nothing to compare on; keep it and leave it out of the store
+                candidates.add(event);
+                signatures.add(null);
+                continue;
+            }
+
+            int[] signature = minHash.signature(text);
+            String[] bandKeys = MinHash.bandKeys(signature, config.getBands());
+            if (isDuplicate(signature, bandKeys, batchBands)) {
+                continue;
+            }
+            for (String bandKey : bandKeys) {
+                batchBands.computeIfAbsent(bandKey, ignored -> new ArrayList<>()).add(signature);
+            }
+            candidates.add(event);
+            signatures.add(signature);
+        }
+        int batchDuplicates = events.size() - candidates.size();
+
+        List<CityEvent> unique = new ArrayList<>();
+        try {
+            List<int[]> uniqueSignatures = new ArrayList<>();
+            Map<String, List<int[]>> recentBands = loadRecentSignatures(signatures);
+            for (int i = 0; i < candidates.size(); i++) {
+                int[] signature = signatures.get(i);
+                if (signature == null) {
+                    unique.add(candidates.get(i));
+                } else if (!isDuplicate(signature, MinHash.bandKeys(signature, config.getBands()), recentBands)) {
+                    unique.add(candidates.get(i));
+                    uniqueSignatures.add(signature);
+                }
+            }
+            storeSignatures(uniqueSignatures);
+        } catch (Exception e) {
+            log.warn("Dedup signature store unavailable, only removing duplicates within the batch: {}",
+                e.getMessage());
+            unique = candidates;
+        }
+        int recentDuplicates = candidates.size() - unique.size();
+
+        meterRegistry.counter("serpapi.dedup.dropped", "scope", "batch").increment(batchDuplicates);
+        meterRegistry.counter("serpapi.dedup.dropped", "scope", "recent").increment(recentDuplicates);
+        log.info("Deduplication kept {} of {} events ({} duplicates within batch, {} seen recently)",
+            unique.size(), events.size(), batchDuplicates, recentDuplicates);
+        return unique;
+    }
+
+    private boolean isDuplicate(int[] signature, String[] bandKeys, Map<String, List<int[]>> bands) {
+        for (String bandKey : bandKeys) {
+            for (int[] other : bands.getOrDefault(bandKey, List.of())) {
+                if (MinHash.similarity(signature, other) >= config.getJaccardThreshold()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Recent signatures sharing a band with any of the given ones, grouped by band key.
+     * Two round trips: one pipelined read of the band sets, one multi-get of signatures.
+     */
+    private Map<String, List<int[]>> loadRecentSignatures(List<int[]> signatures) {
+        List<String> bandKeys = signatures.stream()
+            .filter(Objects::nonNull)
+            .flatMap(signature -> Arrays.stream(MinHash.bandKeys(signature, config.getBands())))
+            .distinct()
+            .toList();
+        if (bandKeys.isEmpty()) {
+            return Map.of();
+        }
+
+        List<Object> members = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> redis = (RedisOperations<String, String>) operations;
+                bandKeys.forEach(bandKey -> redis.opsForSet().members(bandSetKey(bandKey)));
+                return null;
+            }
+        });
+
+        Map<String, Set<String>> idsByBand = new HashMap<>();
+        Set<String> ids = new LinkedHashSet<>();
+        for (int i = 0; i < bandKeys.size(); i++) {
+            if (members.get(i) instanceof Set<?> bandMembers && !bandMembers.isEmpty()) {
+                Set<String> bandIds = bandMembers.stream().map(Object::toString).collect(Collectors.toSet());
+                idsByBand.put(bandKeys.get(i), bandIds);
+                ids.addAll(bandIds);
+            }
+        }
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+
+        List<String> idList = new ArrayList<>(ids);
+        List<String> encoded = redisTemplate.opsForValue()
+            .multiGet(idList.stream().map(this::signatureKey).toList());
+        Map<String, int[]> signaturesById = new HashMap<>();
+        for (int i = 0; i < idList.size(); i++) {
+            if (encoded != null && encoded.get(i) != null) {
+                signaturesById.put(idList.get(i), decode(encoded.get(i)));
+            }
+        }
+
+        Map<String, List<int[]>> recentBands = new HashMap<>();
+        idsByBand.forEach((bandKey, bandIds) -> recentBands.put(bandKey, bandIds.stream()
+            .map(signaturesById::get)
+            .filter(Objects::nonNull)
+            .toList()));
+        return recentBands;
+    }
+
+    private void storeSignatures(List<int[]> signatures) {
+        if (signatures.isEmpty()) {
+            return;
+        }
+
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> redis = (RedisOperations<String, String>) operations;
+                for (int[] signature : signatures) {
+                    String id = signatureId(signature);
+                    redis.opsForValue().set(signatureKey(id), encode(signature), config.getSignatureTtl());
+                    for (String bandKey : MinHash.bandKeys(signature, config.getBands())) {
+                        redis.opsForSet().add(bandSetKey(bandKey), id);
+                        redis.expire(bandSetKey(bandKey), config.getSignatureTtl());
+                    }
+                }
+                return null;
+            }
+        });
+    }
+
+    private String bandSetKey(String bandKey) {
+        return config.getKeyPrefix() + "band:" + bandKey;
+    }
+
+    private String signatureKey(String id) {
+        return config.getKeyPrefix() + "sig:" + id;
+    }
+
+    private static String signatureId(int[] signature) {
+        return Integer.toHexString(Arrays.hashCode(signature)) + Integer.toHexString(signature[0]);
+    }
+
+    private static String encode(int[] signature) {
+        return Arrays.stream(signature).mapToObj(Integer::toString).collect(Collectors.joining(","));
+    }
+
+    private static int[] decode(String encoded) {
+        return Arrays.stream(encoded.split(",")).mapToInt(Integer::parseInt).toArray();
+    }
+
+    private static String dedupText(CityEvent event) {
+        StringBuilder text = new StringBuilder();
+        if (event.getTitle() != null) text.append(event.getTitle()).append(" ");
+        if (event.getDescription() != null) text.append(event.getDescription());
+        return text.toString().trim();
+    }
+}
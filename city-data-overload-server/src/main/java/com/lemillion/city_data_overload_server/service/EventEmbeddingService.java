@@ -0,0 +1,129 @@
+package com.lemillion.city_data_overload_server.service;
+
+import com.google.cloud.vertexai.VertexAI;
+import com.google.cloud.vertexai.api.PredictResponse;
+import com.google.protobuf.Struct;
+import com.lemillion.city_data_overload_server.model.CityEvent;
+import com.lemillion.city_data_overload_server.util.TextVectors;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Computes one unit-length vector per event for similarity clustering.
+ * Uses the configured Vertex AI embedding model when there is one, and local
+ * hashed shingle vectors otherwise, when the embedding call fails, or while
+ * the Vertex AI circuit breaker is open.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EventEmbeddingService {
+
+    private final VertexAI vertexAI;
+    private final VertexAiExecutor vertexAiExecutor;
+    private final CircuitBreaker vertexAiCircuitBreaker;
+
+    @Value("${gcp.project-id}")
+    private String projectId;
+
+    @Value("${gcp.location}")
+    private String location;
+
+    /**
+     * Vertex AI embedding model, e.g. text-embedding-004; blank uses local vectors only
+     */
+    @Value("${ai-processing.embeddings.model:}")
+    private String embeddingModel;
+
+    @Value("${ai-processing.embeddings.batch-size:100}")
+    private int embeddingBatchSize;
+
+    @Value("${ai-processing.embeddings.shingle-dimensions:512}")
+    private int shingleDimensions;
+
+    /**
+     * Vectors for the given events, in the same order. All vectors of one call
+     * come from the same source, so they are always comparable with each other.
+     */
+    public CompletableFuture<List<float[]>> embed(List<CityEvent> events) {
+        List<String> texts = events.stream().map(EventEmbeddingService::embeddingText).toList();
+
+        if (embeddingModel.isBlank() || texts.isEmpty()) {
+            return CompletableFuture.completedFuture(shingleVectors(texts));
+        }
+
+        return CircuitBreaker.decorateCompletionStage(vertexAiCircuitBreaker,
+                () -> vertexAiExecutor.supplyAsync(() -> embedWithVertexAi(texts)))
+            .get()
+            .toCompletableFuture()
+            .exceptionally(throwable -> {
+                log.warn("Embedding model {} unavailable, using local shingle vectors: {}",
+                    embeddingModel, throwable.getMessage());
+                return shingleVectors(texts);
+            });
+    }
+
+    private List<float[]> embedWithVertexAi(List<String> texts) {
+        String endpoint = String.format("projects/%s/locations/%s/publishers/google/models/%s",
+            projectId, location, embeddingModel);
+
+        List<float[]> vectors = new ArrayList<>(texts.size());
+        for (int start = 0; start < texts.size(); start += embeddingBatchSize) {
+            List<com.google.protobuf.Value> instances = texts
+                .subList(start, Math.min(start + embeddingBatchSize, texts.size()))
+                .stream()
+                .map(text -> structValue(Struct.newBuilder()
+                    .putFields("content", stringValue(text))
+                    .putFields("task_type", stringValue("CLUSTERING"))
+                    .build()))
+                .toList();
+
+            PredictResponse response = vertexAI.getPredictionServiceClient()
+                .predict(endpoint, instances, structValue(Struct.getDefaultInstance()));
+
+            for (com.google.protobuf.Value prediction : response.getPredictionsList()) {
+                List<com.google.protobuf.Value> values = prediction.getStructValue().getFieldsMap()
+                    .get("embeddings").getStructValue().getFieldsMap()
+                    .get("values").getListValue().getValuesList();
+                float[] vector = new float[values.size()];
+                for (int i = 0; i < vector.length; i++) {
+                    vector[i] = (float) values.get(i).getNumberValue();
+                }
+                vectors.add(TextVectors.normalize(vector));
+            }
+        }
+
+        if (vectors.size() != texts.size()) {
+            throw new IllegalStateException(
+                "Embedding model returned " + vectors.size() + " vectors for " + texts.size() + " texts");
+        }
+        return vectors;
+    }
+
+    private List<float[]> shingleVectors(List<String> texts) {
+        return texts.stream().map(text -> TextVectors.shingleVector(text, shingleDimensions)).toList();
+    }
+
+    private static com.google.protobuf.Value stringValue(String value) {
+        return com.google.protobuf.Value.newBuilder().setStringValue(value).build();
+    }
+
+    private static com.google.protobuf.Value structValue(Struct struct) {
+        return com.google.protobuf.Value.newBuilder().setStructValue(struct).build();
+    }
+
+    private static String embeddingText(CityEvent event) {
+        StringBuilder text = new StringBuilder();
+        if (event.getTitle() != null) text.append(event.getTitle()).append(" ");
+        if (event.getDescription() != null) text.append(event.getDescription()).append(" ");
+        if (event.getKeywords() != null) text.append(String.join(" ", event.getKeywords()));
+        return text.toString().trim();
+    }
+}
@@ -1,26 +1,36 @@
 package com.lemillion.city_data_overload_server.service;
 
 import com.lemillion.city_data_overload_server.model.CityEvent;
+import com.lemillion.city_data_overload_server.stream.FrameScope;
+import com.lemillion.city_data_overload_server.stream.SseBroadcaster;
+import com.lemillion.city_data_overload_server.stream.SseFrame;
+import com.lemillion.city_data_overload_server.stream.SseFrameBus;
+import com.lemillion.city_data_overload_server.stream.SseSubscriber;
+import com.lemillion.city_data_overload_server.stream.SubscriptionFilter;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Server-Sent Events service for real-time frontend updates.
- * Manages SSE connections and broadcasts city data updates to connected clients.
+ * Manages SSE connections and broadcasts city data updates to connected clients;
+ * delivery is left to SseBroadcaster, so broadcasting never waits on a client.
+ * Broadcasts go through SseFrameBus, so clients on every replica receive them.
+ * Each broadcast carries its area, location, category and severity, and only
+ * reaches clients whose subscription filter matches.
  */
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class EventStreamService {
 
-    // Store active SSE connections by type
-    private final Map<String, CopyOnWriteArrayList<SseEmitter>> connections = new ConcurrentHashMap<>();
+    private final SseBroadcaster broadcaster;
+    private final SseFrameBus frameBus;
     
     // Connection timeout (30 minutes)
     private static final long SSE_TIMEOUT = 30 * 60 * 1000L;
@@ -29,35 +39,37 @@ public class EventStreamService {
      * Create new SSE connection for city events
      */
     public SseEmitter createEventStream(String streamType) {
+        return createEventStream(streamType, SubscriptionFilter.ALL, null);
+    }
+
+    /**
+     * Create new SSE connection that only receives updates matching the filter.
+     * A client reconnecting with the Last-Event-ID it saw is first sent the
+     * updates it missed, from memory rather than another full fetch.
+     */
+    public SseEmitter createEventStream(String streamType, SubscriptionFilter filter, String lastEventId) {
         SseEmitter emitter = new SseEmitter(SSE_TIMEOUT);
         
-        // Initialize connection list if not exists
-        connections.computeIfAbsent(streamType, k -> new CopyOnWriteArrayList<>()).add(emitter);
+        // Initial connection confirmation is the first frame on the stream
+        SseFrame greeting = new SseFrame(streamType, "connected", Map.of(
+            "message", "Connected to " + streamType + " stream",
+            "timestamp", LocalDateTime.now(),
+            "streamType", streamType
+        ), null);
+        SseSubscriber subscriber = broadcaster.subscribe(streamType, emitter, filter, greeting, lastEventId);
         
         // Handle connection cleanup
-        emitter.onCompletion(() -> removeConnection(streamType, emitter));
-        emitter.onTimeout(() -> removeConnection(streamType, emitter));
+        emitter.onCompletion(() -> broadcaster.unsubscribe(subscriber));
+        emitter.onTimeout(() -> broadcaster.unsubscribe(subscriber));
         emitter.onError((throwable) -> {
             log.warn("SSE connection error for stream type: {}", streamType, throwable);
-            removeConnection(streamType, emitter);
+            broadcaster.unsubscribe(subscriber);
         });
         
-        // Send initial connection confirmation
-        try {
-            emitter.send(SseEmitter.event()
-                .name("connected")
-                .data(Map.of(
-                    "message", "Connected to " + streamType + " stream",
-                    "timestamp", LocalDateTime.now(),
-                    "streamType", streamType
-                )));
-        } catch (IOException e) {
-            log.error("Failed to send initial SSE message", e);
-            removeConnection(streamType, emitter);
-        }
-        
-        log.info("New SSE connection created for stream type: {} (total: {})", 
-                streamType, connections.get(streamType).size());
+        log.info("New SSE connection created for stream type: {} with filter {}{} (total: {})", 
+                streamType, subscriber.getFilter(),
+                lastEventId != null ? ", resuming after " + lastEventId : "",
+                broadcaster.getSubscriberCount(streamType));
         
         return emitter;
     }
@@ -72,7 +84,7 @@ public class EventStreamService {
             "timestamp", LocalDateTime.now()
         );
         
-        broadcast("events", "newEvent", eventData);
+        broadcast("events", "newEvent", eventData, null, FrameScope.of(event));
         log.debug("Broadcasted city event: {} to events stream", event.getId());
     }
 
@@ -87,7 +99,7 @@ public class EventStreamService {
             "priority", alert.getOrDefault("severity", "MODERATE")
         );
         
-        broadcast("alerts", "newAlert", alertData);
+        broadcast("alerts", "newAlert", alertData, null, alertScope(alert));
         log.info("Broadcasted alert to alerts stream: {}", alert.get("id"));
     }
 
@@ -102,7 +114,7 @@ public class EventStreamService {
             "timestamp", LocalDateTime.now()
         );
         
-        broadcast("mood", "moodUpdate", updateData);
+        broadcast("mood", "moodUpdate", updateData, "mood:" + area, FrameScope.area(area));
         log.debug("Broadcasted mood update for area: {}", area);
     }
 
@@ -116,7 +128,7 @@ public class EventStreamService {
             "timestamp", LocalDateTime.now()
         );
         
-        broadcast("predictions", "newPrediction", predictionData);
+        broadcast("predictions", "newPrediction", predictionData, null, FrameScope.EVERYONE);
         log.debug("Broadcasted prediction: {}", prediction.get("category"));
     }
 
@@ -131,7 +143,7 @@ public class EventStreamService {
             "timestamp", LocalDateTime.now()
         );
         
-        broadcast("events", "areaStatsUpdate", statsData);
+        broadcast("events", "areaStatsUpdate", statsData, "areaStats:" + area, FrameScope.area(area));
         log.debug("Broadcasted area stats for: {}", area);
     }
 
@@ -147,8 +159,8 @@ public class EventStreamService {
         );
         
         // Broadcast to all stream types
-        connections.keySet().forEach(streamType -> 
-            broadcast(streamType, "systemStatus", statusData));
+        broadcaster.getStreamTypes().forEach(streamType -> 
+            broadcast(streamType, "systemStatus", statusData, "systemStatus", FrameScope.EVERYONE));
         
         log.info("Broadcasted system status: {} - {}", status, message);
     }
@@ -158,12 +170,12 @@ public class EventStreamService {
      */
     public Map<String, Object> getConnectionStats() {
         Map<String, Integer> connectionCounts = new ConcurrentHashMap<>();
-        connections.forEach((streamType, emitters) -> 
-            connectionCounts.put(streamType, emitters.size()));
+        broadcaster.getStreamTypes().forEach(streamType -> 
+            connectionCounts.put(streamType, broadcaster.getSubscriberCount(streamType)));
         
         return Map.of(
-            "totalConnections", connections.values().stream()
-                .mapToInt(CopyOnWriteArrayList::size).sum(),
+            "totalConnections", connectionCounts.values().stream()
+                .mapToInt(Integer::intValue).sum(),
             "connectionsByType", connectionCounts,
             "timestamp", LocalDateTime.now()
         );
@@ -173,66 +185,44 @@ public class EventStreamService {
      * Close all connections (admin function)
      */
     public void closeAllConnections() {
-        connections.forEach((streamType, emitters) -> {
-            emitters.forEach(emitter -> {
-                try {
-                    emitter.send(SseEmitter.event()
-                        .name("serverShutdown")
-                        .data(Map.of("message", "Server is shutting down")));
-                    emitter.complete();
-                } catch (IOException e) {
-                    log.warn("Error closing SSE connection", e);
-                }
-            });
-            emitters.clear();
-        });
+        broadcaster.closeAll(new SseFrame(null, "serverShutdown",
+            Map.of("message", "Server is shutting down"), null));
         
         log.info("All SSE connections closed");
     }
 
     // Private helper methods
 
-    private void broadcast(String streamType, String eventName, Object data) {
-        CopyOnWriteArrayList<SseEmitter> emitters = connections.get(streamType);
-        
-        if (emitters == null || emitters.isEmpty()) {
-            log.debug("No active connections for stream type: {}", streamType);
-            return;
-        }
-        
-        // Create list of failed emitters to remove
-        CopyOnWriteArrayList<SseEmitter> failedEmitters = new CopyOnWriteArrayList<>();
+    private void broadcast(String streamType, String eventName, Object data, String coalesceKey, FrameScope scope) {
+        frameBus.publish(new SseFrame(streamType, eventName, data, coalesceKey, scope));
         
-        emitters.forEach(emitter -> {
-            try {
-                emitter.send(SseEmitter.event()
-                    .name(eventName)
-                    .data(data));
-            } catch (IOException e) {
-                log.warn("Failed to send SSE message to client", e);
-                failedEmitters.add(emitter);
-            }
-        });
-        
-        // Remove failed connections
-        failedEmitters.forEach(emitter -> removeConnection(streamType, emitter));
-        
-        log.debug("Broadcasted {} to {} active connections in stream: {}", 
-                 eventName, emitters.size() - failedEmitters.size(), streamType);
+        log.debug("Queued {} for stream: {} ({} active connections)", 
+                 eventName, streamType, broadcaster.getSubscriberCount(streamType));
     }
 
-    private void removeConnection(String streamType, SseEmitter emitter) {
-        CopyOnWriteArrayList<SseEmitter> emitters = connections.get(streamType);
-        if (emitters != null) {
-            emitters.remove(emitter);
-            log.debug("Removed SSE connection from stream type: {} (remaining: {})", 
-                     streamType, emitters.size());
+    /**
+     * Alerts arrive as loose maps, so values that do not parse are left unscoped
+     */
+    private FrameScope alertScope(Map<String, Object> alert) {
+        return new FrameScope(
+            alert.get("area") instanceof String area ? area : null,
+            alert.get("latitude") instanceof Number latitude ? latitude.doubleValue() : null,
+            alert.get("longitude") instanceof Number longitude ? longitude.doubleValue() : null,
+            enumOrNull(CityEvent.EventCategory.class, alert.get("category")),
+            enumOrNull(CityEvent.EventSeverity.class, alert.get("severity")));
+    }
+
+    private static <E extends Enum<E>> E enumOrNull(Class<E> type, Object value) {
+        if (type.isInstance(value)) {
+            return type.cast(value);
         }
-        
-        try {
-            emitter.complete();
-        } catch (Exception e) {
-            log.debug("Error completing SSE emitter", e);
+        if (value instanceof String name) {
+            try {
+                return Enum.valueOf(type, name.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
         }
+        return null;
     }
 } 
\ No newline at end of file
@@ -2,7 +2,11 @@ package com.lemillion.city_data_overload_server.service;
 
 import com.google.api.core.ApiFuture;
 import com.google.cloud.firestore.*;
+import com.lemillion.city_data_overload_server.config.ResilienceScheduler;
 import com.lemillion.city_data_overload_server.model.CityEvent;
+import com.lemillion.city_data_overload_server.util.GeoHash;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.timelimiter.TimeLimiter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -12,6 +16,7 @@ import java.time.ZoneOffset;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -24,12 +29,20 @@ import java.util.stream.Collectors;
 public class FirestoreService {
 
     private final Firestore firestore;
+    private final CircuitBreaker firestoreCircuitBreaker;
+    private final TimeLimiter defaultTimeLimiter;
+    private final ResilienceScheduler resilienceScheduler;
     
     private static final String EVENTS_COLLECTION = "city_events";
     private static final String ACTIVE_EVENTS_COLLECTION = "active_events";
     private static final String PREDICTIONS_COLLECTION = "predictions";
     private static final String SENTIMENT_COLLECTION = "sentiment_data";
     private static final String ALERTS_COLLECTION = "active_alerts";
+    
+    private static final String GEOHASH_FIELD = "geohash";
+    private static final int GEOHASH_PAGE_SIZE = 200;
+    // Bounds the documents one cell costs per lookup, expired ones included
+    private static final int MAX_PAGES_PER_CELL = 5;
 
     /**
      * Store a city event with TTL in Firestore
@@ -45,7 +58,7 @@ public class FirestoreService {
             
             DocumentReference docRef = firestore.collection(EVENTS_COLLECTION).document(event.getId());
             
-            return toCompletableFuture(docRef.set(eventData))
+            return guardedCall(() -> docRef.set(eventData))
                 .thenApply(writeResult -> {
                     log.debug("Successfully stored event in Firestore: {}", event.getId());
                     return event.getId();
@@ -84,7 +97,7 @@ public class FirestoreService {
                 eventIds.add(event.getId());
             }
             
-            return toCompletableFuture(batch.commit())
+            return guardedCall(() -> batch.commit())
                 .thenApply(writeResults -> {
                     log.info("Successfully stored {} events in Firestore batch", events.size());
                     return eventIds;
@@ -101,50 +114,47 @@ public class FirestoreService {
     }
 
     /**
-     * Get events by location with radius filtering
+     * Get events by location with radius filtering.
+     * Runs one geohash prefix range query per cell covering the circle, paging
+     * through each cell so expired documents cannot use up a page and hide
+     * newer events. A cell stops once it has maxResults live matches or after
+     * MAX_PAGES_PER_CELL pages, so a lookup never reads a cell's whole retained
+     * history. Candidates are refined by exact distance.
      */
     public CompletableFuture<List<CityEvent>> getEventsByLocation(
             double latitude, double longitude, double radiusKm, int maxResults) {
         
         try {
-            // Create geohash bounds for efficient querying
             CollectionReference eventsRef = firestore.collection(EVENTS_COLLECTION);
+            Set<String> prefixes = GeoHash.coveringPrefixes(latitude, longitude, radiusKm);
+            Date now = new Date();
             
-            // Query with geographic constraints and time filtering
-            Query query = eventsRef
-                .whereGreaterThan("ttl", new Date()) // Only non-expired events
-                .orderBy("timestamp", Query.Direction.DESCENDING)
-                .limit(maxResults * 2); // Get more to filter by distance
+            List<CompletableFuture<List<CityEvent>>> cellQueries = prefixes.stream()
+                .map(prefix -> {
+                    Query cell = eventsRef
+                        .orderBy(GEOHASH_FIELD)
+                        .endAt(prefix + "\uf8ff")
+                        .limit(GEOHASH_PAGE_SIZE);
+                    return queryCell(cell, cell.startAt(prefix), latitude, longitude, radiusKm, maxResults,
+                        now, new ArrayList<>(), 1);
+                })
+                .collect(Collectors.toList());
             
-            return toCompletableFuture(query.get())
-                .thenApply(querySnapshot -> {
-                    List<CityEvent> events = new ArrayList<>();
-                    
-                    for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
-                        try {
-                            CityEvent event = convertFirestoreDocToEvent(doc);
-                            
-                            // Filter by distance
-                            if (event.getLocation() != null && 
-                                event.getLocation().getLatitude() != null &&
-                                event.getLocation().getLongitude() != null) {
-                                
-                                Double distance = event.getDistanceFrom(latitude, longitude);
-                                if (distance != null && distance <= radiusKm * 1000) {
-                                    events.add(event);
-                                }
-                            }
-                            
-                            if (events.size() >= maxResults) {
-                                break;
-                            }
-                            
-                        } catch (Exception e) {
-                            log.warn("Error converting document to event: {}", doc.getId(), e);
-                        }
+            return CompletableFuture.allOf(cellQueries.toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> {
+                    Map<String, CityEvent> candidates = new LinkedHashMap<>();
+                    for (CompletableFuture<List<CityEvent>> cellQuery : cellQueries) {
+                        cellQuery.join().forEach(event -> candidates.putIfAbsent(event.getId(), event));
                     }
                     
-                    log.debug("Retrieved {} events by location from Firestore", events.size());
+                    List<CityEvent> events = candidates.values().stream()
+                        .sorted(Comparator.comparing(CityEvent::getTimestamp,
+                            Comparator.nullsLast(Comparator.reverseOrder())))
+                        .limit(maxResults)
+                        .collect(Collectors.toList());
+                    
+                    log.debug("Retrieved {} events by location from Firestore across {} geohash cells", 
+                             events.size(), prefixes.size());
                     return events;
                 })
                 .exceptionally(throwable -> {
@@ -158,6 +168,52 @@ public class FirestoreService {
         }
     }
 
+    /**
+     * Read one geohash cell page by page, keeping the live events inside the
+     * circle, until it is exhausted, has maxResults matches or hits the page cap
+     */
+    private CompletableFuture<List<CityEvent>> queryCell(Query cell, Query page,
+                                                          double latitude, double longitude, double radiusKm,
+                                                          int maxResults, Date now, List<CityEvent> matches,
+                                                          int pagesRead) {
+        return guardedCall(page::get).thenCompose(snapshot -> {
+            List<QueryDocumentSnapshot> documents = snapshot.getDocuments();
+            for (DocumentSnapshot doc : documents) {
+                try {
+                    // Only non-expired events
+                    Date ttl = doc.getDate("ttl");
+                    if (ttl != null && !ttl.after(now)) {
+                        continue;
+                    }
+                    
+                    CityEvent event = convertFirestoreDocToEvent(doc);
+                    if (event == null) {
+                        continue;
+                    }
+                    
+                    // Refine by exact distance
+                    Double distance = event.getDistanceFrom(latitude, longitude);
+                    if (distance != null && distance <= radiusKm * 1000) {
+                        matches.add(event);
+                    }
+                    
+                } catch (Exception e) {
+                    log.warn("Error converting document to event: {}", doc.getId(), e);
+                }
+            }
+            
+            if (documents.size() < GEOHASH_PAGE_SIZE || matches.size() >= maxResults) {
+                return CompletableFuture.completedFuture(matches);
+            }
+            if (pagesRead >= MAX_PAGES_PER_CELL) {
+                log.debug("Geohash cell read capped at {} pages with {} matches", pagesRead, matches.size());
+                return CompletableFuture.completedFuture(matches);
+            }
+            return queryCell(cell, cell.startAfter(documents.get(documents.size() - 1)),
+                latitude, longitude, radiusKm, maxResults, now, matches, pagesRead + 1);
+        });
+    }
+
     /**
      * Get events by category and severity
      */
@@ -172,7 +228,7 @@ public class FirestoreService {
                 .orderBy("timestamp", Query.Direction.DESCENDING)
                 .limit(maxResults);
                 
-            return toCompletableFuture(query.get())
+            return guardedCall(() -> query.get())
                 .thenApply(querySnapshot -> {
                     List<CityEvent> events = querySnapshot.getDocuments().stream()
                         .map(this::convertFirestoreDocToEvent)
@@ -204,7 +260,7 @@ public class FirestoreService {
                 .orderBy("timestamp", Query.Direction.DESCENDING)
                 .limit(maxResults);
                 
-            return toCompletableFuture(query.get())
+            return guardedCall(() -> query.get())
                 .thenApply(querySnapshot -> {
                     List<CityEvent> events = querySnapshot.getDocuments().stream()
                         .map(this::convertFirestoreDocToEvent)
@@ -236,7 +292,7 @@ public class FirestoreService {
             String alertId = UUID.randomUUID().toString();
             DocumentReference docRef = firestore.collection(ALERTS_COLLECTION).document(alertId);
             
-            return toCompletableFuture(docRef.set(alertData))
+            return guardedCall(() -> docRef.set(alertData))
                 .thenApply(writeResult -> {
                     log.debug("Successfully stored alert in Firestore: {}", alertId);
                     return alertId;
@@ -263,7 +319,7 @@ public class FirestoreService {
                 .orderBy("createdAt", Query.Direction.DESCENDING)
                 .limit(10);
                 
-            return toCompletableFuture(query.get())
+            return guardedCall(() -> query.get())
                 .thenApply(querySnapshot -> {
                     List<Map<String, Object>> alerts = querySnapshot.getDocuments().stream()
                         .map(doc -> {
@@ -301,7 +357,7 @@ public class FirestoreService {
                 "updatedAt", new Date()
             );
             
-            return toCompletableFuture(docRef.update(updates))
+            return guardedCall(() -> docRef.update(updates))
                 .thenApply(writeResult -> {
                     log.debug("Successfully updated sentiment for event: {}", eventId);
                     return (Void) null;
@@ -339,7 +395,7 @@ public class FirestoreService {
                 .whereLessThan("ttl", new Date())
                 .limit(100);
                 
-            return toCompletableFuture(expiredQuery.get())
+            return guardedCall(() -> expiredQuery.get())
                 .thenCompose((QuerySnapshot querySnapshot) -> {
                     if (querySnapshot.isEmpty()) {
                         return CompletableFuture.completedFuture(0);
@@ -354,7 +410,7 @@ public class FirestoreService {
                     }
                     
                     final int finalDeleteCount = deleteCount;
-                    return toCompletableFuture(batch.commit())
+                    return guardedCall(() -> batch.commit())
                         .thenApply(writeResults -> {
                             log.info("Cleaned up {} expired events from Firestore", finalDeleteCount);
                             return finalDeleteCount;
@@ -374,7 +430,20 @@ public class FirestoreService {
     // Private helper methods
 
     /**
-     * Convert ApiFuture to CompletableFuture
+     * Start a Firestore operation behind the circuit breaker and time limiter.
+     * While the breaker is open the future fails at once with
+     * CallNotPermittedException, so callers fall back without waiting.
+     */
+    private <T> CompletableFuture<T> guardedCall(Supplier<ApiFuture<T>> operation) {
+        return CircuitBreaker.decorateCompletionStage(firestoreCircuitBreaker,
+                () -> defaultTimeLimiter.executeCompletionStage(resilienceScheduler.getExecutor(),
+                    () -> toCompletableFuture(operation.get())))
+            .get()
+            .toCompletableFuture();
+    }
+
+    /**
+     * Convert ApiFuture to CompletableFuture; cancelling the result cancels the RPC
      */
     private <T> CompletableFuture<T> toCompletableFuture(ApiFuture<T> apiFuture) {
         CompletableFuture<T> completableFuture = new CompletableFuture<>();
@@ -385,6 +454,11 @@ public class FirestoreService {
                 completableFuture.completeExceptionally(e);
             }
         }, Runnable::run);
+        completableFuture.whenComplete((result, throwable) -> {
+            if (completableFuture.isCancelled()) {
+                apiFuture.cancel(true);
+            }
+        });
         return completableFuture;
     }
 
@@ -421,6 +495,11 @@ public class FirestoreService {
             data.put("area", event.getLocation().getArea());
             data.put("pincode", event.getLocation().getPincode());
             data.put("landmark", event.getLocation().getLandmark());
+            
+            if (event.getLocation().getLatitude() != null && event.getLocation().getLongitude() != null) {
+                data.put(GEOHASH_FIELD, GeoHash.encode(event.getLocation().getLatitude(),
+                    event.getLocation().getLongitude(), GeoHash.STORAGE_PRECISION));
+            }
         }
         
         if (event.getTimestamp() != null) {
@@ -552,7 +631,7 @@ public class FirestoreService {
                     .orderBy("timestamp", Query.Direction.DESCENDING)
                     .limit(maxResults);
                 
-                QuerySnapshot querySnapshot = query.get().get();
+                QuerySnapshot querySnapshot = guardedCall(query::get).join();
                 
                 List<CityEvent> events = new ArrayList<>();
                 for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
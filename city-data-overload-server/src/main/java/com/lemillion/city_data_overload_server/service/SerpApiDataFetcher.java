@@ -28,9 +28,10 @@ import java.util.stream.Collectors;
 public class SerpApiDataFetcher {
 
     private final SerpApiConfig serpApiConfig;
-    private final FirestoreService firestoreService;
+    private final CachedEventService cachedEventService;
     private final VertexAiService vertexAiService;
-    private final BigQueryService bigQueryService;
+    private final BigQueryBatchWriter bigQueryBatchWriter;
+    private final EventDeduplicationService eventDeduplicationService;
     
     // Category-specific fetchers
     private final TrafficDataFetcher trafficDataFetcher;
@@ -119,20 +120,36 @@ public class SerpApiDataFetcher {
      * NEW: Process events through the complete AI pipeline for scheduler
      */
     public CompletableFuture<List<CityEvent>> processEventsWithAIPipeline(List<CityEvent> events, String location) {
+        return processEventsWithAIPipeline(events, location, AgentRequest.PRIORITY_BACKGROUND);
+    }
+
+    /**
+     * Process events through the AI pipeline with the given request priority,
+     * which decides the Vertex AI admission lane of every model call it makes
+     */
+    public CompletableFuture<List<CityEvent>> processEventsWithAIPipeline(List<CityEvent> events, String location,
+                                                                         int priority) {
         if (events.isEmpty()) {
             return CompletableFuture.completedFuture(events);
         }
 
-        log.info("Processing {} events through COMPLETE AI pipeline for location: {}", events.size(), location);
+        // Step 0: Drop near-duplicate articles, including ones seen by earlier runs
+        List<CityEvent> uniqueEvents = eventDeduplicationService.removeDuplicates(events);
+        if (uniqueEvents.isEmpty()) {
+            log.info("All {} events for location {} were duplicates, skipping AI pipeline", events.size(), location);
+            return CompletableFuture.completedFuture(uniqueEvents);
+        }
+
+        log.info("Processing {} events through COMPLETE AI pipeline for location: {}", uniqueEvents.size(), location);
 
         // Step 1: AggregatorAgent - Deduplicate and aggregate similar events
-        return callAggregatorAgent(events)
+        return callAggregatorAgent(uniqueEvents, priority)
             .thenCompose(aggregatedEvents -> {
                 log.info("Aggregation completed: {} → {} events for location: {}", 
-                        events.size(), aggregatedEvents.size(), location);
+                        uniqueEvents.size(), aggregatedEvents.size(), location);
                 
                 // Step 2: AnalyzerAgent - Analyze, enhance, and store in both systems
-                return callAnalyzerAgent(aggregatedEvents);
+                return callAnalyzerAgent(aggregatedEvents, priority);
             })
             .thenApply(analyzedEvents -> {
                 log.info("Complete pipeline finished for location: {} - {} events processed", 
@@ -142,18 +159,19 @@ public class SerpApiDataFetcher {
             .exceptionally(throwable -> {
                 log.error("Error in complete AI pipeline for location: {}, falling back to basic processing", 
                         location, throwable);
-                return performFallbackProcessing(events);
+                return performFallbackProcessing(uniqueEvents);
             });
     }
 
     /**
      * Call AggregatorAgent properly
      */
-    private CompletableFuture<List<CityEvent>> callAggregatorAgent(List<CityEvent> events) {
+    private CompletableFuture<List<CityEvent>> callAggregatorAgent(List<CityEvent> events, int priority) {
         AgentRequest aggregatorRequest = AgentRequest.builder()
             .requestId("agg_" + System.currentTimeMillis())
             .requestType("AGGREGATE_EVENTS")
             .timestamp(LocalDateTime.now())
+            .priority(priority)
             .parameters(Map.of("events", events))
             .build();
 
@@ -172,11 +190,12 @@ public class SerpApiDataFetcher {
     /**
      * Call AnalyzerAgent properly - includes dual storage
      */
-    private CompletableFuture<List<CityEvent>> callAnalyzerAgent(List<CityEvent> events) {
+    private CompletableFuture<List<CityEvent>> callAnalyzerAgent(List<CityEvent> events, int priority) {
         AgentRequest analyzerRequest = AgentRequest.builder()
             .requestId("ana_" + System.currentTimeMillis())
             .requestType("ANALYZE_EVENTS")
             .timestamp(LocalDateTime.now())
+            .priority(priority)
             .parameters(Map.of("events", events))
             .build();
 
@@ -232,7 +251,7 @@ public class SerpApiDataFetcher {
     private void storeToBothSystems(CityEvent event) {
         try {
             // Store to Firestore
-            firestoreService.storeCityEvent(event)
+            cachedEventService.storeCityEvent(event)
                 .thenRun(() -> log.debug("Stored event {} to Firestore", event.getId()))
                 .exceptionally(throwable -> {
                     log.error("Failed to store event {} to Firestore", event.getId(), throwable);
@@ -240,14 +259,12 @@ public class SerpApiDataFetcher {
                 });
             
             // Store to BigQuery
-            CompletableFuture.runAsync(() -> {
-                try {
-                    bigQueryService.storeCityEvent(event);
-                    log.debug("Stored event {} to BigQuery", event.getId());
-                } catch (Exception e) {
-                    log.error("Failed to store event {} to BigQuery", event.getId(), e);
-                }
-            });
+            bigQueryBatchWriter.submit(event)
+                .thenRun(() -> log.debug("Stored event {} to BigQuery", event.getId()))
+                .exceptionally(throwable -> {
+                    log.error("Failed to store event {} to BigQuery", event.getId(), throwable);
+                    return null;
+                });
             
         } catch (Exception e) {
             log.error("Error in dual storage for event {}", event.getId(), e);
@@ -337,6 +337,8 @@ public class SerpApiSchedulerService {
                 }
                 
                 // Step 2-5: Follow the complete pipeline: AggregatorAgent → AnalyzerAgent → Firestore + BigQuery
+                // Scheduled bulk batches are background work even when they include emergencies,
+                // so they cannot crowd out a genuine emergency classification
                 return serpApiDataFetcher.processEventsWithAIPipeline(rawEvents, location.getFormattedLocation());
             })
             .thenAccept(processedEvents -> {
@@ -0,0 +1,322 @@
+package com.lemillion.city_data_overload_server.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Admission controller and dedicated worker pool for blocking Vertex AI calls.
+ * Calls wait in one bounded queue per priority lane and are started, most
+ * urgent lane first, by a fixed set of workers that share a token-bucket rate
+ * limit. When the queue is full, the newest call of a lower lane is shed to
+ * admit higher-priority work. Keeps slow model calls off the common ForkJoin
+ * pool, and is not exposed as an Executor bean on purpose, so it never becomes
+ * Spring's default async executor.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class VertexAiExecutor {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${gcp.vertex-ai.executor.pool-size:16}")
+    private int poolSize;
+
+    @Value("${gcp.vertex-ai.executor.queue-capacity:200}")
+    private int queueCapacity;
+
+    /**
+     * Sustained call rate across all lanes; zero or less disables rate limiting
+     */
+    @Value("${gcp.vertex-ai.executor.rate-per-second:10}")
+    private double ratePerSecond;
+
+    @Value("${gcp.vertex-ai.executor.burst:20}")
+    private int burst;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition workAvailable = lock.newCondition();
+    private final Map<VertexAiPriority, Deque<Task<?>>> lanes = new EnumMap<>(VertexAiPriority.class);
+    private final List<Thread> workers = new ArrayList<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    // Guarded by lock
+    private int waiting;
+    private double tokens;
+    private long lastRefillNanos;
+    private boolean running;
+
+    private Timer callTimer;
+
+    @PostConstruct
+    public void start() {
+        for (VertexAiPriority priority : VertexAiPriority.values()) {
+            lanes.put(priority, new ArrayDeque<>());
+            Gauge.builder("vertexai.executor.queue.depth", () -> laneDepth(priority))
+                .description("Vertex AI calls waiting for a worker thread")
+                .tag("lane", priority.name())
+                .register(meterRegistry);
+        }
+        Gauge.builder("vertexai.executor.in.flight", inFlight, AtomicInteger::get)
+            .description("Vertex AI calls currently executing")
+            .register(meterRegistry);
+        callTimer = Timer.builder("vertexai.executor.call.latency")
+            .description("Time spent executing a Vertex AI call")
+            .register(meterRegistry);
+
+        tokens = burst;
+        lastRefillNanos = System.nanoTime();
+        running = true;
+        for (int i = 1; i <= poolSize; i++) {
+            Thread worker = new Thread(this::workLoop, "vertex-ai-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+
+        log.info("Vertex AI executor started (threads: {}, queue capacity: {}, rate: {}/s, burst: {})",
+            poolSize, queueCapacity, ratePerSecond, burst);
+    }
+
+    /**
+     * Run a blocking Vertex AI call in the interactive lane
+     */
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> call) {
+        return supplyAsync(VertexAiPriority.INTERACTIVE, call);
+    }
+
+    /**
+     * Run a blocking Vertex AI call in the given lane. When the queue is full
+     * and no lower-priority call can be shed, the returned future fails with a
+     * RejectedExecutionException; a shed call's future fails the same way.
+     */
+    public <T> CompletableFuture<T> supplyAsync(VertexAiPriority priority, Supplier<T> call) {
+        Task<T> task = new Task<>(priority, call, new CompletableFuture<>(), System.nanoTime());
+        Task<?> shed = null;
+
+        lock.lock();
+        try {
+            if (!running) {
+                return CompletableFuture.failedFuture(new RejectedExecutionException("Vertex AI executor is shut down"));
+            }
+            if (waiting >= queueCapacity) {
+                shed = pollNewestBelow(priority);
+                if (shed == null) {
+                    countRejected(priority, "queue_full");
+                    log.warn("Vertex AI executor saturated, rejecting {} call (queue depth: {})", priority, waiting);
+                    return CompletableFuture.failedFuture(new RejectedExecutionException(
+                        "Vertex AI queue is full"));
+                }
+            } else {
+                waiting++;
+            }
+            lanes.get(priority).addLast(task);
+            workAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        if (shed != null) {
+            countRejected(shed.priority(), "shed");
+            log.warn("Vertex AI executor saturated, shedding queued {} call to admit {} call",
+                shed.priority(), priority);
+            shed.future().completeExceptionally(new RejectedExecutionException(
+                "Shed to admit higher-priority Vertex AI work"));
+        }
+        return task.future();
+    }
+
+    /**
+     * Current number of calls waiting for a worker thread
+     */
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Current number of executing calls
+     */
+    public int getInFlightCount() {
+        return inFlight.get();
+    }
+
+    private void workLoop() {
+        while (true) {
+            Task<?> task;
+            try {
+                task = nextTask();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (task == null) {
+                return;
+            }
+            execute(task);
+        }
+    }
+
+    /**
+     * Block until there is queued work and a rate-limit token, then take the
+     * most urgent call. Returns null once the executor is stopped.
+     */
+    private Task<?> nextTask() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (running) {
+                if (waiting == 0) {
+                    workAvailable.await();
+                    continue;
+                }
+                long delayNanos = acquireToken();
+                if (delayNanos == 0) {
+                    waiting--;
+                    return pollMostUrgent();
+                }
+                workAvailable.awaitNanos(delayNanos);
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private <T> void execute(Task<T> task) {
+        if (task.future().isDone()) {
+            return;
+        }
+
+        meterRegistry.timer("vertexai.executor.queue.wait", "lane", task.priority().name())
+            .record(System.nanoTime() - task.enqueuedNanos(), TimeUnit.NANOSECONDS);
+        inFlight.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            task.future().complete(task.call().get());
+        } catch (Throwable t) {
+            task.future().completeExceptionally(t);
+        } finally {
+            callTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Take a token if one is available and return 0, otherwise return the
+     * nanoseconds until the next one. Must hold the lock.
+     */
+    private long acquireToken() {
+        if (ratePerSecond <= 0) {
+            return 0;
+        }
+
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - lastRefillNanos) * ratePerSecond / 1_000_000_000.0);
+        lastRefillNanos = now;
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil((1 - tokens) * 1_000_000_000.0 / ratePerSecond));
+    }
+
+    /**
+     * Must hold the lock
+     */
+    private Task<?> pollMostUrgent() {
+        for (Deque<Task<?>> lane : lanes.values()) {
+            Task<?> task = lane.pollFirst();
+            if (task != null) {
+                return task;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Remove the most recently queued call from the least urgent lane below
+     * the given priority. Must hold the lock.
+     */
+    private Task<?> pollNewestBelow(VertexAiPriority priority) {
+        VertexAiPriority[] priorities = VertexAiPriority.values();
+        for (int i = priorities.length - 1; i > priority.ordinal(); i--) {
+            Task<?> task = lanes.get(priorities[i]).pollLast();
+            if (task != null) {
+                return task;
+            }
+        }
+        return null;
+    }
+
+    private int laneDepth(VertexAiPriority priority) {
+        lock.lock();
+        try {
+            return lanes.get(priority).size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void countRejected(VertexAiPriority priority, String reason) {
+        meterRegistry.counter("vertexai.executor.rejected", "lane", priority.name(), "reason", reason).increment();
+    }
+
+    @PreDestroy
+    public void stop() {
+        List<Task<?>> abandoned = new ArrayList<>();
+        lock.lock();
+        try {
+            running = false;
+            lanes.values().forEach(lane -> {
+                abandoned.addAll(lane);
+                lane.clear();
+            });
+            waiting = 0;
+            workAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        abandoned.forEach(task -> task.future().completeExceptionally(
+            new RejectedExecutionException("Vertex AI executor is shut down")));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        for (Thread worker : workers) {
+            try {
+                worker.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        workers.stream().filter(Thread::isAlive).forEach(Thread::interrupt);
+    }
+
+    private record Task<T>(VertexAiPriority priority, Supplier<T> call, CompletableFuture<T> future,
+                           long enqueuedNanos) {
+    }
+}
@@ -0,0 +1,27 @@
+package com.lemillion.city_data_overload_server.service;
+
+import com.lemillion.city_data_overload_server.agent.AgentRequest;
+
+/**
+ * Admission lanes for Vertex AI calls, most urgent first.
+ * When the wait queue is full, work in a lower lane is shed to make room.
+ */
+public enum VertexAiPriority {
+    EMERGENCY,
+    INTERACTIVE,
+    BACKGROUND;
+
+    /**
+     * Lane for a request's priority; requests without one are treated as interactive
+     */
+    public static VertexAiPriority of(AgentRequest request) {
+        if (request == null || request.getPriority() == null) {
+            return INTERACTIVE;
+        }
+        int priority = request.getPriority();
+        if (priority <= AgentRequest.PRIORITY_EMERGENCY) {
+            return EMERGENCY;
+        }
+        return priority >= AgentRequest.PRIORITY_BACKGROUND ? BACKGROUND : INTERACTIVE;
+    }
+}
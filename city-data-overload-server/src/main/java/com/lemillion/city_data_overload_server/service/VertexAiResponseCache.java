@@ -0,0 +1,198 @@
+package com.lemillion.city_data_overload_server.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.lemillion.city_data_overload_server.cache.RequestCoalescer;
+import com.lemillion.city_data_overload_server.config.VertexAiCacheConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Cache of Vertex AI responses keyed by model, prompt type and a SHA-256 of
+ * the normalized input, so identical inputs never pay for a second model call.
+ * Bounded in memory with a TTL per prompt type, optionally backed by Redis;
+ * concurrent identical calls share one in-flight request.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class VertexAiResponseCache {
+
+    private final VertexAiCacheConfig config;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RequestCoalescer requestCoalescer;
+    private final MeterRegistry meterRegistry;
+
+    private Cache<String, CachedResponse> responses;
+
+    @PostConstruct
+    public void initialize() {
+        responses = Caffeine.newBuilder()
+            .maximumSize(config.getMaximumSize())
+            .expireAfter(new Expiry<String, CachedResponse>() {
+                @Override
+                public long expireAfterCreate(String key, CachedResponse value, long currentTime) {
+                    return config.ttlFor(value.getPromptType()).toNanos();
+                }
+
+                @Override
+                public long expireAfterUpdate(String key, CachedResponse value, long currentTime,
+                                              long currentDuration) {
+                    return config.ttlFor(value.getPromptType()).toNanos();
+                }
+
+                @Override
+                public long expireAfterRead(String key, CachedResponse value, long currentTime,
+                                            long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, responses, "vertexai.responses");
+    }
+
+    /**
+     * Return the cached response for this input, or run the call once and
+     * cache its result. Failed calls are not cached. Concurrent callers only
+     * share an in-flight call within the same priority lane, so an emergency
+     * caller never waits on a background load that may be shed.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> get(String model, String promptType, String input, VertexAiPriority priority,
+                                        Supplier<CompletableFuture<T>> call) {
+        if (!config.isEnabled()) {
+            return call.get();
+        }
+
+        String key = cacheKey(model, promptType, input);
+        CachedResponse cached = lookup(key);
+        if (cached != null) {
+            recordHit(promptType, cached);
+            return CompletableFuture.completedFuture((T) cached.getValue());
+        }
+
+        meterRegistry.counter("vertexai.response.cache.requests", "type", promptType, "result", "miss").increment();
+        return requestCoalescer.execute("vertexai", key + "#" + priority.name(), () -> {
+            long start = System.nanoTime();
+            return call.get().thenApply(value -> {
+                if (value == null) {
+                    return null;
+                }
+                // Every caller gets the same instance from now on, so none of them may change it
+                T snapshot = immutableCopy(value);
+                store(key, new CachedResponse(promptType, snapshot, System.nanoTime() - start));
+                return snapshot;
+            });
+        });
+    }
+
+    private CachedResponse lookup(String key) {
+        CachedResponse cached = responses.getIfPresent(key);
+        if (cached != null || !config.isRedisEnabled()) {
+            return cached;
+        }
+
+        try {
+            if (redisTemplate.opsForValue().get(config.getRedisKeyPrefix() + key) instanceof CachedResponse shared) {
+                shared.setValue(immutableCopy(shared.getValue()));
+                responses.put(key, shared);
+                return shared;
+            }
+        } catch (Exception e) {
+            log.debug("Vertex AI response cache Redis lookup failed: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    private void store(String key, CachedResponse response) {
+        responses.put(key, response);
+        if (!config.isRedisEnabled()) {
+            return;
+        }
+
+        try {
+            redisTemplate.opsForValue().set(config.getRedisKeyPrefix() + key, response,
+                config.ttlFor(response.getPromptType()));
+        } catch (Exception e) {
+            log.debug("Vertex AI response cache Redis write failed: {}", e.getMessage());
+        }
+    }
+
+    private void recordHit(String promptType, CachedResponse cached) {
+        meterRegistry.counter("vertexai.response.cache.requests", "type", promptType, "result", "hit").increment();
+        // The latency the original call took is what this hit saved
+        meterRegistry.timer("vertexai.response.cache.saved.latency", "type", promptType)
+            .record(cached.getLatencyNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Unmodifiable copy of map and list results; HashMap-based copies because
+     * model answers may hold null values
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T immutableCopy(T value) {
+        if (value instanceof Map<?, ?> map) {
+            return (T) Collections.unmodifiableMap(new LinkedHashMap<>(map));
+        }
+        if (value instanceof List<?> list) {
+            return (T) Collections.unmodifiableList(new ArrayList<>(list));
+        }
+        return value;
+    }
+
+    private static String cacheKey(String model, String promptType, String input) {
+        return model + ":" + promptType + ":" + sha256(normalize(input));
+    }
+
+    /**
+     * Collapse whitespace so formatting-only differences share an entry
+     */
+    private static String normalize(String input) {
+        return input == null ? "" : input.strip().replaceAll("\\s+", " ");
+    }
+
+    private static String sha256(String input) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(input.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Cached value with the prompt type that decides its TTL and the latency
+     * of the call that produced it
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class CachedResponse {
+        private String promptType;
+        private Object value;
+        private long latencyNanos;
+    }
+}
@@ -1,13 +1,23 @@
 package com.lemillion.city_data_overload_server.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.cloud.vertexai.VertexAI;
 import com.google.cloud.vertexai.api.GenerateContentRequest;
 import com.google.cloud.vertexai.api.GenerateContentResponse;
+import com.google.cloud.vertexai.api.GenerationConfig;
 import com.google.cloud.vertexai.api.Part;
 import com.google.cloud.vertexai.api.Content;
 import com.google.cloud.vertexai.generativeai.GenerativeModel;
 import com.google.cloud.vertexai.generativeai.ResponseHandler;
+import com.lemillion.city_data_overload_server.agent.Deadline;
+import com.lemillion.city_data_overload_server.agent.DeadlineExceededException;
+import com.lemillion.city_data_overload_server.config.ResilienceScheduler;
+import com.lemillion.city_data_overload_server.model.AreaSentimentAggregate;
 import com.lemillion.city_data_overload_server.model.CityEvent;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.timelimiter.TimeLimiter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -15,6 +25,13 @@ import org.springframework.stereotype.Service;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -28,6 +45,17 @@ import java.util.regex.Pattern;
 public class VertexAiService {
 
     private final VertexAI vertexAI;
+    private final VertexAiExecutor vertexAiExecutor;
+    private final VertexAiResponseCache responseCache;
+    private final ObjectMapper objectMapper;
+    private final CircuitBreaker vertexAiCircuitBreaker;
+    private final Retry vertexAiRetry;
+    private final TimeLimiter aiTimeLimiter;
+    private final TimeLimiter interactiveAiTimeLimiter;
+    private final ResilienceScheduler resilienceScheduler;
+    
+    // Models hold no per-request state, so one instance per name and config is reused
+    private final ConcurrentMap<ModelKey, GenerativeModel> models = new ConcurrentHashMap<>();
     
     @Value("${gcp.vertex-ai.text-model-name:gemini-1.5-pro}")
     private String textModelName;
@@ -35,13 +63,34 @@ public class VertexAiService {
     @Value("${gcp.vertex-ai.vision-model-name:gemini-1.5-pro}")
     private String visionModelName;
 
+    private static final GenerationConfig JSON_RESPONSE_CONFIG = GenerationConfig.newBuilder()
+        .setResponseMimeType("application/json")
+        .build();
+    
+    // Keeps a single event from dominating a batched prompt
+    private static final int MAX_BATCH_EVENT_CHARS = 1500;
+
     /**
      * Analyze and synthesize multiple related events into a single summary
      */
     public CompletableFuture<String> synthesizeEvents(List<CityEvent> events, String context) {
-        return CompletableFuture.supplyAsync(() -> {
+        return synthesizeEvents(events, context, VertexAiPriority.INTERACTIVE);
+    }
+
+    public CompletableFuture<String> synthesizeEvents(List<CityEvent> events, String context,
+                                                      VertexAiPriority priority) {
+        return synthesizeEvents(events, context, priority, Deadline.NONE);
+    }
+
+    /**
+     * Synthesize within the request's deadline; the call is dropped from the
+     * queue, or its result abandoned, once the deadline passes
+     */
+    public CompletableFuture<String> synthesizeEvents(List<CityEvent> events, String context,
+                                                      VertexAiPriority priority, Deadline deadline) {
+        return guardedCall(priority, deadline, () -> {
             try {
-                GenerativeModel model = new GenerativeModel(textModelName, vertexAI);
+                GenerativeModel model = model(textModelName);
                 
                 StringBuilder eventsContext = new StringBuilder();
                 eventsContext.append("Context: ").append(context).append("\n\n");
@@ -91,13 +140,92 @@ public class VertexAiService {
         });
     }
 
+    /**
+     * Generate a chat answer with the streaming API, handing each text chunk to
+     * onChunk as soon as it arrives. Completes with the full text. Goes through
+     * the circuit breaker, time limiter and deadline but is never retried, since
+     * chunks already sent cannot be taken back. Reading stops early when the
+     * returned future is completed or onChunk throws ChatStreamClosedException
+     * because the client left; either way the call completes normally with the
+     * text read so far, so a departed client never counts as a model failure.
+     */
+    public CompletableFuture<String> streamChatResponse(String prompt, VertexAiPriority priority,
+                                                        Deadline deadline, Consumer<String> onChunk) {
+        if (deadline.isExpired()) {
+            return CompletableFuture.failedFuture(new DeadlineExceededException());
+        }
+
+        CompletableFuture<String> result = new CompletableFuture<>();
+        CircuitBreaker.decorateCompletionStage(vertexAiCircuitBreaker,
+                () -> aiTimeLimiter.executeCompletionStage(resilienceScheduler.getExecutor(),
+                    () -> deadline.bound(vertexAiExecutor.supplyAsync(priority,
+                        () -> readChatStream(prompt, onChunk, result::isDone)))))
+            .get()
+            .whenComplete((text, error) -> {
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(text);
+                }
+            });
+        return deadline.bound(result);
+    }
+
+    private String readChatStream(String prompt, Consumer<String> onChunk, BooleanSupplier stopped) {
+        try {
+            Content content = Content.newBuilder()
+                .setRole("user")
+                .addParts(Part.newBuilder().setText(prompt).build())
+                .build();
+
+            StringBuilder text = new StringBuilder();
+            for (GenerateContentResponse chunk : model(textModelName).generateContentStream(content)) {
+                if (stopped.getAsBoolean()) {
+                    log.debug("Chat stream abandoned after {} characters", text.length());
+                    break;
+                }
+                String chunkText = chunkText(chunk);
+                if (!chunkText.isEmpty()) {
+                    text.append(chunkText);
+                    try {
+                        onChunk.accept(chunkText);
+                    } catch (ChatStreamClosedException e) {
+                        log.debug("Chat stream closed by client after {} characters", text.length());
+                        break;
+                    }
+                }
+            }
+            return text.toString();
+
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Text of a streamed chunk; unlike ResponseHandler.getText, a chunk carrying
+     * only a finish reason or safety ratings yields an empty string
+     */
+    private static String chunkText(GenerateContentResponse chunk) {
+        if (chunk.getCandidatesCount() == 0) {
+            return "";
+        }
+        StringBuilder text = new StringBuilder();
+        chunk.getCandidates(0).getContent().getPartsList().forEach(part -> text.append(part.getText()));
+        return text.toString();
+    }
+
     /**
      * Analyze sentiment of text content
      */
     public CompletableFuture<CityEvent.SentimentData> analyzeSentiment(String text) {
-        return CompletableFuture.supplyAsync(() -> {
+        return analyzeSentiment(text, VertexAiPriority.INTERACTIVE);
+    }
+
+    public CompletableFuture<CityEvent.SentimentData> analyzeSentiment(String text, VertexAiPriority priority) {
+        return responseCache.get(textModelName, "sentiment", text, priority, () -> guardedCall(priority, () -> {
             try {
-                GenerativeModel model = new GenerativeModel(textModelName, vertexAI);
+                GenerativeModel model = model(textModelName);
                 
                 String prompt = String.format("""
                     Analyze the sentiment of the following text about a city event in Bengaluru:
@@ -125,18 +253,20 @@ public class VertexAiService {
                     .build();
                 
                 GenerateContentResponse response = model.generateContent(content);
-                String analysisResult = ResponseHandler.getText(response).trim();
-                
-                return parseSentimentResponse(analysisResult);
+                return ResponseHandler.getText(response).trim();
                 
             } catch (Exception e) {
-                log.error("Error analyzing sentiment with Vertex AI", e);
-                return CityEvent.SentimentData.builder()
-                    .type(CityEvent.SentimentType.NEUTRAL)
-                    .score(0.0)
-                    .confidence(0.0)
-                    .build();
+                throw new CompletionException(e);
             }
+        // Parsed outside the breaker, so a malformed answer fails this call without counting against the model
+        }).thenApply(this::parseSentimentResponse)).exceptionally(throwable -> {
+            // Resolved outside the cache so a failed call is retried next time
+            log.error("Error analyzing sentiment with Vertex AI", throwable);
+            return CityEvent.SentimentData.builder()
+                .type(CityEvent.SentimentType.NEUTRAL)
+                .score(0.0)
+                .confidence(0.0)
+                .build();
         });
     }
 
@@ -144,9 +274,47 @@ public class VertexAiService {
      * Categorize and extract key information from raw event text
      */
     public CompletableFuture<Map<String, Object>> categorizeEvent(String rawText, String source) {
-        return CompletableFuture.supplyAsync(() -> {
+        return categorizeEvent(rawText, source, VertexAiPriority.INTERACTIVE);
+    }
+
+    public CompletableFuture<Map<String, Object>> categorizeEvent(String rawText, String source,
+                                                                  VertexAiPriority priority) {
+        return categorizeEvent(rawText, source, priority, Deadline.NONE);
+    }
+
+    public CompletableFuture<Map<String, Object>> categorizeEvent(String rawText, String source,
+                                                                  VertexAiPriority priority, Deadline deadline) {
+        String cacheInput = source + "\n" + rawText;
+        // The load may be shared with other callers, so it runs unbounded and each caller's
+        // deadline only fails that caller's own copy of the result
+        CompletableFuture<Map<String, Object>> result = deadline.isExpired()
+            ? CompletableFuture.failedFuture(new DeadlineExceededException())
+            : deadline.bound(responseCache.get(textModelName, "categorize", cacheInput, priority,
+                () -> categorizeEventCall(rawText, source, priority, Deadline.NONE)).copy());
+        return result.exceptionally(throwable -> {
+            log.error("Error categorizing event with Vertex AI", throwable);
+            return Map.of(
+                "category", "COMMUNITY",
+                "severity", "LOW",
+                "confidence", 0.0
+            );
+        });
+    }
+
+    /**
+     * Categorize without the response cache or fallback, for health probes
+     * whose fixed input would otherwise always be answered from the cache
+     */
+    public CompletableFuture<Map<String, Object>> categorizeEventUncached(String rawText, String source,
+                                                                          VertexAiPriority priority) {
+        return categorizeEventCall(rawText, source, priority, Deadline.NONE);
+    }
+
+    private CompletableFuture<Map<String, Object>> categorizeEventCall(String rawText, String source,
+                                                                       VertexAiPriority priority, Deadline deadline) {
+        return guardedCall(priority, deadline, () -> {
             try {
-                GenerativeModel model = new GenerativeModel(textModelName, vertexAI);
+                GenerativeModel model = model(textModelName);
                 
                 String prompt = String.format("""
                     Analyze this Bengaluru city-related content from %s and extract key information:
@@ -178,18 +346,84 @@ public class VertexAiService {
                     .build();
                 
                 GenerateContentResponse response = model.generateContent(content);
-                String analysisResult = ResponseHandler.getText(response).trim();
+                return ResponseHandler.getText(response).trim();
+                
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }).thenApply(this::parseEventAnalysisResponse);
+    }
+
+    /**
+     * Enrich several events with one structured prompt.
+     * Returns the parsed enrichment per position in the input list; events whose
+     * entry is missing or invalid are left out so callers can fall back to
+     * per-event analysis for just those.
+     */
+    public CompletableFuture<Map<Integer, Map<String, Object>>> enrichEventsBatch(List<CityEvent> events,
+                                                                                  VertexAiPriority priority) {
+        if (events.isEmpty()) {
+            return CompletableFuture.completedFuture(Map.of());
+        }
+        
+        return guardedCall(priority, () -> {
+            try {
+                GenerativeModel model = model(textModelName, JSON_RESPONSE_CONFIG);
                 
-                return parseEventAnalysisResponse(analysisResult);
+                StringBuilder eventsText = new StringBuilder();
+                for (int i = 0; i < events.size(); i++) {
+                    CityEvent event = events.get(i);
+                    eventsText.append(String.format("Event %d:\n", i));
+                    eventsText.append("Source: ").append(event.getSource() != null ? event.getSource() : "UNKNOWN").append("\n");
+                    eventsText.append("Text: ").append(truncate(buildEventText(event), MAX_BATCH_EVENT_CHARS)).append("\n");
+                    eventsText.append("Known location: ").append(formatLocation(event.getLocation())).append("\n\n");
+                }
+                
+                String prompt = String.format("""
+                    Analyze each of these %d Bengaluru city events independently:
+                    
+                    %s
+                    Respond with a JSON array containing exactly one object per event, in this format:
+                    [
+                        {
+                            "index": <event number as given above>,
+                            "category": "TRAFFIC|CIVIC_ISSUE|CULTURAL_EVENT|EMERGENCY|INFRASTRUCTURE|WEATHER|PUBLIC_TRANSPORT|SAFETY|ENVIRONMENT|COMMUNITY",
+                            "severity": "LOW|MODERATE|HIGH|CRITICAL",
+                            "title": "<concise title>",
+                            "summary": "<brief summary>",
+                            "keywords": ["<keyword1>", "<keyword2>", ...],
+                            "sentiment": {
+                                "type": "POSITIVE|NEGATIVE|NEUTRAL|MIXED",
+                                "score": <number between -1.0 and 1.0>,
+                                "confidence": <number between 0.0 and 1.0>
+                            },
+                            "location": {
+                                "area": "<area name if mentioned>",
+                                "landmark": "<landmark if mentioned>",
+                                "address": "<address if mentioned>"
+                            },
+                            "confidence": <0.0 to 1.0>
+                        }
+                    ]
+                    
+                    Focus on Bengaluru-specific locations, areas, and landmarks.
+                    Only respond with the JSON array, no additional text.
+                    """, events.size(), eventsText);
+                
+                Content content = Content.newBuilder()
+                    .setRole("user")
+                    .addParts(Part.newBuilder().setText(prompt).build())
+                    .build();
+                
+                GenerateContentResponse response = model.generateContent(content);
+                return parseBatchEnrichmentResponse(ResponseHandler.getText(response).trim(), events.size());
                 
             } catch (Exception e) {
-                log.error("Error categorizing event with Vertex AI", e);
-                return Map.of(
-                    "category", "COMMUNITY",
-                    "severity", "LOW",
-                    "confidence", 0.0
-                );
+                throw new CompletionException(e);
             }
+        }).exceptionally(throwable -> {
+            log.error("Error enriching batch of {} events with Vertex AI", events.size(), throwable);
+            return Map.of();
         });
     }
 
@@ -198,9 +432,9 @@ public class VertexAiService {
      * This function can analyze any sentence and predict severity with high accuracy
      */
     public CompletableFuture<CityEvent.EventSeverity> predictSeverityIntelligently(String description, String category, String location) {
-        return CompletableFuture.supplyAsync(() -> {
+        return guardedCall(VertexAiPriority.INTERACTIVE, () -> {
             try {
-                GenerativeModel model = new GenerativeModel(textModelName, vertexAI);
+                GenerativeModel model = model(textModelName);
                 
                 String prompt = String.format("""
                     You are an expert emergency response AI for Bengaluru city. Analyze this report and determine its severity level.
@@ -261,10 +495,12 @@ public class VertexAiService {
                 }
                 
             } catch (Exception e) {
-                log.error("Error predicting severity with AI", e);
-                // Fallback to basic keyword analysis
-                return fallbackSeverityAnalysis(description);
+                throw new CompletionException(e);
             }
+        }).exceptionally(throwable -> {
+            log.error("Error predicting severity with AI", throwable);
+            // Fallback to basic keyword analysis
+            return fallbackSeverityAnalysis(description);
         });
     }
     
@@ -298,9 +534,14 @@ public class VertexAiService {
      * Analyze image content for city events
      */
     public CompletableFuture<Map<String, Object>> analyzeImage(String imageUrl, String additionalContext) {
-        return CompletableFuture.supplyAsync(() -> {
+        return analyzeImage(imageUrl, additionalContext, VertexAiPriority.INTERACTIVE);
+    }
+
+    public CompletableFuture<Map<String, Object>> analyzeImage(String imageUrl, String additionalContext,
+                                                               VertexAiPriority priority) {
+        return guardedCall(priority, () -> {
             try {
-                GenerativeModel model = new GenerativeModel(visionModelName, vertexAI);
+                GenerativeModel model = model(visionModelName);
                 
                 String prompt = String.format("""
                     Analyze this image related to a Bengaluru city event.
@@ -340,14 +581,16 @@ public class VertexAiService {
                 return parseImageAnalysisResponse(analysisResult);
                 
             } catch (Exception e) {
-                log.error("Error analyzing image with Vertex AI", e);
-                return Map.of(
-                    "description", "Image analysis failed",
-                    "category", "COMMUNITY",
-                    "severity", "LOW",
-                    "confidence", 0.0
-                );
+                throw new CompletionException(e);
             }
+        }).exceptionally(throwable -> {
+            log.error("Error analyzing image with Vertex AI", throwable);
+            return Map.of(
+                "description", "Image analysis failed",
+                "category", "COMMUNITY",
+                "severity", "LOW",
+                "confidence", 0.0
+            );
         });
     }
 
@@ -357,9 +600,9 @@ public class VertexAiService {
     public CompletableFuture<List<Map<String, Object>>> generatePredictiveInsights(
             List<Map<String, Object>> patterns, String area) {
         
-        return CompletableFuture.supplyAsync(() -> {
+        return guardedCall(VertexAiPriority.INTERACTIVE, () -> {
             try {
-                GenerativeModel model = new GenerativeModel(textModelName, vertexAI);
+                GenerativeModel model = model(textModelName);
                 
                 StringBuilder patternsContext = new StringBuilder();
                 patternsContext.append("Historical patterns for ").append(area).append(":\n");
@@ -405,40 +648,36 @@ public class VertexAiService {
                 return parsePredictiveInsightsResponse(analysisResult);
                 
             } catch (Exception e) {
-                log.error("Error generating predictive insights with Vertex AI", e);
-                return new ArrayList<>();
+                throw new CompletionException(e);
             }
+        }).exceptionally(throwable -> {
+            log.error("Error generating predictive insights with Vertex AI", throwable);
+            return new ArrayList<>();
         });
     }
 
     /**
-     * Generate mood map analysis based on sentiment data
+     * Generate mood map analysis from pre-aggregated per-area sentiment
      */
-    public CompletableFuture<Map<String, Object>> generateMoodMapAnalysis(
-            Map<String, List<CityEvent.SentimentData>> areaSentiments) {
+    public CompletableFuture<Map<String, Object>> generateMoodMapAnalysisFromAggregates(
+            Map<String, AreaSentimentAggregate> areaAggregates) {
+        
+        StringBuilder sentimentContext = new StringBuilder();
+        sentimentContext.append("Area sentiment data for Bengaluru:\n");
+        
+        areaAggregates.forEach((area, aggregate) -> sentimentContext.append(String.format(
+            "- %s: Avg score %.2f, %d positive out of %d total events\n",
+            area, aggregate.getAverageSentimentScore(), aggregate.getPositiveCount(),
+            aggregate.getSentimentEventCount()
+        )));
         
-        return CompletableFuture.supplyAsync(() -> {
+        return generateMoodMapAnalysis(sentimentContext.toString());
+    }
+
+    private CompletableFuture<Map<String, Object>> generateMoodMapAnalysis(String sentimentContext) {
+        return guardedCall(VertexAiPriority.INTERACTIVE, () -> {
             try {
-                GenerativeModel model = new GenerativeModel(textModelName, vertexAI);
-                
-                StringBuilder sentimentContext = new StringBuilder();
-                sentimentContext.append("Area sentiment data for Bengaluru:\n");
-                
-                areaSentiments.forEach((area, sentiments) -> {
-                    double avgScore = sentiments.stream()
-                        .mapToDouble(s -> s.getScore() != null ? s.getScore() : 0.0)
-                        .average()
-                        .orElse(0.0);
-                    
-                    long positiveCount = sentiments.stream()
-                        .mapToLong(s -> s.getType() == CityEvent.SentimentType.POSITIVE ? 1 : 0)
-                        .sum();
-                    
-                    sentimentContext.append(String.format(
-                        "- %s: Avg score %.2f, %d positive out of %d total events\n",
-                        area, avgScore, positiveCount, sentiments.size()
-                    ));
-                });
+                GenerativeModel model = model(textModelName);
                 
                 String prompt = String.format("""
                     Analyze the mood map data for different areas of Bengaluru:
@@ -463,7 +702,7 @@ public class VertexAiService {
                     
                     Focus on actionable insights for city planning and citizen engagement.
                     Only respond with the JSON, no additional text.
-                    """, sentimentContext.toString());
+                    """, sentimentContext);
                 
                 Content content = Content.newBuilder()
                     .setRole("user")
@@ -476,18 +715,63 @@ public class VertexAiService {
                 return parseMoodMapResponse(analysisResult);
                 
             } catch (Exception e) {
-                log.error("Error generating mood map analysis with Vertex AI", e);
-                return Map.of(
-                    "overall_mood", "NEUTRAL",
-                    "city_summary", "Analysis temporarily unavailable",
-                    "area_insights", new ArrayList<>()
-                );
+                throw new CompletionException(e);
             }
+        }).exceptionally(throwable -> {
+            log.error("Error generating mood map analysis with Vertex AI", throwable);
+            return Map.of(
+                "overall_mood", "NEUTRAL",
+                "city_summary", "Analysis temporarily unavailable",
+                "area_insights", new ArrayList<>()
+            );
         });
     }
 
     // Private helper methods
 
+    /**
+     * Run a blocking model call on the Vertex AI executor behind the circuit
+     * breaker, time limiter and retry. While the breaker is open the future
+     * fails at once with CallNotPermittedException, so callers go straight to
+     * their fallback instead of waiting on the model.
+     */
+    private <T> CompletableFuture<T> guardedCall(VertexAiPriority priority, Supplier<T> call) {
+        return guardedCall(priority, Deadline.NONE, call);
+    }
+
+    /**
+     * As above, but the queued call is completed with DeadlineExceededException
+     * at the deadline, so the executor skips it instead of spending a model
+     * call on an answer nobody is waiting for
+     */
+    private <T> CompletableFuture<T> guardedCall(VertexAiPriority priority, Deadline deadline, Supplier<T> call) {
+        if (deadline.isExpired()) {
+            return CompletableFuture.failedFuture(new DeadlineExceededException());
+        }
+        // Someone is waiting on anything but background work, so it gets seconds rather than minutes
+        TimeLimiter timeLimiter = priority == VertexAiPriority.BACKGROUND ? aiTimeLimiter : interactiveAiTimeLimiter;
+        Supplier<CompletionStage<T>> attempt = CircuitBreaker.decorateCompletionStage(vertexAiCircuitBreaker,
+            () -> timeLimiter.executeCompletionStage(resilienceScheduler.getExecutor(),
+                () -> deadline.bound(vertexAiExecutor.supplyAsync(priority, call))));
+        return Retry.decorateCompletionStage(vertexAiRetry, resilienceScheduler.getExecutor(), attempt)
+            .get()
+            .toCompletableFuture();
+    }
+
+    private GenerativeModel model(String modelName) {
+        return model(modelName, null);
+    }
+
+    private GenerativeModel model(String modelName, GenerationConfig generationConfig) {
+        return models.computeIfAbsent(new ModelKey(modelName, generationConfig), key -> {
+            GenerativeModel model = new GenerativeModel(key.modelName(), vertexAI);
+            return key.generationConfig() != null ? model.withGenerationConfig(key.generationConfig()) : model;
+        });
+    }
+
+    private record ModelKey(String modelName, GenerationConfig generationConfig) {
+    }
+
     private String formatLocation(CityEvent.LocationData location) {
         if (location == null) return "Location not specified";
         
@@ -505,106 +789,71 @@ public class VertexAiService {
         return locationStr.length() > 0 ? locationStr.toString() : "Location not specified";
     }
 
+    /**
+     * Parse the sentiment JSON; throws if the answer cannot be parsed, so the
+     * caller's fallback is used and nothing is cached
+     */
     private CityEvent.SentimentData parseSentimentResponse(String response) {
-        try {
-            // Extract JSON from response
-            Pattern jsonPattern = Pattern.compile("\\{[^}]+\\}");
-            Matcher matcher = jsonPattern.matcher(response);
-            
-            if (matcher.find()) {
-                String jsonStr = matcher.group();
-                
-                // Simple JSON parsing (in production, use a proper JSON library)
-                String sentiment = extractJsonValue(jsonStr, "sentiment");
-                String scoreStr = extractJsonValue(jsonStr, "score");
-                String confidenceStr = extractJsonValue(jsonStr, "confidence");
-                
-                return CityEvent.SentimentData.builder()
-                    .type(CityEvent.SentimentType.valueOf(sentiment))
-                    .score(Double.parseDouble(scoreStr))
-                    .confidence(Double.parseDouble(confidenceStr))
-                    .build();
-            }
-        } catch (Exception e) {
-            log.warn("Error parsing sentiment response, using defaults", e);
+        // Extract JSON from response
+        Pattern jsonPattern = Pattern.compile("\\{[^}]+\\}");
+        Matcher matcher = jsonPattern.matcher(response);
+        if (!matcher.find()) {
+            throw new IllegalArgumentException("Sentiment response contained no JSON object");
         }
         
+        String jsonStr = matcher.group();
+        
+        // Simple JSON parsing (in production, use a proper JSON library)
+        String sentiment = extractJsonValue(jsonStr, "sentiment");
+        String scoreStr = extractJsonValue(jsonStr, "score");
+        String confidenceStr = extractJsonValue(jsonStr, "confidence");
+        
         return CityEvent.SentimentData.builder()
-            .type(CityEvent.SentimentType.NEUTRAL)
-            .score(0.0)
-            .confidence(0.5)
+            .type(CityEvent.SentimentType.valueOf(sentiment))
+            .score(Double.parseDouble(scoreStr))
+            .confidence(Double.parseDouble(confidenceStr))
             .build();
     }
 
-    private Map<String, Object> parseCategorizationResponse(String response) {
-        Map<String, Object> result = new HashMap<>();
-        try {
-            // Extract and parse JSON response
-            Pattern jsonPattern = Pattern.compile("\\{.*\\}", Pattern.DOTALL);
-            Matcher matcher = jsonPattern.matcher(response);
-            
-            if (matcher.find()) {
-                String jsonStr = matcher.group();
-                
-                result.put("category", extractJsonValue(jsonStr, "category"));
-                result.put("severity", extractJsonValue(jsonStr, "severity"));
-                result.put("title", extractJsonValue(jsonStr, "title"));
-                result.put("summary", extractJsonValue(jsonStr, "summary"));
-                result.put("confidence", Double.parseDouble(extractJsonValue(jsonStr, "confidence")));
-                
-                // Extract keywords array
-                Pattern keywordsPattern = Pattern.compile("\"keywords\":\\s*\\[([^\\]]+)\\]");
-                Matcher keywordsMatcher = keywordsPattern.matcher(jsonStr);
-                if (keywordsMatcher.find()) {
-                    String keywordsStr = keywordsMatcher.group(1);
-                    List<String> keywords = Arrays.asList(
-                        keywordsStr.replaceAll("\"", "").split(",")
-                    );
-                    result.put("keywords", keywords);
-                }
-            }
-        } catch (Exception e) {
-            log.warn("Error parsing categorization response, using defaults", e);
+    /**
+     * Parse the categorization JSON; throws if the answer cannot be parsed, so
+     * the caller's fallback is used and nothing is cached. Optional fields that
+     * are missing or unreadable get defaults.
+     */
+    private Map<String, Object> parseEventAnalysisResponse(String response) {
+        // Extract and parse JSON response
+        Pattern jsonPattern = Pattern.compile("\\{.*\\}", Pattern.DOTALL);
+        Matcher matcher = jsonPattern.matcher(response);
+        if (!matcher.find()) {
+            throw new IllegalArgumentException("Event analysis response contained no JSON object");
         }
         
-        // Ensure required fields are present
-        result.putIfAbsent("category", "COMMUNITY");
-        result.putIfAbsent("severity", "LOW");
-        result.putIfAbsent("title", "City Event");
-        result.putIfAbsent("confidence", 0.5);
-        
-        return result;
-    }
-
-    private Map<String, Object> parseEventAnalysisResponse(String response) {
+        String jsonStr = matcher.group();
         Map<String, Object> result = new HashMap<>();
-        try {
-            // Extract and parse JSON response
-            Pattern jsonPattern = Pattern.compile("\\{.*\\}", Pattern.DOTALL);
-            Matcher matcher = jsonPattern.matcher(response);
-            
-            if (matcher.find()) {
-                String jsonStr = matcher.group();
-                
-                result.put("category", extractJsonValue(jsonStr, "category"));
-                result.put("severity", extractJsonValue(jsonStr, "severity"));
-                result.put("title", extractJsonValue(jsonStr, "title"));
-                result.put("summary", extractJsonValue(jsonStr, "summary"));
-                result.put("confidence", Double.parseDouble(extractJsonValue(jsonStr, "confidence")));
-                
-                // Extract keywords array
-                Pattern keywordsPattern = Pattern.compile("\"keywords\":\\s*\\[([^\\]]+)\\]");
-                Matcher keywordsMatcher = keywordsPattern.matcher(jsonStr);
-                if (keywordsMatcher.find()) {
-                    String keywordsStr = keywordsMatcher.group(1);
-                    List<String> keywords = Arrays.asList(
-                        keywordsStr.replaceAll("\"", "").split(",")
-                    );
-                    result.put("keywords", keywords);
-                }
+        for (String field : List.of("category", "severity", "title", "summary")) {
+            String value = extractJsonValue(jsonStr, field);
+            if (!value.isEmpty()) {
+                result.put(field, value);
             }
-        } catch (Exception e) {
-            log.warn("Error parsing event analysis response, using defaults", e);
+        }
+        String confidence = extractJsonValue(jsonStr, "confidence");
+        if (!confidence.isEmpty()) {
+            try {
+                result.put("confidence", Double.parseDouble(confidence));
+            } catch (NumberFormatException e) {
+                log.debug("Ignoring unreadable confidence in event analysis: {}", confidence);
+            }
+        }
+        
+        // Extract keywords array
+        Pattern keywordsPattern = Pattern.compile("\"keywords\":\\s*\\[([^\\]]+)\\]");
+        Matcher keywordsMatcher = keywordsPattern.matcher(jsonStr);
+        if (keywordsMatcher.find()) {
+            String keywordsStr = keywordsMatcher.group(1);
+            List<String> keywords = Arrays.asList(
+                keywordsStr.replaceAll("\"", "").split(",")
+            );
+            result.put("keywords", keywords);
         }
         
         // Ensure required fields are present
@@ -640,6 +889,87 @@ public class VertexAiService {
         return result;
     }
 
+    private Map<Integer, Map<String, Object>> parseBatchEnrichmentResponse(String response, int eventCount) {
+        Map<Integer, Map<String, Object>> enrichments = new HashMap<>();
+        try {
+            int start = response.indexOf('[');
+            int end = response.lastIndexOf(']');
+            if (start < 0 || end <= start) {
+                log.warn("Batch enrichment response contained no JSON array");
+                return enrichments;
+            }
+            
+            JsonNode entries = objectMapper.readTree(response.substring(start, end + 1));
+            for (JsonNode entry : entries) {
+                int index = entry.path("index").asInt(-1);
+                if (index < 0 || index >= eventCount || enrichments.containsKey(index)) {
+                    continue;
+                }
+                
+                try {
+                    enrichments.put(index, toEnrichment(entry));
+                } catch (Exception e) {
+                    log.debug("Skipping invalid batch enrichment entry {}: {}", index, e.getMessage());
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Error parsing batch enrichment response, falling back to per-event analysis", e);
+        }
+        
+        if (enrichments.size() < eventCount) {
+            log.info("Batch enrichment returned {} of {} events", enrichments.size(), eventCount);
+        }
+        return enrichments;
+    }
+
+    /**
+     * Convert one batch entry into the same shape categorizeEvent returns,
+     * plus parsed sentiment; throws if the required fields are not valid
+     */
+    private Map<String, Object> toEnrichment(JsonNode entry) {
+        Map<String, Object> enrichment = new HashMap<>();
+        enrichment.put("category", CityEvent.EventCategory.valueOf(entry.path("category").asText()).name());
+        enrichment.put("severity", CityEvent.EventSeverity.valueOf(entry.path("severity").asText()).name());
+        enrichment.put("title", entry.path("title").asText("City Event"));
+        enrichment.put("summary", entry.path("summary").asText(""));
+        enrichment.put("confidence", entry.path("confidence").asDouble(0.5));
+        
+        List<String> keywords = new ArrayList<>();
+        entry.path("keywords").forEach(keyword -> keywords.add(keyword.asText()));
+        enrichment.put("keywords", keywords);
+        
+        JsonNode sentiment = entry.path("sentiment");
+        enrichment.put("sentiment", CityEvent.SentimentData.builder()
+            .type(CityEvent.SentimentType.valueOf(sentiment.path("type").asText("NEUTRAL")))
+            .score(sentiment.path("score").asDouble(0.0))
+            .confidence(sentiment.path("confidence").asDouble(0.5))
+            .build());
+        
+        Map<String, Object> location = new HashMap<>();
+        JsonNode locationNode = entry.path("location");
+        for (String field : List.of("area", "landmark", "address")) {
+            String value = locationNode.path(field).asText("");
+            if (!value.isBlank()) {
+                location.put(field, value);
+            }
+        }
+        enrichment.put("location", location);
+        
+        return enrichment;
+    }
+
+    private String buildEventText(CityEvent event) {
+        StringBuilder text = new StringBuilder();
+        if (event.getTitle() != null) text.append(event.getTitle()).append(" ");
+        if (event.getDescription() != null) text.append(event.getDescription()).append(" ");
+        if (event.getContent() != null) text.append(event.getContent());
+        return text.toString().trim();
+    }
+
+    private String truncate(String text, int maxLength) {
+        return text.length() > maxLength ? text.substring(0, maxLength) + "..." : text;
+    }
+
     private String extractJsonValue(String json, String key) {
         Pattern pattern = Pattern.compile("\"" + key + "\":\\s*\"?([^,}\"]+)\"?");
         Matcher matcher = pattern.matcher(json);
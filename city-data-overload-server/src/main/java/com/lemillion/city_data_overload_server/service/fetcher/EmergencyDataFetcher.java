@@ -4,6 +4,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.lemillion.city_data_overload_server.config.SerpApiConfig;
 import com.lemillion.city_data_overload_server.model.CityEvent;
 import com.lemillion.city_data_overload_server.model.serpapi.SerpApiResponse;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.retry.Retry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -25,6 +28,8 @@ public class EmergencyDataFetcher implements BaseSerpApiFetcher {
     private final SerpApiConfig serpApiConfig;
     private final ObjectMapper objectMapper;
     private final RestTemplate restTemplate;
+    private final CircuitBreaker externalApiCircuitBreaker;
+    private final Retry externalApiRetry;
 
     @Override
     public CompletableFuture<SerpApiResponse> fetchRawData(String query, String location) {
@@ -44,7 +49,8 @@ public class EmergencyDataFetcher implements BaseSerpApiFetcher {
                     .build()
                     .toUriString();
                 
-                String jsonResponse = restTemplate.getForObject(url, String.class);
+                String jsonResponse = Retry.decorateSupplier(externalApiRetry, CircuitBreaker.decorateSupplier(
+                    externalApiCircuitBreaker, () -> restTemplate.getForObject(url, String.class))).get();
                 
                 if (jsonResponse == null) {
                     log.warn("Received null response from SerpApi for emergency query: {}", query);
@@ -67,6 +73,9 @@ public class EmergencyDataFetcher implements BaseSerpApiFetcher {
                 
                 return response;
                 
+            } catch (CallNotPermittedException e) {
+                log.debug("SerpApi circuit breaker open, skipping emergency query: {}", query);
+                return null;
             } catch (Exception e) {
                 log.error("Error fetching emergency data for query: {}", query, e);
                 return null;
@@ -0,0 +1,30 @@
+package com.lemillion.city_data_overload_server.stream;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+
+import java.util.Set;
+
+/**
+ * A frame already encoded in the SSE wire format. The same bytes are written
+ * to every subscriber, so a broadcast is serialized once however many clients
+ * receive it. Only the routing fields of the source frame are kept, not its
+ * data, since encoded frames stay in the replay buffer long after sending.
+ *
+ * @param scope the source frame's scope, for filtering replays
+ * @param coalesceKey the source frame's coalesce key, or null
+ * @param id the frame's SSE id, or 0 for frames sent without one
+ * @param content the bytes wrapped for ResponseBodyEmitter.send, written as-is
+ */
+public record EncodedFrame(FrameScope scope, String coalesceKey, long id, byte[] bytes,
+                           Set<DataWithMediaType> content) {
+
+    static EncodedFrame of(SseFrame frame, long id, byte[] bytes) {
+        return new EncodedFrame(frame.scope(), frame.coalesceKey(), id, bytes,
+            Set.of(new DataWithMediaType(bytes, MediaType.TEXT_EVENT_STREAM)));
+    }
+
+    public int size() {
+        return bytes.length;
+    }
+}
@@ -0,0 +1,44 @@
+package com.lemillion.city_data_overload_server.stream;
+
+import com.lemillion.city_data_overload_server.model.CityEvent;
+
+/**
+ * Where and what a broadcast frame is about, used to route it to the
+ * subscribers whose filters it matches. Any field may be null; a frame
+ * with no location reaches subscribers anywhere in the city, and one with
+ * only a known area name is placed at that area's centre when dispatched.
+ */
+public record FrameScope(String area, Double latitude, Double longitude,
+                         CityEvent.EventCategory category, CityEvent.EventSeverity severity) {
+
+    public static final FrameScope EVERYONE = new FrameScope(null, null, null, null, null);
+
+    public static FrameScope of(CityEvent event) {
+        CityEvent.LocationData location = event.getLocation();
+        return new FrameScope(
+            location != null ? location.getArea() : null,
+            location != null ? location.getLatitude() : null,
+            location != null ? location.getLongitude() : null,
+            event.getCategory(),
+            event.getSeverity());
+    }
+
+    public static FrameScope area(String area) {
+        return new FrameScope(area, null, null, null, null);
+    }
+
+    /**
+     * The same scope placed at the given point
+     */
+    public FrameScope at(double latitude, double longitude) {
+        return new FrameScope(area, latitude, longitude, category, severity);
+    }
+
+    public boolean hasCoordinates() {
+        return latitude != null && longitude != null;
+    }
+
+    public boolean hasLocation() {
+        return area != null || hasCoordinates();
+    }
+}
@@ -0,0 +1,24 @@
+package com.lemillion.city_data_overload_server.stream;
+
+/**
+ * What to do when a frame arrives for a subscriber whose queue is full
+ */
+public enum OverflowPolicy {
+
+    /**
+     * Drop the subscriber's oldest queued frame to make room
+     */
+    DROP_OLDEST,
+
+    /**
+     * Replace a queued frame with the same coalesce key, such as an older
+     * mood update for the same area; drop the oldest frame if there is none
+     */
+    COALESCE,
+
+    /**
+     * Close the subscriber's stream, so the client reconnects instead of
+     * silently missing frames
+     */
+    DISCONNECT
+}
@@ -0,0 +1,65 @@
+package com.lemillion.city_data_overload_server.stream;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Recent frames of one stream, kept so a reconnecting client can be sent what
+ * it missed. Bounded by the total size of the encoded frames; the oldest are
+ * evicted first.
+ */
+class ReplayBuffer {
+
+    private final long maxBytes;
+
+    // Guarded by this
+    private final Deque<EncodedFrame> frames = new ArrayDeque<>();
+    private long bytes;
+    private long evictedThrough;
+
+    /**
+     * @param startId frames up to this ID were never buffered
+     */
+    ReplayBuffer(long maxBytes, long startId) {
+        this.maxBytes = maxBytes;
+        this.evictedThrough = startId;
+    }
+
+    synchronized void append(EncodedFrame frame) {
+        frames.addLast(frame);
+        bytes += frame.size();
+        while (bytes > maxBytes && !frames.isEmpty()) {
+            EncodedFrame evicted = frames.pollFirst();
+            bytes -= evicted.size();
+            evictedThrough = evicted.id();
+        }
+    }
+
+    /**
+     * Frames after the given ID in order, or null if some of them were already evicted
+     */
+    synchronized List<EncodedFrame> since(long lastId) {
+        if (lastId < evictedThrough) {
+            return null;
+        }
+        List<EncodedFrame> missed = new ArrayList<>();
+        Iterator<EncodedFrame> newestFirst = frames.descendingIterator();
+        while (newestFirst.hasNext()) {
+            EncodedFrame frame = newestFirst.next();
+            if (frame.id() <= lastId) {
+                break;
+            }
+            missed.add(frame);
+        }
+        Collections.reverse(missed);
+        return missed;
+    }
+
+    synchronized long bytes() {
+        return bytes;
+    }
+}
@@ -0,0 +1,408 @@
+package com.lemillion.city_data_overload_server.stream;
+
+import com.lemillion.city_data_overload_server.config.BengaluruConfig;
+import com.lemillion.city_data_overload_server.config.EventStreamConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Fan-out engine for Server-Sent Events. Publishing only puts the frame on a
+ * dispatch queue, so the producer never waits on a client. A dispatcher thread
+ * looks up the subscribers whose filters match the frame, encodes it once and
+ * adds the shared bytes to each of their bounded queues, and a small writer
+ * pool drains those queues, so one slow client only ever delays itself.
+ * Full subscriber queues are handled by the stream's overflow policy.
+ * Broadcast frames get increasing IDs and are kept in a per-stream replay
+ * buffer, so a client reconnecting with Last-Event-ID gets only what it
+ * missed. Not exposed as an Executor bean on purpose, so it never becomes
+ * Spring's default async executor.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SseBroadcaster {
+
+    private final EventStreamConfig config;
+    private final BengaluruConfig bengaluruConfig;
+    private final SseFrameEncoder encoder;
+    private final MeterRegistry meterRegistry;
+
+    // Dispatch ID of frames delivered without an SSE id
+    private static final long UNSEQUENCED = -1;
+
+    private final Map<String, Stream> streams = new ConcurrentHashMap<>();
+
+    // Area centres by lower-case name, for frames that only name an area
+    private Map<String, BengaluruConfig.Coordinates> areaCentres;
+
+    // Seeded from the clock so IDs keep increasing across restarts and replicas; only the dispatcher advances it
+    private final long firstFrameId = System.currentTimeMillis() * 1000;
+    private volatile long lastFrameId = firstFrameId;
+
+    private BlockingQueue<Dispatch> dispatchQueue;
+    private Thread dispatcher;
+    private ExecutorService writers;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        areaCentres = bengaluruConfig.getAreas().stream()
+            .filter(area -> area.getName() != null)
+            .collect(Collectors.toUnmodifiableMap(area -> area.getName().toLowerCase(),
+                BengaluruConfig.AreaConfig::getCoordinates, (first, second) -> first));
+
+        dispatchQueue = new ArrayBlockingQueue<>(config.getDispatchQueueCapacity());
+        Gauge.builder("sse.dispatch.queue.depth", dispatchQueue, BlockingQueue::size)
+            .description("Broadcast frames waiting to be fanned out to subscribers")
+            .register(meterRegistry);
+
+        AtomicInteger writerCount = new AtomicInteger();
+        writers = Executors.newFixedThreadPool(config.getWriterThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "sse-writer-" + writerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        running = true;
+        dispatcher = new Thread(this::dispatchLoop, "sse-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+
+        log.info("SSE broadcaster started (writers: {}, queue capacity per subscriber: {})",
+            config.getWriterThreads(), config.getQueueCapacity());
+    }
+
+    /**
+     * Register a client on a stream, receiving only frames that match its filter.
+     * The greeting is its first frame. With a Last-Event-ID, the frames it missed
+     * follow the greeting, or a "resync" frame if they are no longer buffered.
+     */
+    public SseSubscriber subscribe(String streamType, SseEmitter emitter, SubscriptionFilter filter,
+                                   SseFrame greeting, String lastEventId) {
+        SseSubscriber subscriber = new SseSubscriber(streamType, emitter,
+            filter.withRadiusBounds(config.getDefaultRadiusKm(), config.getMaxRadiusKm()),
+            config.getQueueCapacity(), config.overflowPolicyFor(streamType));
+        Stream stream = streams.computeIfAbsent(streamType, this::newStream);
+
+        // Same lock as dispatch, so no frame is both replayed and delivered live, or neither
+        synchronized (stream) {
+            send(subscriber, greeting);
+            if (lastEventId != null) {
+                replay(stream, subscriber, lastEventId);
+            }
+            stream.index().add(subscriber);
+        }
+        return subscriber;
+    }
+
+    public void unsubscribe(SseSubscriber subscriber) {
+        subscriber.markClosed();
+        Stream stream = streams.get(subscriber.getStreamType());
+        if (stream != null) {
+            stream.index().remove(subscriber);
+        }
+    }
+
+    /**
+     * Queue a frame for every subscriber of its stream. Never blocks; returns
+     * false if the dispatch queue is full and the frame was dropped.
+     */
+    public boolean publish(SseFrame frame) {
+        return publish(frame, 0);
+    }
+
+    /**
+     * Queue a frame whose ID was assigned elsewhere, such as by the cluster
+     * bus. A frame whose ID is not above the last one dispatched is treated
+     * as a duplicate and dropped. Pass 0 to have the next local ID assigned.
+     */
+    public boolean publish(SseFrame frame, long id) {
+        if (dispatchQueue.offer(new Dispatch(frame, id))) {
+            return true;
+        }
+        countDropped(frame.streamType(), "dispatch_full");
+        log.warn("SSE dispatch queue full, dropping {} frame for stream {}", frame.eventName(), frame.streamType());
+        return false;
+    }
+
+    /**
+     * Queue a frame to be delivered without an ID, such as one the cluster bus
+     * could not publish. It is not kept for replay and does not advance the
+     * IDs, so it never takes an ID another replica may hand out.
+     */
+    public boolean publishUnsequenced(SseFrame frame) {
+        return publish(frame, UNSEQUENCED);
+    }
+
+    /**
+     * Queue a frame for one subscriber only, such as its connection greeting
+     */
+    public void send(SseSubscriber subscriber, SseFrame frame) {
+        EncodedFrame encoded = encode(frame);
+        if (encoded != null) {
+            enqueue(subscriber, encoded);
+        }
+    }
+
+    /**
+     * Send a last frame to every subscriber and close their streams once it is written
+     */
+    public void closeAll(SseFrame farewell) {
+        EncodedFrame encoded = encode(farewell);
+        streams.values().forEach(stream -> stream.index().all().forEach(subscriber -> {
+            subscriber.closeWhenDrained();
+            if (encoded != null) {
+                enqueue(subscriber, encoded);
+            } else {
+                close(subscriber);
+            }
+        }));
+    }
+
+    public Set<String> getStreamTypes() {
+        return streams.keySet();
+    }
+
+    /**
+     * ID of the newest frame dispatched on this instance
+     */
+    public long getLastFrameId() {
+        return lastFrameId;
+    }
+
+    public int getSubscriberCount(String streamType) {
+        Stream stream = streams.get(streamType);
+        return stream != null ? stream.index().size() : 0;
+    }
+
+    private Stream newStream(String streamType) {
+        SubscriberIndex index = new SubscriberIndex(config.getCellSizeDegrees());
+        ReplayBuffer replay = new ReplayBuffer(config.getReplayBufferSize().toBytes(), firstFrameId);
+        Gauge.builder("sse.subscribers", index, SubscriberIndex::size)
+            .description("Connected SSE clients")
+            .tag("stream", streamType)
+            .register(meterRegistry);
+        Gauge.builder("sse.queue.depth", index,
+                streamIndex -> streamIndex.all().stream().mapToInt(SseSubscriber::depth).sum())
+            .description("Frames queued for SSE clients")
+            .tag("stream", streamType)
+            .register(meterRegistry);
+        Gauge.builder("sse.replay.buffer.bytes", replay, ReplayBuffer::bytes)
+            .description("Encoded frames kept for clients resuming with Last-Event-ID")
+            .tag("stream", streamType)
+            .register(meterRegistry);
+        return new Stream(index, replay);
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            Dispatch next;
+            try {
+                next = dispatchQueue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            SseFrame frame = locate(next.frame());
+            boolean sequenced = next.id() != UNSEQUENCED;
+            long id = 0;
+            if (sequenced) {
+                id = next.id() > 0 ? next.id() : lastFrameId + 1;
+                if (id <= lastFrameId) {
+                    countDropped(frame.streamType(), "duplicate");
+                    log.debug("Dropping duplicate {} frame {} for stream {}", frame.eventName(), id, frame.streamType());
+                    continue;
+                }
+            }
+
+            // Encoded even with nobody listening, since a client may resume and ask for it
+            EncodedFrame encoded = encode(frame, id);
+            if (encoded == null) {
+                continue;
+            }
+            if (sequenced) {
+                lastFrameId = encoded.id();
+            }
+
+            Stream stream = streams.computeIfAbsent(frame.streamType(), this::newStream);
+            synchronized (stream) {
+                if (sequenced) {
+                    stream.replay().append(encoded);
+                }
+                List<SseSubscriber> targets = stream.index().matching(frame.scope());
+                if (targets.isEmpty()) {
+                    log.debug("No interested connections for {} on stream type: {}", frame.eventName(), frame.streamType());
+                }
+                targets.forEach(subscriber -> enqueue(subscriber, encoded));
+            }
+        }
+    }
+
+    /**
+     * Place a frame that only names an area at the area's centre, so clients
+     * watching a radius around it get it too. Unknown areas are left as they are.
+     */
+    private SseFrame locate(SseFrame frame) {
+        FrameScope scope = frame.scope();
+        if (scope == null || scope.area() == null || scope.hasCoordinates()) {
+            return frame;
+        }
+        BengaluruConfig.Coordinates centre = areaCentres.get(scope.area().toLowerCase());
+        if (centre == null) {
+            return frame;
+        }
+        return new SseFrame(frame.streamType(), frame.eventName(), frame.data(), frame.coalesceKey(),
+            scope.at(centre.getLat(), centre.getLng()));
+    }
+
+    /**
+     * Queue the frames the subscriber missed since its Last-Event-ID. If they
+     * are gone, or would overflow its queue, tell it to refetch instead.
+     */
+    private void replay(Stream stream, SseSubscriber subscriber, String lastEventId) {
+        List<EncodedFrame> missed = null;
+        try {
+            long lastId = Long.parseLong(lastEventId.trim());
+            if (lastId <= lastFrameId) {
+                missed = stream.replay().since(lastId);
+            }
+        } catch (NumberFormatException e) {
+            log.debug("Ignoring malformed Last-Event-ID: {}", lastEventId);
+        }
+
+        if (missed != null) {
+            missed.removeIf(frame -> frame.scope() != null && !subscriber.getFilter().matches(frame.scope()));
+        }
+        if (missed == null || missed.size() >= config.getQueueCapacity()) {
+            meterRegistry.counter("sse.replays", "stream", subscriber.getStreamType(), "outcome", "resync").increment();
+            send(subscriber, new SseFrame(subscriber.getStreamType(), "resync", Map.of(
+                "message", "Missed updates are no longer available, refetch current data",
+                "lastEventId", lastEventId
+            ), null));
+            return;
+        }
+
+        meterRegistry.counter("sse.replays", "stream", subscriber.getStreamType(), "outcome", "replayed").increment();
+        meterRegistry.counter("sse.frames.replayed", "stream", subscriber.getStreamType()).increment(missed.size());
+        missed.forEach(frame -> enqueue(subscriber, frame));
+    }
+
+    private EncodedFrame encode(SseFrame frame) {
+        return encode(frame, 0);
+    }
+
+    private EncodedFrame encode(SseFrame frame, long id) {
+        try {
+            return encoder.encode(frame, id);
+        } catch (Exception e) {
+            log.error("Failed to encode SSE {} frame for stream {}", frame.eventName(), frame.streamType(), e);
+            countDropped(frame.streamType(), "encode_failed");
+            return null;
+        }
+    }
+
+    private void enqueue(SseSubscriber subscriber, EncodedFrame frame) {
+        if (subscriber.isClosed()) {
+            return;
+        }
+
+        switch (subscriber.offer(frame)) {
+            case DROPPED_OLDEST -> countDropped(subscriber.getStreamType(), "drop_oldest");
+            case COALESCED -> countDropped(subscriber.getStreamType(), "coalesced");
+            case OVERFLOWED -> {
+                countDropped(subscriber.getStreamType(), "disconnect");
+                meterRegistry.counter("sse.subscribers.evicted", "stream", subscriber.getStreamType()).increment();
+                log.info("Disconnecting SSE client on stream {} that fell {} frames behind",
+                    subscriber.getStreamType(), subscriber.depth());
+                close(subscriber);
+                return;
+            }
+            default -> { }
+        }
+
+        if (subscriber.schedule()) {
+            try {
+                writers.execute(() -> drain(subscriber));
+            } catch (RejectedExecutionException e) {
+                log.debug("SSE writer pool is shut down");
+            }
+        }
+    }
+
+    /**
+     * Write the subscriber's queued frames in order; runs on a writer thread
+     */
+    private void drain(SseSubscriber subscriber) {
+        EncodedFrame frame;
+        while ((frame = subscriber.poll()) != null) {
+            try {
+                // Pre-encoded bytes are written as-is, no per-client serialization
+                subscriber.getEmitter().send(frame.content());
+                meterRegistry.counter("sse.frames.sent", "stream", subscriber.getStreamType()).increment();
+                meterRegistry.counter("sse.bytes.sent", "stream", subscriber.getStreamType()).increment(frame.size());
+            } catch (Exception e) {
+                log.debug("Failed to send SSE frame to client, closing its stream: {}", e.getMessage());
+                close(subscriber);
+                return;
+            }
+        }
+
+        if (subscriber.isClosing()) {
+            close(subscriber);
+        }
+    }
+
+    private void close(SseSubscriber subscriber) {
+        unsubscribe(subscriber);
+        try {
+            subscriber.getEmitter().complete();
+        } catch (Exception e) {
+            log.debug("Error completing SSE emitter", e);
+        }
+    }
+
+    private void countDropped(String streamType, String reason) {
+        meterRegistry.counter("sse.frames.dropped", "stream", streamType, "reason", reason).increment();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        dispatcher.interrupt();
+        writers.shutdown();
+        try {
+            if (!writers.awaitTermination(5, TimeUnit.SECONDS)) {
+                writers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            writers.shutdownNow();
+        }
+    }
+
+    private record Stream(SubscriberIndex index, ReplayBuffer replay) {
+    }
+
+    private record Dispatch(SseFrame frame, long id) {
+    }
+}
@@ -0,0 +1,14 @@
+package com.lemillion.city_data_overload_server.stream;
+
+/**
+ * One Server-Sent Events frame broadcast on a stream
+ *
+ * @param coalesceKey frames with the same key supersede each other, or null if every frame counts
+ * @param scope decides which subscribers of the stream receive the frame
+ */
+public record SseFrame(String streamType, String eventName, Object data, String coalesceKey, FrameScope scope) {
+
+    public SseFrame(String streamType, String eventName, Object data, String coalesceKey) {
+        this(streamType, eventName, data, coalesceKey, FrameScope.EVERYONE);
+    }
+}
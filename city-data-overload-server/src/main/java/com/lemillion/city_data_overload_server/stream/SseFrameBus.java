@@ -0,0 +1,204 @@
+package com.lemillion.city_data_overload_server.stream;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.lemillion.city_data_overload_server.config.EventStreamConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Cluster-wide broadcast bus. Frames are batched and published once to a Redis
+ * channel that every replica listens on, this one included, and each replica
+ * fans them out to its own subscribers. The frame IDs of a batch are taken from
+ * a shared counter in the same script that publishes it, so IDs rise in delivery
+ * order everywhere: duplicates are dropped by ID, and Last-Event-ID resumes on
+ * any replica. Until the channel is subscribed, or when Redis fails, frames
+ * only reach this replica's clients, and are sent without an ID: a local ID
+ * could collide with one the shared counter gives out on another replica.
+ */
+@Component
+@Slf4j
+public class SseFrameBus implements MessageListener {
+
+    private static final Duration RETRY_INTERVAL = Duration.ofSeconds(30);
+
+    // Lift the counter to the floor if behind, reserve one ID per frame, publish "<last id>|<batch>"
+    private static final RedisScript<Long> PUBLISH_BATCH = new DefaultRedisScript<>("""
+        local current = tonumber(redis.call('GET', KEYS[1]) or '0')
+        if current < tonumber(ARGV[2]) then
+            redis.call('SET', KEYS[1], ARGV[2])
+        end
+        local last = redis.call('INCRBY', KEYS[1], ARGV[3])
+        redis.call('PUBLISH', ARGV[1], string.format('%.0f', last) .. '|' .. ARGV[4])
+        return last
+        """, Long.class);
+
+    private final EventStreamConfig.BusConfig config;
+    private final SseBroadcaster broadcaster;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private final TaskScheduler taskScheduler;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter batchWriter;
+    private final ObjectReader batchReader;
+    private final MeterRegistry meterRegistry;
+
+    private final BlockingQueue<SseFrame> pending;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private volatile boolean subscribed;
+    private ScheduledFuture<?> flusher;
+
+    public SseFrameBus(EventStreamConfig config,
+                       SseBroadcaster broadcaster,
+                       StringRedisTemplate redisTemplate,
+                       RedisMessageListenerContainer redisMessageListenerContainer,
+                       TaskScheduler taskScheduler,
+                       ObjectMapper objectMapper,
+                       MeterRegistry meterRegistry) {
+        this.config = config.getBus();
+        this.broadcaster = broadcaster;
+        this.redisTemplate = redisTemplate;
+        this.redisMessageListenerContainer = redisMessageListenerContainer;
+        this.taskScheduler = taskScheduler;
+        this.objectMapper = objectMapper;
+        this.batchWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+        this.batchReader = objectMapper.readerFor(new TypeReference<List<BusFrame>>() { });
+        this.meterRegistry = meterRegistry;
+        this.pending = new LinkedBlockingQueue<>(config.getDispatchQueueCapacity());
+    }
+
+    /**
+     * Broadcast a frame to the subscribers of every replica. Never blocks;
+     * returns false if the frame was dropped.
+     */
+    public boolean publish(SseFrame frame) {
+        if (!config.isEnabled()) {
+            return broadcaster.publish(frame);
+        }
+        if (!subscribed) {
+            return broadcaster.publishUnsequenced(frame);
+        }
+        if (!pending.offer(frame)) {
+            meterRegistry.counter("sse.frames.dropped", "stream", frame.streamType(), "reason", "bus_full").increment();
+            log.warn("SSE bus backlog full, dropping {} frame for stream {}", frame.eventName(), frame.streamType());
+            return false;
+        }
+        if (pending.size() >= config.getBatchSize() && flushRequested.compareAndSet(false, true)) {
+            taskScheduler.schedule(this::flush, Instant.now());
+        }
+        return true;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void subscribe() {
+        if (!config.isEnabled()) {
+            log.info("SSE bus disabled, broadcasts reach this replica's clients only");
+            return;
+        }
+        flusher = taskScheduler.scheduleWithFixedDelay(this::flush, config.getFlushInterval());
+        taskScheduler.schedule(this::trySubscribe, Instant.now());
+    }
+
+    /**
+     * Fan out a batch published by any replica to the local subscribers
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf('|');
+        try {
+            long lastId = Long.parseLong(body.substring(0, separator));
+            List<BusFrame> frames = batchReader.readValue(body.substring(separator + 1));
+            long id = lastId - frames.size();
+            for (BusFrame frame : frames) {
+                broadcaster.publish(new SseFrame(frame.streamType(), frame.eventName(), frame.data(),
+                    frame.coalesceKey(), frame.scope()), ++id);
+            }
+        } catch (Exception e) {
+            log.warn("Ignoring malformed SSE bus message: {}", e.getMessage());
+        }
+    }
+
+    private void trySubscribe() {
+        ChannelTopic topic = new ChannelTopic(config.getTopic());
+        try {
+            redisMessageListenerContainer.addMessageListener(this, topic);
+            subscribed = true;
+            log.info("Subscribed to SSE bus channel: {}", config.getTopic());
+        } catch (Exception e) {
+            log.warn("Could not subscribe to SSE bus channel, retrying in {}: {}",
+                    RETRY_INTERVAL, e.getMessage());
+            try {
+                redisMessageListenerContainer.removeMessageListener(this, topic);
+            } catch (Exception ignored) {
+                // Not subscribed yet; nothing to undo
+            }
+            taskScheduler.schedule(this::trySubscribe, Instant.now().plus(RETRY_INTERVAL));
+        }
+    }
+
+    private synchronized void flush() {
+        flushRequested.set(false);
+        List<SseFrame> batch = new ArrayList<>(config.getBatchSize());
+        while (pending.drainTo(batch, config.getBatchSize()) > 0) {
+            publishBatch(batch);
+            batch.clear();
+        }
+    }
+
+    private void publishBatch(List<SseFrame> batch) {
+        try {
+            List<BusFrame> frames = batch.stream()
+                .map(frame -> new BusFrame(frame.streamType(), frame.eventName(), frame.coalesceKey(),
+                    frame.scope(), objectMapper.valueToTree(frame.data())))
+                .toList();
+            // IDs never fall behind the clock or this replica, so they keep rising if the counter is lost
+            long floor = Math.max(System.currentTimeMillis() * 1000, broadcaster.getLastFrameId());
+            redisTemplate.execute(PUBLISH_BATCH, List.of(config.getIdKey()), config.getTopic(),
+                String.valueOf(floor), String.valueOf(frames.size()), batchWriter.writeValueAsString(frames));
+            meterRegistry.counter("sse.bus.batches", "outcome", "published").increment();
+        } catch (Exception e) {
+            log.warn("Failed to publish {} frames to the SSE bus, delivering them locally: {}",
+                batch.size(), e.getMessage());
+            meterRegistry.counter("sse.bus.batches", "outcome", "failed").increment();
+            batch.forEach(broadcaster::publishUnsequenced);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (flusher != null) {
+            flusher.cancel(false);
+        }
+        flush();
+    }
+
+    record BusFrame(String streamType, String eventName, String coalesceKey, FrameScope scope, JsonNode data) {
+    }
+}
@@ -0,0 +1,50 @@
+package com.lemillion.city_data_overload_server.stream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes frames into the SSE wire format with the application's JSON
+ * settings. Output is kept on one line, since an indented payload would
+ * spill outside its data: field and break the frame.
+ */
+@Component
+public class SseFrameEncoder {
+
+    private final ObjectWriter writer;
+
+    public SseFrameEncoder(ObjectMapper objectMapper) {
+        this.writer = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+    }
+
+    public EncodedFrame encode(SseFrame frame) throws JsonProcessingException {
+        return encode(frame, 0);
+    }
+
+    /**
+     * Encode a frame with an id line, which clients echo back in Last-Event-ID when they reconnect
+     */
+    public EncodedFrame encode(SseFrame frame, long id) throws JsonProcessingException {
+        StringBuilder text = new StringBuilder();
+        if (id > 0) {
+            text.append("id:").append(id).append('\n');
+        }
+        if (frame.eventName() != null) {
+            text.append("event:").append(frame.eventName()).append('\n');
+        }
+        text.append("data:").append(writer.writeValueAsString(frame.data())).append("\n\n");
+        return EncodedFrame.of(frame, id, text.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Encode a frame for a single client, outside any broadcast stream
+     */
+    public EncodedFrame encode(String eventName, Object data) throws JsonProcessingException {
+        return encode(new SseFrame(null, eventName, data, null));
+    }
+}
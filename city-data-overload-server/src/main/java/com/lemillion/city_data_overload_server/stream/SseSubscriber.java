@@ -0,0 +1,121 @@
+package com.lemillion.city_data_overload_server.stream;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A connected SSE client with its own bounded queue of frames waiting to be
+ * written. At most one writer drains a subscriber at a time, so frames reach
+ * each client in order.
+ */
+public class SseSubscriber {
+
+    enum Offer { QUEUED, DROPPED_OLDEST, COALESCED, OVERFLOWED }
+
+    private final String streamType;
+    private final SseEmitter emitter;
+    private final SubscriptionFilter filter;
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+
+    // Guarded by this
+    private final Deque<EncodedFrame> queue = new ArrayDeque<>();
+
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile boolean closing;
+    private volatile boolean closed;
+
+    SseSubscriber(String streamType, SseEmitter emitter, SubscriptionFilter filter,
+                  int capacity, OverflowPolicy overflowPolicy) {
+        this.streamType = streamType;
+        this.emitter = emitter;
+        this.filter = filter;
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public String getStreamType() {
+        return streamType;
+    }
+
+    public SseEmitter getEmitter() {
+        return emitter;
+    }
+
+    public SubscriptionFilter getFilter() {
+        return filter;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Queue a frame, applying the overflow policy when the queue is full.
+     * Nothing is queued when the result is OVERFLOWED.
+     */
+    synchronized Offer offer(EncodedFrame frame) {
+        if (queue.size() < capacity) {
+            queue.addLast(frame);
+            return Offer.QUEUED;
+        }
+
+        switch (overflowPolicy) {
+            case DISCONNECT:
+                return Offer.OVERFLOWED;
+            case COALESCE:
+                String coalesceKey = frame.coalesceKey();
+                if (coalesceKey != null && queue.removeIf(queued -> coalesceKey.equals(queued.coalesceKey()))) {
+                    queue.addLast(frame);
+                    return Offer.COALESCED;
+                }
+                // Nothing to merge with, so make room like DROP_OLDEST
+            default:
+                queue.pollFirst();
+                queue.addLast(frame);
+                return Offer.DROPPED_OLDEST;
+        }
+    }
+
+    /**
+     * Next frame to write, or null once the queue is empty, in which case
+     * the subscriber is no longer scheduled
+     */
+    synchronized EncodedFrame poll() {
+        EncodedFrame frame = queue.pollFirst();
+        if (frame == null) {
+            scheduled.set(false);
+        }
+        return frame;
+    }
+
+    synchronized int depth() {
+        return queue.size();
+    }
+
+    /**
+     * Claim the subscriber for a writer; false if one is already on it
+     */
+    boolean schedule() {
+        return !closed && scheduled.compareAndSet(false, true);
+    }
+
+    /**
+     * Close the stream once the frames already queued are written
+     */
+    void closeWhenDrained() {
+        closing = true;
+    }
+
+    boolean isClosing() {
+        return closing;
+    }
+
+    synchronized void markClosed() {
+        closed = true;
+        queue.clear();
+    }
+}
@@ -0,0 +1,151 @@
+package com.lemillion.city_data_overload_server.stream;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Subscribers of one stream, bucketed by location and then by category so a
+ * located frame only visits the buckets that can match it. Location buckets
+ * are "*" for clients with no location filter, one per area name, and one per
+ * grid cell overlapped by a client's radius.
+ */
+class SubscriberIndex {
+
+    private static final String ANY = "*";
+    private static final double KM_PER_DEGREE = 111.32;
+
+    private final double cellSizeDegrees;
+    private final Set<SseSubscriber> all = ConcurrentHashMap.newKeySet();
+    private final Map<String, Map<String, Set<SseSubscriber>>> buckets = new ConcurrentHashMap<>();
+
+    SubscriberIndex(double cellSizeDegrees) {
+        this.cellSizeDegrees = cellSizeDegrees;
+    }
+
+    void add(SseSubscriber subscriber) {
+        all.add(subscriber);
+        String categoryKey = categoryKey(subscriber.getFilter());
+        for (String locationKey : locationKeys(subscriber.getFilter())) {
+            buckets.compute(locationKey, (key, byCategory) -> {
+                if (byCategory == null) {
+                    byCategory = new ConcurrentHashMap<>();
+                }
+                byCategory.computeIfAbsent(categoryKey, category -> ConcurrentHashMap.newKeySet()).add(subscriber);
+                return byCategory;
+            });
+        }
+    }
+
+    void remove(SseSubscriber subscriber) {
+        if (!all.remove(subscriber)) {
+            return;
+        }
+        String categoryKey = categoryKey(subscriber.getFilter());
+        for (String locationKey : locationKeys(subscriber.getFilter())) {
+            // Drop buckets as they empty out, so cells nobody watches cost nothing
+            buckets.computeIfPresent(locationKey, (key, byCategory) -> {
+                byCategory.computeIfPresent(categoryKey, (category, subscribers) -> {
+                    subscribers.remove(subscriber);
+                    return subscribers.isEmpty() ? null : subscribers;
+                });
+                return byCategory.isEmpty() ? null : byCategory;
+            });
+        }
+    }
+
+    /**
+     * Subscribers whose filter matches the frame's scope
+     */
+    List<SseSubscriber> matching(FrameScope scope) {
+        List<SseSubscriber> matches = new ArrayList<>();
+        if (!scope.hasLocation()) {
+            // City-wide frame: every location bucket qualifies, and radius clients sit in several
+            all.forEach(subscriber -> addIfMatches(matches, subscriber, scope));
+            return matches;
+        }
+
+        List<String> locationKeys = new ArrayList<>(3);
+        locationKeys.add(ANY);
+        if (scope.area() != null) {
+            locationKeys.add(areaKey(scope.area()));
+        }
+        if (scope.hasCoordinates()) {
+            locationKeys.add(cellKey(cell(scope.latitude()), cell(scope.longitude())));
+        }
+
+        // A subscriber is filed under at most one of these keys and one category, so no duplicates
+        for (String locationKey : locationKeys) {
+            Map<String, Set<SseSubscriber>> byCategory = buckets.get(locationKey);
+            if (byCategory == null) {
+                continue;
+            }
+            if (scope.category() == null) {
+                byCategory.values().forEach(subscribers ->
+                    subscribers.forEach(subscriber -> addIfMatches(matches, subscriber, scope)));
+            } else {
+                addMatching(matches, byCategory.get(ANY), scope);
+                addMatching(matches, byCategory.get(scope.category().name()), scope);
+            }
+        }
+        return matches;
+    }
+
+    Set<SseSubscriber> all() {
+        return all;
+    }
+
+    int size() {
+        return all.size();
+    }
+
+    private void addMatching(List<SseSubscriber> matches, Set<SseSubscriber> subscribers, FrameScope scope) {
+        if (subscribers != null) {
+            subscribers.forEach(subscriber -> addIfMatches(matches, subscriber, scope));
+        }
+    }
+
+    private static void addIfMatches(List<SseSubscriber> matches, SseSubscriber subscriber, FrameScope scope) {
+        if (subscriber.getFilter().matches(scope)) {
+            matches.add(subscriber);
+        }
+    }
+
+    private List<String> locationKeys(SubscriptionFilter filter) {
+        if (filter.hasRadius()) {
+            double latitudeSpan = filter.radiusKm() / KM_PER_DEGREE;
+            double longitudeSpan = filter.radiusKm()
+                / (KM_PER_DEGREE * Math.max(Math.cos(Math.toRadians(filter.latitude())), 0.01));
+            List<String> keys = new ArrayList<>();
+            for (long row = cell(filter.latitude() - latitudeSpan); row <= cell(filter.latitude() + latitudeSpan); row++) {
+                for (long column = cell(filter.longitude() - longitudeSpan);
+                     column <= cell(filter.longitude() + longitudeSpan); column++) {
+                    keys.add(cellKey(row, column));
+                }
+            }
+            return keys;
+        }
+        if (filter.area() != null) {
+            return List.of(areaKey(filter.area()));
+        }
+        return List.of(ANY);
+    }
+
+    private static String categoryKey(SubscriptionFilter filter) {
+        return filter.category() != null ? filter.category().name() : ANY;
+    }
+
+    private long cell(double degrees) {
+        return (long) Math.floor(degrees / cellSizeDegrees);
+    }
+
+    private static String areaKey(String area) {
+        return "area:" + area.toLowerCase();
+    }
+
+    private static String cellKey(long row, long column) {
+        return "cell:" + row + ":" + column;
+    }
+}
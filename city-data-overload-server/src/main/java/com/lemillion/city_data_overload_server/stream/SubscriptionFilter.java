@@ -0,0 +1,87 @@
+package com.lemillion.city_data_overload_server.stream;
+
+import com.lemillion.city_data_overload_server.model.CityEvent;
+
+/**
+ * What a stream client wants to receive. A location is either an area name or
+ * a latitude/longitude with radius; null fields do not filter. Frames without a location,
+ * category or severity are not filtered on it, so city-wide notices get through. A radius
+ * matches area-only frames through the area centre the broadcaster gives them.
+ */
+public record SubscriptionFilter(String area, Double latitude, Double longitude, Double radiusKm,
+                                 CityEvent.EventCategory category, CityEvent.EventSeverity minSeverity) {
+
+    public static final SubscriptionFilter ALL = new SubscriptionFilter(null, null, null, null, null, null);
+
+    private static final double EARTH_RADIUS_KM = 6371.0;
+
+    /**
+     * Build a filter from request parameters, rejecting values that cannot be parsed
+     */
+    public static SubscriptionFilter of(String area, Double latitude, Double longitude, Double radiusKm,
+                                        String category, String minSeverity) {
+        if ((latitude == null) != (longitude == null)) {
+            throw new IllegalArgumentException("latitude and longitude must be given together");
+        }
+        if (radiusKm != null && radiusKm <= 0) {
+            throw new IllegalArgumentException("radius must be positive");
+        }
+        return new SubscriptionFilter(
+            area != null && !area.isBlank() ? area.trim() : null,
+            latitude,
+            longitude,
+            latitude != null ? radiusKm : null,
+            category != null ? parse(CityEvent.EventCategory.class, category, "category") : null,
+            minSeverity != null ? parse(CityEvent.EventSeverity.class, minSeverity, "min severity") : null);
+    }
+
+    public boolean hasRadius() {
+        return latitude != null && longitude != null;
+    }
+
+    /**
+     * Apply the default radius and cap it, so a client cannot be indexed under the whole city grid
+     */
+    public SubscriptionFilter withRadiusBounds(double defaultRadiusKm, double maxRadiusKm) {
+        if (!hasRadius()) {
+            return this;
+        }
+        double radius = Math.min(radiusKm != null ? radiusKm : defaultRadiusKm, maxRadiusKm);
+        return new SubscriptionFilter(area, latitude, longitude, radius, category, minSeverity);
+    }
+
+    public boolean matches(FrameScope scope) {
+        if (scope.hasLocation()) {
+            if (hasRadius()) {
+                if (!scope.hasCoordinates()
+                        || distanceKm(latitude, longitude, scope.latitude(), scope.longitude()) > radiusKm) {
+                    return false;
+                }
+            } else if (area != null && !area.equalsIgnoreCase(scope.area())) {
+                return false;
+            }
+        }
+        if (category != null && scope.category() != null && category != scope.category()) {
+            return false;
+        }
+        return minSeverity == null || scope.severity() == null
+            || scope.severity().ordinal() >= minSeverity.ordinal();
+    }
+
+    private static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double deltaLat = Math.toRadians(lat2 - lat1);
+        double deltaLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(deltaLat / 2) * Math.sin(deltaLat / 2)
+            + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+            * Math.sin(deltaLon / 2) * Math.sin(deltaLon / 2);
+        return EARTH_RADIUS_KM * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    private static <E extends Enum<E>> E parse(Class<E> type, String value, String name) {
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase().replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown " + name + ": " + value);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.lemillion.city_data_overload_server.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Approximate nearest-neighbour index for cosine similarity.
+ * Each vector is hashed with random hyperplanes into a few bands of sign bits;
+ * vectors sharing any band become candidates, so a lookup only compares against
+ * a small neighbourhood instead of every indexed vector.
+ */
+public final class CosineLshIndex<T> {
+
+    private final int dimensions;
+    private final int bands;
+    private final int bitsPerBand;
+    private final float[][] hyperplanes;
+    private final List<Map<Integer, List<T>>> buckets;
+
+    /**
+     * @param seed fixed seed so the same vectors always hash to the same buckets
+     */
+    public CosineLshIndex(int dimensions, int bands, int bitsPerBand, long seed) {
+        if (bitsPerBand < 1 || bitsPerBand > 31) {
+            throw new IllegalArgumentException("bitsPerBand must be between 1 and 31");
+        }
+        this.dimensions = dimensions;
+        this.bands = bands;
+        this.bitsPerBand = bitsPerBand;
+
+        Random random = new Random(seed);
+        this.hyperplanes = new float[bands * bitsPerBand][dimensions];
+        for (float[] hyperplane : hyperplanes) {
+            for (int i = 0; i < dimensions; i++) {
+                hyperplane[i] = (float) random.nextGaussian();
+            }
+        }
+
+        this.buckets = new ArrayList<>(bands);
+        for (int band = 0; band < bands; band++) {
+            buckets.add(new HashMap<>());
+        }
+    }
+
+    public void add(float[] vector, T item) {
+        int[] signature = signature(vector);
+        for (int band = 0; band < bands; band++) {
+            buckets.get(band).computeIfAbsent(signature[band], ignored -> new ArrayList<>()).add(item);
+        }
+    }
+
+    /**
+     * Items sharing at least one band with the vector, in insertion order
+     */
+    public Set<T> candidates(float[] vector) {
+        int[] signature = signature(vector);
+        Set<T> candidates = new LinkedHashSet<>();
+        for (int band = 0; band < bands; band++) {
+            List<T> bucket = buckets.get(band).get(signature[band]);
+            if (bucket != null) {
+                candidates.addAll(bucket);
+            }
+        }
+        return candidates;
+    }
+
+    private int[] signature(float[] vector) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException(
+                "Expected vector of " + dimensions + " dimensions but got " + vector.length);
+        }
+
+        int[] signature = new int[bands];
+        for (int band = 0; band < bands; band++) {
+            int bits = 0;
+            for (int bit = 0; bit < bitsPerBand; bit++) {
+                float[] hyperplane = hyperplanes[band * bitsPerBand + bit];
+                double dot = 0;
+                for (int i = 0; i < dimensions; i++) {
+                    dot += hyperplane[i] * vector[i];
+                }
+                bits = (bits << 1) | (dot >= 0 ? 1 : 0);
+            }
+            signature[band] = bits;
+        }
+        return signature;
+    }
+}
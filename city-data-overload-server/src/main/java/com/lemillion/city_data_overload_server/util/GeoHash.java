@@ -0,0 +1,200 @@
+package com.lemillion.city_data_overload_server.util;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Geohash encoding helpers used for prefix-indexed location queries.
+ * Geohashes share a prefix when they are spatially close, so a radius lookup
+ * becomes a handful of string range scans over the cells covering the circle.
+ */
+public final class GeoHash {
+
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+    private static final double KM_PER_DEGREE_LAT = 111.32;
+
+    /**
+     * Precision stored on every event document (~4.8m x 4.8m cells)
+     */
+    public static final int STORAGE_PRECISION = 9;
+
+    /**
+     * Upper bound on the range queries a single radius lookup fans out to
+     */
+    static final int MAX_COVERING_CELLS = 36;
+
+    private GeoHash() {
+    }
+
+    /**
+     * Encode a coordinate into a geohash of the given precision
+     */
+    public static String encode(double latitude, double longitude, int precision) {
+        double minLat = -90.0, maxLat = 90.0;
+        double minLon = -180.0, maxLon = 180.0;
+
+        StringBuilder hash = new StringBuilder(precision);
+        boolean evenBit = true;
+        int bit = 0;
+        int ch = 0;
+
+        while (hash.length() < precision) {
+            if (evenBit) {
+                double mid = (minLon + maxLon) / 2;
+                if (longitude >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLon = mid;
+                } else {
+                    ch = ch << 1;
+                    maxLon = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (latitude >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLat = mid;
+                } else {
+                    ch = ch << 1;
+                    maxLat = mid;
+                }
+            }
+            evenBit = !evenBit;
+
+            if (++bit == 5) {
+                hash.append(BASE32.charAt(ch));
+                bit = 0;
+                ch = 0;
+            }
+        }
+
+        return hash.toString();
+    }
+
+    /**
+     * Decode a geohash to the centre of its cell as {latitude, longitude}
+     */
+    public static double[] decodeCenter(String geohash) {
+        double minLat = -90.0, maxLat = 90.0;
+        double minLon = -180.0, maxLon = 180.0;
+        boolean evenBit = true;
+
+        for (int i = 0; i < geohash.length(); i++) {
+            int value = BASE32.indexOf(geohash.charAt(i));
+            if (value < 0) {
+                throw new IllegalArgumentException("Invalid geohash character in: " + geohash);
+            }
+            for (int mask = 16; mask > 0; mask >>= 1) {
+                boolean bitSet = (value & mask) != 0;
+                if (evenBit) {
+                    double mid = (minLon + maxLon) / 2;
+                    if (bitSet) minLon = mid; else maxLon = mid;
+                } else {
+                    double mid = (minLat + maxLat) / 2;
+                    if (bitSet) minLat = mid; else maxLat = mid;
+                }
+                evenBit = !evenBit;
+            }
+        }
+
+        return new double[] { (minLat + maxLat) / 2, (minLon + maxLon) / 2 };
+    }
+
+    /**
+     * Distance from the centre of a cell to its corner, in kilometres
+     */
+    public static double cellHalfDiagonalKm(double latitude, int precision) {
+        double heightKm = cellHeightDegrees(precision) * KM_PER_DEGREE_LAT;
+        double widthKm = cellWidthDegrees(precision) * KM_PER_DEGREE_LAT
+            * Math.max(Math.cos(Math.toRadians(latitude)), 0.01);
+        return Math.sqrt(heightKm * heightKm + widthKm * widthKm) / 2;
+    }
+
+    /**
+     * Get the geohash cells (as prefixes) that together cover a circle.
+     * Picks the finest precision that covers the circle's bounding box in at
+     * most MAX_COVERING_CELLS cells, then drops the cells the circle does not
+     * reach, so the union stays close to the circle itself.
+     */
+    public static Set<String> coveringPrefixes(double latitude, double longitude, double radiusKm) {
+        double latSpan = radiusKm / KM_PER_DEGREE_LAT;
+        double lonSpan = radiusKm / (KM_PER_DEGREE_LAT * Math.max(Math.cos(Math.toRadians(latitude)), 0.01));
+        int precision = precisionForBox(latitude, longitude, latSpan, lonSpan);
+        double latStep = cellHeightDegrees(precision);
+        double lonStep = cellWidthDegrees(precision);
+
+        Set<String> prefixes = new LinkedHashSet<>();
+        long firstRow = row(clampLatitude(latitude - latSpan), latStep);
+        long lastRow = row(clampLatitude(latitude + latSpan), latStep);
+        long firstColumn = column(longitude - lonSpan, lonStep);
+        long lastColumn = column(longitude + lonSpan, lonStep);
+        for (long row = firstRow; row <= lastRow; row++) {
+            double south = -90.0 + row * latStep;
+            for (long column = firstColumn; column <= lastColumn; column++) {
+                double west = -180.0 + column * lonStep;
+                if (distanceToCellKm(latitude, longitude, south, west, latStep, lonStep) <= radiusKm) {
+                    prefixes.add(encode(clampLatitude(south + latStep / 2),
+                        wrapLongitude(west + lonStep / 2), precision));
+                }
+            }
+        }
+        return prefixes;
+    }
+
+    /**
+     * Finest precision whose grid covers the box in at most MAX_COVERING_CELLS cells
+     */
+    static int precisionForBox(double latitude, double longitude, double latSpan, double lonSpan) {
+        for (int precision = STORAGE_PRECISION; precision > 1; precision--) {
+            double latStep = cellHeightDegrees(precision);
+            double lonStep = cellWidthDegrees(precision);
+            long rows = row(clampLatitude(latitude + latSpan), latStep)
+                - row(clampLatitude(latitude - latSpan), latStep) + 1;
+            long columns = column(longitude + lonSpan, lonStep) - column(longitude - lonSpan, lonStep) + 1;
+            if (rows * columns <= MAX_COVERING_CELLS) {
+                return precision;
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * Approximate distance from a point to the nearest point of a cell, in kilometres
+     */
+    private static double distanceToCellKm(double latitude, double longitude,
+                                           double south, double west, double latStep, double lonStep) {
+        double nearestLat = Math.max(south, Math.min(south + latStep, latitude));
+        double nearestLon = Math.max(west, Math.min(west + lonStep, longitude));
+        double dLatKm = (latitude - nearestLat) * KM_PER_DEGREE_LAT;
+        double dLonKm = (longitude - nearestLon) * KM_PER_DEGREE_LAT
+            * Math.max(Math.cos(Math.toRadians(latitude)), 0.01);
+        return Math.sqrt(dLatKm * dLatKm + dLonKm * dLonKm);
+    }
+
+    private static long row(double latitude, double latStep) {
+        return (long) Math.floor((latitude + 90.0) / latStep);
+    }
+
+    private static long column(double longitude, double lonStep) {
+        return (long) Math.floor((longitude + 180.0) / lonStep);
+    }
+
+    private static double cellHeightDegrees(int precision) {
+        int latBits = (precision * 5) / 2;
+        return 180.0 / (1L << latBits);
+    }
+
+    private static double cellWidthDegrees(int precision) {
+        int lonBits = (precision * 5 + 1) / 2;
+        return 360.0 / (1L << lonBits);
+    }
+
+    private static double clampLatitude(double latitude) {
+        return Math.max(-90.0, Math.min(90.0, latitude));
+    }
+
+    private static double wrapLongitude(double longitude) {
+        if (longitude > 180.0) return longitude - 360.0;
+        if (longitude < -180.0) return longitude + 360.0;
+        return longitude;
+    }
+}
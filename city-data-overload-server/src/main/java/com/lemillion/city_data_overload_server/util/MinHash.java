@@ -0,0 +1,97 @@
+package com.lemillion.city_data_overload_server.util;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * MinHash signatures over character shingles.
+ * The fraction of equal positions in two signatures estimates the Jaccard
+ * similarity of the texts' shingle sets, and splitting a signature into bands
+ * gives LSH keys under which similar texts are likely to collide.
+ */
+public final class MinHash {
+
+    private final int shingleLength;
+    private final long[] multipliers;
+    private final long[] increments;
+
+    /**
+     * @param seed fixed seed so signatures stay comparable across restarts and replicas
+     */
+    public MinHash(int numHashes, int shingleLength, long seed) {
+        this.shingleLength = shingleLength;
+        this.multipliers = new long[numHashes];
+        this.increments = new long[numHashes];
+
+        Random random = new Random(seed);
+        for (int i = 0; i < numHashes; i++) {
+            multipliers[i] = random.nextLong() | 1L;
+            increments[i] = random.nextLong();
+        }
+    }
+
+    /**
+     * Signature of the text; texts shorter than one shingle are hashed whole
+     */
+    public int[] signature(String text) {
+        int[] signature = new int[multipliers.length];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+
+        String normalized = text == null ? ""
+            : text.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+        int shingles = Math.max(1, normalized.length() - shingleLength + 1);
+
+        for (int start = 0; start < shingles; start++) {
+            long shingleHash = hash(normalized, start, Math.min(start + shingleLength, normalized.length()));
+            for (int i = 0; i < signature.length; i++) {
+                int value = (int) ((multipliers[i] * shingleHash + increments[i]) >>> 33);
+                if (value < signature[i]) {
+                    signature[i] = value;
+                }
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * LSH key for each band of the signature
+     */
+    public static String[] bandKeys(int[] signature, int bands) {
+        int rows = signature.length / bands;
+        String[] keys = new String[bands];
+        for (int band = 0; band < bands; band++) {
+            int hash = Arrays.hashCode(Arrays.copyOfRange(signature, band * rows, (band + 1) * rows));
+            keys[band] = band + ":" + Integer.toHexString(hash);
+        }
+        return keys;
+    }
+
+    /**
+     * Estimated Jaccard similarity of the texts behind two signatures
+     */
+    public static double similarity(int[] a, int[] b) {
+        if (a.length != b.length || a.length == 0) {
+            return 0.0;
+        }
+        int equal = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / a.length;
+    }
+
+    /**
+     * FNV-1a over a range of characters
+     */
+    private static long hash(String text, int start, int end) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = start; i < end; i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,80 @@
+package com.lemillion.city_data_overload_server.util;
+
+import java.util.Locale;
+
+/**
+ * Local text vectors used when no embedding model is configured.
+ * Character shingles and words are feature-hashed into a fixed number of
+ * dimensions, so near-duplicate texts (reposts, retitled articles) end up with
+ * a high cosine similarity without any remote call.
+ */
+public final class TextVectors {
+
+    private static final int SHINGLE_LENGTH = 3;
+
+    private TextVectors() {
+    }
+
+    /**
+     * Build an L2-normalised hashed shingle vector for the given text
+     */
+    public static float[] shingleVector(String text, int dimensions) {
+        float[] vector = new float[dimensions];
+        if (text == null || text.isBlank()) {
+            return vector;
+        }
+
+        String normalized = text.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+
+        for (String word : normalized.split(" ")) {
+            if (!word.isEmpty()) {
+                addFeature(vector, "w:" + word);
+            }
+        }
+
+        String padded = " " + normalized + " ";
+        for (int i = 0; i + SHINGLE_LENGTH <= padded.length(); i++) {
+            addFeature(vector, padded.substring(i, i + SHINGLE_LENGTH));
+        }
+
+        return normalize(vector);
+    }
+
+    /**
+     * Scale a vector to unit length; a zero vector is returned unchanged
+     */
+    public static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        if (norm == 0) {
+            return vector;
+        }
+
+        float scale = (float) (1.0 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+
+    /**
+     * Cosine similarity of two unit vectors
+     */
+    public static double cosine(float[] a, float[] b) {
+        int length = Math.min(a.length, b.length);
+        double dot = 0;
+        for (int i = 0; i < length; i++) {
+            dot += a[i] * b[i];
+        }
+        return dot;
+    }
+
+    private static void addFeature(float[] vector, String feature) {
+        int hash = feature.hashCode() * 0x9E3779B9;
+        int index = Math.floorMod(hash, vector.length);
+        // The sign bit keeps colliding features from always adding up
+        vector[index] += (hash & 0x80000000) == 0 ? 1f : -1f;
+    }
+}
@@ -0,0 +1,99 @@
+package com.lemillion.city_data_overload_server.agent.handler;
+
+import com.lemillion.city_data_overload_server.agent.AgentRequest;
+import com.lemillion.city_data_overload_server.config.FanOutConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PageDataFanOutTest {
+
+    private FanOutConfig config;
+    private PageDataFanOut fanOut;
+    private final AgentRequest request = AgentRequest.builder().area("Koramangala").build();
+
+    @BeforeEach
+    void createFanOut() {
+        config = new FanOutConfig();
+        config.setHedgeDelay(Duration.ofMillis(50));
+        config.setDefaultBudget(Duration.ofMillis(300));
+        fanOut = new PageDataFanOut(config, new SimpleMeterRegistry());
+        fanOut.initialize();
+    }
+
+    @Test
+    void fastPrimaryWinsAndTheHedgeNeverStarts() throws Exception {
+        AtomicBoolean hedged = new AtomicBoolean();
+
+        String result = fanOut.branch("events", request,
+            () -> CompletableFuture.completedFuture("primary"),
+            () -> {
+                hedged.set(true);
+                return CompletableFuture.completedFuture("hedge");
+            }, "empty").get(1, TimeUnit.SECONDS);
+
+        Thread.sleep(config.getHedgeDelay().toMillis() * 2);
+        assertThat(result).isEqualTo("primary");
+        assertThat(hedged).isFalse();
+    }
+
+    @Test
+    void slowPrimaryIsHedgedAfterTheHedgeDelay() throws Exception {
+        long start = System.nanoTime();
+
+        String result = fanOut.branch("events", request,
+            CompletableFuture::new,
+            () -> CompletableFuture.completedFuture("hedge"), "empty").get(1, TimeUnit.SECONDS);
+
+        assertThat(result).isEqualTo("hedge");
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+            .isGreaterThanOrEqualTo(config.getHedgeDelay().toMillis());
+    }
+
+    @Test
+    void failedPrimaryStartsTheHedgeWithoutWaitingForTheDelay() throws Exception {
+        config.setHedgeDelay(Duration.ofSeconds(10));
+
+        String result = fanOut.branch("events", request,
+            () -> CompletableFuture.failedFuture(new IllegalStateException("down")),
+            () -> CompletableFuture.completedFuture("hedge"), "empty").get(1, TimeUnit.SECONDS);
+
+        assertThat(result).isEqualTo("hedge");
+    }
+
+    @Test
+    void branchWithNothingByItsBudgetFallsBackToTheLastGoodResultThenEmpty() throws Exception {
+        String withoutHistory = fanOut.branch("events", request,
+            CompletableFuture::new, CompletableFuture::new, "empty").get(1, TimeUnit.SECONDS);
+        assertThat(withoutHistory).isEqualTo("empty");
+
+        fanOut.branch("events", request, () -> CompletableFuture.completedFuture("earlier"), null, "empty")
+            .get(1, TimeUnit.SECONDS);
+        long start = System.nanoTime();
+        String withHistory = fanOut.branch("events", request,
+            CompletableFuture::new, CompletableFuture::new, "empty").get(1, TimeUnit.SECONDS);
+
+        assertThat(withHistory).isEqualTo("earlier");
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+            .isGreaterThanOrEqualTo(config.getDefaultBudget().toMillis() - 10);
+    }
+
+    @Test
+    void failedPrimaryAndHedgeFallBackBeforeTheBudget() throws Exception {
+        config.setDefaultBudget(Duration.ofSeconds(10));
+
+        String result = fanOut.branch("events", request,
+            () -> CompletableFuture.failedFuture(new IllegalStateException("down")),
+            () -> CompletableFuture.failedFuture(new IllegalStateException("cache down")), "empty")
+            .get(1, TimeUnit.SECONDS);
+
+        assertThat(result).isEqualTo("empty");
+    }
+}
@@ -0,0 +1,76 @@
+package com.lemillion.city_data_overload_server.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RequestCoalescerTest {
+
+    private final RequestCoalescer coalescer =
+        new RequestCoalescer(new SimpleMeterRegistry(), 100, Duration.ofMinutes(5));
+
+    @Test
+    void identicalCallersShareOneInFlightLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CompletableFuture<String> backend = new CompletableFuture<>();
+
+        CompletableFuture<String> leader = coalescer.execute("events", "area:Koramangala", () -> {
+            loads.incrementAndGet();
+            return backend;
+        });
+        CompletableFuture<String> joined = coalescer.execute("events", "area:Koramangala", () -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture("duplicate");
+        });
+        assertThat(coalescer.getInFlightCount()).isEqualTo(1);
+
+        backend.complete("events");
+        assertThat(leader.get(1, TimeUnit.SECONDS)).isEqualTo("events");
+        assertThat(joined.get(1, TimeUnit.SECONDS)).isEqualTo("events");
+        assertThat(loads).hasValue(1);
+        assertThat(coalescer.getInFlightCount()).isZero();
+        assertThat(coalescer.getTopJoinedKeys(10)).containsEntry("events:area:Koramangala", 1L);
+    }
+
+    @Test
+    void cancellingOneCallerLeavesTheOthersWaiting() throws Exception {
+        CompletableFuture<String> backend = new CompletableFuture<>();
+        CompletableFuture<String> leader = coalescer.execute("events", "key", () -> backend);
+        CompletableFuture<String> joined = coalescer.execute("events", "key", () -> backend);
+
+        leader.cancel(true);
+        backend.complete("events");
+
+        assertThat(joined.get(1, TimeUnit.SECONDS)).isEqualTo("events");
+    }
+
+    @Test
+    void failureReachesEveryCallerAndIsNotRemembered() throws Exception {
+        CompletableFuture<String> backend = new CompletableFuture<>();
+        CompletableFuture<String> leader = coalescer.execute("events", "key", () -> backend);
+        CompletableFuture<String> joined = coalescer.execute("events", "key", () -> backend);
+
+        backend.completeExceptionally(new IllegalStateException("Firestore unavailable"));
+        assertThatThrownBy(() -> leader.get(1, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+        assertThatThrownBy(() -> joined.get(1, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+
+        CompletableFuture<String> retry =
+            coalescer.execute("events", "key", () -> CompletableFuture.completedFuture("recovered"));
+        assertThat(retry.get(1, TimeUnit.SECONDS)).isEqualTo("recovered");
+    }
+
+    @Test
+    void blockingLoadRethrowsTheLoaderException() {
+        assertThatThrownBy(() -> coalescer.executeBlocking("bigquery", "key", () -> {
+            throw new IllegalStateException("query failed");
+        })).isInstanceOf(IllegalStateException.class).hasMessage("query failed");
+    }
+}
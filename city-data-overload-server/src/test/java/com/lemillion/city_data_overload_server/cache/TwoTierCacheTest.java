@@ -0,0 +1,83 @@
+package com.lemillion.city_data_overload_server.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TwoTierCacheTest {
+
+    private final Cache l2 = new ConcurrentMapCache("events");
+    private final List<String> published = new ArrayList<>();
+    private final TwoTierCache cache = new TwoTierCache("events", Caffeine.newBuilder().build(), l2,
+        new CacheInvalidationPublisher() {
+            @Override
+            public void publishEvict(String cacheName, String key) {
+                published.add("evict:" + cacheName + ":" + key);
+            }
+
+            @Override
+            public void publishClear(String cacheName) {
+                published.add("clear:" + cacheName);
+            }
+        });
+
+    @Test
+    void remoteHitIsKeptInL1() {
+        l2.put("area:Koramangala", "events");
+
+        assertThat(cache.get("area:Koramangala", String.class)).isEqualTo("events");
+        l2.evict("area:Koramangala");
+
+        assertThat(cache.get("area:Koramangala", String.class)).isEqualTo("events");
+        assertThat(cache.getLocalSize()).isEqualTo(1);
+    }
+
+    @Test
+    void writesReachBothTiersAndAreBroadcast() {
+        cache.put("area:Koramangala", "events");
+
+        assertThat(l2.get("area:Koramangala", String.class)).isEqualTo("events");
+        assertThat(cache.getLocalSize()).isEqualTo(1);
+        assertThat(published).containsExactly("evict:events:area:Koramangala");
+
+        cache.evict("area:Koramangala");
+
+        assertThat(l2.get("area:Koramangala")).isNull();
+        assertThat(cache.get("area:Koramangala")).isNull();
+        assertThat(published).hasSize(2);
+    }
+
+    @Test
+    void loadedValueIsServedFromL1Afterwards() throws Exception {
+        String loaded = cache.retrieve("area:Koramangala",
+            () -> CompletableFuture.completedFuture("events")).get(1, TimeUnit.SECONDS);
+        assertThat(loaded).isEqualTo("events");
+
+        l2.clear();
+        String cached = cache.retrieve("area:Koramangala",
+            () -> CompletableFuture.completedFuture("reloaded")).get(1, TimeUnit.SECONDS);
+        assertThat(cached).isEqualTo("events");
+    }
+
+    @Test
+    void remoteInvalidationDropsOnlyTheLocalCopy() {
+        cache.put("area:Koramangala", "events");
+        cache.put("area:Whitefield", "events");
+
+        cache.evictLocal("area:Koramangala");
+        assertThat(cache.getLocalSize()).isEqualTo(1);
+        assertThat(l2.get("area:Koramangala")).isNotNull();
+
+        cache.clearLocal();
+        assertThat(cache.getLocalSize()).isZero();
+        assertThat(l2.get("area:Whitefield")).isNotNull();
+    }
+}
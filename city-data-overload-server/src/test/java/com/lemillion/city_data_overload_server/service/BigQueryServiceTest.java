@@ -0,0 +1,89 @@
+package com.lemillion.city_data_overload_server.service;
+
+import com.google.cloud.bigquery.QueryParameterValue;
+import com.lemillion.city_data_overload_server.model.CityEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BigQueryServiceTest {
+
+    private static final String QUERY = """
+        SELECT category, COUNT(*) AS event_count
+        FROM events
+        WHERE category = @category AND timestamp >= @since
+        GROUP BY category
+        """;
+
+    private BigQueryService service;
+
+    @BeforeEach
+    void createService() {
+        service = new BigQueryService(null, null, null, null, null);
+        ReflectionTestUtils.setField(service, "sinceBucket", Duration.ofMinutes(5));
+    }
+
+    @Test
+    void windowStartsInTheSameBucketShareACacheKey() {
+        String early = cacheKey(QUERY, parameters("TRAFFIC", LocalDateTime.of(2026, 10, 15, 10, 0, 1)));
+        String late = cacheKey(QUERY, parameters("TRAFFIC", LocalDateTime.of(2026, 10, 15, 10, 4, 59)));
+        String nextBucket = cacheKey(QUERY, parameters("TRAFFIC", LocalDateTime.of(2026, 10, 15, 10, 5, 0)));
+
+        assertThat(late).isEqualTo(early);
+        assertThat(nextBucket).isNotEqualTo(early);
+    }
+
+    @Test
+    void cacheKeyIgnoresTemplateWhitespaceButNotParameters() {
+        LocalDateTime since = LocalDateTime.of(2026, 10, 15, 10, 0);
+        String key = cacheKey(QUERY, parameters("TRAFFIC", since));
+
+        assertThat(cacheKey(QUERY.replace("\n", "\n    "), parameters("TRAFFIC", since))).isEqualTo(key);
+        assertThat(cacheKey(QUERY, parameters("WEATHER", since))).isNotEqualTo(key);
+    }
+
+    @Test
+    void staleKeySeparatesLookBackWindows() {
+        Map<String, QueryParameterValue> lastWeek = ReflectionTestUtils.invokeMethod(
+            service, "patternParameters", CityEvent.EventCategory.TRAFFIC, 7);
+        Map<String, QueryParameterValue> lastMonth = ReflectionTestUtils.invokeMethod(
+            service, "patternParameters", CityEvent.EventCategory.TRAFFIC, 30);
+
+        assertThat(staleKey(QUERY, lastWeek)).isNotEqualTo(staleKey(QUERY, lastMonth));
+        assertThat(staleKey(QUERY, lastWeek)).endsWith("since=now-" + Duration.ofDays(7));
+        assertThat(staleKey(QUERY, lastMonth)).endsWith("since=now-" + Duration.ofDays(30));
+    }
+
+    @Test
+    void staleKeyForAnArbitrarySinceIsItsLengthInWholeBuckets() {
+        LocalDateTime now = LocalDateTime.now();
+
+        assertThat(staleKey(QUERY, parameters("TRAFFIC", now.minusHours(24))))
+            .endsWith("since=now-" + Duration.ofHours(24));
+        assertThat(staleKey(QUERY, parameters("TRAFFIC", now.minusHours(1))))
+            .endsWith("since=now-" + Duration.ofHours(1));
+    }
+
+    private Map<String, QueryParameterValue> parameters(String category, LocalDateTime since) {
+        LocalDateTime bucketed = ReflectionTestUtils.invokeMethod(service, "bucketStart", since);
+        Map<String, QueryParameterValue> parameters = new LinkedHashMap<>();
+        parameters.put("category", QueryParameterValue.string(category));
+        parameters.put("since", ReflectionTestUtils.invokeMethod(service, "timestampParameter", bucketed));
+        return parameters;
+    }
+
+    private String cacheKey(String query, Map<String, QueryParameterValue> parameters) {
+        return ReflectionTestUtils.invokeMethod(service, "queryCacheKey", query, parameters, true);
+    }
+
+    private String staleKey(String query, Map<String, QueryParameterValue> parameters) {
+        return ReflectionTestUtils.invokeMethod(service, "queryCacheKey", query, parameters, false);
+    }
+}
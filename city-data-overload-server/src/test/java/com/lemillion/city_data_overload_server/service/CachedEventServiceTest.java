@@ -0,0 +1,199 @@
+package com.lemillion.city_data_overload_server.service;
+
+import com.lemillion.city_data_overload_server.cache.CacheDependencyIndex;
+import com.lemillion.city_data_overload_server.cache.LocationTileResolver;
+import com.lemillion.city_data_overload_server.cache.RequestCoalescer;
+import com.lemillion.city_data_overload_server.model.CityEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisSetCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CachedEventServiceTest {
+
+    private static final double KORAMANGALA_LAT = 12.9352;
+    private static final double KORAMANGALA_LON = 77.6245;
+    private static final double MYSURU_LAT = 12.2958;
+    private static final double MYSURU_LON = 76.6394;
+
+    private final Map<String, Set<String>> redisSets = new ConcurrentHashMap<>();
+    private final CacheManager cacheManager =
+        new ConcurrentMapCacheManager("locationEvents", "events", "trending", "areaStats");
+    private final FirestoreService firestoreService = mock(FirestoreService.class);
+    private LocationTileResolver tileResolver;
+    private CachedEventService service;
+
+    @BeforeEach
+    void createService() {
+        when(firestoreService.getEventsByLocation(anyDouble(), anyDouble(), anyDouble(), anyInt()))
+            .thenAnswer(invocation -> CompletableFuture.completedFuture(new ArrayList<CityEvent>()));
+        when(firestoreService.getRecentEventsByArea(anyString(), anyInt()))
+            .thenAnswer(invocation -> CompletableFuture.completedFuture(new ArrayList<CityEvent>()));
+        when(firestoreService.getEventsByCategoryAndSeverity(any(), any(), anyInt()))
+            .thenAnswer(invocation -> CompletableFuture.completedFuture(new ArrayList<CityEvent>()));
+        when(firestoreService.storeCityEvent(any()))
+            .thenAnswer(invocation -> CompletableFuture.completedFuture("event-1"));
+
+        CacheDependencyIndex index = new CacheDependencyIndex(inMemoryRedis(), cacheManager);
+        ReflectionTestUtils.setField(index, "keyPrefix", "cache:deps:");
+        ReflectionTestUtils.setField(index, "ttl", Duration.ofHours(1));
+
+        tileResolver = new LocationTileResolver();
+        ReflectionTestUtils.setField(tileResolver, "precision", 6);
+        ReflectionTestUtils.setField(tileResolver, "radiusClassesKm", List.of(0.5, 1.0, 2.0, 5.0, 10.0, 25.0, 50.0));
+        ReflectionTestUtils.setField(tileResolver, "maxResultsClasses", List.of(20, 50, 100, 200, 500));
+
+        service = new CachedEventService(firestoreService, null, null, cacheManager, tileResolver, index,
+            new RequestCoalescer(new SimpleMeterRegistry(), 100, Duration.ofMinutes(5)));
+    }
+
+    @Test
+    void storedEventEvictsOnlyTheEntriesItCanAffect() throws Exception {
+        service.getEventsByLocation(KORAMANGALA_LAT, KORAMANGALA_LON, 2, 20).get(1, TimeUnit.SECONDS);
+        service.getEventsByLocation(MYSURU_LAT, MYSURU_LON, 2, 20).get(1, TimeUnit.SECONDS);
+        service.getRecentEventsByArea("Koramangala", 20).get(1, TimeUnit.SECONDS);
+        service.getRecentEventsByArea("Whitefield", 20).get(1, TimeUnit.SECONDS);
+        service.getEventsByCategoryAndSeverity(
+            CityEvent.EventCategory.TRAFFIC, CityEvent.EventSeverity.HIGH, 20).get(1, TimeUnit.SECONDS);
+        service.getEventsByCategoryAndSeverity(
+            CityEvent.EventCategory.TRAFFIC, CityEvent.EventSeverity.LOW, 20).get(1, TimeUnit.SECONDS);
+
+        String koramangalaTile = tileResolver.resolve(KORAMANGALA_LAT, KORAMANGALA_LON, 2, 20).cacheKey();
+        String mysuruTile = tileResolver.resolve(MYSURU_LAT, MYSURU_LON, 2, 20).cacheKey();
+        Cache locationEvents = cacheManager.getCache("locationEvents");
+        Cache events = cacheManager.getCache("events");
+        assertThat(locationEvents.get(koramangalaTile)).isNotNull();
+        assertThat(locationEvents.get("area:Koramangala:n20")).isNotNull();
+        assertThat(events.get("category:TRAFFIC:HIGH:n20")).isNotNull();
+
+        service.storeCityEvent(CityEvent.builder()
+            .id("event-1")
+            .category(CityEvent.EventCategory.TRAFFIC)
+            .severity(CityEvent.EventSeverity.HIGH)
+            .location(CityEvent.LocationData.builder()
+                .latitude(KORAMANGALA_LAT + 0.001)
+                .longitude(KORAMANGALA_LON + 0.001)
+                .area("Koramangala")
+                .build())
+            .build()).get(1, TimeUnit.SECONDS);
+
+        assertThat(locationEvents.get(koramangalaTile)).isNull();
+        assertThat(locationEvents.get("area:Koramangala:n20")).isNull();
+        assertThat(events.get("category:TRAFFIC:HIGH:n20")).isNull();
+
+        assertThat(locationEvents.get(mysuruTile)).isNotNull();
+        assertThat(locationEvents.get("area:Whitefield:n20")).isNotNull();
+        assertThat(events.get("category:TRAFFIC:LOW:n20")).isNotNull();
+    }
+
+    @Test
+    void cachedListsAreSharedReadOnly() throws Exception {
+        List<CityEvent> first = service.getRecentEventsByArea("Koramangala", 20).get(1, TimeUnit.SECONDS);
+        List<CityEvent> second = service.getRecentEventsByArea("Koramangala", 20).get(1, TimeUnit.SECONDS);
+
+        assertThat(second).isEqualTo(first);
+        assertThatThrownBy(() -> second.add(CityEvent.builder().id("event-2").build()))
+            .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void circleFallbackForAFullTileIsCached() throws Exception {
+        when(firestoreService.getEventsByLocation(anyDouble(), anyDouble(), anyDouble(), anyInt()))
+            .thenAnswer(invocation -> CompletableFuture.completedFuture(eventsInMysuru(invocation.getArgument(3))));
+
+        service.getEventsByLocation(KORAMANGALA_LAT, KORAMANGALA_LON, 2, 20).get(1, TimeUnit.SECONDS);
+        service.getEventsByLocation(KORAMANGALA_LAT, KORAMANGALA_LON, 2, 20).get(1, TimeUnit.SECONDS);
+
+        verify(firestoreService, times(1)).getEventsByLocation(KORAMANGALA_LAT, KORAMANGALA_LON, 2, 20);
+        assertThat(cacheManager.getCache("locationEvents")
+            .get("circle:" + KORAMANGALA_LAT + ":" + KORAMANGALA_LON + ":r2.0:n20")).isNotNull();
+    }
+
+    private static List<CityEvent> eventsInMysuru(int count) {
+        List<CityEvent> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            events.add(CityEvent.builder()
+                .id("mysuru-" + i)
+                .location(CityEvent.LocationData.builder().latitude(MYSURU_LAT).longitude(MYSURU_LON).build())
+                .build());
+        }
+        return events;
+    }
+
+    /**
+     * Template whose set commands run against an in-memory map
+     */
+    @SuppressWarnings("unchecked")
+    private StringRedisTemplate inMemoryRedis() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        SetOperations<String, String> setOperations = mock(SetOperations.class);
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+
+        when(setOperations.add(anyString(), any(String[].class))).thenAnswer(invocation -> {
+            String[] members = (String[]) invocation.getRawArguments()[1];
+            redisSets.computeIfAbsent(invocation.getArgument(0), key -> ConcurrentHashMap.newKeySet())
+                .addAll(List.of(members));
+            return (long) members.length;
+        });
+        when(setOperations.union(anyCollection())).thenAnswer(invocation -> {
+            Set<String> union = ConcurrentHashMap.newKeySet();
+            for (String key : (Collection<String>) invocation.getArgument(0)) {
+                union.addAll(redisSets.getOrDefault(key, Set.of()));
+            }
+            return union;
+        });
+        when(redisTemplate.delete(anyCollection())).thenAnswer(invocation -> {
+            ((Collection<String>) invocation.getArgument(0)).forEach(redisSets::remove);
+            return 1L;
+        });
+        List<Object> pipelineResults = new ArrayList<>();
+        RedisConnection connection = mock(RedisConnection.class);
+        RedisSetCommands setCommands = mock(RedisSetCommands.class);
+        when(connection.setCommands()).thenReturn(setCommands);
+        when(setCommands.sIsMember(any(byte[].class), any(byte[].class))).thenAnswer(invocation -> {
+            String key = new String((byte[]) invocation.getArgument(0), StandardCharsets.UTF_8);
+            String member = new String((byte[]) invocation.getArgument(1), StandardCharsets.UTF_8);
+            pipelineResults.add(redisSets.getOrDefault(key, Set.of()).contains(member));
+            return null;
+        });
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            synchronized (pipelineResults) {
+                pipelineResults.clear();
+                ((RedisCallback<Object>) invocation.getArgument(0)).doInRedis(connection);
+                return new ArrayList<>(pipelineResults);
+            }
+        });
+        return redisTemplate;
+    }
+}
@@ -0,0 +1,119 @@
+package com.lemillion.city_data_overload_server.service;
+
+import com.lemillion.city_data_overload_server.config.SerpApiConfig;
+import com.lemillion.city_data_overload_server.model.CityEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EventDeduplicationServiceTest {
+
+    private static final CityEvent HEADLINE =
+        event("1", "Heavy traffic jam on Outer Ring Road near Bellandur after rain");
+    private static final CityEvent REWORDED =
+        event("2", "Heavy traffic jam on Outer Ring Road near Bellandur after heavy rain");
+    private static final CityEvent UNRELATED =
+        event("3", "Water supply cut in Jayanagar on Sunday for pipeline maintenance");
+    private static final CityEvent UNTITLED = event("4", null);
+
+    private final Map<String, String> redisValues = new HashMap<>();
+    private final Map<String, Set<String>> redisSets = new HashMap<>();
+
+    @Test
+    void nearDuplicatesWithinABatchAreDroppedAndOrderIsKept() {
+        EventDeduplicationService service = createService(inMemoryRedis());
+
+        assertThat(service.removeDuplicates(List.of(HEADLINE, UNTITLED, REWORDED, UNRELATED)))
+            .containsExactly(HEADLINE, UNTITLED, UNRELATED);
+    }
+
+    @Test
+    void articlesKeptByAnEarlierRunAreDropped() {
+        EventDeduplicationService service = createService(inMemoryRedis());
+
+        assertThat(service.removeDuplicates(List.of(HEADLINE))).containsExactly(HEADLINE);
+        assertThat(service.removeDuplicates(List.of(REWORDED, UNRELATED))).containsExactly(UNRELATED);
+    }
+
+    @Test
+    void withoutTheSignatureStoreOnlyBatchDuplicatesAreDropped() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        when(redisTemplate.executePipelined(any(SessionCallback.class)))
+            .thenThrow(new RedisConnectionFailureException("down"));
+        EventDeduplicationService service = createService(redisTemplate);
+
+        assertThat(service.removeDuplicates(List.of(HEADLINE, REWORDED))).containsExactly(HEADLINE);
+        assertThat(service.removeDuplicates(List.of(REWORDED))).containsExactly(REWORDED);
+    }
+
+    private EventDeduplicationService createService(StringRedisTemplate redisTemplate) {
+        EventDeduplicationService service =
+            new EventDeduplicationService(new SerpApiConfig(), redisTemplate, new SimpleMeterRegistry());
+        service.initialize();
+        return service;
+    }
+
+    private static CityEvent event(String id, String title) {
+        return CityEvent.builder().id(id).title(title).build();
+    }
+
+    /**
+     * Template whose pipelined set and value commands run against in-memory maps
+     */
+    @SuppressWarnings("unchecked")
+    private StringRedisTemplate inMemoryRedis() {
+        List<Object> pipelineResults = new ArrayList<>();
+        RedisOperations<String, String> pipeline = mock(RedisOperations.class);
+        ValueOperations<String, String> pipelineValues = mock(ValueOperations.class);
+        SetOperations<String, String> pipelineSets = mock(SetOperations.class);
+        when(pipeline.opsForValue()).thenReturn(pipelineValues);
+        when(pipeline.opsForSet()).thenReturn(pipelineSets);
+
+        when(pipelineSets.members(anyString())).thenAnswer(invocation -> {
+            pipelineResults.add(new HashSet<>(redisSets.getOrDefault(invocation.getArgument(0), Set.of())));
+            return null;
+        });
+        when(pipelineSets.add(anyString(), any(String[].class))).thenAnswer(invocation -> {
+            String[] members = (String[]) invocation.getRawArguments()[1];
+            redisSets.computeIfAbsent(invocation.getArgument(0), key -> new HashSet<>()).addAll(List.of(members));
+            return null;
+        });
+        doAnswer(invocation -> redisValues.put(invocation.getArgument(0), invocation.getArgument(1)))
+            .when(pipelineValues).set(anyString(), anyString(), any(Duration.class));
+
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenAnswer(invocation -> {
+            pipelineResults.clear();
+            ((SessionCallback<Object>) invocation.getArgument(0)).execute(pipeline);
+            return new ArrayList<>(pipelineResults);
+        });
+
+        ValueOperations<String, String> values = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(values);
+        when(values.multiGet(anyCollection())).thenAnswer(invocation ->
+            ((Collection<String>) invocation.getArgument(0)).stream().map(redisValues::get).toList());
+        return redisTemplate;
+    }
+}
@@ -0,0 +1,126 @@
+package com.lemillion.city_data_overload_server.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class VertexAiExecutorTest {
+
+    private VertexAiExecutor executor;
+
+    @AfterEach
+    void stopExecutor() {
+        executor.stop();
+    }
+
+    @Test
+    void fullQueueShedsTheNewestLowerPriorityCall() throws Exception {
+        executor = start(1, 2, 0, 1);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> blocker = executor.supplyAsync(VertexAiPriority.BACKGROUND,
+            () -> await(release, order, "blocker"));
+        awaitInFlight(1);
+
+        CompletableFuture<String> olderBackground = executor.supplyAsync(VertexAiPriority.BACKGROUND,
+            () -> record(order, "older-background"));
+        CompletableFuture<String> newerBackground = executor.supplyAsync(VertexAiPriority.BACKGROUND,
+            () -> record(order, "newer-background"));
+        CompletableFuture<String> emergency = executor.supplyAsync(VertexAiPriority.EMERGENCY,
+            () -> record(order, "emergency"));
+
+        assertThatThrownBy(() -> newerBackground.get(1, TimeUnit.SECONDS))
+            .isInstanceOf(ExecutionException.class)
+            .hasCauseInstanceOf(RejectedExecutionException.class);
+        assertThat(olderBackground).isNotDone();
+
+        release.countDown();
+        CompletableFuture.allOf(blocker, olderBackground, emergency).get(5, TimeUnit.SECONDS);
+        assertThat(order).containsExactly("blocker", "emergency", "older-background");
+    }
+
+    @Test
+    void fullQueueRejectsCallsWithNothingLowerToShed() throws Exception {
+        executor = start(1, 1, 0, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        executor.supplyAsync(VertexAiPriority.INTERACTIVE, () -> await(release, order, "blocker"));
+        awaitInFlight(1);
+        CompletableFuture<String> queued = executor.supplyAsync(VertexAiPriority.EMERGENCY,
+            () -> record(order, "queued"));
+
+        CompletableFuture<String> background = executor.supplyAsync(VertexAiPriority.BACKGROUND,
+            () -> record(order, "background"));
+        CompletableFuture<String> interactive = executor.supplyAsync(VertexAiPriority.INTERACTIVE,
+            () -> record(order, "interactive"));
+
+        assertThat(background).isCompletedExceptionally();
+        assertThat(interactive).isCompletedExceptionally();
+        release.countDown();
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("queued");
+    }
+
+    @Test
+    void tokenBucketAdmitsTheBurstAndThenPacesCallsToTheRate() throws Exception {
+        executor = start(4, 10, 10, 2);
+        long start = System.nanoTime();
+        List<CompletableFuture<Long>> calls = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            calls.add(executor.supplyAsync(VertexAiPriority.INTERACTIVE, System::nanoTime));
+        }
+        CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+        List<Long> startedAfterMillis = calls.stream()
+            .map(call -> TimeUnit.NANOSECONDS.toMillis(call.join() - start))
+            .sorted()
+            .toList();
+        // Two tokens in the bucket, then one every 100ms; only lower bounds, so a slow machine cannot fail it
+        assertThat(startedAfterMillis.get(2)).isGreaterThanOrEqualTo(80);
+        assertThat(startedAfterMillis.get(3)).isGreaterThanOrEqualTo(180);
+    }
+
+    private static VertexAiExecutor start(int poolSize, int queueCapacity, double ratePerSecond, int burst) {
+        VertexAiExecutor executor = new VertexAiExecutor(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(executor, "poolSize", poolSize);
+        ReflectionTestUtils.setField(executor, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(executor, "ratePerSecond", ratePerSecond);
+        ReflectionTestUtils.setField(executor, "burst", burst);
+        executor.start();
+        return executor;
+    }
+
+    private void awaitInFlight(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executor.getInFlightCount() < count) {
+            assertThat(System.nanoTime()).as("timed out waiting for a worker").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    private static String await(CountDownLatch latch, List<String> order, String name) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return record(order, name);
+    }
+
+    private static String record(List<String> order, String name) {
+        order.add(name);
+        return name;
+    }
+}
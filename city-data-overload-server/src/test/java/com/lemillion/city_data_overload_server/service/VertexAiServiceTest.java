@@ -0,0 +1,55 @@
+package com.lemillion.city_data_overload_server.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class VertexAiServiceTest {
+
+    private final VertexAiService service =
+        new VertexAiService(null, null, null, null, null, null, null, null, null);
+
+    @Test
+    void eventAnalysisReadsEveryField() {
+        Map<String, Object> result = parseEventAnalysis("""
+            Here you go: {"category": "TRAFFIC", "severity": "HIGH", "title": "Jam on ORR",
+            "summary": "Slow traffic near Bellandur", "confidence": 0.9, "keywords": ["jam", "orr"]}
+            """);
+
+        assertThat(result)
+            .containsEntry("category", "TRAFFIC")
+            .containsEntry("severity", "HIGH")
+            .containsEntry("title", "Jam on ORR")
+            .containsEntry("summary", "Slow traffic near Bellandur")
+            .containsEntry("confidence", 0.9)
+            .containsKey("keywords");
+    }
+
+    @Test
+    void missingOrUnreadableFieldsFallBackToDefaults() {
+        Map<String, Object> result = parseEventAnalysis("""
+            {"severity": "MODERATE", "confidence": "high"}
+            """);
+
+        assertThat(result)
+            .containsEntry("category", "COMMUNITY")
+            .containsEntry("severity", "MODERATE")
+            .containsEntry("title", "City Event")
+            .containsEntry("confidence", 0.5)
+            .doesNotContainKey("summary");
+    }
+
+    @Test
+    void responseWithoutJsonIsRejected() {
+        assertThatThrownBy(() -> parseEventAnalysis("I could not categorize this event."))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private Map<String, Object> parseEventAnalysis(String response) {
+        return ReflectionTestUtils.invokeMethod(service, "parseEventAnalysisResponse", response);
+    }
+}
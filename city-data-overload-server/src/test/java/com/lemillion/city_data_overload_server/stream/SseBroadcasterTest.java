@@ -0,0 +1,190 @@
+package com.lemillion.city_data_overload_server.stream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lemillion.city_data_overload_server.config.BengaluruConfig;
+import com.lemillion.city_data_overload_server.config.EventStreamConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SseBroadcasterTest {
+
+    private SseBroadcaster broadcaster;
+
+    @BeforeEach
+    void startBroadcaster() {
+        EventStreamConfig config = new EventStreamConfig();
+        config.setQueueCapacity(2000);
+        config.setWriterThreads(4);
+
+        BengaluruConfig.AreaConfig koramangala = new BengaluruConfig.AreaConfig();
+        koramangala.setName("Koramangala");
+        koramangala.getCoordinates().setLat(12.9279);
+        koramangala.getCoordinates().setLng(77.6271);
+        BengaluruConfig bengaluruConfig = new BengaluruConfig();
+        bengaluruConfig.setAreas(List.of(koramangala));
+
+        broadcaster = new SseBroadcaster(config, bengaluruConfig, new SseFrameEncoder(new ObjectMapper()),
+            new SimpleMeterRegistry());
+        broadcaster.start();
+    }
+
+    @AfterEach
+    void stopBroadcaster() {
+        broadcaster.stop();
+    }
+
+    @Test
+    void everySubscriberGetsFramesInIdOrderFromOneWriterAtATime() {
+        List<RecordingEmitter> emitters = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            RecordingEmitter emitter = new RecordingEmitter();
+            broadcaster.subscribe("events", emitter, SubscriptionFilter.ALL, greeting(), null);
+            emitters.add(emitter);
+        }
+
+        int frameCount = 1000;
+        for (int i = 0; i < frameCount; i++) {
+            assertThat(broadcaster.publish(new SseFrame("events", "tick", Map.of("n", i), null))).isTrue();
+        }
+
+        for (RecordingEmitter emitter : emitters) {
+            awaitUntil(() -> emitter.frames.size() == frameCount + 1);
+            List<Long> ids = emitter.ids();
+            assertThat(ids).hasSize(frameCount);
+            for (int i = 1; i < ids.size(); i++) {
+                assertThat(ids.get(i)).isEqualTo(ids.get(i - 1) + 1);
+            }
+            assertThat(emitter.overlapped).as("concurrent writes to one emitter").isFalse();
+        }
+    }
+
+    @Test
+    void unsequencedFramesCarryNoIdAndAreNotReplayed() {
+        RecordingEmitter live = new RecordingEmitter();
+        broadcaster.subscribe("events", live, SubscriptionFilter.ALL, greeting(), null);
+
+        broadcaster.publish(new SseFrame("events", "tick", Map.of("n", 1), null));
+        broadcaster.publishUnsequenced(new SseFrame("events", "tick", Map.of("n", 2), null));
+        broadcaster.publish(new SseFrame("events", "tick", Map.of("n", 3), null));
+        awaitUntil(() -> live.frames.size() == 4);
+
+        List<Long> ids = live.ids();
+        assertThat(ids).hasSize(2);
+        assertThat(ids.get(1)).isEqualTo(ids.get(0) + 1);
+        assertThat(live.frames.get(2)).doesNotContain("id:").contains("\"n\":2");
+
+        RecordingEmitter resumed = new RecordingEmitter();
+        broadcaster.subscribe("events", resumed, SubscriptionFilter.ALL, greeting(), String.valueOf(ids.get(0) - 1));
+        awaitUntil(() -> resumed.frames.size() == 3);
+        assertThat(resumed.ids()).isEqualTo(ids);
+    }
+
+    @Test
+    void resumingClientIsSentOnlyTheFramesItMissed() {
+        RecordingEmitter live = new RecordingEmitter();
+        broadcaster.subscribe("events", live, SubscriptionFilter.ALL, greeting(), null);
+        for (int i = 0; i < 5; i++) {
+            broadcaster.publish(new SseFrame("events", "tick", Map.of("n", i), null));
+        }
+        awaitUntil(() -> live.frames.size() == 6);
+        List<Long> ids = live.ids();
+
+        RecordingEmitter resumed = new RecordingEmitter();
+        broadcaster.subscribe("events", resumed, SubscriptionFilter.ALL, greeting(), String.valueOf(ids.get(1)));
+        awaitUntil(() -> resumed.frames.size() == 4);
+
+        assertThat(resumed.ids()).isEqualTo(ids.subList(2, 5));
+    }
+
+    @Test
+    void resumingFromFramesNoLongerBufferedIsToldToResync() {
+        long beforeFirstFrame = broadcaster.getLastFrameId() - 1;
+        broadcaster.publish(new SseFrame("events", "tick", Map.of("n", 1), null));
+        awaitUntil(() -> broadcaster.getLastFrameId() > beforeFirstFrame + 1);
+
+        RecordingEmitter resumed = new RecordingEmitter();
+        broadcaster.subscribe("events", resumed, SubscriptionFilter.ALL, greeting(),
+            String.valueOf(beforeFirstFrame));
+        awaitUntil(() -> resumed.frames.size() >= 2);
+
+        assertThat(resumed.frames.get(1)).contains("resync");
+    }
+
+    @Test
+    void areaOnlyFramesReachRadiusSubscribersNearTheArea() {
+        RecordingEmitter nearby = new RecordingEmitter();
+        broadcaster.subscribe("mood", nearby, SubscriptionFilter.of(null, 12.93, 77.63, 3.0, null, null),
+            greeting(), null);
+
+        broadcaster.publish(new SseFrame("mood", "moodUpdate", Map.of("area", "Unknown Layout"), null,
+            FrameScope.area("Unknown Layout")));
+        broadcaster.publish(new SseFrame("mood", "moodUpdate", Map.of("area", "Koramangala"), null,
+            FrameScope.area("Koramangala")));
+        broadcaster.publish(new SseFrame("mood", "systemStatus", Map.of("status", "ok"), null));
+        awaitUntil(() -> nearby.frames.size() == 3);
+
+        assertThat(nearby.frames.get(1)).contains("Koramangala");
+        assertThat(nearby.frames.get(2)).contains("systemStatus");
+    }
+
+    private static SseFrame greeting() {
+        return new SseFrame("events", "connected", Map.of("status", "connected"), null);
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("timed out waiting for frames").isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Records the written frames; deliberately not synchronized, so overlapping writers are caught
+     */
+    private static final class RecordingEmitter extends SseEmitter {
+        private final List<String> frames = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger writing = new AtomicInteger();
+        private volatile boolean overlapped;
+
+        @Override
+        public void send(Set<DataWithMediaType> items) {
+            if (writing.incrementAndGet() > 1) {
+                overlapped = true;
+            }
+            try {
+                items.forEach(item -> frames.add(new String((byte[]) item.getData(), StandardCharsets.UTF_8)));
+                Thread.yield();
+            } finally {
+                writing.decrementAndGet();
+            }
+        }
+
+        List<Long> ids() {
+            List<Long> ids = new ArrayList<>();
+            synchronized (frames) {
+                for (String frame : frames) {
+                    frame.lines()
+                        .filter(line -> line.startsWith("id:"))
+                        .forEach(line -> ids.add(Long.parseLong(line.substring(3).trim())));
+                }
+            }
+            return ids;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.lemillion.city_data_overload_server.stream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lemillion.city_data_overload_server.config.BengaluruConfig;
+import com.lemillion.city_data_overload_server.config.EventStreamConfig;
+import com.lemillion.city_data_overload_server.config.RedisConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class SseFrameBusTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private SseBroadcaster broadcaster;
+    private SseFrameBus bus;
+    private RecordingEmitter emitter;
+
+    @BeforeEach
+    void startBus() {
+        EventStreamConfig config = new EventStreamConfig();
+        // Large enough that a slow writer never drops frames from the ordering burst
+        config.setQueueCapacity(2048);
+        broadcaster = new SseBroadcaster(config, new BengaluruConfig(), new SseFrameEncoder(objectMapper),
+            meterRegistry);
+        broadcaster.start();
+        bus = new SseFrameBus(config, broadcaster, null, null, null, objectMapper, meterRegistry);
+
+        emitter = new RecordingEmitter();
+        broadcaster.subscribe("events", emitter, SubscriptionFilter.ALL,
+            new SseFrame("events", "connected", Map.of("status", "connected"), null), null);
+    }
+
+    @AfterEach
+    void stopBroadcaster() {
+        broadcaster.stop();
+    }
+
+    @Test
+    void batchDeliveredAfterANewerOneIsDroppedAsDuplicate() {
+        long base = broadcaster.getLastFrameId();
+        bus.onMessage(batch(base + 20, 3), null);
+        bus.onMessage(batch(base + 10, 2), null);
+        awaitUntil(() -> meterRegistry.counter("sse.frames.dropped", "stream", "events", "reason", "duplicate")
+            .count() == 2);
+        awaitUntil(() -> emitter.ids().size() == 3);
+
+        assertThat(emitter.ids()).containsExactly(base + 18, base + 19, base + 20);
+    }
+
+    @Test
+    void listenerContainerDeliversBatchesInPublishOrder() {
+        RedisMessageListenerContainer container =
+            new RedisConfiguration().redisMessageListenerContainer(mock(RedisConnectionFactory.class));
+        Executor listenerExecutor = (Executor) ReflectionTestUtils.getField(container, "taskExecutor");
+
+        long base = broadcaster.getLastFrameId();
+        int batches = 200;
+        for (int i = 1; i <= batches; i++) {
+            Message message = batch(base + i * 5L, 5);
+            listenerExecutor.execute(() -> bus.onMessage(message, null));
+        }
+        awaitUntil(() -> emitter.ids().size() == batches * 5);
+
+        List<Long> ids = emitter.ids();
+        for (int i = 0; i < ids.size(); i++) {
+            assertThat(ids.get(i)).isEqualTo(base + i + 1);
+        }
+    }
+
+    /**
+     * Bus message as the publish script sends it: the batch's last ID, then its frames
+     */
+    private Message batch(long lastId, int size) {
+        List<SseFrameBus.BusFrame> frames = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            frames.add(new SseFrameBus.BusFrame("events", "tick", null, FrameScope.EVERYONE,
+                objectMapper.valueToTree(Map.of("n", i))));
+        }
+        try {
+            String body = lastId + "|" + objectMapper.writeValueAsString(frames);
+            return new DefaultMessage("sse:frames".getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("timed out waiting for frames").isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+    }
+
+    private static final class RecordingEmitter extends SseEmitter {
+        private final List<String> frames = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void send(Set<DataWithMediaType> items) {
+            items.forEach(item -> frames.add(new String((byte[]) item.getData(), StandardCharsets.UTF_8)));
+        }
+
+        List<Long> ids() {
+            List<Long> ids = new ArrayList<>();
+            synchronized (frames) {
+                for (String frame : frames) {
+                    frame.lines()
+                        .filter(line -> line.startsWith("id:"))
+                        .forEach(line -> ids.add(Long.parseLong(line.substring(3).trim())));
+                }
+            }
+            return ids;
+        }
+    }
+}
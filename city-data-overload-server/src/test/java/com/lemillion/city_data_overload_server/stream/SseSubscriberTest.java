@@ -0,0 +1,88 @@
+package com.lemillion.city_data_overload_server.stream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SseSubscriberTest {
+
+    @Test
+    void dropOldestMakesRoomByDroppingTheHeadOfTheQueue() {
+        SseSubscriber subscriber = subscriber(OverflowPolicy.DROP_OLDEST, 2);
+
+        assertThat(subscriber.offer(frame(1, null))).isEqualTo(SseSubscriber.Offer.QUEUED);
+        assertThat(subscriber.offer(frame(2, null))).isEqualTo(SseSubscriber.Offer.QUEUED);
+        assertThat(subscriber.offer(frame(3, null))).isEqualTo(SseSubscriber.Offer.DROPPED_OLDEST);
+
+        assertThat(drain(subscriber)).containsExactly(2L, 3L);
+    }
+
+    @Test
+    void coalesceReplacesTheQueuedFrameWithTheSameKey() {
+        SseSubscriber subscriber = subscriber(OverflowPolicy.COALESCE, 3);
+        subscriber.offer(frame(1, "mood:Koramangala"));
+        subscriber.offer(frame(2, "mood:Indiranagar"));
+        subscriber.offer(frame(3, null));
+
+        assertThat(subscriber.offer(frame(4, "mood:Koramangala"))).isEqualTo(SseSubscriber.Offer.COALESCED);
+
+        assertThat(drain(subscriber)).containsExactly(2L, 3L, 4L);
+    }
+
+    @Test
+    void coalesceWithNothingToMergeWithDropsTheOldest() {
+        SseSubscriber subscriber = subscriber(OverflowPolicy.COALESCE, 2);
+        subscriber.offer(frame(1, "mood:Koramangala"));
+        subscriber.offer(frame(2, null));
+
+        assertThat(subscriber.offer(frame(3, "mood:Whitefield"))).isEqualTo(SseSubscriber.Offer.DROPPED_OLDEST);
+        assertThat(subscriber.offer(frame(4, null))).isEqualTo(SseSubscriber.Offer.DROPPED_OLDEST);
+
+        assertThat(drain(subscriber)).containsExactly(3L, 4L);
+    }
+
+    @Test
+    void disconnectOverflowsWithoutQueueing() {
+        SseSubscriber subscriber = subscriber(OverflowPolicy.DISCONNECT, 2);
+        subscriber.offer(frame(1, null));
+        subscriber.offer(frame(2, null));
+
+        assertThat(subscriber.offer(frame(3, null))).isEqualTo(SseSubscriber.Offer.OVERFLOWED);
+
+        assertThat(drain(subscriber)).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void onlyOneWriterCanClaimTheSubscriberUntilItDrainsTheQueue() {
+        SseSubscriber subscriber = subscriber(OverflowPolicy.DROP_OLDEST, 2);
+        subscriber.offer(frame(1, null));
+
+        assertThat(subscriber.schedule()).isTrue();
+        assertThat(subscriber.schedule()).isFalse();
+
+        drain(subscriber);
+        assertThat(subscriber.schedule()).isTrue();
+    }
+
+    private static SseSubscriber subscriber(OverflowPolicy policy, int capacity) {
+        return new SseSubscriber("mood", new SseEmitter(), SubscriptionFilter.ALL, capacity, policy);
+    }
+
+    private static EncodedFrame frame(long id, String coalesceKey) {
+        return new EncodedFrame(FrameScope.EVERYONE, coalesceKey, id, new byte[0], Set.of());
+    }
+
+    private static List<Long> drain(SseSubscriber subscriber) {
+        List<Long> ids = new ArrayList<>();
+        EncodedFrame frame;
+        while ((frame = subscriber.poll()) != null) {
+            ids.add(frame.id());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,71 @@
+package com.lemillion.city_data_overload_server.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CosineLshIndexTest {
+
+    private static final int DIMENSIONS = 128;
+    private static final int VECTORS = 200;
+
+    private final Random random = new Random(7);
+
+    @Test
+    void vectorsAboveTheAggregationThresholdBecomeCandidates() {
+        CosineLshIndex<Integer> index = new CosineLshIndex<>(DIMENSIONS, 16, 6, 42L);
+        float[][] vectors = new float[VECTORS][];
+        for (int i = 0; i < VECTORS; i++) {
+            vectors[i] = randomVector();
+            index.add(vectors[i], i);
+        }
+
+        int found = 0;
+        for (int i = 0; i < VECTORS; i++) {
+            float[] nearDuplicate = perturb(vectors[i], 0.4f);
+            assertThat(TextVectors.cosine(vectors[i], nearDuplicate)).isGreaterThan(0.85);
+            if (index.candidates(nearDuplicate).contains(i)) {
+                found++;
+            }
+        }
+        assertThat(found).isGreaterThanOrEqualTo(VECTORS * 98 / 100);
+    }
+
+    @Test
+    void unrelatedVectorsAreMostlyNotCandidates() {
+        CosineLshIndex<Integer> index = new CosineLshIndex<>(DIMENSIONS, 16, 6, 42L);
+        for (int i = 0; i < VECTORS; i++) {
+            index.add(randomVector(), i);
+        }
+
+        int candidates = index.candidates(randomVector()).size();
+        assertThat(candidates).isLessThan(VECTORS / 3);
+    }
+
+    @Test
+    void vectorOfTheWrongSizeIsRejected() {
+        CosineLshIndex<Integer> index = new CosineLshIndex<>(DIMENSIONS, 16, 6, 42L);
+
+        assertThatThrownBy(() -> index.add(new float[DIMENSIONS / 2], 1))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private float[] randomVector() {
+        float[] vector = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return TextVectors.normalize(vector);
+    }
+
+    private float[] perturb(float[] vector, float noise) {
+        float[] perturbed = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            perturbed[i] = vector[i] + noise * (float) random.nextGaussian() / (float) Math.sqrt(DIMENSIONS);
+        }
+        return TextVectors.normalize(perturbed);
+    }
+}
@@ -0,0 +1,48 @@
+package com.lemillion.city_data_overload_server.util;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GeoHashTest {
+
+    private static final double LATITUDE = 12.9716;
+    private static final double LONGITUDE = 77.5946;
+    private static final double KM_PER_DEGREE = 111.32;
+
+    @ParameterizedTest
+    @ValueSource(doubles = {0.5, 2, 5, 10, 25})
+    void coveringPrefixesContainEveryPointInsideTheCircle(double radiusKm) {
+        Set<String> prefixes = GeoHash.coveringPrefixes(LATITUDE, LONGITUDE, radiusKm);
+
+        assertThat(prefixes).isNotEmpty().hasSizeLessThanOrEqualTo(GeoHash.MAX_COVERING_CELLS);
+        for (int bearing = 0; bearing < 360; bearing += 10) {
+            for (double fraction : new double[] {0, 0.5, 0.99}) {
+                double[] point = offset(radiusKm * fraction, bearing);
+                String geohash = GeoHash.encode(point[0], point[1], GeoHash.STORAGE_PRECISION);
+                assertThat(prefixes).as("cell of point %.3f,%.3f", point[0], point[1])
+                    .anyMatch(geohash::startsWith);
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(doubles = {5, 10})
+    void cityRadiiAreCoveredWithFineCells(double radiusKm) {
+        Set<String> prefixes = GeoHash.coveringPrefixes(LATITUDE, LONGITUDE, radiusKm);
+
+        // Precision 5 cells are about 5km across; coarser ones would read far more than the circle
+        assertThat(prefixes).allMatch(prefix -> prefix.length() >= 5);
+    }
+
+    private static double[] offset(double distanceKm, double bearingDegrees) {
+        double bearing = Math.toRadians(bearingDegrees);
+        double latitude = LATITUDE + distanceKm * Math.cos(bearing) / KM_PER_DEGREE;
+        double longitude = LONGITUDE
+            + distanceKm * Math.sin(bearing) / (KM_PER_DEGREE * Math.cos(Math.toRadians(LATITUDE)));
+        return new double[] {latitude, longitude};
+    }
+}
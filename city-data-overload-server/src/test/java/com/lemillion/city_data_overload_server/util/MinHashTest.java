@@ -0,0 +1,49 @@
+package com.lemillion.city_data_overload_server.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MinHashTest {
+
+    private static final String HEADLINE = "Heavy traffic jam on Outer Ring Road near Bellandur after rain";
+    private static final String REWORDED = "Heavy traffic jam on Outer Ring Road near Bellandur after heavy rain";
+    private static final String UNRELATED = "Water supply cut in Jayanagar on Sunday for pipeline maintenance";
+
+    private final MinHash minHash = new MinHash(128, 5, 42L);
+
+    @Test
+    void similarityEstimatesShingleOverlap() {
+        int[] headline = minHash.signature(HEADLINE);
+
+        assertThat(MinHash.similarity(headline, minHash.signature(HEADLINE))).isEqualTo(1.0);
+        assertThat(MinHash.similarity(headline, minHash.signature(REWORDED))).isGreaterThanOrEqualTo(0.6);
+        assertThat(MinHash.similarity(headline, minHash.signature(UNRELATED))).isLessThan(0.2);
+    }
+
+    @Test
+    void caseAndPunctuationDoNotChangeTheSignature() {
+        assertThat(minHash.signature("Heavy traffic jam, Outer Ring Road!"))
+            .isEqualTo(minHash.signature("heavy traffic jam outer ring road"));
+    }
+
+    @Test
+    void sameSeedGivesComparableSignaturesAcrossInstances() {
+        MinHash other = new MinHash(128, 5, 42L);
+
+        assertThat(other.signature(HEADLINE)).isEqualTo(minHash.signature(HEADLINE));
+    }
+
+    @Test
+    void nearDuplicatesShareABand() {
+        String[] headline = MinHash.bandKeys(minHash.signature(HEADLINE), 32);
+        String[] reworded = MinHash.bandKeys(minHash.signature(REWORDED), 32);
+
+        assertThat(headline).hasSize(32);
+        boolean shared = false;
+        for (int band = 0; band < headline.length; band++) {
+            shared |= headline[band].equals(reworded[band]);
+        }
+        assertThat(shared).isTrue();
+    }
+}